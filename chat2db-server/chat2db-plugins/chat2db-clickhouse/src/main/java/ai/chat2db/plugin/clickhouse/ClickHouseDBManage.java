@@ -15,5 +15,12 @@ public class ClickHouseDBManage extends DefaultDBManage implements DBManage {
         SQLExecutor.getInstance().executeSql(connection, sql, resultSet -> null);
     }
 
-
+    /**
+     * ClickHouse has no session id for a jdbc connection, and the query id is chosen by the driver, which already
+     * kills the query by that id in {@link java.sql.Statement#cancel()}. Any other query of the shared account may
+     * have the same text, so no query is killed here.
+     */
+    @Override
+    public void killQuery(Connection connection, String sessionId, String sql) {
+    }
 }
@@ -1,8 +1,85 @@
 package ai.chat2db.plugin.clickhouse;
 
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
 import ai.chat2db.spi.MetaData;
 import ai.chat2db.spi.jdbc.DefaultMetaService;
+import ai.chat2db.spi.model.TableColumn;
+import ai.chat2db.spi.model.TableIndex;
+import ai.chat2db.spi.sql.SQLExecutor;
+import org.apache.commons.lang3.StringUtils;
 
 public class ClickHouseMetaData extends DefaultMetaService implements MetaData {
 
+    private static String ESTIMATE_COUNT_SQL
+        = "SELECT sumOrNull(rows) FROM system.parts WHERE active AND database = %s AND table = '%s'";
+
+    /**
+     * The rows of the active parts, null for tables without parts such as views. A qualified name database.table
+     * comes as the schema.
+     */
+    @Override
+    public Long estimateCount(Connection connection, String databaseName, String schemaName, String tableName) {
+        String database = StringUtils.firstNonBlank(schemaName, databaseName);
+        String sql = String.format(ESTIMATE_COUNT_SQL, database == null ? "currentDatabase()" : "'" + database + "'",
+            tableName);
+        return SQLExecutor.getInstance().execute(connection, sql, resultSet -> {
+            if (resultSet.next()) {
+                long count = resultSet.getLong(1);
+                return resultSet.wasNull() || count < 0 ? null : count;
+            }
+            return null;
+        });
+    }
+
+    private static String SELECT_SCHEMA_COLUMNS
+        = "SELECT table, name, type, default_expression, comment, position, is_in_primary_key FROM system.columns "
+        + "WHERE database = %s ORDER BY table, position";
+
+    /**
+     * The columns of all tables of the database from system.columns. A qualified name database.table comes as the
+     * schema.
+     */
+    @Override
+    public Map<String, List<TableColumn>> columnsOfSchema(Connection connection, String databaseName,
+                                                          String schemaName) {
+        String database = StringUtils.firstNonBlank(schemaName, databaseName);
+        String sql = String.format(SELECT_SCHEMA_COLUMNS,
+            database == null ? "currentDatabase()" : "'" + database + "'");
+        return SQLExecutor.getInstance().execute(connection, sql, resultSet -> {
+            Map<String, List<TableColumn>> map = new LinkedHashMap<>();
+            while (resultSet.next()) {
+                String tableName = resultSet.getString("table");
+                String type = resultSet.getString("type");
+                TableColumn column = new TableColumn();
+                column.setDatabaseName(databaseName);
+                column.setSchemaName(schemaName);
+                column.setTableName(tableName);
+                column.setName(resultSet.getString("name"));
+                column.setOldName(column.getName());
+                column.setColumnType(type);
+                column.setDefaultValue(StringUtils.defaultIfEmpty(resultSet.getString("default_expression"), null));
+                column.setComment(resultSet.getString("comment"));
+                column.setOrdinalPosition(resultSet.getInt("position"));
+                column.setNullable(StringUtils.startsWith(type, "Nullable(") ? 1 : 0);
+                column.setPrimaryKey(resultSet.getInt("is_in_primary_key") == 1);
+                map.computeIfAbsent(tableName, k -> new ArrayList<>()).add(column);
+            }
+            return map;
+        });
+    }
+
+    /**
+     * The driver reports no indexes for a ClickHouse table, the primary key and data skipping indexes are part of
+     * the table engine, so there is nothing to query.
+     */
+    @Override
+    public Map<String, List<TableIndex>> indexesOfSchema(Connection connection, String databaseName,
+                                                         String schemaName) {
+        return new LinkedHashMap<>();
+    }
 }
@@ -13,4 +13,9 @@ public class DB2DBManage extends DefaultDBManage implements DBManage {
         String sql = "DROP TABLE " + tableName;
         SQLExecutor.getInstance().executeSql(connection,sql, resultSet -> null);
     }
+
+    @Override
+    public String getValidationQuery() {
+        return "SELECT 1 FROM SYSIBM.SYSDUMMY1";
+    }
 }
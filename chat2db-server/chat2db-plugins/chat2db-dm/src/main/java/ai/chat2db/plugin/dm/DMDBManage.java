@@ -14,4 +14,9 @@ public class DMDBManage extends DefaultDBManage implements DBManage {
         String sql = "DROP TABLE IF EXISTS " +tableName;
         SQLExecutor.getInstance().executeSql(connection,sql, resultSet -> null);
     }
+
+    @Override
+    public String getValidationQuery() {
+        return "SELECT 1 FROM DUAL";
+    }
 }
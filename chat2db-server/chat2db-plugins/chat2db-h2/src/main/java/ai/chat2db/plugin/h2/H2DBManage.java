@@ -33,4 +33,18 @@ public class H2DBManage extends DefaultDBManage implements DBManage {
         String sql = "DROP TABLE " +tableName;
         SQLExecutor.getInstance().executeSql(connection,sql, resultSet -> null);
     }
+
+    @Override
+    public String getSessionId(Connection connection) {
+        return SQLExecutor.getInstance().execute(connection, "SELECT SESSION_ID()",
+            resultSet -> resultSet.next() ? resultSet.getString(1) : null);
+    }
+
+    @Override
+    public void killQuery(Connection connection, String sessionId, String sql) {
+        if (StringUtils.isEmpty(sessionId)) {
+            return;
+        }
+        SQLExecutor.getInstance().executeSql(connection, "CALL CANCEL_SESSION(" + sessionId + ")", resultSet -> null);
+    }
 }
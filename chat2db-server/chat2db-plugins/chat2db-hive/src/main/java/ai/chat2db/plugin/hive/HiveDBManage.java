@@ -14,4 +14,9 @@ public class HiveDBManage extends DefaultDBManage implements DBManage {
         String sql = "drop table if exists " +tableName;
         SQLExecutor.getInstance().executeSql(connection,sql, resultSet -> null);
     }
+
+    @Override
+    public String getValidationQuery() {
+        return "SELECT 1";
+    }
 }
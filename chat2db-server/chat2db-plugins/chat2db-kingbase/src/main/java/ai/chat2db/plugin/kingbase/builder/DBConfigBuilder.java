@@ -2,6 +2,8 @@ package ai.chat2db.plugin.kingbase.builder;
 
 import ai.chat2db.spi.config.DBConfig;
 import ai.chat2db.spi.config.DriverConfig;
+import ai.chat2db.spi.config.ExecutionProfile;
+import ai.chat2db.spi.enums.StreamingModeEnum;
 import com.google.common.collect.Lists;
 
 public class DBConfigBuilder {
@@ -15,6 +17,7 @@ public class DBConfigBuilder {
         driverConfig.setDownloadJdbcDriverUrls(Lists.newArrayList("https://oss-chat2db.alibaba.com/lib/kingbase8-8.6.0.jar"));
         dbConfig.setDefaultDriverConfig(driverConfig);
         dbConfig.setDriverConfigList(Lists.newArrayList(driverConfig));
+        dbConfig.setExecutionProfile(ExecutionProfile.of(StreamingModeEnum.CURSOR_IN_TRANSACTION));
         return dbConfig;
     }
 }
@@ -2,13 +2,33 @@ package ai.chat2db.plugin.mysql;
 
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.util.Map;
 
 import ai.chat2db.spi.DBManage;
 import ai.chat2db.spi.jdbc.DefaultDBManage;
+import ai.chat2db.spi.sql.ConnectInfo;
 import ai.chat2db.spi.sql.SQLExecutor;
 import org.springframework.util.StringUtils;
 
 public class MysqlDBManage extends DefaultDBManage implements DBManage {
+
+    private static final String REWRITE_BATCHED_STATEMENTS = "rewriteBatchedStatements";
+
+    /**
+     * Let the driver send a statement batch in one round trip unless the user configured it. It is passed as a
+     * driver property, the url of the datasource is left as it is.
+     */
+    @Override
+    protected Map<String, Object> getDriverProperties(ConnectInfo connectInfo) {
+        Map<String, Object> properties = super.getDriverProperties(connectInfo);
+        String url = connectInfo.getUrl();
+        if ((url == null || !url.contains(REWRITE_BATCHED_STATEMENTS))
+            && !properties.containsKey(REWRITE_BATCHED_STATEMENTS)) {
+            properties.put(REWRITE_BATCHED_STATEMENTS, "true");
+        }
+        return properties;
+    }
+
     @Override
     public void connectDatabase(Connection connection, String database) {
         if (StringUtils.isEmpty(database)) {
@@ -32,4 +52,18 @@ public class MysqlDBManage extends DefaultDBManage implements DBManage {
     public static String format(String tableName) {
         return "`" + tableName + "`";
     }
+
+    @Override
+    public String getSessionId(Connection connection) {
+        return SQLExecutor.getInstance().execute(connection, "SELECT CONNECTION_ID()",
+            resultSet -> resultSet.next() ? resultSet.getString(1) : null);
+    }
+
+    @Override
+    public void killQuery(Connection connection, String sessionId, String sql) {
+        if (StringUtils.isEmpty(sessionId)) {
+            return;
+        }
+        SQLExecutor.getInstance().executeSql(connection, "KILL QUERY " + sessionId, resultSet -> null);
+    }
 }
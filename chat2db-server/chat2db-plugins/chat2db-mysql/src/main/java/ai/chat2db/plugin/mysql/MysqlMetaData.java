@@ -3,6 +3,7 @@ package ai.chat2db.plugin.mysql;
 import java.sql.Connection;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Timestamp;
 import java.util.*;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -136,36 +137,56 @@ public class MysqlMetaData extends DefaultMetaService implements MetaData {
 
     private static String SELECT_TABLE_COLUMNS = "SELECT * FROM information_schema.COLUMNS  WHERE TABLE_SCHEMA =  '%s'  AND TABLE_NAME =  '%s'  order by ORDINAL_POSITION";
 
+    private static String SELECT_SCHEMA_COLUMNS = "SELECT * FROM information_schema.COLUMNS  WHERE TABLE_SCHEMA =  '%s'  order by TABLE_NAME, ORDINAL_POSITION";
+
     @Override
     public List<TableColumn> columns(Connection connection, String databaseName, String schemaName, String tableName) {
         String sql = String.format(SELECT_TABLE_COLUMNS, databaseName, tableName);
         List<TableColumn> tableColumns = new ArrayList<>();
         return SQLExecutor.getInstance().execute(connection, sql, resultSet -> {
             while (resultSet.next()) {
-                TableColumn column = new TableColumn();
-                column.setDatabaseName(databaseName);
-                column.setTableName(tableName);
-                column.setOldName(resultSet.getString("COLUMN_NAME"));
-                column.setName(resultSet.getString("COLUMN_NAME"));
-                //column.setColumnType(resultSet.getString("COLUMN_TYPE"));
-                column.setColumnType(resultSet.getString("DATA_TYPE").toUpperCase());
-                //column.setDataType(resultSet.getInt("DATA_TYPE"));
-                column.setDefaultValue(resultSet.getString("COLUMN_DEFAULT"));
-                column.setAutoIncrement(resultSet.getString("EXTRA").contains("auto_increment"));
-                column.setComment(resultSet.getString("COLUMN_COMMENT"));
-                column.setPrimaryKey("PRI".equalsIgnoreCase(resultSet.getString("COLUMN_KEY")));
-                column.setNullable("YES".equalsIgnoreCase(resultSet.getString("IS_NULLABLE")) ? 1 : 0);
-                column.setOrdinalPosition(resultSet.getInt("ORDINAL_POSITION"));
-                column.setDecimalDigits(resultSet.getInt("NUMERIC_SCALE"));
-                column.setCharSetName(resultSet.getString("CHARACTER_SET_NAME"));
-                column.setCollationName(resultSet.getString("COLLATION_NAME"));
-                setColumnSize(column, resultSet.getString("COLUMN_TYPE"));
-                tableColumns.add(column);
+                tableColumns.add(buildColumn(resultSet, databaseName, tableName));
             }
             return tableColumns;
         });
     }
 
+    @Override
+    public Map<String, List<TableColumn>> columnsOfSchema(Connection connection, String databaseName,
+                                                          String schemaName) {
+        String sql = String.format(SELECT_SCHEMA_COLUMNS, databaseName);
+        return SQLExecutor.getInstance().execute(connection, sql, resultSet -> {
+            Map<String, List<TableColumn>> map = new LinkedHashMap<>();
+            while (resultSet.next()) {
+                String tableName = resultSet.getString("TABLE_NAME");
+                map.computeIfAbsent(tableName, k -> new ArrayList<>()).add(buildColumn(resultSet, databaseName, tableName));
+            }
+            return map;
+        });
+    }
+
+    private TableColumn buildColumn(ResultSet resultSet, String databaseName, String tableName) throws SQLException {
+        TableColumn column = new TableColumn();
+        column.setDatabaseName(databaseName);
+        column.setTableName(tableName);
+        column.setOldName(resultSet.getString("COLUMN_NAME"));
+        column.setName(resultSet.getString("COLUMN_NAME"));
+        //column.setColumnType(resultSet.getString("COLUMN_TYPE"));
+        column.setColumnType(resultSet.getString("DATA_TYPE").toUpperCase());
+        //column.setDataType(resultSet.getInt("DATA_TYPE"));
+        column.setDefaultValue(resultSet.getString("COLUMN_DEFAULT"));
+        column.setAutoIncrement(resultSet.getString("EXTRA").contains("auto_increment"));
+        column.setComment(resultSet.getString("COLUMN_COMMENT"));
+        column.setPrimaryKey("PRI".equalsIgnoreCase(resultSet.getString("COLUMN_KEY")));
+        column.setNullable("YES".equalsIgnoreCase(resultSet.getString("IS_NULLABLE")) ? 1 : 0);
+        column.setOrdinalPosition(resultSet.getInt("ORDINAL_POSITION"));
+        column.setDecimalDigits(resultSet.getInt("NUMERIC_SCALE"));
+        column.setCharSetName(resultSet.getString("CHARACTER_SET_NAME"));
+        column.setCollationName(resultSet.getString("COLLATION_NAME"));
+        setColumnSize(column, resultSet.getString("COLUMN_TYPE"));
+        return column;
+    }
+
     private void setColumnSize(TableColumn column, String columnType) {
         try {
             if (columnType.contains("(")) {
@@ -217,46 +238,70 @@ public class MysqlMetaData extends DefaultMetaService implements MetaData {
         queryBuf.append("`").append(tableName).append("`");
         queryBuf.append(" FROM ");
         queryBuf.append("`").append(databaseName).append("`");
-        return SQLExecutor.getInstance().execute(connection, queryBuf.toString(), resultSet -> {
-            LinkedHashMap<String, TableIndex> map = new LinkedHashMap();
-            while (resultSet.next()) {
-                String keyName = resultSet.getString("Key_name");
-                TableIndex tableIndex = map.get(keyName);
-                if (tableIndex != null) {
-                    List<TableIndexColumn> columnList = tableIndex.getColumnList();
-                    columnList.add(getTableIndexColumn(resultSet));
-                    columnList = columnList.stream().sorted(Comparator.comparing(TableIndexColumn::getOrdinalPosition))
-                            .collect(Collectors.toList());
-                    tableIndex.setColumnList(columnList);
+        return SQLExecutor.getInstance().execute(connection, queryBuf.toString(),
+            resultSet -> readIndexes(resultSet, databaseName, schemaName, tableName).getOrDefault(tableName,
+                new ArrayList<>()));
+    }
+
+    private static String SELECT_SCHEMA_INDEX = "SELECT TABLE_NAME AS `Table`, NON_UNIQUE AS Non_unique, INDEX_NAME AS Key_name, SEQ_IN_INDEX AS Seq_in_index, COLUMN_NAME AS Column_name, COLLATION AS Collation, CARDINALITY AS Cardinality, SUB_PART AS Sub_part, INDEX_TYPE AS Index_type, INDEX_COMMENT AS Index_comment FROM information_schema.STATISTICS WHERE TABLE_SCHEMA = '%s' ORDER BY TABLE_NAME, INDEX_NAME, SEQ_IN_INDEX";
+
+    @Override
+    public Map<String, List<TableIndex>> indexesOfSchema(Connection connection, String databaseName,
+                                                         String schemaName) {
+        String sql = String.format(SELECT_SCHEMA_INDEX, databaseName);
+        return SQLExecutor.getInstance().execute(connection, sql,
+            resultSet -> readIndexes(resultSet, databaseName, schemaName, null));
+    }
+
+    /**
+     * Read rows shaped like the result of SHOW INDEX
+     *
+     * @param tableName table of all rows, null to read it from the Table column
+     * @return table name to the indexes of the table
+     */
+    private Map<String, List<TableIndex>> readIndexes(ResultSet resultSet, String databaseName, String schemaName,
+                                                      String tableName) throws SQLException {
+        Map<String, LinkedHashMap<String, TableIndex>> tableMap = new LinkedHashMap<>();
+        while (resultSet.next()) {
+            String table = tableName == null ? resultSet.getString("Table") : tableName;
+            LinkedHashMap<String, TableIndex> map = tableMap.computeIfAbsent(table, k -> new LinkedHashMap<>());
+            String keyName = resultSet.getString("Key_name");
+            TableIndex tableIndex = map.get(keyName);
+            if (tableIndex != null) {
+                List<TableIndexColumn> columnList = tableIndex.getColumnList();
+                columnList.add(getTableIndexColumn(resultSet));
+                columnList = columnList.stream().sorted(Comparator.comparing(TableIndexColumn::getOrdinalPosition))
+                        .collect(Collectors.toList());
+                tableIndex.setColumnList(columnList);
+            } else {
+                TableIndex index = new TableIndex();
+                index.setDatabaseName(databaseName);
+                index.setSchemaName(schemaName);
+                index.setTableName(table);
+                index.setName(keyName);
+                index.setUnique(!resultSet.getBoolean("Non_unique"));
+                index.setType(resultSet.getString("Index_type"));
+                index.setComment(resultSet.getString("Index_comment"));
+                List<TableIndexColumn> tableIndexColumns = new ArrayList<>();
+                tableIndexColumns.add(getTableIndexColumn(resultSet));
+                index.setColumnList(tableIndexColumns);
+                if ("PRIMARY".equalsIgnoreCase(keyName)) {
+                    index.setType(MysqlIndexTypeEnum.PRIMARY_KEY.getName());
+                } else if (index.getUnique()) {
+                    index.setType(MysqlIndexTypeEnum.UNIQUE.getName());
+                } else if ("SPATIAL".equalsIgnoreCase(index.getType())) {
+                    index.setType(MysqlIndexTypeEnum.SPATIAL.getName());
+                } else if ("FULLTEXT".equalsIgnoreCase(index.getType())) {
+                    index.setType(MysqlIndexTypeEnum.FULLTEXT.getName());
                 } else {
-                    TableIndex index = new TableIndex();
-                    index.setDatabaseName(databaseName);
-                    index.setSchemaName(schemaName);
-                    index.setTableName(tableName);
-                    index.setName(keyName);
-                    index.setUnique(!resultSet.getBoolean("Non_unique"));
-                    index.setType(resultSet.getString("Index_type"));
-                    index.setComment(resultSet.getString("Index_comment"));
-                    List<TableIndexColumn> tableIndexColumns = new ArrayList<>();
-                    tableIndexColumns.add(getTableIndexColumn(resultSet));
-                    index.setColumnList(tableIndexColumns);
-                    if ("PRIMARY".equalsIgnoreCase(keyName)) {
-                        index.setType(MysqlIndexTypeEnum.PRIMARY_KEY.getName());
-                    } else if (index.getUnique()) {
-                        index.setType(MysqlIndexTypeEnum.UNIQUE.getName());
-                    } else if ("SPATIAL".equalsIgnoreCase(index.getType())) {
-                        index.setType(MysqlIndexTypeEnum.SPATIAL.getName());
-                    } else if ("FULLTEXT".equalsIgnoreCase(index.getType())) {
-                        index.setType(MysqlIndexTypeEnum.FULLTEXT.getName());
-                    } else {
-                        index.setType(MysqlIndexTypeEnum.NORMAL.getName());
-                    }
-                    map.put(keyName, index);
+                    index.setType(MysqlIndexTypeEnum.NORMAL.getName());
                 }
+                map.put(keyName, index);
             }
-            return map.values().stream().collect(Collectors.toList());
-        });
-
+        }
+        Map<String, List<TableIndex>> result = new LinkedHashMap<>();
+        tableMap.forEach((table, map) -> result.put(table, map.values().stream().collect(Collectors.toList())));
+        return result;
     }
 
     private TableIndexColumn getTableIndexColumn(ResultSet resultSet) throws SQLException {
@@ -294,4 +339,47 @@ public class MysqlMetaData extends DefaultMetaService implements MetaData {
     public String getMetaDataName(String... names) {
         return Arrays.stream(names).filter(name -> StringUtils.isNotBlank(name)).map(name -> "`" + name + "`").collect(Collectors.joining("."));
     }
+
+    private static String ESTIMATE_COUNT_SQL
+            = "SELECT TABLE_ROWS FROM information_schema.TABLES WHERE TABLE_SCHEMA = %s AND TABLE_NAME = '%s'";
+
+    /**
+     * The row count kept by the storage engine, exact for MyISAM and sampled for InnoDB. A qualified name
+     * database.table comes as the schema.
+     */
+    @Override
+    public Long estimateCount(Connection connection, String databaseName, String schemaName, String tableName) {
+        String database = StringUtils.firstNonBlank(schemaName, databaseName);
+        String sql = String.format(ESTIMATE_COUNT_SQL, database == null ? "DATABASE()" : "'" + database + "'",
+                tableName);
+        return SQLExecutor.getInstance().execute(connection, sql, resultSet -> {
+            if (resultSet.next()) {
+                long count = resultSet.getLong(1);
+                return resultSet.wasNull() || count < 0 ? null : count;
+            }
+            return null;
+        });
+    }
+
+    private static String TABLE_DDL_TIMES_SQL
+            = "SELECT TABLE_NAME, CREATE_TIME FROM information_schema.TABLES WHERE TABLE_SCHEMA = %s";
+
+    /**
+     * CREATE_TIME also changes when an ALTER TABLE rebuilds the table.
+     */
+    @Override
+    public Map<String, Long> tableDdlTimes(Connection connection, String databaseName, String schemaName) {
+        String database = StringUtils.firstNonBlank(schemaName, databaseName);
+        String sql = String.format(TABLE_DDL_TIMES_SQL, database == null ? "DATABASE()" : "'" + database + "'");
+        return SQLExecutor.getInstance().execute(connection, sql, resultSet -> {
+            Map<String, Long> map = new HashMap<>();
+            while (resultSet.next()) {
+                Timestamp time = resultSet.getTimestamp("CREATE_TIME");
+                if (time != null) {
+                    map.put(resultSet.getString("TABLE_NAME"), time.getTime());
+                }
+            }
+            return map;
+        });
+    }
 }
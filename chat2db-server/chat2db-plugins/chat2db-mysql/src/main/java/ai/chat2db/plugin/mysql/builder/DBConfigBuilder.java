@@ -2,6 +2,8 @@ package ai.chat2db.plugin.mysql.builder;
 
 import ai.chat2db.spi.config.DBConfig;
 import ai.chat2db.spi.config.DriverConfig;
+import ai.chat2db.spi.config.ExecutionProfile;
+import ai.chat2db.spi.enums.StreamingModeEnum;
 import com.google.common.collect.Lists;
 
 public class DBConfigBuilder {
@@ -24,6 +26,7 @@ public class DBConfigBuilder {
         driverConfig2.setDownloadJdbcDriverUrls(Lists.newArrayList("https://oss-chat2db.alibaba.com/lib/mysql-connector-java-5.1.47.jar"));
 
         dbConfig.setDriverConfigList(Lists.newArrayList(driverConfig,driverConfig2));
+        dbConfig.setExecutionProfile(ExecutionProfile.of(StreamingModeEnum.ROW_STREAMING));
         return dbConfig;
     }
 }
@@ -27,4 +27,8 @@ public class OracleDBManage extends DefaultDBManage implements DBManage {
         }
     }
 
+    @Override
+    public String getValidationQuery() {
+        return "SELECT 1 FROM DUAL";
+    }
 }
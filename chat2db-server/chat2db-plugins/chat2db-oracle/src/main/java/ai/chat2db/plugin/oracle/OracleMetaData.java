@@ -3,14 +3,17 @@ package ai.chat2db.plugin.oracle;
 import java.sql.Connection;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Timestamp;
 import java.util.*;
 import java.util.stream.Collectors;
 
 import ai.chat2db.plugin.oracle.builder.OracleSqlBuilder;
 import ai.chat2db.plugin.oracle.type.OracleColumnTypeEnum;
 import ai.chat2db.plugin.oracle.type.OracleIndexTypeEnum;
+import ai.chat2db.spi.ColumnReader;
 import ai.chat2db.spi.MetaData;
 import ai.chat2db.spi.SqlBuilder;
+import ai.chat2db.spi.jdbc.DefaultColumnReader;
 import ai.chat2db.spi.jdbc.DefaultMetaService;
 import ai.chat2db.spi.model.*;
 import ai.chat2db.spi.sql.SQLExecutor;
@@ -21,6 +24,11 @@ import org.apache.commons.lang3.StringUtils;
 
 public class OracleMetaData extends DefaultMetaService implements MetaData {
 
+    /**
+     * oracle.jdbc.OracleTypes.TIMESTAMPTZ
+     */
+    private static final int TIMESTAMPTZ = -101;
+
     private static final String TABLE_DDL_SQL = "select dbms_metadata.get_ddl('TABLE','%s','%s') as sql from dual";
 
     private List<String> systemSchemas = Arrays.asList("ANONYMOUS","APEX_030200","APEX_PUBLIC_USER","APPQOSSYS","BI","CTXSYS","DBSNMP","DIP","EXFSYS","FLOWS_FILES","HR","IX","MDDATA","MDSYS","MGMT_VIEW","OE","OLAPSYS","ORACLE_OCM","ORDDATA","ORDPLUGINS","ORDSYS","OUTLN","OWBSYS","OWBSYS_AUDIT","PM","SCOTT","SH","SI_INFORMTN_SCHEMA","SPATIAL_CSW_ADMIN_USR","SPATIAL_WFS_ADMIN_USR","SYS","SYSMAN","SYSTEM","WMSYS","XDB","XS$NULL");
@@ -74,35 +82,55 @@ public class OracleMetaData extends DefaultMetaService implements MetaData {
 
     private static String SELECT_TAB_COLS = "SELECT atc.column_id , atc.column_name as COLUMN_NAME, atc.data_type as DATA_TYPE , atc.data_length as DATA_LENGTH , atc.data_type_mod , atc.nullable ,  atc.data_default ,  acc.comments ,  atc.DATA_PRECISION ,  atc.DATA_SCALE , atc.CHAR_USED  FROM  all_tab_columns atc, all_col_comments acc WHERE atc.owner = acc.owner AND atc.table_name = acc.table_name AND atc.column_name = acc.column_name AND atc.owner = '%s'  AND atc.table_name = '%s'  order by atc.column_id";
 
+    private static String SELECT_SCHEMA_TAB_COLS = "SELECT atc.table_name as TABLE_NAME, atc.column_id , atc.column_name as COLUMN_NAME, atc.data_type as DATA_TYPE , atc.data_length as DATA_LENGTH , atc.data_type_mod , atc.nullable ,  atc.data_default ,  acc.comments ,  atc.DATA_PRECISION ,  atc.DATA_SCALE , atc.CHAR_USED  FROM  all_tab_columns atc, all_col_comments acc WHERE atc.owner = acc.owner AND atc.table_name = acc.table_name AND atc.column_name = acc.column_name AND atc.owner = '%s'  order by atc.table_name, atc.column_id";
+
     @Override
     public List<TableColumn> columns(Connection connection, String databaseName, String schemaName, String tableName) {
         String sql = String.format(SELECT_TAB_COLS, schemaName, tableName);
         return SQLExecutor.getInstance().execute(connection, sql, resultSet -> {
             List<TableColumn> tableColumns = new ArrayList<>();
             while (resultSet.next()) {
-                TableColumn tableColumn = new TableColumn();
-                tableColumn.setTableName(tableName);
-                tableColumn.setSchemaName(schemaName);
-                tableColumn.setName(resultSet.getString("COLUMN_NAME"));
-                tableColumn.setColumnType(resultSet.getString("DATA_TYPE"));
-                tableColumn.setColumnSize(resultSet.getInt("DATA_LENGTH"));
-                tableColumn.setDefaultValue(resultSet.getString("DATA_DEFAULT"));
-                tableColumn.setComment(resultSet.getString("COMMENTS"));
-                tableColumn.setNullable("Y".equalsIgnoreCase(resultSet.getString("NULLABLE")) ? 1 : 0);
-                tableColumn.setOrdinalPosition(resultSet.getInt("COLUMN_ID"));
-                tableColumn.setDecimalDigits(resultSet.getInt("DATA_SCALE"));
-                String charUsed = resultSet.getString("CHAR_USED");
-                if ("B".equalsIgnoreCase(charUsed)) {
-                    tableColumn.setUnit("BYTE");
-                } else if ("C".equalsIgnoreCase(charUsed)) {
-                    tableColumn.setUnit("CHAR");
-                }
-                tableColumns.add(tableColumn);
+                tableColumns.add(buildColumn(resultSet, schemaName, tableName));
             }
             return tableColumns;
         });
     }
 
+    @Override
+    public Map<String, List<TableColumn>> columnsOfSchema(Connection connection, String databaseName,
+                                                          String schemaName) {
+        String sql = String.format(SELECT_SCHEMA_TAB_COLS, schemaName);
+        return SQLExecutor.getInstance().execute(connection, sql, resultSet -> {
+            Map<String, List<TableColumn>> map = new LinkedHashMap<>();
+            while (resultSet.next()) {
+                String tableName = resultSet.getString("TABLE_NAME");
+                map.computeIfAbsent(tableName, k -> new ArrayList<>()).add(buildColumn(resultSet, schemaName, tableName));
+            }
+            return map;
+        });
+    }
+
+    private TableColumn buildColumn(ResultSet resultSet, String schemaName, String tableName) throws SQLException {
+        TableColumn tableColumn = new TableColumn();
+        tableColumn.setTableName(tableName);
+        tableColumn.setSchemaName(schemaName);
+        tableColumn.setName(resultSet.getString("COLUMN_NAME"));
+        tableColumn.setColumnType(resultSet.getString("DATA_TYPE"));
+        tableColumn.setColumnSize(resultSet.getInt("DATA_LENGTH"));
+        tableColumn.setDefaultValue(resultSet.getString("DATA_DEFAULT"));
+        tableColumn.setComment(resultSet.getString("COMMENTS"));
+        tableColumn.setNullable("Y".equalsIgnoreCase(resultSet.getString("NULLABLE")) ? 1 : 0);
+        tableColumn.setOrdinalPosition(resultSet.getInt("COLUMN_ID"));
+        tableColumn.setDecimalDigits(resultSet.getInt("DATA_SCALE"));
+        String charUsed = resultSet.getString("CHAR_USED");
+        if ("B".equalsIgnoreCase(charUsed)) {
+            tableColumn.setUnit("BYTE");
+        } else if ("C".equalsIgnoreCase(charUsed)) {
+            tableColumn.setUnit("CHAR");
+        }
+        return tableColumn;
+    }
+
     private static String ROUTINES_SQL
             = "SELECT LINE, TEXT "
             + "FROM ALL_SOURCE "
@@ -142,6 +170,27 @@ public class OracleMetaData extends DefaultMetaService implements MetaData {
     @Override
     public List<TableIndex> indexes(Connection connection, String databaseName, String schemaName, String tableName) {
         String pkSql = String.format(SELECT_PK_SQL, schemaName, tableName);
+        Set<String> pkSet = primaryKeys(connection, pkSql);
+        String sql = String.format(SELECT_TABLE_INDEX, schemaName, tableName);
+        return SQLExecutor.getInstance().execute(connection, sql,
+            resultSet -> readIndexes(resultSet, databaseName, schemaName, tableName, pkSet).getOrDefault(tableName,
+                new ArrayList<>()));
+    }
+
+    private static String SELECT_SCHEMA_PK_SQL = "select  acc.CONSTRAINT_NAME from  all_cons_columns acc,  all_constraints ac  where  acc.constraint_name = ac.constraint_name  and acc.owner = ac.owner  and acc.owner = '%s'  and ac.constraint_type = 'P' ";
+
+    private static String SELECT_SCHEMA_INDEX = "SELECT ai.table_name AS TABLE_NAME, ai.index_name AS Key_name, aic.column_name AS Column_name, ai.index_type AS Index_type, ai.uniqueness AS Unique_name, aic.COLUMN_POSITION as Seq_in_index, aic.descend AS Collation, ex.COLUMN_EXPRESSION as COLUMN_EXPRESSION FROM all_ind_columns aic JOIN all_indexes ai ON aic.table_owner = ai.table_owner and aic.table_name = ai.table_name and aic.index_name = ai.index_name LEFT JOIN ALL_IND_EXPRESSIONS ex ON aic.table_owner = ex.table_owner and aic.table_name = ex.table_name and aic.index_name = ex.index_name where ai.table_owner = '%s' ORDER BY ai.table_name, ai.index_name, aic.COLUMN_POSITION";
+
+    @Override
+    public Map<String, List<TableIndex>> indexesOfSchema(Connection connection, String databaseName,
+                                                         String schemaName) {
+        Set<String> pkSet = primaryKeys(connection, String.format(SELECT_SCHEMA_PK_SQL, schemaName));
+        String sql = String.format(SELECT_SCHEMA_INDEX, schemaName);
+        return SQLExecutor.getInstance().execute(connection, sql,
+            resultSet -> readIndexes(resultSet, databaseName, schemaName, null, pkSet));
+    }
+
+    private Set<String> primaryKeys(Connection connection, String pkSql) {
         Set<String> pkSet = new HashSet<>();
         SQLExecutor.getInstance().execute(connection, pkSql, resultSet -> {
                     while (resultSet.next()) {
@@ -150,48 +199,57 @@ public class OracleMetaData extends DefaultMetaService implements MetaData {
                     return null;
                 }
         );
+        return pkSet;
+    }
 
-        String sql = String.format(SELECT_TABLE_INDEX, schemaName, tableName);
-        return SQLExecutor.getInstance().execute(connection, sql, resultSet -> {
-            LinkedHashMap<String, TableIndex> map = new LinkedHashMap();
-            while (resultSet.next()) {
-                String keyName = resultSet.getString("Key_name");
-                TableIndex tableIndex = map.get(keyName);
-                if (tableIndex != null) {
-                    List<TableIndexColumn> columnList = tableIndex.getColumnList();
-                    columnList.add(getTableIndexColumn(resultSet));
-                    columnList = columnList.stream().sorted(Comparator.comparing(TableIndexColumn::getOrdinalPosition))
-                            .collect(Collectors.toList());
-                    tableIndex.setColumnList(columnList);
-                } else {
-                    TableIndex index = new TableIndex();
-                    index.setDatabaseName(databaseName);
-                    index.setSchemaName(schemaName);
-                    index.setTableName(tableName);
-                    index.setName(keyName);
-                    index.setUnique("unique".equalsIgnoreCase(resultSet.getString("Unique_name")));
-                    index.setType(resultSet.getString("Index_type"));
-                    List<TableIndexColumn> tableIndexColumns = new ArrayList<>();
-                    tableIndexColumns.add(getTableIndexColumn(resultSet));
-                    index.setColumnList(tableIndexColumns);
-                    if (index.getUnique()) {
-                        index.setType(OracleIndexTypeEnum.UNIQUE.getName());
-                    } else if ("NORMAL".equalsIgnoreCase(index.getType())) {
-                        index.setType(OracleIndexTypeEnum.NORMAL.getName());
-                    } else if ("BITMAP".equalsIgnoreCase(index.getType())) {
-                        index.setType(OracleIndexTypeEnum.BITMAP.getName());
-                    } else if (StringUtils.isNotBlank(index.getType()) && index.getType().toUpperCase().contains("NORMAL")) {
-                        index.setType(OracleIndexTypeEnum.NORMAL.getName());
-                    }
-                    if (pkSet.contains(keyName)) {
-                        index.setType(OracleIndexTypeEnum.PRIMARY_KEY.getName());
-                    }
-                    map.put(keyName, index);
+    /**
+     * @param tableName table of all rows, null to read it from the TABLE_NAME column
+     * @param pkSet     names of the primary key constraints
+     * @return table name to the indexes of the table
+     */
+    private Map<String, List<TableIndex>> readIndexes(ResultSet resultSet, String databaseName, String schemaName,
+                                                      String tableName, Set<String> pkSet) throws SQLException {
+        Map<String, LinkedHashMap<String, TableIndex>> tableMap = new LinkedHashMap<>();
+        while (resultSet.next()) {
+            String table = tableName == null ? resultSet.getString("TABLE_NAME") : tableName;
+            LinkedHashMap<String, TableIndex> map = tableMap.computeIfAbsent(table, k -> new LinkedHashMap<>());
+            String keyName = resultSet.getString("Key_name");
+            TableIndex tableIndex = map.get(keyName);
+            if (tableIndex != null) {
+                List<TableIndexColumn> columnList = tableIndex.getColumnList();
+                columnList.add(getTableIndexColumn(resultSet));
+                columnList = columnList.stream().sorted(Comparator.comparing(TableIndexColumn::getOrdinalPosition))
+                        .collect(Collectors.toList());
+                tableIndex.setColumnList(columnList);
+            } else {
+                TableIndex index = new TableIndex();
+                index.setDatabaseName(databaseName);
+                index.setSchemaName(schemaName);
+                index.setTableName(table);
+                index.setName(keyName);
+                index.setUnique("unique".equalsIgnoreCase(resultSet.getString("Unique_name")));
+                index.setType(resultSet.getString("Index_type"));
+                List<TableIndexColumn> tableIndexColumns = new ArrayList<>();
+                tableIndexColumns.add(getTableIndexColumn(resultSet));
+                index.setColumnList(tableIndexColumns);
+                if (index.getUnique()) {
+                    index.setType(OracleIndexTypeEnum.UNIQUE.getName());
+                } else if ("NORMAL".equalsIgnoreCase(index.getType())) {
+                    index.setType(OracleIndexTypeEnum.NORMAL.getName());
+                } else if ("BITMAP".equalsIgnoreCase(index.getType())) {
+                    index.setType(OracleIndexTypeEnum.BITMAP.getName());
+                } else if (StringUtils.isNotBlank(index.getType()) && index.getType().toUpperCase().contains("NORMAL")) {
+                    index.setType(OracleIndexTypeEnum.NORMAL.getName());
                 }
+                if (pkSet.contains(keyName)) {
+                    index.setType(OracleIndexTypeEnum.PRIMARY_KEY.getName());
+                }
+                map.put(keyName, index);
             }
-            return map.values().stream().collect(Collectors.toList());
-        });
-
+        }
+        Map<String, List<TableIndex>> result = new LinkedHashMap<>();
+        tableMap.forEach((table, map) -> result.put(table, map.values().stream().collect(Collectors.toList())));
+        return result;
     }
 
     private TableIndexColumn getTableIndexColumn(ResultSet resultSet) throws SQLException {
@@ -297,4 +355,51 @@ public class OracleMetaData extends DefaultMetaService implements MetaData {
     public String getMetaDataName(String... names) {
         return Arrays.stream(names).filter(name -> StringUtils.isNotBlank(name)).map(name -> "\"" + name + "\"").collect(Collectors.joining("."));
     }
+
+    @Override
+    public ColumnReader getColumnReader(String columnTypeName, int columnType) {
+        if (columnType == TIMESTAMPTZ) {
+            return DefaultColumnReader.OFFSET_DATE_TIME;
+        }
+        return null;
+    }
+
+    private static String ESTIMATE_COUNT_SQL
+        = "SELECT NUM_ROWS FROM ALL_TABLES WHERE OWNER = %s AND TABLE_NAME = '%s'";
+
+    /**
+     * The row count of the last statistics gathering, null if the table has none.
+     */
+    @Override
+    public Long estimateCount(Connection connection, String databaseName, String schemaName, String tableName) {
+        String sql = String.format(ESTIMATE_COUNT_SQL,
+            StringUtils.isBlank(schemaName) ? "SYS_CONTEXT('USERENV', 'CURRENT_SCHEMA')" : "'" + schemaName + "'",
+            tableName);
+        return SQLExecutor.getInstance().execute(connection, sql, resultSet -> {
+            if (resultSet.next()) {
+                long count = resultSet.getLong(1);
+                return resultSet.wasNull() || count < 0 ? null : count;
+            }
+            return null;
+        });
+    }
+
+    private static String TABLE_DDL_TIMES_SQL
+        = "SELECT OBJECT_NAME, LAST_DDL_TIME FROM ALL_OBJECTS WHERE OWNER = %s AND OBJECT_TYPE = 'TABLE'";
+
+    @Override
+    public Map<String, Long> tableDdlTimes(Connection connection, String databaseName, String schemaName) {
+        String sql = String.format(TABLE_DDL_TIMES_SQL,
+            StringUtils.isBlank(schemaName) ? "SYS_CONTEXT('USERENV', 'CURRENT_SCHEMA')" : "'" + schemaName + "'");
+        return SQLExecutor.getInstance().execute(connection, sql, resultSet -> {
+            Map<String, Long> map = new HashMap<>();
+            while (resultSet.next()) {
+                Timestamp time = resultSet.getTimestamp("LAST_DDL_TIME");
+                if (time != null) {
+                    map.put(resultSet.getString("OBJECT_NAME"), time.getTime());
+                }
+            }
+            return map;
+        });
+    }
 }
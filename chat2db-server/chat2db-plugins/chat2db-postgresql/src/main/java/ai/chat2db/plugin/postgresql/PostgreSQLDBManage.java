@@ -1,6 +1,7 @@
 package ai.chat2db.plugin.postgresql;
 
 import java.sql.Connection;
+import java.util.Map;
 
 import ai.chat2db.spi.DBManage;
 import ai.chat2db.spi.jdbc.DefaultDBManage;
@@ -10,6 +11,24 @@ import ai.chat2db.spi.sql.SQLExecutor;
 import org.apache.commons.lang3.StringUtils;
 
 public class PostgreSQLDBManage extends DefaultDBManage implements DBManage {
+
+    private static final String REWRITE_BATCHED_INSERTS = "reWriteBatchedInserts";
+
+    /**
+     * Let the driver rewrite a batch of inserts into multi-row inserts unless the user configured it. It is passed
+     * as a driver property, the url of the datasource is left as it is.
+     */
+    @Override
+    protected Map<String, Object> getDriverProperties(ConnectInfo connectInfo) {
+        Map<String, Object> properties = super.getDriverProperties(connectInfo);
+        String url = connectInfo.getUrl();
+        if ((url == null || !url.contains(REWRITE_BATCHED_INSERTS))
+            && !properties.containsKey(REWRITE_BATCHED_INSERTS)) {
+            properties.put(REWRITE_BATCHED_INSERTS, "true");
+        }
+        return properties;
+    }
+
     @Override
     public void connectDatabase(Connection connection, String database) {
         try {
@@ -62,4 +81,18 @@ public class PostgreSQLDBManage extends DefaultDBManage implements DBManage {
         SQLExecutor.getInstance().executeSql(connection, sql, resultSet -> null);
     }
 
+    @Override
+    public String getSessionId(Connection connection) {
+        return SQLExecutor.getInstance().execute(connection, "SELECT pg_backend_pid()",
+            resultSet -> resultSet.next() ? resultSet.getString(1) : null);
+    }
+
+    @Override
+    public void killQuery(Connection connection, String sessionId, String sql) {
+        if (StringUtils.isEmpty(sessionId)) {
+            return;
+        }
+        SQLExecutor.getInstance().executeSql(connection, "SELECT pg_cancel_backend(" + sessionId + ")",
+            resultSet -> null);
+    }
 }
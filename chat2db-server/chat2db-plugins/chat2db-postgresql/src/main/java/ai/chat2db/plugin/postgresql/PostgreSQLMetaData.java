@@ -3,6 +3,7 @@ package ai.chat2db.plugin.postgresql;
 import java.sql.Connection;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Types;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -12,8 +13,10 @@ import ai.chat2db.plugin.postgresql.type.PostgreSQLCollationEnum;
 import ai.chat2db.plugin.postgresql.type.PostgreSQLColumnTypeEnum;
 import ai.chat2db.plugin.postgresql.type.PostgreSQLIndexTypeEnum;
 import ai.chat2db.server.tools.common.util.EasyCollectionUtils;
+import ai.chat2db.spi.ColumnReader;
 import ai.chat2db.spi.MetaData;
 import ai.chat2db.spi.SqlBuilder;
+import ai.chat2db.spi.jdbc.DefaultColumnReader;
 import ai.chat2db.spi.jdbc.DefaultMetaService;
 import ai.chat2db.spi.model.*;
 import ai.chat2db.spi.sql.SQLExecutor;
@@ -29,6 +32,8 @@ public class PostgreSQLMetaData extends DefaultMetaService implements MetaData {
 
     private static final String SELECT_KEY_INDEX = "SELECT ccu.table_schema AS Foreign_schema_name, ccu.table_name AS Foreign_table_name, ccu.column_name AS Foreign_column_name, constraint_type AS Constraint_type, tc.CONSTRAINT_NAME AS Key_name, tc.TABLE_NAME, kcu.Column_name, tc.is_deferrable, tc.initially_deferred FROM information_schema.table_constraints AS tc JOIN information_schema.key_column_usage AS kcu ON tc.CONSTRAINT_NAME = kcu.CONSTRAINT_NAME JOIN information_schema.constraint_column_usage AS ccu ON ccu.constraint_name = tc.constraint_name WHERE tc.TABLE_SCHEMA = '%s'  AND tc.TABLE_NAME = '%s';";
 
+    private static final String SELECT_SCHEMA_KEY_INDEX = "SELECT ccu.table_schema AS Foreign_schema_name, ccu.table_name AS Foreign_table_name, ccu.column_name AS Foreign_column_name, constraint_type AS Constraint_type, tc.CONSTRAINT_NAME AS Key_name, tc.TABLE_NAME, kcu.Column_name, tc.is_deferrable, tc.initially_deferred FROM information_schema.table_constraints AS tc JOIN information_schema.key_column_usage AS kcu ON tc.CONSTRAINT_NAME = kcu.CONSTRAINT_NAME JOIN information_schema.constraint_column_usage AS ccu ON ccu.constraint_name = tc.constraint_name WHERE tc.TABLE_SCHEMA = '%s';";
+
 
     private List<String> systemDatabases = Arrays.asList("postgres");
     @Override
@@ -75,6 +80,7 @@ public class PostgreSQLMetaData extends DefaultMetaService implements MetaData {
 
 
     private static final String SELECT_TABLE_INDEX = "SELECT tmp.INDISPRIMARY AS Index_primary, tmp.TABLE_SCHEM, tmp.TABLE_NAME, tmp.NON_UNIQUE, tmp.INDEX_QUALIFIER, tmp.INDEX_NAME AS Key_name, tmp.indisclustered, tmp.ORDINAL_POSITION AS Seq_in_index, TRIM ( BOTH '\"' FROM pg_get_indexdef ( tmp.CI_OID, tmp.ORDINAL_POSITION, FALSE ) ) AS Column_name,CASE  tmp.AM_NAME   WHEN 'btree' THEN CASE   tmp.I_INDOPTION [ tmp.ORDINAL_POSITION - 1 ] & 1 :: SMALLINT   WHEN 1 THEN  'D' ELSE'A'  END ELSE NULL  END AS Collation, tmp.CARDINALITY, tmp.PAGES, tmp.FILTER_CONDITION , tmp.AM_NAME AS Index_method, tmp.DESCRIPTION AS Index_comment FROM ( SELECT  n.nspname AS TABLE_SCHEM,  ct.relname AS TABLE_NAME,  NOT i.indisunique AS NON_UNIQUE, NULL AS INDEX_QUALIFIER,  ci.relname AS INDEX_NAME,i.INDISPRIMARY , i.indisclustered ,  ( information_schema._pg_expandarray ( i.indkey ) ).n AS ORDINAL_POSITION,  ci.reltuples AS CARDINALITY,   ci.relpages AS PAGES,  pg_get_expr ( i.indpred, i.indrelid ) AS FILTER_CONDITION,  ci.OID AS CI_OID, i.indoption AS I_INDOPTION,  am.amname AS AM_NAME , d.description  FROM   pg_class ct   JOIN pg_namespace n ON ( ct.relnamespace = n.OID )   JOIN pg_index i ON ( ct.OID = i.indrelid )   JOIN pg_class ci ON ( ci.OID = i.indexrelid )  JOIN pg_am am ON ( ci.relam = am.OID )      left outer join pg_description d on i.indexrelid = d.objoid  WHERE  n.nspname = '%s'   AND ct.relname = '%s'   ) AS tmp ;";
+    private static final String SELECT_SCHEMA_INDEX = "SELECT tmp.INDISPRIMARY AS Index_primary, tmp.TABLE_SCHEM, tmp.TABLE_NAME, tmp.NON_UNIQUE, tmp.INDEX_QUALIFIER, tmp.INDEX_NAME AS Key_name, tmp.indisclustered, tmp.ORDINAL_POSITION AS Seq_in_index, TRIM ( BOTH '\"' FROM pg_get_indexdef ( tmp.CI_OID, tmp.ORDINAL_POSITION, FALSE ) ) AS Column_name,CASE  tmp.AM_NAME   WHEN 'btree' THEN CASE   tmp.I_INDOPTION [ tmp.ORDINAL_POSITION - 1 ] & 1 :: SMALLINT   WHEN 1 THEN  'D' ELSE'A'  END ELSE NULL  END AS Collation, tmp.CARDINALITY, tmp.PAGES, tmp.FILTER_CONDITION , tmp.AM_NAME AS Index_method, tmp.DESCRIPTION AS Index_comment FROM ( SELECT  n.nspname AS TABLE_SCHEM,  ct.relname AS TABLE_NAME,  NOT i.indisunique AS NON_UNIQUE, NULL AS INDEX_QUALIFIER,  ci.relname AS INDEX_NAME,i.INDISPRIMARY , i.indisclustered ,  ( information_schema._pg_expandarray ( i.indkey ) ).n AS ORDINAL_POSITION,  ci.reltuples AS CARDINALITY,   ci.relpages AS PAGES,  pg_get_expr ( i.indpred, i.indrelid ) AS FILTER_CONDITION,  ci.OID AS CI_OID, i.indoption AS I_INDOPTION,  am.amname AS AM_NAME , d.description  FROM   pg_class ct   JOIN pg_namespace n ON ( ct.relnamespace = n.OID )   JOIN pg_index i ON ( ct.OID = i.indrelid )   JOIN pg_class ci ON ( ci.OID = i.indexrelid )  JOIN pg_am am ON ( ci.relam = am.OID )      left outer join pg_description d on i.indexrelid = d.objoid  WHERE  n.nspname = '%s'   ) AS tmp ;";
     private static String ROUTINES_SQL
             = " SELECT p.proname, p.prokind, pg_catalog.pg_get_functiondef(p.oid) as \"code\" FROM pg_catalog.pg_proc p "
             + "where p.prokind = '%s' and p.proname='%s';";
@@ -192,15 +198,35 @@ public class PostgreSQLMetaData extends DefaultMetaService implements MetaData {
 
     @Override
     public List<TableIndex> indexes(Connection connection, String databaseName, String schemaName, String tableName) {
-
         String constraintSql = String.format(SELECT_KEY_INDEX, schemaName, tableName);
+        String sql = String.format(SELECT_TABLE_INDEX, schemaName, tableName);
+        return readIndexes(connection, constraintSql, sql, databaseName, schemaName, tableName).getOrDefault(tableName,
+            new ArrayList<>());
+    }
+
+    @Override
+    public Map<String, List<TableIndex>> indexesOfSchema(Connection connection, String databaseName,
+                                                         String schemaName) {
+        String constraintSql = String.format(SELECT_SCHEMA_KEY_INDEX, schemaName);
+        String sql = String.format(SELECT_SCHEMA_INDEX, schemaName);
+        return readIndexes(connection, constraintSql, sql, databaseName, schemaName, null);
+    }
+
+    /**
+     * @param tableName table of all rows, null to read it from the TABLE_NAME column
+     * @return table name to the foreign keys and indexes of the table
+     */
+    private Map<String, List<TableIndex>> readIndexes(Connection connection, String constraintSql, String sql,
+                                                      String databaseName, String schemaName, String tableName) {
         Map<String, String> constraintMap = new HashMap();
-        LinkedHashMap<String, TableIndex> foreignMap = new LinkedHashMap();
+        Map<String, LinkedHashMap<String, TableIndex>> tableMap = new LinkedHashMap<>();
         SQLExecutor.getInstance().execute(connection, constraintSql, resultSet -> {
             while (resultSet.next()) {
+                String table = tableName == null ? resultSet.getString("TABLE_NAME") : tableName;
+                LinkedHashMap<String, TableIndex> foreignMap = tableMap.computeIfAbsent(table, k -> new LinkedHashMap<>());
                 String keyName = resultSet.getString("Key_name");
                 String constraintType = resultSet.getString("Constraint_type");
-                constraintMap.put(keyName, constraintType);
+                constraintMap.put(table + "." + keyName, constraintType);
                 if (StringUtils.equalsIgnoreCase(constraintType, PostgreSQLIndexTypeEnum.FOREIGN.getKeyword())) {
                     TableIndex tableIndex = foreignMap.get(keyName);
                     String columnName = resultSet.getString("Column_name");
@@ -208,7 +234,7 @@ public class PostgreSQLMetaData extends DefaultMetaService implements MetaData {
                         tableIndex = new TableIndex();
                         tableIndex.setDatabaseName(databaseName);
                         tableIndex.setSchemaName(schemaName);
-                        tableIndex.setTableName(tableName);
+                        tableIndex.setTableName(table);
                         tableIndex.setName(keyName);
                         tableIndex.setForeignSchemaName(resultSet.getString("Foreign_schema_name"));
                         tableIndex.setForeignTableName(resultSet.getString("Foreign_table_name"));
@@ -223,11 +249,10 @@ public class PostgreSQLMetaData extends DefaultMetaService implements MetaData {
             return null;
         });
 
-        String sql = String.format(SELECT_TABLE_INDEX, schemaName, tableName);
-        return SQLExecutor.getInstance().execute(connection, sql, resultSet -> {
-            LinkedHashMap<String, TableIndex> map = new LinkedHashMap(foreignMap);
-
+        SQLExecutor.getInstance().execute(connection, sql, resultSet -> {
             while (resultSet.next()) {
+                String table = tableName == null ? resultSet.getString("TABLE_NAME") : tableName;
+                LinkedHashMap<String, TableIndex> map = tableMap.computeIfAbsent(table, k -> new LinkedHashMap<>());
                 String keyName = resultSet.getString("Key_name");
                 TableIndex tableIndex = map.get(keyName);
                 if (tableIndex != null) {
@@ -240,7 +265,7 @@ public class PostgreSQLMetaData extends DefaultMetaService implements MetaData {
                     TableIndex index = new TableIndex();
                     index.setDatabaseName(databaseName);
                     index.setSchemaName(schemaName);
-                    index.setTableName(tableName);
+                    index.setTableName(table);
                     index.setName(keyName);
                     index.setUnique(!StringUtils.equals("t", resultSet.getString("NON_UNIQUE")));
                     index.setMethod(resultSet.getString("Index_method"));
@@ -248,7 +273,7 @@ public class PostgreSQLMetaData extends DefaultMetaService implements MetaData {
                     List<TableIndexColumn> tableIndexColumns = new ArrayList<>();
                     tableIndexColumns.add(getTableIndexColumn(resultSet));
                     index.setColumnList(tableIndexColumns);
-                    String constraintType = constraintMap.get(keyName);
+                    String constraintType = constraintMap.get(table + "." + keyName);
                     if (StringUtils.equals("t", resultSet.getString("Index_primary"))) {
                         index.setType(PostgreSQLIndexTypeEnum.PRIMARY.getName());
                     } else if (StringUtils.equalsIgnoreCase(constraintType, PostgreSQLIndexTypeEnum.UNIQUE.getName())) {
@@ -259,25 +284,40 @@ public class PostgreSQLMetaData extends DefaultMetaService implements MetaData {
                     map.put(keyName, index);
                 }
             }
-            return map.values().stream().collect(Collectors.toList());
+            return null;
         });
-
+        Map<String, List<TableIndex>> result = new LinkedHashMap<>();
+        tableMap.forEach((table, map) -> result.put(table, map.values().stream().collect(Collectors.toList())));
+        return result;
     }
 
     @Override
     public List<TableColumn> columns(Connection connection, String databaseName, String schemaName, String tableName) {
         List<TableColumn> columnList = super.columns(connection, databaseName, schemaName, tableName);
 
-        EasyCollectionUtils.stream(columnList).forEach(v -> {
-            if (StringUtils.equalsIgnoreCase(v.getColumnType(), "bpchar")) {
-                v.setColumnType(PostgreSQLColumnTypeEnum.CHAR.getColumnType().getTypeName().toUpperCase());
-            } else {
-                v.setColumnType(v.getColumnType().toUpperCase());
-            }
-        });
+        EasyCollectionUtils.stream(columnList).forEach(this::setColumnType);
         return columnList;
     }
 
+    /**
+     * pgjdbc reads the columns of all tables of the schema from pg_attribute with one query when no table is given.
+     */
+    @Override
+    public Map<String, List<TableColumn>> columnsOfSchema(Connection connection, String databaseName,
+                                                          String schemaName) {
+        Map<String, List<TableColumn>> map = super.columnsOfSchema(connection, databaseName, schemaName);
+        map.values().forEach(columnList -> columnList.forEach(this::setColumnType));
+        return map;
+    }
+
+    private void setColumnType(TableColumn column) {
+        if (StringUtils.equalsIgnoreCase(column.getColumnType(), "bpchar")) {
+            column.setColumnType(PostgreSQLColumnTypeEnum.CHAR.getColumnType().getTypeName().toUpperCase());
+        } else {
+            column.setColumnType(column.getColumnType().toUpperCase());
+        }
+    }
+
     private TableIndexColumn getTableIndexColumn(ResultSet resultSet) throws SQLException {
         TableIndexColumn tableIndexColumn = new TableIndexColumn();
         tableIndexColumn.setColumnName(resultSet.getString("Column_name"));
@@ -301,4 +341,36 @@ public class PostgreSQLMetaData extends DefaultMetaService implements MetaData {
                 .indexTypes(PostgreSQLIndexTypeEnum.getIndexTypes())
                 .build();
     }
+
+    /**
+     * Arrays and the types without a jdbc equivalent such as json, jsonb, uuid and interval are shown in their text
+     * form, which getString returns without building a PgArray or PGobject first.
+     */
+    @Override
+    public ColumnReader getColumnReader(String columnTypeName, int columnType) {
+        if (columnType == Types.ARRAY || columnType == Types.OTHER) {
+            return DefaultColumnReader.STRING;
+        }
+        return null;
+    }
+
+    private static String ESTIMATE_COUNT_SQL
+        = "SELECT c.reltuples::bigint FROM pg_class c JOIN pg_namespace n ON n.oid = c.relnamespace "
+        + "WHERE n.nspname = %s AND c.relname = '%s' AND c.relkind IN ('r', 'm')";
+
+    /**
+     * The row count of the last VACUUM or ANALYZE, negative if the table has never been analyzed.
+     */
+    @Override
+    public Long estimateCount(Connection connection, String databaseName, String schemaName, String tableName) {
+        String sql = String.format(ESTIMATE_COUNT_SQL,
+            StringUtils.isBlank(schemaName) ? "current_schema()" : "'" + schemaName + "'", tableName);
+        return SQLExecutor.getInstance().execute(connection, sql, resultSet -> {
+            if (resultSet.next()) {
+                long count = resultSet.getLong(1);
+                return resultSet.wasNull() || count < 0 ? null : count;
+            }
+            return null;
+        });
+    }
 }
@@ -1,20 +1,26 @@
 package ai.chat2db.plugin.sqlite;
 
 import java.sql.Connection;
+import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 import ai.chat2db.plugin.sqlite.builder.SqliteBuilder;
 import ai.chat2db.plugin.sqlite.type.SqliteCollationEnum;
 import ai.chat2db.plugin.sqlite.type.SqliteColumnTypeEnum;
 import ai.chat2db.plugin.sqlite.type.SqliteIndexTypeEnum;
+import ai.chat2db.spi.ColumnReader;
 import ai.chat2db.spi.MetaData;
 import ai.chat2db.spi.SqlBuilder;
+import ai.chat2db.spi.jdbc.DefaultColumnReader;
 import ai.chat2db.spi.jdbc.DefaultMetaService;
 import ai.chat2db.spi.model.Database;
 import ai.chat2db.spi.model.Schema;
+import ai.chat2db.spi.model.TableColumn;
 import ai.chat2db.spi.model.TableMeta;
 import ai.chat2db.spi.sql.SQLExecutor;
 import com.google.common.collect.Lists;
@@ -45,6 +51,26 @@ public class SqliteMetaData extends DefaultMetaService implements MetaData {
         return Lists.newArrayList();
     }
 
+    /**
+     * An INTEGER PRIMARY KEY is the rowid of the table and has no index, so the primary key is marked on the columns.
+     */
+    @Override
+    public List<TableColumn> columns(Connection connection, String databaseName, String schemaName, String tableName) {
+        List<TableColumn> columns = super.columns(connection, databaseName, schemaName, tableName);
+        Set<String> primaryKeys = new HashSet<>();
+        try (ResultSet resultSet = connection.getMetaData().getPrimaryKeys(null, null, tableName)) {
+            while (resultSet.next()) {
+                primaryKeys.add(resultSet.getString("COLUMN_NAME"));
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException(e);
+        }
+        for (TableColumn column : columns) {
+            column.setPrimaryKey(primaryKeys.contains(column.getName()));
+        }
+        return columns;
+    }
+
     @Override
     public SqlBuilder getSqlBuilder() {
         return new SqliteBuilder();
@@ -64,4 +90,13 @@ public class SqliteMetaData extends DefaultMetaService implements MetaData {
     public String getMetaDataName(String... names) {
         return Arrays.stream(names).filter(name -> StringUtils.isNotBlank(name)).map(name -> "\"" + name + "\"").collect(Collectors.joining("."));
     }
+
+    /**
+     * A sqlite column may hold values of any type whatever it is declared as, so the value is always converted by
+     * its own class.
+     */
+    @Override
+    public ColumnReader getColumnReader(String columnTypeName, int columnType) {
+        return DefaultColumnReader.GENERIC;
+    }
 }
@@ -1,19 +1,26 @@
 package ai.chat2db.plugin.sqlserver;
 
 import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 import ai.chat2db.plugin.sqlserver.builder.SqlServerSqlBuilder;
 import ai.chat2db.plugin.sqlserver.type.SqlServerColumnTypeEnum;
 import ai.chat2db.plugin.sqlserver.type.SqlServerIndexTypeEnum;
+import ai.chat2db.spi.ColumnReader;
 import ai.chat2db.spi.MetaData;
 import ai.chat2db.spi.SqlBuilder;
+import ai.chat2db.spi.jdbc.DefaultColumnReader;
 import ai.chat2db.spi.jdbc.DefaultMetaService;
 import ai.chat2db.spi.model.*;
 import ai.chat2db.spi.sql.SQLExecutor;
+import ai.chat2db.spi.util.ResultSetUtils;
 import ai.chat2db.spi.util.SortUtils;
 import jakarta.validation.constraints.NotEmpty;
 import org.apache.commons.lang3.StringUtils;
@@ -22,6 +29,11 @@ import static ai.chat2db.spi.util.SortUtils.sortDatabase;
 
 public class SqlServerMetaData extends DefaultMetaService implements MetaData {
 
+    /**
+     * microsoft.sql.Types.DATETIMEOFFSET
+     */
+    private static final int DATETIMEOFFSET = -155;
+
 
 
     private List<String> systemDatabases = Arrays.asList("master", "model", "msdb", "tempdb");
@@ -112,38 +124,74 @@ public class SqlServerMetaData extends DefaultMetaService implements MetaData {
 
     private static final String SELECT_TABLE_COLUMNS = "SELECT c.name as COLUMN_NAME , c.is_nullable as IS_NULLABLE ,c.column_id as ORDINAL_POSITION,c.max_length as COLUMN_SIZE, c.scale as NUMERIC_SCALE, c.collation_name as COLLATION_NAME, ty.name as DATA_TYPE ,t.name, def.definition as COLUMN_DEFAULT, ep.value as COLUMN_COMMENT from sys.columns c LEFT JOIN sys.tables t on c.object_id=t.object_id LEFT JOIN sys.types ty ON c.user_type_id = ty.user_type_id LEFT JOIN sys.default_constraints def ON c.default_object_id = def.object_id LEFT JOIN sys.extended_properties ep ON t.object_id = ep.major_id AND c.column_id = ep.minor_id WHERE t.name ='%s' and t.schema_id=SCHEMA_ID('%s');";
 
+    private static final String SELECT_SCHEMA_COLUMNS = "SELECT t.name as TABLE_NAME, c.name as COLUMN_NAME , c.is_nullable as IS_NULLABLE ,c.column_id as ORDINAL_POSITION,c.max_length as COLUMN_SIZE, c.scale as NUMERIC_SCALE, c.collation_name as COLLATION_NAME, ty.name as DATA_TYPE , def.definition as COLUMN_DEFAULT, ep.value as COLUMN_COMMENT from sys.columns c JOIN sys.tables t on c.object_id=t.object_id LEFT JOIN sys.types ty ON c.user_type_id = ty.user_type_id LEFT JOIN sys.default_constraints def ON c.default_object_id = def.object_id LEFT JOIN sys.extended_properties ep ON t.object_id = ep.major_id AND c.column_id = ep.minor_id WHERE t.schema_id=SCHEMA_ID('%s') ORDER BY t.name, c.column_id;";
+
     @Override
     public List<TableColumn> columns(Connection connection, String databaseName, String schemaName, String tableName) {
         String sql = String.format(SELECT_TABLE_COLUMNS, tableName, schemaName);
         List<TableColumn> tableColumns = new ArrayList<>();
         return SQLExecutor.getInstance().execute(connection, sql, resultSet -> {
             while (resultSet.next()) {
-                TableColumn column = new TableColumn();
-                column.setDatabaseName(databaseName);
-                column.setTableName(tableName);
-                column.setSchemaName(schemaName);
-                column.setOldName(resultSet.getString("COLUMN_NAME"));
-                column.setName(resultSet.getString("COLUMN_NAME"));
-                //column.setColumnType(resultSet.getString("COLUMN_TYPE"));
-                column.setColumnType(resultSet.getString("DATA_TYPE").toUpperCase());
-                //column.setDataType(resultSet.getInt("DATA_TYPE"));
-                column.setDefaultValue(resultSet.getString("COLUMN_DEFAULT"));
-                //column.setAutoIncrement(resultSet.getString("EXTRA").contains("auto_increment"));
-                column.setComment(resultSet.getString("COLUMN_COMMENT"));
-               // column.setPrimaryKey("PRI".equalsIgnoreCase(resultSet.getString("COLUMN_KEY")));
-                column.setNullable(resultSet.getInt("IS_NULLABLE"));
-                column.setOrdinalPosition(resultSet.getInt("ORDINAL_POSITION"));
-                column.setDecimalDigits(resultSet.getInt("NUMERIC_SCALE"));
-               // column.setCharSetName(resultSet.getString("CHARACTER_SET_NAME"));
-                column.setCollationName(resultSet.getString("COLLATION_NAME"));
-                column.setColumnSize(resultSet.getInt("COLUMN_SIZE"));
-                //setColumnSize(column, resultSet.getString("COLUMN_TYPE"));
-                tableColumns.add(column);
+                tableColumns.add(buildColumn(resultSet, databaseName, schemaName, tableName));
             }
             return tableColumns;
         });
     }
 
+    @Override
+    public Map<String, List<TableColumn>> columnsOfSchema(Connection connection, String databaseName,
+                                                          String schemaName) {
+        String sql = String.format(SELECT_SCHEMA_COLUMNS, schemaName);
+        return SQLExecutor.getInstance().execute(connection, sql, resultSet -> {
+            Map<String, List<TableColumn>> map = new LinkedHashMap<>();
+            while (resultSet.next()) {
+                String tableName = resultSet.getString("TABLE_NAME");
+                map.computeIfAbsent(tableName, k -> new ArrayList<>()).add(
+                    buildColumn(resultSet, databaseName, schemaName, tableName));
+            }
+            return map;
+        });
+    }
+
+    private TableColumn buildColumn(ResultSet resultSet, String databaseName, String schemaName, String tableName)
+        throws SQLException {
+        TableColumn column = new TableColumn();
+        column.setDatabaseName(databaseName);
+        column.setTableName(tableName);
+        column.setSchemaName(schemaName);
+        column.setOldName(resultSet.getString("COLUMN_NAME"));
+        column.setName(resultSet.getString("COLUMN_NAME"));
+        //column.setColumnType(resultSet.getString("COLUMN_TYPE"));
+        column.setColumnType(resultSet.getString("DATA_TYPE").toUpperCase());
+        //column.setDataType(resultSet.getInt("DATA_TYPE"));
+        column.setDefaultValue(resultSet.getString("COLUMN_DEFAULT"));
+        //column.setAutoIncrement(resultSet.getString("EXTRA").contains("auto_increment"));
+        column.setComment(resultSet.getString("COLUMN_COMMENT"));
+       // column.setPrimaryKey("PRI".equalsIgnoreCase(resultSet.getString("COLUMN_KEY")));
+        column.setNullable(resultSet.getInt("IS_NULLABLE"));
+        column.setOrdinalPosition(resultSet.getInt("ORDINAL_POSITION"));
+        column.setDecimalDigits(resultSet.getInt("NUMERIC_SCALE"));
+       // column.setCharSetName(resultSet.getString("CHARACTER_SET_NAME"));
+        column.setCollationName(resultSet.getString("COLLATION_NAME"));
+        column.setColumnSize(resultSet.getInt("COLUMN_SIZE"));
+        //setColumnSize(column, resultSet.getString("COLUMN_TYPE"));
+        return column;
+    }
+
+    private static final String SELECT_SCHEMA_INDEX = "SELECT DB_NAME() AS TABLE_CAT, s.name AS TABLE_SCHEM, t.name AS TABLE_NAME, CAST(CASE WHEN i.is_unique = 1 THEN 0 ELSE 1 END AS BIT) AS NON_UNIQUE, i.name AS INDEX_NAME, CASE WHEN i.type = 1 THEN 1 ELSE 3 END AS TYPE, ic.key_ordinal AS ORDINAL_POSITION, c.name AS COLUMN_NAME, CASE WHEN ic.is_descending_key = 1 THEN 'D' ELSE 'A' END AS ASC_OR_DESC FROM sys.indexes i JOIN sys.tables t ON i.object_id = t.object_id JOIN sys.schemas s ON t.schema_id = s.schema_id JOIN sys.index_columns ic ON i.object_id = ic.object_id AND i.index_id = ic.index_id JOIN sys.columns c ON ic.object_id = c.object_id AND ic.column_id = c.column_id WHERE s.name = '%s' AND i.name IS NOT NULL AND ic.key_ordinal > 0 ORDER BY t.name, i.name, ic.key_ordinal;";
+
+    /**
+     * Index columns of the schema from sys.indexes, in the shape of {@link java.sql.DatabaseMetaData#getIndexInfo}
+     * that {@link #indexes} reads table by table.
+     */
+    @Override
+    public Map<String, List<TableIndex>> indexesOfSchema(Connection connection, String databaseName,
+                                                         String schemaName) {
+        String sql = String.format(SELECT_SCHEMA_INDEX, schemaName);
+        return SQLExecutor.getInstance().execute(connection, sql,
+            resultSet -> SQLExecutor.groupIndexes(ResultSetUtils.toObjectList(resultSet, TableIndexColumn.class)));
+    }
+
     private static String ROUTINES_SQL
             = "SELECT type_desc, OBJECT_NAME(object_id) AS FunctionName, OBJECT_DEFINITION(object_id) AS "
             + "definition FROM sys.objects WHERE type_desc IN(%s) and name = '%s' ;";
@@ -319,4 +367,33 @@ public class SqlServerMetaData extends DefaultMetaService implements MetaData {
     public String getMetaDataName(String... names) {
         return Arrays.stream(names).filter(name -> StringUtils.isNotBlank(name)).map(name -> "[" + name + "]").collect(Collectors.joining("."));
     }
+
+    @Override
+    public ColumnReader getColumnReader(String columnTypeName, int columnType) {
+        if (columnType == DATETIMEOFFSET) {
+            return DefaultColumnReader.OFFSET_DATE_TIME;
+        }
+        return null;
+    }
+
+    private static String ESTIMATE_COUNT_SQL
+        = "SELECT SUM(p.rows) FROM %1$ssys.partitions p JOIN %1$ssys.tables t ON p.object_id = t.object_id "
+        + "WHERE t.schema_id = SCHEMA_ID(%2$s) AND t.name = '%3$s' AND p.index_id IN (0, 1)";
+
+    /**
+     * The row count of the heap or clustered index partitions, maintained by the engine.
+     */
+    @Override
+    public Long estimateCount(Connection connection, String databaseName, String schemaName, String tableName) {
+        String sql = String.format(ESTIMATE_COUNT_SQL,
+            StringUtils.isBlank(databaseName) ? "" : "[" + databaseName + "].",
+            StringUtils.isBlank(schemaName) ? "SCHEMA_NAME()" : "'" + schemaName + "'", tableName);
+        return SQLExecutor.getInstance().execute(connection, sql, resultSet -> {
+            if (resultSet.next()) {
+                long count = resultSet.getLong(1);
+                return resultSet.wasNull() || count < 0 ? null : count;
+            }
+            return null;
+        });
+    }
 }
@@ -0,0 +1,33 @@
+package ai.chat2db.server.domain.api.enums;
+
+import ai.chat2db.server.tools.base.enums.BaseEnum;
+import lombok.Getter;
+
+/**
+ * How the table cache was refreshed
+ */
+@Getter
+public enum TableCacheRefreshModeEnum implements BaseEnum<String> {
+    /**
+     * All tables written under a new version
+     */
+    FULL("全量"),
+
+    /**
+     * Only the added, changed and dropped tables written in the current version
+     */
+    INCREMENTAL("增量"),
+
+    ;
+
+    final String description;
+
+    TableCacheRefreshModeEnum(String description) {
+        this.description = description;
+    }
+
+    @Override
+    public String getCode() {
+        return this.name();
+    }
+}
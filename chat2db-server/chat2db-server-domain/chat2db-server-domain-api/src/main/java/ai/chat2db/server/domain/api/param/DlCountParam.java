@@ -35,4 +35,14 @@ public class DlCountParam {
      */
     @NotNull
     private String databaseName;
+
+    /**
+     * schema名称
+     */
+    private String schemaName;
+
+    /**
+     * Id given by the client to this execution, used to cancel it
+     */
+    private String executionId;
 }
@@ -3,6 +3,8 @@ package ai.chat2db.server.domain.api.service;
 import ai.chat2db.server.domain.api.param.ConsoleConnectParam;
 import ai.chat2db.server.domain.api.param.ConsoleCloseParam;
 import ai.chat2db.server.tools.base.wrapper.result.ActionResult;
+import ai.chat2db.server.tools.base.wrapper.result.ListResult;
+import ai.chat2db.spi.model.ConsoleSessionInfo;
 
 /**
  * 数据源管理服务
@@ -22,11 +24,18 @@ public interface ConsoleService {
     ActionResult createConsole(ConsoleConnectParam param);
 
     /**
-     * 关闭连接
+     * 关闭连接, the running statements of the console are cancelled and its session is closed
      *
      * @param param
      * @return
      */
     ActionResult closeConsole(ConsoleCloseParam param);
 
+    /**
+     * Sessions kept open for the consoles of the current user
+     *
+     * @return
+     */
+    ListResult<ConsoleSessionInfo> querySessions();
+
 }
@@ -0,0 +1,34 @@
+package ai.chat2db.server.domain.api.service;
+
+import java.util.List;
+
+import ai.chat2db.spi.model.ExecuteResult;
+
+/**
+ * Receives the result of each statement while it is being read, so that the rows never have to be held in memory.
+ * For every statement {@link #onHeader} is called first if it is a query, then {@link #onRow} for each row and
+ * finally {@link #onComplete}.
+ */
+public interface DlExecuteListener {
+
+    /**
+     * The header of a query, the data list is always empty
+     *
+     * @param executeResult
+     */
+    void onHeader(ExecuteResult executeResult);
+
+    /**
+     * One row, the first column is the row number
+     *
+     * @param row
+     */
+    void onRow(List<String> row);
+
+    /**
+     * The statement has been executed, the data list is always empty
+     *
+     * @param executeResult
+     */
+    void onComplete(ExecuteResult executeResult);
+}
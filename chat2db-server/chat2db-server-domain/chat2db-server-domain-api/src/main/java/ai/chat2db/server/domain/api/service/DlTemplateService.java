@@ -1,9 +1,11 @@
 package ai.chat2db.server.domain.api.service;
 
+import ai.chat2db.server.domain.api.param.DlCancelParam;
 import ai.chat2db.server.domain.api.param.DlCountParam;
 import ai.chat2db.server.domain.api.param.DlExecuteParam;
 import ai.chat2db.server.domain.api.param.UpdateSelectResultParam;
 import ai.chat2db.spi.model.ExecuteResult;
+import ai.chat2db.server.tools.base.wrapper.result.ActionResult;
 import ai.chat2db.server.tools.base.wrapper.result.DataResult;
 
 import ai.chat2db.server.tools.base.wrapper.result.ListResult;
@@ -25,6 +27,14 @@ public interface DlTemplateService {
      */
     ListResult<ExecuteResult> execute(DlExecuteParam param);
 
+    /**
+     * 数据源执行dl, rows are handed to the listener as they are read instead of being collected
+     *
+     * @param param
+     * @param listener
+     */
+    void executeStream(DlExecuteParam param, DlExecuteListener listener);
+
 
     /**
      * 数据源执行update
@@ -42,6 +52,22 @@ public interface DlTemplateService {
      */
     DataResult<Long> count(DlCountParam param);
 
+    /**
+     * Estimate the count of a query that returns every row of one table from the statistics of the database
+     *
+     * @param param
+     * @return null if the query is not such a query or the database keeps no statistics, then use {@link #count}
+     */
+    DataResult<Long> estimateCount(DlCountParam param);
+
+    /**
+     * 取消正在执行的sql
+     *
+     * @param param
+     * @return
+     */
+    ActionResult cancel(DlCancelParam param);
+
 
     /**
      * 更新查询结果
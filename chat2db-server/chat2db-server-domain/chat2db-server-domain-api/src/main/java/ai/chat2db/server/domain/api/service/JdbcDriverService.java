@@ -2,7 +2,9 @@ package ai.chat2db.server.domain.api.service;
 
 import ai.chat2db.server.tools.base.wrapper.result.ActionResult;
 import ai.chat2db.server.tools.base.wrapper.result.DataResult;
+import ai.chat2db.server.tools.base.wrapper.result.ListResult;
 import ai.chat2db.spi.config.DBConfig;
+import ai.chat2db.spi.model.DriverJarStatus;
 
 public interface JdbcDriverService {
 
@@ -25,10 +27,25 @@ public interface JdbcDriverService {
     ActionResult upload(String dbType, String jdbcDriverClass, String jdbcDriver);
 
     /**
-     * Upload the driver
+     * Download the driver in the background, the progress is returned by {@link #downloadStatus(String)}
      *
      * @param dbType
      * @return
      */
     ActionResult download(String dbType);
+
+    /**
+     * Download progress of the driver jars of the DB
+     *
+     * @param dbType
+     * @return
+     */
+    ListResult<DriverJarStatus> downloadStatus(String dbType);
+
+    /**
+     * Download and load the drivers used by the saved data sources in the background
+     *
+     * @return
+     */
+    ActionResult prefetch();
 }
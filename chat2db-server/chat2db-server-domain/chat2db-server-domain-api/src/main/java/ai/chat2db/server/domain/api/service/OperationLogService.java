@@ -23,6 +23,13 @@ public interface OperationLogService {
      */
     DataResult<Long> create(OperationLogCreateParam param);
 
+    /**
+     * 异步创建用户执行的ddl记录，由后台线程批量写入，队列已满时丢弃
+     *
+     * @param param
+     */
+    void createAsync(OperationLogCreateParam param);
+
     /**
      * 查询用户执行的ddl记录
      *
@@ -1,6 +1,7 @@
 package ai.chat2db.server.domain.api.service;
 
 import java.util.List;
+import java.util.Map;
 
 import ai.chat2db.server.domain.api.param.*;
 import ai.chat2db.spi.model.*;
@@ -99,6 +100,22 @@ public interface TableService {
      */
     List<TableIndex> queryIndexes(TableQueryParam param);
 
+    /**
+     * 查询schema下所有表的字段, 一次查询
+     *
+     * @param param
+     * @return 表名 -> 字段
+     */
+    Map<String, List<TableColumn>> queryColumnsOfSchema(TableQueryParam param);
+
+    /**
+     * 查询schema下所有表的索引
+     *
+     * @param param
+     * @return 表名 -> 索引
+     */
+    Map<String, List<TableIndex>> queryIndexesOfSchema(TableQueryParam param);
+
     /**
      *
      * @param param
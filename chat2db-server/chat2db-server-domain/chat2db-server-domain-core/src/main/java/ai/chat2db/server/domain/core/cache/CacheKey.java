@@ -43,4 +43,21 @@ public class CacheKey {
         stringBuffer.append("_tableName_"+tableName);
         return stringBuffer.toString();
     }
+
+    public static String getKeyColumnKey(Long dataSourceId, String databaseName, String schemaName, String tableName) {
+        StringBuffer stringBuffer = new StringBuffer("key_columns_dataSourceId_" + dataSourceId);
+        if (!StringUtils.isEmpty(databaseName)) {
+            stringBuffer.append("_databaseName_" + databaseName);
+        }
+        if (!StringUtils.isEmpty(schemaName)) {
+            stringBuffer.append("_schemaName_" + schemaName);
+        }
+        stringBuffer.append("_tableName_" + tableName);
+        return stringBuffer.toString();
+    }
+
+    public static String getKeysetColumnKey(Long dataSourceId, String databaseName, String schemaName,
+        String tableName) {
+        return "keyset_" + getKeyColumnKey(dataSourceId, databaseName, schemaName, tableName);
+    }
 }
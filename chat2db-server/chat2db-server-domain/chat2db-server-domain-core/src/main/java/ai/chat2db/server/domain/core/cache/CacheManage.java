@@ -2,53 +2,80 @@ package ai.chat2db.server.domain.core.cache;
 
 import java.io.File;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Function;
 
-import com.alibaba.fastjson2.JSON;
-
+import lombok.extern.slf4j.Slf4j;
 import org.ehcache.Cache;
-import org.ehcache.CacheManager;
+import org.ehcache.PersistentCacheManager;
 import org.ehcache.config.builders.CacheConfigurationBuilder;
 import org.ehcache.config.builders.CacheManagerBuilder;
 import org.ehcache.config.builders.ResourcePoolsBuilder;
-import org.ehcache.config.units.EntryUnit;
 import org.ehcache.config.units.MemoryUnit;
-import org.springframework.util.StringUtils;
+import org.ehcache.spi.serialization.Serializer;
 
+/**
+ * Metadata cache with one Ehcache cache per kind of value, e.g. the column lists of tables. Values are stored as JSONB
+ * in both tiers, so that a hit only decodes the binary of the value instead of parsing a JSON string.
+ */
+@Slf4j
 public class CacheManage {
     private static final String PATH = System.getProperty("user.home") + File.separator + ".chat2db"
         + File.separator
         + "cache" + File.separator + "chat2db-ehcache-data_" +System.getProperty("spring.profiles.active");
 
-    private static final String CACHE = "meta_cache";
-    private static CacheManager cacheManager;
+    /**
+     * Cache of JSON strings used by the previous versions, its data is removed on start
+     */
+    private static final String LEGACY_CACHE = "meta_cache";
+
+    private static final String CACHE_PREFIX = "meta_cache_";
+
+    private static final String SIZE_PREFIX = "chat2db.cache.";
+
+    /**
+     * Heap size in MB of the caches not listed in {@link #DEFAULT_SIZES}
+     */
+    private static final long HEAP_SIZE = Long.getLong(SIZE_PREFIX + "heapSize", 16L);
+
+    /**
+     * Disk size in MB of the caches not listed in {@link #DEFAULT_SIZES}
+     */
+    private static final long DISK_SIZE = Long.getLong(SIZE_PREFIX + "diskSize", 1024L);
+
+    /**
+     * Default heap and disk size in MB of each kind of value. They are set with chat2db.cache.&lt;kind&gt;.heapSize and
+     * chat2db.cache.&lt;kind&gt;.diskSize, e.g. chat2db.cache.TableColumn_list.diskSize. The disk tier is disabled if
+     * it is not larger than the heap size
+     */
+    private static final Map<String, long[]> DEFAULT_SIZES = Map.of(
+        "TableColumn_list", new long[] {64L, 16 * 1024L},
+        "Database_list", new long[] {16L, 1024L},
+        "Schema_list", new long[] {16L, 1024L},
+        "MetaSchema", new long[] {16L, 2 * 1024L});
+
+    private static final Map<String, Cache<String, ?>> CACHE_MAP = new ConcurrentHashMap<>();
+
+    private static PersistentCacheManager cacheManager;
 
     static {
         cacheManager = CacheManagerBuilder.newCacheManagerBuilder()
             .with(CacheManagerBuilder.persistence(PATH)) // 确保这个路径是存在且有写权限的
-            .withCache(CACHE, CacheConfigurationBuilder.newCacheConfigurationBuilder(String.class, String.class,
-                ResourcePoolsBuilder.newResourcePoolsBuilder()
-                    .heap(1000, EntryUnit.ENTRIES)
-                    .disk(20, MemoryUnit.GB, true))) // 磁盘持久化设置为true
             .build(true);
+        try {
+            cacheManager.destroyCache(LEGACY_CACHE);
+        } catch (Exception e) {
+            log.warn("destroy legacy cache error", e);
+        }
     }
 
     public static <T> T get(String key, Class<T> clazz) {
-        Cache<String, String> myCache = cacheManager.getCache(CACHE, String.class, String.class);
-        String value = myCache.get(key);
-        if (!StringUtils.isEmpty(value)) {
-            return JSON.parseObject(value, clazz);
-        }
-        return null;
+        return get(getCache(clazz), key);
     }
 
     public static <T> List<T> getList(String key, Class<T> clazz) {
-        Cache<String, String> myCache = cacheManager.getCache(CACHE, String.class, String.class);
-        String value = myCache.get(key);
-        if (!StringUtils.isEmpty(value)) {
-            return JSON.parseArray(value, clazz);
-        }
-        return null;
+        return get(getListCache(clazz), key);
     }
 
     public static <T> T get(String key, Class<T> clazz, Function<Object, Boolean> refresh,
@@ -56,12 +83,12 @@ public class CacheManage {
         T t;
         if (refresh.apply(key)) {
             t = function.apply(key);
-            put(key, t);
+            put(key, t, clazz);
         } else {
             t = get(key, clazz);
             if (t == null) {
                 t = function.apply(key);
-                put(key, t);
+                put(key, t, clazz);
             }
         }
         return t;
@@ -72,24 +99,74 @@ public class CacheManage {
         List<T> t;
         if (refresh.apply(key)) {
             t = function.apply(key);
-            put(key, t);
+            putList(key, t, clazz);
         } else {
             t = getList(key, clazz);
             if (t == null) {
                 t = function.apply(key);
-                put(key, t);
+                putList(key, t, clazz);
             }
         }
         return t;
     }
 
-    public static void put(String s, Object value) {
-        Cache<String, String> myCache = cacheManager.getCache(CACHE, String.class, String.class);
-        myCache.put(s, JSON.toJSONString(value));
+    public static <T> void put(String key, T value, Class<T> clazz) {
+        if (value != null) {
+            getCache(clazz).put(key, value);
+        }
+    }
+
+    public static <T> void putList(String key, List<T> value, Class<T> clazz) {
+        if (value != null) {
+            getListCache(clazz).put(key, value);
+        }
     }
 
     public static void close() {
         cacheManager.close();
     }
 
+    private static <T> T get(Cache<String, T> cache, String key) {
+        try {
+            return cache.get(key);
+        } catch (Exception e) {
+            // 缓存的数据无法读取时当作未命中，重新查询
+            log.warn("read cache error:{}", key, e);
+            cache.remove(key);
+            return null;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> Cache<String, T> getCache(Class<T> clazz) {
+        return (Cache<String, T>)CACHE_MAP.computeIfAbsent(CACHE_PREFIX + clazz.getName(),
+            name -> createCache(name, clazz.getSimpleName(), clazz, JSONBSerializer.of(clazz)));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> Cache<String, List<T>> getListCache(Class<T> clazz) {
+        return (Cache<String, List<T>>)CACHE_MAP.computeIfAbsent(CACHE_PREFIX + clazz.getName() + "_list",
+            name -> createCache(name, clazz.getSimpleName() + "_list", (Class<List<T>>)(Class<?>)List.class,
+                JSONBSerializer.ofList(clazz)));
+    }
+
+    /**
+     * The heap is sized in MB, the values are kept serialized on the heap, so sizing them is cheap
+     */
+    private static <V> Cache<String, V> createCache(String name, String kind, Class<V> valueType,
+        Serializer<V> serializer) {
+        long[] defaultSizes = DEFAULT_SIZES.getOrDefault(kind, new long[] {HEAP_SIZE, DISK_SIZE});
+        long heapSize = Long.getLong(SIZE_PREFIX + kind + ".heapSize", defaultSizes[0]);
+        long diskSize = Long.getLong(SIZE_PREFIX + kind + ".diskSize", defaultSizes[1]);
+        ResourcePoolsBuilder resourcePools = ResourcePoolsBuilder.newResourcePoolsBuilder()
+            .heap(heapSize, MemoryUnit.MB);
+        if (diskSize > heapSize) {
+            resourcePools = resourcePools.disk(diskSize, MemoryUnit.MB, true); // 磁盘持久化设置为true
+        }
+        return cacheManager.createCache(name,
+            CacheConfigurationBuilder.newCacheConfigurationBuilder(String.class, valueType, resourcePools)
+                .withValueSerializer(serializer)
+                .withValueSerializingCopier());
+    }
+
 }
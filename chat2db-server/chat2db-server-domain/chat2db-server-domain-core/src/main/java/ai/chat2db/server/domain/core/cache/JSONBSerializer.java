@@ -0,0 +1,56 @@
+package ai.chat2db.server.domain.core.cache;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Function;
+
+import com.alibaba.fastjson2.JSONB;
+import org.ehcache.spi.serialization.Serializer;
+import org.ehcache.spi.serialization.SerializerException;
+
+/**
+ * Ehcache serializer writing values as fastjson2 JSONB, a binary form of JSON that keeps the field names so that the
+ * persisted values can still be read after fields are added to or removed from the cached class.
+ */
+public class JSONBSerializer<T> implements Serializer<T> {
+
+    private final Function<byte[], T> reader;
+
+    private JSONBSerializer(Function<byte[], T> reader) {
+        this.reader = reader;
+    }
+
+    public static <T> JSONBSerializer<T> of(Class<T> clazz) {
+        return new JSONBSerializer<>(bytes -> JSONB.parseObject(bytes, clazz));
+    }
+
+    public static <T> JSONBSerializer<List<T>> ofList(Class<T> clazz) {
+        return new JSONBSerializer<>(bytes -> JSONB.parseArray(bytes, clazz));
+    }
+
+    @Override
+    public ByteBuffer serialize(T object) throws SerializerException {
+        try {
+            return ByteBuffer.wrap(JSONB.toBytes(object));
+        } catch (Exception e) {
+            throw new SerializerException("serialize cache value error", e);
+        }
+    }
+
+    @Override
+    public T read(ByteBuffer binary) throws SerializerException {
+        byte[] bytes = new byte[binary.remaining()];
+        binary.get(bytes);
+        try {
+            return reader.apply(bytes);
+        } catch (Exception e) {
+            throw new SerializerException("read cache value error", e);
+        }
+    }
+
+    @Override
+    public boolean equals(T object, ByteBuffer binary) throws SerializerException {
+        return Objects.equals(object, read(binary));
+    }
+}
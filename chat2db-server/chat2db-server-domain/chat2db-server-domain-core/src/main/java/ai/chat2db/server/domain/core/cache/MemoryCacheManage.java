@@ -89,6 +89,18 @@ public class MemoryCacheManage {
         return data;
     }
 
+    /**
+     * Remove a data from cache
+     *
+     * @param key
+     */
+    public static void remove(String key) {
+        if (key == null) {
+            return;
+        }
+        cache.remove(key);
+    }
+
     /**
      * Put a data from cache
      * The timeout is fixed at 10 minutes
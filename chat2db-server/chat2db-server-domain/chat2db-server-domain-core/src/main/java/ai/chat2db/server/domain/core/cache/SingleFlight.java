@@ -0,0 +1,56 @@
+package ai.chat2db.server.domain.core.cache;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Runs at most one call per key at a time. The first caller runs the call in its own thread, the callers that arrive
+ * while it is running wait for the same result instead of running it again, and get its failure as soon as it fails.
+ */
+public class SingleFlight<K, V> {
+
+    private final Map<K, CompletableFuture<V>> calls = new ConcurrentHashMap<>();
+
+    /**
+     * @param key
+     * @return whether a call of the key is running
+     */
+    public boolean isRunning(K key) {
+        return calls.containsKey(key);
+    }
+
+    /**
+     * Run the call, or wait for the running call of the same key.
+     *
+     * @param key
+     * @param call
+     * @return
+     */
+    public V execute(K key, Supplier<V> call) {
+        CompletableFuture<V> future = new CompletableFuture<>();
+        CompletableFuture<V> running = calls.putIfAbsent(key, future);
+        if (running != null) {
+            try {
+                return running.join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException runtimeException) {
+                    throw runtimeException;
+                }
+                throw e;
+            }
+        }
+        try {
+            V value = call.get();
+            future.complete(value);
+            return value;
+        } catch (Throwable t) {
+            future.completeExceptionally(t);
+            throw t;
+        } finally {
+            calls.remove(key, future);
+        }
+    }
+}
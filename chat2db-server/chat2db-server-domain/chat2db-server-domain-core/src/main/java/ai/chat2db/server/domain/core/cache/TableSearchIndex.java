@@ -0,0 +1,476 @@
+package ai.chat2db.server.domain.core.cache;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import lombok.Getter;
+
+/**
+ * In-memory search index of the table names of one version of a schema's table cache.
+ * <p>
+ * Names are lower cased and split into bigrams and trigrams, a search intersects the posting lists of the trigrams of
+ * the key, or reads the posting list of a two character key, instead of scanning every name. A single character key
+ * scans a 64-bit character mask of each name. The initials of the camelCase/snake_case
+ * segments of the names are kept sorted, so that {@code uo} finds {@code user_order} by binary search.
+ * <p>
+ * Results are ranked: exact, prefix, start of a segment, segment initials and substring, then by the length and the
+ * name of the table. Only when nothing matches, names holding the characters of the key in order are returned. The
+ * index is immutable and safe to share.
+ */
+public class TableSearchIndex {
+
+    private static final int[] EMPTY = new int[0];
+
+    private static final int EXACT = 0;
+    private static final int PREFIX = 1;
+    private static final int SEGMENT = 2;
+    private static final int INITIALS = 3;
+    private static final int SUBSTRING = 4;
+    private static final int FUZZY = 5;
+
+    /**
+     * Tables, in the order of the cache
+     */
+    @Getter
+    private final List<Entry> entries;
+
+    /**
+     * Version of the table cache the index was built from
+     */
+    @Getter
+    private final long version;
+
+    /**
+     * Modified time of the table cache version the index was built from
+     */
+    @Getter
+    private final long modified;
+
+    private final String[] names;
+
+    private final String[] initials;
+
+    private final long[] masks;
+
+    /**
+     * Sorted ids of the names containing each bigram and trigram
+     */
+    private final Map<Long, int[]> grams;
+
+    /**
+     * Segment initials in sorted order, and the table of each
+     */
+    private final String[] sortedInitials;
+
+    private final int[] initialsIds;
+
+    /**
+     * Position of each table when ordered by the length and the name, and the table at each position
+     */
+    private final int[] order;
+
+    private final int[] byScore;
+
+    public TableSearchIndex(List<Entry> entries, long version, long modified) {
+        this.entries = List.copyOf(entries);
+        this.version = version;
+        this.modified = modified;
+        int size = this.entries.size();
+        this.names = new String[size];
+        this.initials = new String[size];
+        this.masks = new long[size];
+        Map<Long, IntList> postings = new HashMap<>();
+        for (int i = 0; i < size; i++) {
+            String name = this.entries.get(i).getName();
+            names[i] = name == null ? "" : name.toLowerCase(Locale.ROOT);
+            initials[i] = initials(name);
+            masks[i] = mask(names[i]);
+            for (int j = 0; j + 2 <= names[i].length(); j++) {
+                addPosting(postings, bigram(names[i], j), i);
+                if (j + 3 <= names[i].length()) {
+                    addPosting(postings, trigram(names[i], j), i);
+                }
+            }
+        }
+        this.grams = new HashMap<>(postings.size() * 2);
+        postings.forEach((k, v) -> grams.put(k, v.toArray()));
+        Integer[] sorted = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            sorted[i] = i;
+        }
+        Arrays.sort(sorted, Comparator.<Integer>comparingInt(i -> names[i].length()).thenComparing(i -> names[i]));
+        this.order = new int[size];
+        this.byScore = new int[size];
+        for (int i = 0; i < size; i++) {
+            order[sorted[i]] = i;
+            byScore[i] = sorted[i];
+        }
+        Arrays.sort(sorted, Comparator.comparing(i -> initials[i]));
+        this.sortedInitials = new String[size];
+        this.initialsIds = new int[size];
+        for (int i = 0; i < size; i++) {
+            sortedInitials[i] = initials[sorted[i]];
+            initialsIds[i] = sorted[i];
+        }
+    }
+
+    /**
+     * @param key
+     * @param fuzzy  whether names holding the characters of the key in order match when nothing else does
+     * @param offset
+     * @param limit
+     * @return ranked matches, each an index into {@link #getEntries()}
+     */
+    public Result search(String key, boolean fuzzy, int offset, int limit) {
+        String k = key == null ? "" : key.trim().toLowerCase(Locale.ROOT);
+        if (k.isEmpty()) {
+            int end = Math.min(entries.size(), offset + limit);
+            int[] ids = new int[Math.max(0, end - offset)];
+            for (int i = 0; i < ids.length; i++) {
+                ids[i] = offset + i;
+            }
+            return new Result(ids, entries.size());
+        }
+        long keyMask = mask(k);
+        TopK top = new TopK(offset + limit);
+        for (int id : candidates(k, keyMask)) {
+            int pos = names[id].indexOf(k);
+            if (pos < 0) {
+                continue;
+            }
+            if (pos > 0 && top.isFull() && top.max() < score(SEGMENT, id)) {
+                // 已经凑满一页更好的结果, 只计数
+                top.count++;
+                continue;
+            }
+            int rank = names[id].length() == k.length() ? EXACT : pos == 0 ? PREFIX
+                : isSegmentStart(entries.get(id).getName(), names[id], k, pos) ? SEGMENT
+                : initials[id].startsWith(k) ? INITIALS : SUBSTRING;
+            top.add(score(rank, id));
+        }
+        if (k.length() > 1) {
+            for (int i = lowerBound(sortedInitials, k); i < sortedInitials.length && sortedInitials[i].startsWith(k);
+                i++) {
+                int id = initialsIds[i];
+                // 包含关键字的名字已经在上面计入
+                if (!names[id].contains(k)) {
+                    top.add(score(INITIALS, id));
+                }
+            }
+        }
+        if (fuzzy && top.count == 0 && k.length() > 1) {
+            for (int id = 0; id < names.length; id++) {
+                if ((masks[id] & keyMask) == keyMask && isSubsequence(k, names[id])) {
+                    top.add(score(FUZZY, id));
+                }
+            }
+        }
+        long[] scores = top.sorted();
+        int[] ids = new int[Math.max(0, scores.length - offset)];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = byScore[(int)(scores[offset + i] & 0xFFFFFFFFL)];
+        }
+        return new Result(ids, top.count);
+    }
+
+    /**
+     * Rank in the high bits, position in the order by name length and name in the low bits, so that comparing
+     * scores compares rank, length and name
+     */
+    private long score(int rank, int id) {
+        return (long)rank << 32 | order[id];
+    }
+
+    /**
+     * Names that may contain the key: the intersection of the trigram postings, the bigram posting, or the names whose
+     * character mask covers a single character key
+     */
+    private int[] candidates(String key, long keyMask) {
+        if (key.length() == 2) {
+            return grams.getOrDefault(bigram(key, 0), EMPTY);
+        }
+        if (key.length() < 3) {
+            IntList list = new IntList();
+            for (int id = 0; id < masks.length; id++) {
+                if ((masks[id] & keyMask) == keyMask) {
+                    list.add(id);
+                }
+            }
+            return list.toArray();
+        }
+        List<int[]> lists = new ArrayList<>();
+        for (int j = 0; j + 3 <= key.length(); j++) {
+            int[] posting = grams.get(trigram(key, j));
+            if (posting == null) {
+                return EMPTY;
+            }
+            lists.add(posting);
+        }
+        lists.sort(Comparator.comparingInt(l -> l.length));
+        int[] result = lists.get(0);
+        for (int i = 1; i < lists.size() && result.length > 0; i++) {
+            result = intersect(result, lists.get(i));
+        }
+        return result;
+    }
+
+    private static int[] intersect(int[] a, int[] b) {
+        int[] result = new int[Math.min(a.length, b.length)];
+        int n = 0;
+        for (int i = 0, j = 0; i < a.length && j < b.length; ) {
+            if (a[i] == b[j]) {
+                result[n++] = a[i];
+                i++;
+                j++;
+            } else if (a[i] < b[j]) {
+                i++;
+            } else {
+                j = lowerBound(b, j, a[i]);
+            }
+        }
+        return Arrays.copyOf(result, n);
+    }
+
+    /**
+     * First index from {@code from} whose value is not less than the target, galloping so that a short list
+     * intersects a long one in logarithmic steps
+     */
+    private static int lowerBound(int[] values, int from, int target) {
+        int step = 1;
+        int hi = from;
+        while (hi < values.length && values[hi] < target) {
+            from = hi;
+            hi += step;
+            step <<= 1;
+        }
+        int index = Arrays.binarySearch(values, from, Math.min(hi, values.length), target);
+        return index < 0 ? -index - 1 : index;
+    }
+
+    private static int lowerBound(String[] values, String target) {
+        int index = Arrays.binarySearch(values, target);
+        if (index < 0) {
+            return -index - 1;
+        }
+        while (index > 0 && values[index - 1].equals(target)) {
+            index--;
+        }
+        return index;
+    }
+
+    private static void addPosting(Map<Long, IntList> postings, long gram, int id) {
+        IntList list = postings.computeIfAbsent(gram, k -> new IntList());
+        // 同一个名字中重复的片段只记一次
+        if (list.size == 0 || list.values[list.size - 1] != id) {
+            list.add(id);
+        }
+    }
+
+    /**
+     * Two characters, marked in the bits above the characters so that they do not collide with a trigram
+     */
+    private static long bigram(String s, int i) {
+        return (1L << 48) | ((long)s.charAt(i) << 16) | s.charAt(i + 1);
+    }
+
+    private static long trigram(String s, int i) {
+        return ((long)s.charAt(i) << 32) | ((long)s.charAt(i + 1) << 16) | s.charAt(i + 2);
+    }
+
+    /**
+     * Bit per character of a lower cased name: letters, digits and underscore have their own bit, other characters
+     * share the rest
+     */
+    private static long mask(String s) {
+        long mask = 0;
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            int bit;
+            if (c >= 'a' && c <= 'z') {
+                bit = c - 'a';
+            } else if (c >= '0' && c <= '9') {
+                bit = 26 + c - '0';
+            } else if (c == '_') {
+                bit = 36;
+            } else {
+                bit = 37 + c % 27;
+            }
+            mask |= 1L << bit;
+        }
+        return mask;
+    }
+
+    /**
+     * First character of each camelCase, snake_case or digit segment, lower cased: {@code userOrder_item2} gives
+     * {@code uoi2}
+     */
+    private static String initials(String name) {
+        if (name == null) {
+            return "";
+        }
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (Character.isLetterOrDigit(c) && isSegmentStart(name, i)) {
+                builder.append(Character.toLowerCase(c));
+            }
+        }
+        return builder.toString();
+    }
+
+    private static boolean isSegmentStart(String name, int i) {
+        if (i == 0) {
+            return true;
+        }
+        char prev = name.charAt(i - 1);
+        char c = name.charAt(i);
+        return !Character.isLetterOrDigit(prev)
+            || Character.isUpperCase(c) && !Character.isUpperCase(prev)
+            || Character.isDigit(c) != Character.isDigit(prev);
+    }
+
+    private static boolean isSegmentStart(String name, String lowerName, String key, int pos) {
+        // 忽略大小写后长度变化的名字无法对应原始位置
+        if (name.length() != lowerName.length()) {
+            return false;
+        }
+        for (; pos >= 0; pos = lowerName.indexOf(key, pos + 1)) {
+            if (isSegmentStart(name, pos)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isSubsequence(String key, String name) {
+        int j = 0;
+        for (int i = 0; i < name.length() && j < key.length(); i++) {
+            if (name.charAt(i) == key.charAt(j)) {
+                j++;
+            }
+        }
+        return j == key.length();
+    }
+
+    @Getter
+    public static class Entry {
+
+        private final String name;
+
+        private final String comment;
+
+        public Entry(String name, String comment) {
+            this.name = name;
+            this.comment = comment;
+        }
+    }
+
+    @Getter
+    public static class Result {
+
+        /**
+         * Indexes into the entries of the index, of the requested page
+         */
+        private final int[] ids;
+
+        /**
+         * Total number of matches
+         */
+        private final int total;
+
+        Result(int[] ids, int total) {
+            this.ids = ids;
+            this.total = total;
+        }
+    }
+
+    /**
+     * Keeps the smallest scores seen, a max-heap of bounded size so that a key matching most tables does not sort
+     * all of them
+     */
+    private static class TopK {
+
+        private final long[] heap;
+
+        private int size;
+
+        private int count;
+
+        TopK(int capacity) {
+            this.heap = new long[Math.max(0, capacity)];
+        }
+
+        void add(long score) {
+            count++;
+            if (size < heap.length) {
+                int i = size++;
+                heap[i] = score;
+                while (i > 0 && heap[(i - 1) / 2] < heap[i]) {
+                    swap(i, (i - 1) / 2);
+                    i = (i - 1) / 2;
+                }
+            } else if (size > 0 && score < heap[0]) {
+                heap[0] = score;
+                for (int i = 0; ; ) {
+                    int largest = i;
+                    int l = 2 * i + 1;
+                    int r = l + 1;
+                    if (l < size && heap[l] > heap[largest]) {
+                        largest = l;
+                    }
+                    if (r < size && heap[r] > heap[largest]) {
+                        largest = r;
+                    }
+                    if (largest == i) {
+                        break;
+                    }
+                    swap(i, largest);
+                    i = largest;
+                }
+            }
+        }
+
+        boolean isFull() {
+            return size > 0 && size == heap.length;
+        }
+
+        long max() {
+            return heap[0];
+        }
+
+        long[] sorted() {
+            long[] result = Arrays.copyOf(heap, size);
+            Arrays.sort(result);
+            return result;
+        }
+
+        private void swap(int i, int j) {
+            long t = heap[i];
+            heap[i] = heap[j];
+            heap[j] = t;
+        }
+    }
+
+    private static class IntList {
+
+        private int[] values = new int[4];
+
+        private int size;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+}
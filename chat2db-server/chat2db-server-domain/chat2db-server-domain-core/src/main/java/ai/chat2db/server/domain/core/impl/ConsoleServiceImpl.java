@@ -3,9 +3,13 @@ package ai.chat2db.server.domain.core.impl;
 import ai.chat2db.server.domain.api.param.ConsoleConnectParam;
 import ai.chat2db.server.domain.api.service.ConsoleService;
 import ai.chat2db.server.domain.api.param.ConsoleCloseParam;
+import ai.chat2db.server.tools.common.util.ContextUtils;
+import ai.chat2db.spi.model.ConsoleSessionInfo;
 import ai.chat2db.spi.sql.Chat2DBContext;
+import ai.chat2db.spi.sql.ConsoleSessionManager;
 import ai.chat2db.spi.sql.SQLExecutor;
 import ai.chat2db.server.tools.base.wrapper.result.ActionResult;
+import ai.chat2db.server.tools.base.wrapper.result.ListResult;
 
 import org.springframework.stereotype.Service;
 
@@ -25,7 +29,13 @@ public class ConsoleServiceImpl implements ConsoleService {
     @Override
     public ActionResult closeConsole(ConsoleCloseParam param) {
         SQLExecutor.getInstance().close();
+        ConsoleSessionManager.kill(param.getDataSourceId(), param.getConsoleId(), ContextUtils.getUserId());
         return ActionResult.isSuccess();
     }
 
+    @Override
+    public ListResult<ConsoleSessionInfo> querySessions() {
+        return ListResult.of(ConsoleSessionManager.list(ContextUtils.getUserId()));
+    }
+
 }
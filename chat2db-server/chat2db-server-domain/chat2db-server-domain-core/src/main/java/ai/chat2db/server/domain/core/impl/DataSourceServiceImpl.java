@@ -40,6 +40,9 @@ import ai.chat2db.spi.model.DataSourceConnect;
 import ai.chat2db.spi.model.Database;
 import ai.chat2db.spi.model.KeyValue;
 import ai.chat2db.spi.sql.Chat2DBContext;
+import ai.chat2db.spi.sql.ConnectionPoolManager;
+import ai.chat2db.spi.sql.ConsoleSessionManager;
+import ai.chat2db.spi.sql.CursorManager;
 import ai.chat2db.spi.sql.IDriverManager;
 import ai.chat2db.spi.sql.SQLExecutor;
 import ai.chat2db.spi.util.JdbcUtils;
@@ -128,6 +131,8 @@ public class DataSourceServiceImpl implements DataSourceService {
         DataSourceDO dataSourceDO = dataSourceConverter.param2do(param);
         dataSourceDO.setGmtModified(DateUtil.date());
         dataSourceMapper.updateById(dataSourceDO);
+        ConnectionPoolManager.invalidate(dataSourceDO.getId());
+        CursorManager.invalidate(dataSourceDO.getId());
         return DataResult.of(dataSourceDO.getId());
     }
 
@@ -138,6 +143,9 @@ public class DataSourceServiceImpl implements DataSourceService {
         PermissionUtils.checkOperationPermission(dataSource.getUserId());
 
         dataSourceMapper.deleteById(id);
+        ConnectionPoolManager.invalidate(id);
+        CursorManager.invalidate(id);
+        ConsoleSessionManager.invalidate(id);
 
         LambdaQueryWrapper<DataSourceAccessDO> dataSourceAccessQueryWrapper = new LambdaQueryWrapper<>();
         dataSourceAccessQueryWrapper.eq(DataSourceAccessDO::getDataSourceId, id)
@@ -255,7 +263,7 @@ public class DataSourceServiceImpl implements DataSourceService {
     public ListResult<Database> connect(Long id) {
         DatabaseQueryAllParam queryAllParam = new DatabaseQueryAllParam();
         queryAllParam.setDataSourceId(id);
-        List<Database> databases = Chat2DBContext.getMetaData().databases(Chat2DBContext.getConnection());
+        List<Database> databases = Chat2DBContext.getMetaData().databases(Chat2DBContext.getMetaConnection());
         return ListResult.of(databases);
     }
 
@@ -264,6 +272,9 @@ public class DataSourceServiceImpl implements DataSourceService {
         DataSourceCloseParam closeParam = new DataSourceCloseParam();
         closeParam.setDataSourceId(id);
         SQLExecutor.getInstance().close();
+        ConnectionPoolManager.invalidate(id);
+        CursorManager.invalidate(id);
+        ConsoleSessionManager.invalidate(id);
         return ActionResult.isSuccess();
     }
 
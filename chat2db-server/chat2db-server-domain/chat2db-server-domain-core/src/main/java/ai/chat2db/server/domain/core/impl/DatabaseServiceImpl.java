@@ -46,7 +46,7 @@ public class DatabaseServiceImpl implements DatabaseService {
     public ListResult<Database> queryAll(DatabaseQueryAllParam param) {
         List<Database> databases = CacheManage.getList(getDataBasesKey(param.getDataSourceId()), Database.class,
                 (key) -> param.isRefresh(),
-                (key) -> getDatabases(param.getDbType(), param.getConnection() == null ? Chat2DBContext.getConnection()
+                (key) -> getDatabases(param.getDbType(), param.getConnection() == null ? Chat2DBContext.getMetaConnection()
                         : param.getConnection())
         );
         return ListResult.of(databases);
@@ -61,7 +61,7 @@ public class DatabaseServiceImpl implements DatabaseService {
         List<Schema> schemas = CacheManage.getList(getSchemasKey(param.getDataSourceId(), param.getDataBaseName()),
                 Schema.class,
                 (key) -> param.isRefresh(), (key) -> {
-                    Connection connection = param.getConnection() == null ? Chat2DBContext.getConnection()
+                    Connection connection = param.getConnection() == null ? Chat2DBContext.getMetaConnection()
                             : param.getConnection();
                     return getSchemaList(param.getDataBaseName(), connection);
                 });
@@ -105,7 +105,7 @@ public class DatabaseServiceImpl implements DatabaseService {
         MetaData metaData = Chat2DBContext.getMetaData();
         MetaSchema ms = CacheManage.get(getDataSourceKey(param.getDataSourceId()), MetaSchema.class,
                 (key) -> param.isRefresh(), (key) -> {
-                    Connection connection = Chat2DBContext.getConnection();
+                    Connection connection = Chat2DBContext.getMetaConnection();
                     List<Database> databases = metaData.databases(connection);
                     if (!CollectionUtils.isEmpty(databases)) {
                         CountDownLatch countDownLatch = ThreadUtil.newCountDownLatch(databases.size());
@@ -1,15 +1,25 @@
 package ai.chat2db.server.domain.core.impl;
 
 import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
 import ai.chat2db.server.domain.api.param.*;
 import ai.chat2db.server.domain.api.param.operation.OperationLogCreateParam;
 import ai.chat2db.server.domain.api.service.OperationLogService;
+import ai.chat2db.server.domain.core.cache.CacheKey;
+import ai.chat2db.server.domain.core.cache.MemoryCacheManage;
 import ai.chat2db.spi.MetaData;
 import ai.chat2db.spi.sql.ConnectInfo;
 import com.alibaba.druid.DbType;
@@ -17,29 +27,46 @@ import com.alibaba.druid.sql.PagerUtils;
 import com.alibaba.druid.sql.SQLUtils;
 import com.alibaba.druid.sql.ast.SQLStatement;
 import com.alibaba.druid.sql.ast.statement.SQLSelectStatement;
-import com.alibaba.druid.sql.parser.ParserException;
 
+import ai.chat2db.server.domain.api.service.DlExecuteListener;
 import ai.chat2db.server.domain.api.service.DlTemplateService;
 import ai.chat2db.server.tools.base.constant.EasyToolsConstant;
 import ai.chat2db.server.tools.base.excption.BusinessException;
+import ai.chat2db.server.tools.base.wrapper.result.ActionResult;
 import ai.chat2db.server.tools.base.wrapper.result.DataResult;
 import ai.chat2db.server.tools.base.wrapper.result.ListResult;
+import ai.chat2db.server.tools.common.util.ContextUtils;
 import ai.chat2db.server.tools.common.util.EasyCollectionUtils;
 import ai.chat2db.server.tools.common.util.I18nUtils;
 import ai.chat2db.spi.enums.DataTypeEnum;
 import ai.chat2db.spi.enums.SqlTypeEnum;
+import ai.chat2db.spi.model.AnalyzedStatement;
 import ai.chat2db.spi.model.ExecuteResult;
 import ai.chat2db.spi.model.Header;
+import ai.chat2db.spi.model.Table;
+import ai.chat2db.spi.model.TableColumn;
+import ai.chat2db.spi.model.TableIndex;
+import ai.chat2db.spi.model.TableIndexColumn;
 import ai.chat2db.spi.sql.Chat2DBContext;
+import ai.chat2db.spi.sql.CursorManager;
+import ai.chat2db.spi.sql.CursorSession;
+import ai.chat2db.spi.sql.ExecutionManager;
 import ai.chat2db.spi.sql.SQLExecutor;
 import ai.chat2db.spi.util.JdbcUtils;
 import ai.chat2db.spi.util.SqlUtils;
+import cn.hutool.core.date.TimeInterval;
+import com.alibaba.fastjson2.JSON;
+import com.alibaba.fastjson2.JSONArray;
+import com.alibaba.fastjson2.JSONObject;
 import com.google.common.collect.Lists;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.collections4.CollectionUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.util.DigestUtils;
 
 /**
  * @author moji
@@ -58,25 +85,13 @@ public class DlTemplateServiceImpl implements DlTemplateService {
         if (StringUtils.isBlank(param.getSql())) {
             return ListResult.empty();
         }
-        // 解析sql
-        String type = Chat2DBContext.getConnectInfo().getDbType();
-        DbType dbType = JdbcUtils.parse2DruidDbType(type);
-        if ("SQLSERVER".equalsIgnoreCase(type)) {
-            RemoveSpecialGO(param);
-        }
-
-        List<String> sqlList = SqlUtils.parse(param.getSql(), dbType);
-
-
-        if (CollectionUtils.isEmpty(sqlList)) {
-            throw new BusinessException("dataSource.sqlAnalysisError");
-        }
+        List<AnalyzedStatement> statementList = analyze(param);
 
         List<ExecuteResult> result = new ArrayList<>();
         ListResult<ExecuteResult> listResult = ListResult.of(result);
         // 执行sql
-        for (String originalSql : sqlList) {
-            ExecuteResult executeResult = executeSQL(originalSql, dbType, param);
+        for (AnalyzedStatement statement : statementList) {
+            ExecuteResult executeResult = executeSQL(statement, param, new BufferedRowSink());
             result.add(executeResult);
             if (!executeResult.getSuccess()) {
                 listResult.setSuccess(false);
@@ -88,32 +103,83 @@ public class DlTemplateServiceImpl implements DlTemplateService {
         return listResult;
     }
 
+    @Override
+    public void executeStream(DlExecuteParam param, DlExecuteListener listener) {
+        if (StringUtils.isBlank(param.getSql())) {
+            return;
+        }
+        List<AnalyzedStatement> statementList = analyze(param);
+        // 执行sql
+        for (AnalyzedStatement statement : statementList) {
+            ExecuteResult executeResult = executeSQL(statement, param, new StreamRowSink(listener));
+            addOperationLog(executeResult);
+        }
+    }
+
+    private List<AnalyzedStatement> analyze(DlExecuteParam param) {
+        Chat2DBContext.getConnectInfo().setExecutionId(param.getExecutionId());
+        // 解析sql
+        String type = Chat2DBContext.getConnectInfo().getDbType();
+        DbType dbType = JdbcUtils.parse2DruidDbType(type);
+        if ("SQLSERVER".equalsIgnoreCase(type)) {
+            RemoveSpecialGO(param);
+        }
+
+        List<AnalyzedStatement> statementList = SqlUtils.analyze(param.getSql(), dbType);
+        if (CollectionUtils.isEmpty(statementList)) {
+            throw new BusinessException("dataSource.sqlAnalysisError");
+        }
+        return statementList;
+    }
+
     @Override
     public DataResult<ExecuteResult> executeUpdate(DlExecuteParam param) {
         DataResult<ExecuteResult> dataResult = new DataResult<>();
         dataResult.setSuccess(true);
         RemoveSpecialGO(param);
+        Chat2DBContext.getConnectInfo().setExecutionId(param.getExecutionId());
         DbType dbType =
                 JdbcUtils.parse2DruidDbType(Chat2DBContext.getConnectInfo().getDbType());
         List<String> sqlList = SqlUtils.parse(param.getSql(), dbType);
         Connection connection = Chat2DBContext.getConnection();
+        boolean autoCommit = true;
         try {
+            autoCommit = connection.getAutoCommit();
             connection.setAutoCommit(false);
-            for (String originalSql : sqlList) {
-                ExecuteResult executeResult = SQLExecutor.getInstance().executeUpdate(originalSql, connection, 1);
+            List<ExecuteResult> executeResults = SQLExecutor.getInstance().executeBatch(sqlList, connection, dbType, 1);
+            for (ExecuteResult executeResult : executeResults) {
                 dataResult.setData(executeResult);
                 addOperationLog(executeResult);
             }
             connection.commit();
         } catch (Exception e) {
             log.error("executeUpdate error", e);
+            try {
+                connection.rollback();
+            } catch (SQLException ex) {
+                log.error("rollback error", ex);
+            }
             dataResult.setSuccess(false);
             dataResult.setErrorCode("connection error");
             dataResult.setErrorMessage(e.getMessage());
+        } finally {
+            // 控制台会话的连接会被之后的执行继续使用，不能停留在手动提交
+            restoreAutoCommit(connection, autoCommit);
         }
         return dataResult;
     }
 
+    private void restoreAutoCommit(Connection connection, boolean autoCommit) {
+        if (!autoCommit) {
+            return;
+        }
+        try {
+            connection.setAutoCommit(true);
+        } catch (SQLException e) {
+            log.error("restore auto commit error", e);
+        }
+    }
+
     private void RemoveSpecialGO(DlExecuteParam param) {
         String sql = param.getSql();
         if (StringUtils.isBlank(sql)) {
@@ -124,85 +190,100 @@ public class DlTemplateServiceImpl implements DlTemplateService {
     }
 
 
-    private ExecuteResult executeSQL(String originalSql, DbType dbType, DlExecuteParam param) {
+    /**
+     * Execute one statement, reading the page of a query by key, by the page limit of the dialect or by skipping
+     * rows, whichever works first. Only where the rows go depends on the sink.
+     */
+    private ExecuteResult executeSQL(AnalyzedStatement statement, DlExecuteParam param, RowSink rowSink) {
+        String originalSql = statement.getSql();
+        String sqlType = statement.getSqlType();
+        boolean select = SqlTypeEnum.SELECT.getCode().equals(sqlType);
         int pageNo = 1;
         int pageSize = 0;
         Integer offset = null;
         Integer count = null;
-        String sqlType = SqlTypeEnum.UNKNOWN.getCode();
 
-        // 解析sql分页
-        SQLStatement sqlStatement;
-        try {
-            sqlStatement = SQLUtils.parseSingleStatement(originalSql, dbType);
-            // 是否需要代码帮忙分页
-            if (sqlStatement instanceof SQLSelectStatement) {
-                pageNo = Optional.ofNullable(param.getPageNo()).orElse(1);
-                pageSize = Optional.ofNullable(param.getPageSize()).orElse(EasyToolsConstant.MAX_PAGE_SIZE);
-                offset = (pageNo - 1) * pageSize;
-                count = pageSize;
-                sqlType = SqlTypeEnum.SELECT.getCode();
-            }
-        } catch (ParserException e) {
-            log.warn("解析sql失败:{}", originalSql, e);
+        // 是否需要代码帮忙分页
+        if (select) {
+            pageNo = Optional.ofNullable(param.getPageNo()).orElse(1);
+            pageSize = Optional.ofNullable(param.getPageSize()).orElse(EasyToolsConstant.MAX_PAGE_SIZE);
+            offset = (pageNo - 1) * pageSize;
+            count = pageSize;
         }
+        rowSink.start(statement, pageNo, pageSize);
         ExecuteResult executeResult = null;
-        if (SqlTypeEnum.SELECT.getCode().equals(sqlType) && !SqlUtils.hasPageLimit(originalSql,dbType)) {
-            String pageLimit = Chat2DBContext.getSqlBuilder().pageLimit(originalSql, offset, pageNo, pageSize);
-            if(StringUtils.isNotBlank(pageLimit)) {
-                executeResult = execute(pageLimit, 0, count);
+        if (select && Boolean.TRUE.equals(param.getUseCursor())) {
+            executeResult = rowSink.executeCursor(originalSql, param.getCursorId(), offset, count);
+        }
+        KeysetPage keysetPage = executeResult == null ? getKeysetPage(statement, param, pageNo) : null;
+        if (keysetPage != null) {
+            executeResult = executePage(keysetPage.getSql(), keysetPage.isSeek() ? 0 : offset, pageNo, pageSize,
+                    rowSink);
+            if (!executeResult.getSuccess() && !rowSink.isStarted()) {
+                log.warn("execute {} by key error:{}", originalSql, executeResult.getMessage());
+                executeResult = null;
+            } else if (executeResult.getSuccess() && pageSize > 0 && rowSink.getRowCount() >= pageSize) {
+                executeResult.setPageToken(createPageToken(originalSql, pageNo, keysetPage.getKeyColumns(),
+                        rowSink.getHeaderList(), rowSink.getLastRow()));
             }
         }
-        if (executeResult == null || !executeResult.getSuccess()) {
-            executeResult = execute(originalSql, offset, count);
+        if (executeResult == null && select && !statement.isPageLimit()) {
+            executeResult = executePage(originalSql, offset, pageNo, pageSize, rowSink);
+        } else if (executeResult == null) {
+            executeResult = rowSink.execute(originalSql, offset, count);
         }
 
-
+        int rowCount = rowSink.getRowCount();
         executeResult.setSqlType(sqlType);
         executeResult.setOriginalSql(originalSql);
-        try {
-            SqlUtils.buildCanEditResult(originalSql, dbType, executeResult);
-        } catch (Exception e) {
-            log.warn("buildCanEditResult error", e);
+        executeResult.setCanEdit(statement.isCanEdit());
+        if (statement.isCanEdit()) {
+            executeResult.setTableName(statement.getTableName());
         }
-        if (SqlTypeEnum.SELECT.getCode().equals(sqlType)) {
-            executeResult.setPageNo(pageNo);
+        executeResult.setPageNo(pageNo);
+        if (select) {
             executeResult.setPageSize(pageSize);
-            executeResult.setHasNextPage(
-                    CollectionUtils.size(executeResult.getDataList()) >= executeResult.getPageSize());
+            executeResult.setHasNextPage(rowCount >= pageSize);
         } else {
-            executeResult.setPageNo(pageNo);
-            executeResult.setPageSize(CollectionUtils.size(executeResult.getDataList()));
+            executeResult.setPageSize(rowCount);
             executeResult.setHasNextPage(Boolean.FALSE);
         }
+        executeResult.setHeaderList(buildHeaderList(executeResult.getHeaderList()));
+        //  Total number of fuzzy rows
+        executeResult.setFuzzyTotal(calculateFuzzyTotal(pageNo, pageSize, rowCount));
+        rowSink.complete(executeResult);
+        return executeResult;
+    }
+
+    /**
+     * Read the page with the page limit of the dialect, or by skipping the rows before it if the dialect has no page
+     * limit or the limited query fails before any row is handed on.
+     */
+    private ExecuteResult executePage(String sql, int offset, int pageNo, int pageSize, RowSink rowSink) {
+        ExecuteResult executeResult = null;
+        String pageLimit = Chat2DBContext.getSqlBuilder().pageLimit(sql, offset, pageNo, pageSize);
+        if (StringUtils.isNotBlank(pageLimit)) {
+            executeResult = rowSink.execute(pageLimit, 0, pageSize);
+        }
+        if (executeResult == null || !executeResult.getSuccess() && !rowSink.isStarted()) {
+            executeResult = rowSink.execute(sql, offset, pageSize);
+        }
+        return executeResult;
+    }
 
-        // Splice row numbers
+    private List<Header> buildHeaderList(List<Header> headerList) {
         List<Header> newHeaderList = new ArrayList<>();
         newHeaderList.add(Header.builder()
                 .name(I18nUtils.getMessage("sqlResult.rowNumber"))
                 .dataType(DataTypeEnum.CHAT2DB_ROW_NUMBER
                         .getCode()).build());
-        if (executeResult.getHeaderList() != null) {
-            newHeaderList.addAll(executeResult.getHeaderList());
-        }
-        executeResult.setHeaderList(newHeaderList);
-        if (executeResult.getDataList() != null) {
-            int rowNumberIncrement = 1 + Math.max(pageNo - 1, 0) * pageSize;
-            for (int i = 0; i < executeResult.getDataList().size(); i++) {
-                List<String> row = executeResult.getDataList().get(i);
-                List<String> newRow = Lists.newArrayListWithExpectedSize(row.size() + 1);
-                newRow.add(Integer.toString(i + rowNumberIncrement));
-                newRow.addAll(row);
-                executeResult.getDataList().set(i, newRow);
-            }
+        if (headerList != null) {
+            newHeaderList.addAll(headerList);
         }
-        //  Total number of fuzzy rows
-        executeResult.setFuzzyTotal(calculateFuzzyTotal(pageNo, pageSize, executeResult));
-        return executeResult;
+        return newHeaderList;
     }
 
-    private String calculateFuzzyTotal(int pageNo, int pageSize, ExecuteResult executeResult) {
-        int dataSize = CollectionUtils.size(executeResult.getDataList());
+    private String calculateFuzzyTotal(int pageNo, int pageSize, int dataSize) {
         if (pageSize <= 0) {
             return Integer.toString(dataSize);
         }
@@ -213,11 +294,106 @@ public class DlTemplateServiceImpl implements DlTemplateService {
         return Integer.toString(fuzzyTotal) + "+";
     }
 
+    /**
+     * The query sorted by the key of its table, reading the rows after the page token if the token was returned by
+     * the previous page of the same query. Null unless the table browse asked for it, sql typed in the console is
+     * left as it is, or if the query is not a plain read of a table with a not null key.
+     */
+    private KeysetPage getKeysetPage(AnalyzedStatement statement, DlExecuteParam param, int pageNo) {
+        if (!Boolean.TRUE.equals(param.getUseKeyset()) || !SqlTypeEnum.SELECT.getCode().equals(
+                statement.getSqlType()) || statement.isPageLimit() || Boolean.TRUE.equals(param.getUseCursor())) {
+            return null;
+        }
+        Table table = SqlUtils.getBrowseTable(statement.getSql());
+        if (table == null) {
+            return null;
+        }
+        try {
+            ConnectInfo connectInfo = Chat2DBContext.getConnectInfo();
+            String[] names = Stream.of(table.getDatabaseName(), table.getSchemaName(), table.getName())
+                    .filter(StringUtils::isNotBlank)
+                    .toArray(String[]::new);
+            MetaData metaSchema = Chat2DBContext.getMetaData();
+            List<String> keyColumns = getKeysetColumns(
+                    getMetaTableName(names, connectInfo.getDatabaseName(), connectInfo.getSchemaName()), metaSchema);
+            if (CollectionUtils.isEmpty(keyColumns)) {
+                return null;
+            }
+            List<Object> lastKey = pageNo > 1 ? parsePageToken(param.getPageToken(), statement.getSql(), pageNo,
+                    keyColumns.size()) : null;
+            List<String> quotedKeyColumns = EasyCollectionUtils.toList(keyColumns,
+                    keyColumn -> metaSchema.getMetaDataName(keyColumn));
+            return new KeysetPage(SqlUtils.orderByKey(statement.getSql(), quotedKeyColumns, lastKey),
+                    lastKey != null, keyColumns);
+        } catch (Exception e) {
+            log.warn("get key of {} error", statement.getSql(), e);
+            return null;
+        }
+    }
+
+    /**
+     * The key of the last row, with the page it leads to and the digest of the query it belongs to. Null if a key
+     * column is not read or its value is neither an integer nor a string.
+     */
+    private String createPageToken(String sql, int pageNo, List<String> keyColumns, List<Header> headerList,
+            List<String> row) {
+        if (headerList == null || row == null) {
+            return null;
+        }
+        JSONArray key = new JSONArray();
+        for (String keyColumn : keyColumns) {
+            int index = IntStream.range(0, headerList.size())
+                    .filter(i -> StringUtils.equalsIgnoreCase(keyColumn, headerList.get(i).getName()))
+                    .findFirst()
+                    .orElse(-1);
+            if (index < 0 || index >= row.size() || row.get(index) == null) {
+                return null;
+            }
+            String value = row.get(index);
+            String dataType = headerList.get(index).getDataType();
+            if (DataTypeEnum.NUMERIC.getCode().equals(dataType) && value.matches("-?\\d+")) {
+                key.add(new BigInteger(value));
+            } else if (DataTypeEnum.STRING.getCode().equals(dataType)) {
+                key.add(value);
+            } else {
+                return null;
+            }
+        }
+        JSONObject token = new JSONObject();
+        token.put("pageNo", pageNo + 1);
+        token.put("sql", DigestUtils.md5DigestAsHex(sql.getBytes(StandardCharsets.UTF_8)));
+        token.put("key", key);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(
+                token.toJSONString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private List<Object> parsePageToken(String pageToken, String sql, int pageNo, int keySize) {
+        if (StringUtils.isBlank(pageToken)) {
+            return null;
+        }
+        try {
+            JSONObject token = JSON.parseObject(new String(Base64.getUrlDecoder().decode(pageToken),
+                    StandardCharsets.UTF_8));
+            JSONArray key = token.getJSONArray("key");
+            if (!Integer.valueOf(pageNo).equals(token.getInteger("pageNo"))
+                    || !DigestUtils.md5DigestAsHex(sql.getBytes(StandardCharsets.UTF_8)).equals(token.getString("sql"))
+                    || key == null || key.size() != keySize
+                    || !key.stream().allMatch(value -> value instanceof Number || value instanceof String)) {
+                return null;
+            }
+            return key;
+        } catch (Exception e) {
+            log.warn("parse page token {} error", pageToken, e);
+            return null;
+        }
+    }
+
     @Override
     public DataResult<Long> count(DlCountParam param) {
         if (StringUtils.isBlank(param.getSql())) {
             return DataResult.of(0L);
         }
+        Chat2DBContext.getConnectInfo().setExecutionId(param.getExecutionId());
         DbType dbType =
                 JdbcUtils.parse2DruidDbType(Chat2DBContext.getConnectInfo().getDbType());
         String sql = param.getSql();
@@ -242,23 +418,60 @@ public class DlTemplateServiceImpl implements DlTemplateService {
         return DataResult.of(Long.valueOf(count));
     }
 
+    @Override
+    public DataResult<Long> estimateCount(DlCountParam param) {
+        if (StringUtils.isBlank(param.getSql())) {
+            return DataResult.of(0L);
+        }
+        Table table = SqlUtils.getCountTable(param.getSql());
+        if (table == null) {
+            return DataResult.of(null);
+        }
+        try {
+            DatabaseMetaData databaseMetaData = Chat2DBContext.getMetaConnection().getMetaData();
+            String databaseName = toIdentifier(databaseMetaData,
+                    StringUtils.defaultIfBlank(table.getDatabaseName(), param.getDatabaseName()));
+            String schemaName = toIdentifier(databaseMetaData,
+                    StringUtils.defaultIfBlank(table.getSchemaName(), param.getSchemaName()));
+            String tableName = toIdentifier(databaseMetaData, table.getName());
+            return DataResult.of(Chat2DBContext.getMetaData().estimateCount(Chat2DBContext.getMetaConnection(),
+                    databaseName, schemaName, tableName));
+        } catch (Exception e) {
+            log.warn("estimate count of {} error", param.getSql(), e);
+            return DataResult.of(null);
+        }
+    }
+
+    @Override
+    public ActionResult cancel(DlCancelParam param) {
+        int count = ExecutionManager.cancel(param.getDataSourceId(), param.getConsoleId(), param.getExecutionId(),
+                ContextUtils.getUserId());
+        log.info("cancel {} executions of console {}", count, param.getConsoleId());
+        return ActionResult.isSuccess();
+    }
+
     @Override
     public DataResult<String> updateSelectResult(UpdateSelectResultParam param) {
         StringBuilder stringBuilder = new StringBuilder();
         MetaData metaSchema = Chat2DBContext.getMetaData();
+        int[] keyIndexes = null;
         for (int i = 0; i < param.getOperations().size(); i++) {
             SelectResultOperation operation = param.getOperations().get(i);
 
             List<String> row = operation.getDataList();
             List<String> odlRow = operation.getOldDataList();
+            if (keyIndexes == null && ("UPDATE".equalsIgnoreCase(operation.getType()) || "DELETE".equalsIgnoreCase(
+                    operation.getType()))) {
+                keyIndexes = getKeyIndexes(param, metaSchema);
+            }
             String sql = "";
             if ("UPDATE".equalsIgnoreCase(operation.getType())) {
-                sql = getUpdateSql(param, row, odlRow, metaSchema);
+                sql = getUpdateSql(param, row, odlRow, metaSchema, keyIndexes);
             } else if ("CREATE".equalsIgnoreCase(operation.getType())) {
                 sql = getInsertSql(param, row, metaSchema);
 
             } else if ("DELETE".equalsIgnoreCase(operation.getType())) {
-                sql = getDeleteSql(param, odlRow, metaSchema);
+                sql = getDeleteSql(param, odlRow, metaSchema, keyIndexes);
             }
 
             stringBuilder.append(sql + ";\n");
@@ -266,18 +479,29 @@ public class DlTemplateServiceImpl implements DlTemplateService {
         return DataResult.of(stringBuilder.toString());
     }
 
-    private String getDeleteSql(UpdateSelectResultParam param, List<String> row, MetaData metaSchema) {
+    private String getDeleteSql(UpdateSelectResultParam param, List<String> row, MetaData metaSchema,
+            int[] keyIndexes) {
         StringBuilder script = new StringBuilder();
         script.append("DELETE FROM ").append(param.getTableName()).append("");
 
-        script.append(buildWhere(param.getHeaderList(), row, metaSchema));
+        script.append(buildWhere(param.getHeaderList(), row, metaSchema, keyIndexes));
         return script.toString();
     }
 
-    private String buildWhere(List<Header> headerList, List<String> row, MetaData metaSchema) {
+    /**
+     * Locate the row by its key columns if they all have a value, otherwise by all of its columns.
+     */
+    private String buildWhere(List<Header> headerList, List<String> row, MetaData metaSchema, int[] keyIndexes) {
+        if (keyIndexes.length > 0 && Arrays.stream(keyIndexes).allMatch(i -> row.get(i) != null)) {
+            return buildWhere(headerList, row, metaSchema, Arrays.stream(keyIndexes));
+        }
+        return buildWhere(headerList, row, metaSchema, IntStream.range(1, row.size()));
+    }
+
+    private String buildWhere(List<Header> headerList, List<String> row, MetaData metaSchema, IntStream indexes) {
         StringBuilder script = new StringBuilder();
         script.append(" where ");
-        for (int i = 1; i < row.size(); i++) {
+        indexes.forEach(i -> {
             String oldValue = row.get(i);
             Header header = headerList.get(i);
             String value = SqlUtils.getSqlValue(oldValue, header.getDataType());
@@ -290,12 +514,153 @@ public class DlTemplateServiceImpl implements DlTemplateService {
                         .append(value)
                         .append(" and ");
             }
-        }
+        });
 
         script.delete(script.length() - 4, script.length());
         return script.toString();
     }
 
+    /**
+     * Header indexes of the primary key, or of the smallest unique index, of the edited table. Empty if the table
+     * has neither or the result does not contain all of the key columns.
+     */
+    private int[] getKeyIndexes(UpdateSelectResultParam param, MetaData metaSchema) {
+        List<String> keyColumns;
+        try {
+            String[] metaTableName = getMetaTableName(param.getTableName().split("\\."), param.getDatabaseName(),
+                    param.getSchemaName());
+            keyColumns = getKeyColumns(metaTableName, metaSchema);
+        } catch (Exception e) {
+            log.warn("get key columns of {} error", param.getTableName(), e);
+            return new int[0];
+        }
+        if (CollectionUtils.isEmpty(keyColumns)) {
+            return new int[0];
+        }
+        List<Header> headerList = param.getHeaderList();
+        int[] keyIndexes = new int[keyColumns.size()];
+        for (int k = 0; k < keyColumns.size(); k++) {
+            keyIndexes[k] = -1;
+            for (int i = 1; i < headerList.size(); i++) {
+                if (StringUtils.equalsIgnoreCase(keyColumns.get(k), headerList.get(i).getName())) {
+                    keyIndexes[k] = i;
+                    break;
+                }
+            }
+            if (keyIndexes[k] < 0) {
+                return new int[0];
+            }
+        }
+        return keyIndexes;
+    }
+
+    /**
+     * Database, schema and table name as stored by the database, from the qualified name of a table.
+     */
+    private String[] getMetaTableName(String[] names, String databaseName, String schemaName) throws SQLException {
+        if (names.length >= 3) {
+            databaseName = names[names.length - 3];
+            schemaName = names[names.length - 2];
+        } else if (names.length == 2 && StringUtils.isNotBlank(schemaName)) {
+            schemaName = names[0];
+        } else if (names.length == 2) {
+            databaseName = names[0];
+        }
+        DatabaseMetaData databaseMetaData = Chat2DBContext.getMetaConnection().getMetaData();
+        return new String[] {toIdentifier(databaseMetaData, databaseName), toIdentifier(databaseMetaData, schemaName),
+                toIdentifier(databaseMetaData, names[names.length - 1])};
+    }
+
+    /**
+     * The key columns are kept in memory for a few minutes only, and are removed when the columns of the table are
+     * refreshed, so that a changed primary key or unique index is picked up.
+     */
+    private List<String> getKeyColumns(String[] metaTableName, MetaData metaSchema) {
+        String key = CacheKey.getKeyColumnKey(Chat2DBContext.getConnectInfo().getDataSourceId(), metaTableName[0],
+                metaTableName[1], metaTableName[2]);
+        return MemoryCacheManage.computeIfAbsent(key,
+                () -> new ArrayList<>(queryKeyColumns(metaSchema, metaTableName[0], metaTableName[1],
+                        metaTableName[2])));
+    }
+
+    /**
+     * The key columns if none of them can be null, so that the rows can be sorted and sought by them.
+     */
+    private List<String> getKeysetColumns(String[] metaTableName, MetaData metaSchema) {
+        String key = CacheKey.getKeysetColumnKey(Chat2DBContext.getConnectInfo().getDataSourceId(), metaTableName[0],
+                metaTableName[1], metaTableName[2]);
+        return MemoryCacheManage.computeIfAbsent(key, () -> {
+            ArrayList<String> keyColumns = new ArrayList<>(getKeyColumns(metaTableName, metaSchema));
+            if (keyColumns.isEmpty()) {
+                return keyColumns;
+            }
+            List<TableColumn> tableColumns = metaSchema.columns(Chat2DBContext.getMetaConnection(), metaTableName[0],
+                    metaTableName[1], metaTableName[2]);
+            for (String keyColumn : keyColumns) {
+                TableColumn tableColumn = EasyCollectionUtils.stream(tableColumns)
+                        .filter(column -> keyColumn.equals(column.getName()))
+                        .findFirst()
+                        .orElse(null);
+                if (tableColumn == null || !Boolean.TRUE.equals(tableColumn.getPrimaryKey()) && !Integer.valueOf(
+                        DatabaseMetaData.columnNoNulls).equals(tableColumn.getNullable())) {
+                    return new ArrayList<>();
+                }
+            }
+            return keyColumns;
+        });
+    }
+
+    private List<String> queryKeyColumns(MetaData metaSchema, String databaseName, String schemaName,
+            String tableName) {
+        Connection connection = Chat2DBContext.getMetaConnection();
+        List<String> uniqueKey = null;
+        List<TableIndex> tableIndexes = metaSchema.indexes(connection, databaseName, schemaName, tableName);
+        for (TableIndex tableIndex : CollectionUtils.emptyIfNull(tableIndexes)) {
+            List<String> columns = EasyCollectionUtils.toList(tableIndex.getColumnList(),
+                    TableIndexColumn::getColumnName);
+            if (columns.isEmpty() || columns.size() != tableIndex.getColumnList().size()) {
+                continue;
+            }
+            if (StringUtils.containsIgnoreCase(tableIndex.getType(), "PRIMARY") || StringUtils.startsWithIgnoreCase(
+                    tableIndex.getName(), "PRIMARY")) {
+                return columns;
+            }
+            if (Boolean.TRUE.equals(tableIndex.getUnique()) && !StringUtils.containsIgnoreCase(tableIndex.getType(),
+                    "FOREIGN") && (uniqueKey == null || columns.size() < uniqueKey.size())) {
+                uniqueKey = columns;
+            }
+        }
+        List<TableColumn> tableColumns = metaSchema.columns(connection, databaseName, schemaName, tableName);
+        List<String> primaryKey = EasyCollectionUtils.stream(tableColumns)
+                .filter(column -> Boolean.TRUE.equals(column.getPrimaryKey()))
+                .map(TableColumn::getName)
+                .toList();
+        if (!primaryKey.isEmpty()) {
+            return primaryKey;
+        }
+        return uniqueKey == null ? Collections.emptyList() : uniqueKey;
+    }
+
+    /**
+     * The name as stored by the database, quoted names are kept as they are.
+     */
+    private String toIdentifier(DatabaseMetaData databaseMetaData, String name) throws SQLException {
+        if (StringUtils.isBlank(name)) {
+            return name;
+        }
+        String unquoted = StringUtils.strip(name, "\"`[]");
+        if (!unquoted.equals(name)) {
+            return unquoted;
+        }
+        if (databaseMetaData.storesUpperCaseIdentifiers()) {
+            return name.toUpperCase();
+        }
+        if (databaseMetaData.storesLowerCaseIdentifiers()) {
+            return name.toLowerCase();
+        }
+        return name;
+    }
+
     private String getInsertSql(UpdateSelectResultParam param, List<String> row, MetaData metaSchema) {
         if (CollectionUtils.isEmpty(row)) {
             return "";
@@ -323,7 +688,8 @@ public class DlTemplateServiceImpl implements DlTemplateService {
     }
 
 
-    private String getUpdateSql(UpdateSelectResultParam param, List<String> row, List<String> odlRow, MetaData metaSchema) {
+    private String getUpdateSql(UpdateSelectResultParam param, List<String> row, List<String> odlRow, MetaData metaSchema,
+            int[] keyIndexes) {
         StringBuilder script = new StringBuilder();
         if (CollectionUtils.isEmpty(row) || CollectionUtils.isEmpty(odlRow)) {
             return "";
@@ -343,7 +709,7 @@ public class DlTemplateServiceImpl implements DlTemplateService {
                     .append(",");
         }
         script.deleteCharAt(script.length() - 1);
-        script.append(buildWhere(param.getHeaderList(), odlRow, metaSchema));
+        script.append(buildWhere(param.getHeaderList(), odlRow, metaSchema, keyIndexes));
         return script.toString();
     }
 
@@ -362,6 +728,79 @@ public class DlTemplateServiceImpl implements DlTemplateService {
         return executeResult;
     }
 
+    /**
+     * Read the page from the cursor of the previous page, or open a new cursor if there is none or it cannot serve
+     * the page. The cursor is kept only if the query has more rows.
+     *
+     * @return null if the query cannot be executed with a cursor, then it is executed the usual way. An error of the
+     * query is returned as a failed result so that the statement is not executed a second time.
+     */
+    private ExecuteResult executeCursor(String sql, String cursorId, int offset, int count) {
+        Long userId = ContextUtils.getUserId();
+        CursorSession cursor = CursorManager.get(cursorId, userId);
+        if (cursor != null && (!StringUtils.equals(cursor.getSql(), sql) || cursor.getPosition() > offset)) {
+            CursorManager.close(cursor.getCursorId());
+            cursor = null;
+        }
+        boolean registered = cursor != null;
+        try {
+            TimeInterval timeInterval = new TimeInterval();
+            if (cursor == null) {
+                cursor = CursorManager.open(sql, userId, count);
+                if (cursor == null) {
+                    return null;
+                }
+            }
+            List<List<String>> dataList = cursor.fetch(offset, count, true);
+            ExecuteResult executeResult = ExecuteResult.builder()
+                    .sql(sql)
+                    .success(Boolean.TRUE)
+                    .description(I18nUtils.getMessage("sqlResult.success"))
+                    .headerList(new ArrayList<>(cursor.getHeaderList()))
+                    .dataList(dataList)
+                    .duration(timeInterval.interval())
+                    .build();
+            if (cursor.isExhausted()) {
+                CursorManager.close(cursor.getCursorId());
+                cursor.close();
+            } else {
+                if (!registered) {
+                    CursorManager.register(cursor);
+                }
+                executeResult.setCursorId(cursor.getCursorId());
+            }
+            return executeResult;
+        } catch (SQLException e) {
+            log.warn("执行sql:{}异常", sql, e);
+            if (cursor != null) {
+                CursorManager.close(cursor.getCursorId());
+                cursor.close();
+            }
+            return ExecuteResult.builder()
+                    .sql(sql)
+                    .success(Boolean.FALSE)
+                    .message(e.getMessage())
+                    .build();
+        }
+    }
+
+    private ExecuteResult execute(String sql, Integer offset, Integer count, Consumer<List<Header>> headerConsumer,
+                                  Consumer<List<String>> rowConsumer) {
+        ExecuteResult executeResult;
+        try {
+            executeResult = SQLExecutor.getInstance().execute(sql, Chat2DBContext.getConnection(), true, offset, count,
+                    headerConsumer, rowConsumer);
+        } catch (SQLException e) {
+            log.warn("执行sql:{}异常", sql, e);
+            executeResult = ExecuteResult.builder()
+                    .sql(sql)
+                    .success(Boolean.FALSE)
+                    .message(e.getMessage())
+                    .build();
+        }
+        return executeResult;
+    }
+
     private void addOperationLog(ExecuteResult executeResult) {
         if (executeResult == null) {
             return;
@@ -377,9 +816,220 @@ public class DlTemplateServiceImpl implements DlTemplateService {
             createParam.setUseTime(executeResult.getDuration());
             createParam.setType(connectInfo.getDbType());
             createParam.setOperationRows(executeResult.getUpdateCount() != null ? Long.valueOf(executeResult.getUpdateCount()) : null);
-            operationLogService.create(createParam);
+            operationLogService.createAsync(createParam);
         } catch (Exception e) {
             log.error("addOperationLog error:", e);
         }
     }
+
+    /**
+     * Where the rows of a statement go while it is executed.
+     */
+    private interface RowSink {
+
+        void start(AnalyzedStatement statement, int pageNo, int pageSize);
+
+        ExecuteResult execute(String sql, Integer offset, Integer count);
+
+        /**
+         * @return null if the page is not read from a cursor
+         */
+        ExecuteResult executeCursor(String sql, String cursorId, int offset, int count);
+
+        /**
+         * Whether rows have been handed on, then the statement must not be executed again
+         */
+        boolean isStarted();
+
+        int getRowCount();
+
+        /**
+         * Header of the rows read, without the row number
+         */
+        List<Header> getHeaderList();
+
+        /**
+         * Last row read, without the row number
+         */
+        List<String> getLastRow();
+
+        void complete(ExecuteResult executeResult);
+    }
+
+    /**
+     * Keeps the rows in the result.
+     */
+    private class BufferedRowSink implements RowSink {
+
+        private int rowNumberStart;
+
+        private ExecuteResult executeResult;
+
+        @Override
+        public void start(AnalyzedStatement statement, int pageNo, int pageSize) {
+            rowNumberStart = 1 + Math.max(pageNo - 1, 0) * pageSize;
+        }
+
+        @Override
+        public ExecuteResult execute(String sql, Integer offset, Integer count) {
+            executeResult = DlTemplateServiceImpl.this.execute(sql, offset, count);
+            return executeResult;
+        }
+
+        @Override
+        public ExecuteResult executeCursor(String sql, String cursorId, int offset, int count) {
+            executeResult = DlTemplateServiceImpl.this.executeCursor(sql, cursorId, offset, count);
+            return executeResult;
+        }
+
+        @Override
+        public boolean isStarted() {
+            return false;
+        }
+
+        @Override
+        public int getRowCount() {
+            return executeResult == null ? 0 : CollectionUtils.size(executeResult.getDataList());
+        }
+
+        @Override
+        public List<Header> getHeaderList() {
+            return executeResult == null ? null : executeResult.getHeaderList();
+        }
+
+        @Override
+        public List<String> getLastRow() {
+            List<List<String>> dataList = executeResult == null ? null : executeResult.getDataList();
+            return CollectionUtils.isEmpty(dataList) ? null : dataList.get(dataList.size() - 1);
+        }
+
+        @Override
+        public void complete(ExecuteResult executeResult) {
+            // Splice row numbers
+            if (executeResult.getResultBatch() != null) {
+                executeResult.getResultBatch().setRowNumberStart(rowNumberStart);
+            } else if (executeResult.getDataList() != null) {
+                for (int i = 0; i < executeResult.getDataList().size(); i++) {
+                    List<String> row = executeResult.getDataList().get(i);
+                    List<String> newRow = Lists.newArrayListWithExpectedSize(row.size() + 1);
+                    newRow.add(Integer.toString(i + rowNumberStart));
+                    newRow.addAll(row);
+                    executeResult.getDataList().set(i, newRow);
+                }
+            }
+        }
+    }
+
+    /**
+     * Hands the header and each row to the listener as soon as they are read.
+     */
+    private class StreamRowSink implements RowSink {
+
+        private final DlExecuteListener listener;
+
+        private AnalyzedStatement statement;
+
+        private int pageNo;
+
+        private int pageSize;
+
+        private int rowNumberStart;
+
+        private List<Header> headerList;
+
+        private List<String> lastRow;
+
+        private int rowCount;
+
+        private StreamRowSink(DlExecuteListener listener) {
+            this.listener = listener;
+        }
+
+        @Override
+        public void start(AnalyzedStatement statement, int pageNo, int pageSize) {
+            this.statement = statement;
+            this.pageNo = pageNo;
+            this.pageSize = pageSize;
+            this.rowNumberStart = 1 + Math.max(pageNo - 1, 0) * pageSize;
+        }
+
+        @Override
+        public ExecuteResult execute(String sql, Integer offset, Integer count) {
+            return DlTemplateServiceImpl.this.execute(sql, offset, count, this::onHeader, this::onRow);
+        }
+
+        @Override
+        public ExecuteResult executeCursor(String sql, String cursorId, int offset, int count) {
+            // The whole page is streamed, it is not kept open in a cursor
+            return null;
+        }
+
+        @Override
+        public boolean isStarted() {
+            return headerList != null;
+        }
+
+        @Override
+        public int getRowCount() {
+            return rowCount;
+        }
+
+        @Override
+        public List<Header> getHeaderList() {
+            return headerList;
+        }
+
+        @Override
+        public List<String> getLastRow() {
+            return lastRow;
+        }
+
+        @Override
+        public void complete(ExecuteResult executeResult) {
+            listener.onComplete(executeResult);
+        }
+
+        private void onHeader(List<Header> headerList) {
+            this.headerList = headerList;
+            listener.onHeader(ExecuteResult.builder()
+                    .success(Boolean.TRUE)
+                    .originalSql(statement.getSql())
+                    .sqlType(statement.getSqlType())
+                    .headerList(buildHeaderList(headerList))
+                    .pageNo(pageNo)
+                    .pageSize(pageSize)
+                    .canEdit(statement.isCanEdit())
+                    .tableName(statement.isCanEdit() ? statement.getTableName() : null)
+                    .build());
+        }
+
+        private void onRow(List<String> row) {
+            lastRow = row;
+            // Splice row numbers
+            List<String> newRow = Lists.newArrayListWithExpectedSize(row.size() + 1);
+            newRow.add(Integer.toString(rowCount++ + rowNumberStart));
+            newRow.addAll(row);
+            listener.onRow(newRow);
+        }
+    }
+
+    @Getter
+    @AllArgsConstructor
+    private static class KeysetPage {
+
+        /**
+         * The query sorted by the key, and reading the rows after the page token if any
+         */
+        private final String sql;
+
+        /**
+         * Whether the rows are read after the page token, otherwise they are skipped by offset
+         */
+        private final boolean seek;
+
+        /**
+         * Names of the key columns as stored by the database
+         */
+        private final List<String> keyColumns;
+    }
 }
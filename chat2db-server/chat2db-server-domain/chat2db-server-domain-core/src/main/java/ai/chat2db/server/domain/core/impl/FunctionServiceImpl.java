@@ -11,11 +11,11 @@ import org.springframework.stereotype.Service;
 public class FunctionServiceImpl implements FunctionService {
     @Override
     public ListResult<Function> functions(String databaseName, String schemaName) {
-        return ListResult.of(Chat2DBContext.getMetaData().functions(Chat2DBContext.getConnection(),databaseName, schemaName));
+        return ListResult.of(Chat2DBContext.getMetaData().functions(Chat2DBContext.getMetaConnection(),databaseName, schemaName));
     }
 
     @Override
     public DataResult<Function> detail(String databaseName, String schemaName, String functionName) {
-        return DataResult.of(Chat2DBContext.getMetaData().function(Chat2DBContext.getConnection(), databaseName, schemaName, functionName));
+        return DataResult.of(Chat2DBContext.getMetaData().function(Chat2DBContext.getMetaConnection(), databaseName, schemaName, functionName));
     }
 }
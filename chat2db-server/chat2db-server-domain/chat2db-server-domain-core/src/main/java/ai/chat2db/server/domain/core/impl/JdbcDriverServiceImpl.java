@@ -1,24 +1,35 @@
 package ai.chat2db.server.domain.core.impl;
 
 import java.io.File;
-import java.io.IOException;
+import java.util.ArrayList;
 import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import ai.chat2db.server.domain.api.service.JdbcDriverService;
+import ai.chat2db.server.domain.repository.entity.DataSourceDO;
 import ai.chat2db.server.domain.repository.entity.JdbcDriverDO;
+import ai.chat2db.server.domain.repository.mapper.DataSourceMapper;
 import ai.chat2db.server.domain.repository.mapper.JdbcDriverMapper;
 import ai.chat2db.server.tools.base.wrapper.result.ActionResult;
 import ai.chat2db.server.tools.base.wrapper.result.DataResult;
+import ai.chat2db.server.tools.base.wrapper.result.ListResult;
 import ai.chat2db.spi.config.DBConfig;
 import ai.chat2db.spi.config.DriverConfig;
+import ai.chat2db.spi.config.DriverJarConfig;
+import ai.chat2db.spi.model.DriverJarStatus;
 import ai.chat2db.spi.sql.Chat2DBContext;
+import ai.chat2db.spi.sql.DriverJarManager;
+import ai.chat2db.spi.sql.IDriverManager;
 import ai.chat2db.spi.util.JdbcJarUtils;
+import com.alibaba.fastjson2.JSON;
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.google.common.collect.Lists;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.collections4.CollectionUtils;
+import org.apache.commons.lang3.StringUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
@@ -29,6 +40,9 @@ public class JdbcDriverServiceImpl implements JdbcDriverService {
     @Autowired
     private JdbcDriverMapper jdbcDriverMapper;
 
+    @Autowired
+    private DataSourceMapper dataSourceMapper;
+
     @Override
     public DataResult<DBConfig> getDrivers(String dbType) {
         Map<String, DriverConfig> driverConfigMap = new LinkedHashMap<>();
@@ -97,14 +111,64 @@ public class JdbcDriverServiceImpl implements JdbcDriverService {
         List<DriverConfig> driverConfigList = dbConfig.getDriverConfigList();
         for (DriverConfig driverConfig : driverConfigList) {
             List<String> downloadJdbcDriverUrls = driverConfig.getDownloadJdbcDriverUrls();
+            if (CollectionUtils.isEmpty(downloadJdbcDriverUrls)) {
+                continue;
+            }
             for (String downloadJdbcDriverUrl : downloadJdbcDriverUrls) {
-                try {
-                    JdbcJarUtils.download(downloadJdbcDriverUrl);
-                } catch (IOException e) {
-                    throw new RuntimeException(e);
-                }
+                String jarName = downloadJdbcDriverUrl.substring(downloadJdbcDriverUrl.lastIndexOf("/") + 1);
+                DriverJarManager.provision(jarName, downloadJdbcDriverUrl);
+            }
+        }
+        return ActionResult.isSuccess();
+    }
+
+    @Override
+    public ListResult<DriverJarStatus> downloadStatus(String dbType) {
+        Set<String> jarNames = new LinkedHashSet<>();
+        for (DriverConfig driverConfig : Chat2DBContext.PLUGIN_MAP.get(dbType).getDBConfig()
+            .getDriverConfigList()) {
+            if (StringUtils.isNotBlank(driverConfig.getJdbcDriver())) {
+                jarNames.addAll(List.of(driverConfig.getJdbcDriver().split(",")));
             }
         }
+        List<DriverJarStatus> list = new ArrayList<>();
+        for (String jarName : jarNames) {
+            list.add(DriverJarManager.status(jarName));
+        }
+        return ListResult.of(list);
+    }
+
+    @Override
+    public ActionResult prefetch() {
+        LambdaQueryWrapper<DataSourceDO> query = new LambdaQueryWrapper<>();
+        query.select(DataSourceDO::getType, DataSourceDO::getDriverConfig);
+        List<DriverConfig> driverConfigs = new ArrayList<>();
+        Set<String> jarNames = new LinkedHashSet<>();
+        for (DataSourceDO dataSourceDO : dataSourceMapper.selectList(query)) {
+            if (dataSourceDO.getType() == null || !Chat2DBContext.PLUGIN_MAP.containsKey(dataSourceDO.getType())) {
+                continue;
+            }
+            DriverConfig driverConfig = null;
+            try {
+                driverConfig = JSON.parseObject(dataSourceDO.getDriverConfig(), DriverConfig.class);
+            } catch (Exception e) {
+                log.warn("parse driver config error:{}", dataSourceDO.getDriverConfig(), e);
+            }
+            if (driverConfig == null || StringUtils.isBlank(driverConfig.getJdbcDriver())) {
+                driverConfig = Chat2DBContext.getDefaultDriverConfig(dataSourceDO.getType());
+            }
+            // 用户上传的驱动只在本地, 不下载
+            if (driverConfig == null || driverConfig.isCustom() || StringUtils.isBlank(driverConfig.getJdbcDriver())) {
+                continue;
+            }
+            driverConfigs.add(driverConfig);
+            jarNames.addAll(List.of(driverConfig.getJdbcDriver().split(",")));
+        }
+        if (DriverJarConfig.getInstance().isWarmUp()) {
+            IDriverManager.warmUp(driverConfigs);
+        } else {
+            DriverJarManager.prefetch(jarNames);
+        }
         return ActionResult.isSuccess();
     }
 }
@@ -1,9 +1,14 @@
 package ai.chat2db.server.domain.core.impl;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
@@ -26,8 +31,12 @@ import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.baomidou.mybatisplus.core.metadata.OrderItem;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.google.common.collect.Lists;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.collections4.CollectionUtils;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 /**
@@ -35,6 +44,7 @@ import org.springframework.stereotype.Service;
  * @version UserExecutedDdlCoreServiceImpl.java, v 0.1 2022年09月25日 14:07 moji Exp $
  * @date 2022/09/25
  */
+@Slf4j
 @Service
 public class OperationLogServiceImpl implements OperationLogService {
 
@@ -47,14 +57,155 @@ public class OperationLogServiceImpl implements OperationLogService {
     @Autowired
     private DataSourceService dataSourceService;
 
+    /**
+     * Records waiting to be written
+     */
+    @Value("${chat2db.operation-log.queue-capacity:10000}")
+    private int queueCapacity;
+
+    /**
+     * Records written in one insert
+     */
+    @Value("${chat2db.operation-log.batch-size:200}")
+    private int batchSize;
+
+    /**
+     * Longest time a record waits for its batch to fill up, in milliseconds
+     */
+    @Value("${chat2db.operation-log.flush-interval:500}")
+    private long flushInterval;
+
+    /**
+     * How long the request thread waits when the queue is full before the record is dropped, in milliseconds
+     */
+    @Value("${chat2db.operation-log.offer-timeout:50}")
+    private long offerTimeout;
+
+    private BlockingQueue<OperationLogDO> queue;
+
+    private Thread writer;
+
+    private volatile boolean running;
+
+    private final AtomicLong writtenCount = new AtomicLong();
+
+    private final AtomicLong droppedCount = new AtomicLong();
+
+    private final AtomicLong failedCount = new AtomicLong();
+
+    @PostConstruct
+    public void start() {
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+        running = true;
+        writer = new Thread(this::writeLoop, "chat2db-operation-log-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Write what is still queued before the database is closed.
+     */
+    @PreDestroy
+    public void stop() {
+        running = false;
+        try {
+            writer.join(10_000L);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        log.info("operation log writer stopped, written:{}, dropped:{}, failed:{}", writtenCount.get(),
+            droppedCount.get(), failedCount.get());
+    }
+
     @Override
     public DataResult<Long> create(OperationLogCreateParam param) {
+        OperationLogDO userExecutedDdlDO = buildOperationLog(param);
+        operationLogMapper.insert(userExecutedDdlDO);
+        return DataResult.of(userExecutedDdlDO.getId());
+    }
+
+    @Override
+    public void createAsync(OperationLogCreateParam param) {
+        OperationLogDO operationLogDO = buildOperationLog(param);
+        if (!running) {
+            operationLogMapper.insert(operationLogDO);
+            return;
+        }
+        boolean queued;
+        try {
+            queued = queue.offer(operationLogDO, offerTimeout, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            queued = false;
+        }
+        if (!queued) {
+            long dropped = droppedCount.incrementAndGet();
+            if (dropped == 1 || dropped % 1000 == 0) {
+                log.warn("operation log queue is full, {} records dropped so far", dropped);
+            }
+        }
+    }
+
+    /**
+     * The user and time are taken on the request thread.
+     */
+    private OperationLogDO buildOperationLog(OperationLogCreateParam param) {
         OperationLogDO userExecutedDdlDO = operationLogConverter.param2do(param);
         userExecutedDdlDO.setGmtCreate(LocalDateTime.now());
         userExecutedDdlDO.setGmtModified(LocalDateTime.now());
         userExecutedDdlDO.setUserId(ContextUtils.getUserId());
-        operationLogMapper.insert(userExecutedDdlDO);
-        return DataResult.of(userExecutedDdlDO.getId());
+        return userExecutedDdlDO;
+    }
+
+    /**
+     * Write a batch once it is full or its first record has waited for the flush interval.
+     */
+    private void writeLoop() {
+        List<OperationLogDO> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                OperationLogDO first = queue.poll(flushInterval, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.currentTimeMillis() + flushInterval;
+                while (batch.size() < batchSize) {
+                    long wait = running ? deadline - System.currentTimeMillis() : 0;
+                    OperationLogDO next = wait > 0 ? queue.poll(wait, TimeUnit.MILLISECONDS) : queue.poll();
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+            } catch (InterruptedException e) {
+                running = false;
+            }
+            write(batch);
+            batch.clear();
+        }
+    }
+
+    private void write(List<OperationLogDO> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        try {
+            operationLogMapper.batchInsert(batch);
+            writtenCount.addAndGet(batch.size());
+        } catch (Exception e) {
+            log.warn("batch insert operation log error, insert one by one", e);
+            // one bad record must not lose the rest of the batch
+            for (OperationLogDO operationLogDO : batch) {
+                try {
+                    operationLogMapper.insert(operationLogDO);
+                    writtenCount.incrementAndGet();
+                } catch (Exception ex) {
+                    failedCount.incrementAndGet();
+                    log.error("insert operation log error", ex);
+                }
+            }
+        }
     }
 
     @Override
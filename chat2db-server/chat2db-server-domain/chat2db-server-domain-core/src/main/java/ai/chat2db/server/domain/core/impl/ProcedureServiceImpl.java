@@ -12,11 +12,11 @@ public class ProcedureServiceImpl implements ProcedureService {
 
     @Override
     public ListResult<Procedure> procedures(String databaseName, String schemaName) {
-        return ListResult.of(Chat2DBContext.getMetaData().procedures(Chat2DBContext.getConnection(),databaseName, schemaName));
+        return ListResult.of(Chat2DBContext.getMetaData().procedures(Chat2DBContext.getMetaConnection(),databaseName, schemaName));
     }
 
     @Override
     public DataResult<Procedure> detail(String databaseName, String schemaName, String procedureName) {
-        return DataResult.of(Chat2DBContext.getMetaData().procedure(Chat2DBContext.getConnection(), databaseName, schemaName, procedureName));
+        return DataResult.of(Chat2DBContext.getMetaData().procedure(Chat2DBContext.getMetaConnection(), databaseName, schemaName, procedureName));
     }
 }
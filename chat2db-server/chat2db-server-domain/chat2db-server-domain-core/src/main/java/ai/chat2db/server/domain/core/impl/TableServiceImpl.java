@@ -1,20 +1,29 @@
 package ai.chat2db.server.domain.core.impl;
 
+import java.nio.charset.StandardCharsets;
 import java.sql.Connection;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
+import ai.chat2db.server.domain.api.enums.TableCacheRefreshModeEnum;
 import ai.chat2db.server.domain.api.enums.TableVectorEnum;
 import ai.chat2db.server.domain.api.param.*;
 import ai.chat2db.server.domain.api.service.PinService;
 import ai.chat2db.server.domain.api.service.TableService;
 import ai.chat2db.server.domain.core.cache.CacheManage;
+import ai.chat2db.server.domain.core.cache.MemoryCacheManage;
+import ai.chat2db.server.domain.core.cache.SingleFlight;
+import ai.chat2db.server.domain.core.cache.TableSearchIndex;
 import ai.chat2db.server.domain.core.converter.PinTableConverter;
 import ai.chat2db.server.domain.core.converter.TableConverter;
 import ai.chat2db.server.domain.repository.entity.*;
@@ -34,6 +43,7 @@ import ai.chat2db.spi.sql.Chat2DBContext;
 import ai.chat2db.spi.util.ResultSetUtils;
 import ai.chat2db.spi.util.SqlUtils;
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.baomidou.mybatisplus.core.conditions.update.LambdaUpdateWrapper;
 import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.google.common.collect.Lists;
@@ -41,9 +51,13 @@ import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.collections4.CollectionUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.util.DigestUtils;
 
 import static ai.chat2db.server.domain.core.cache.CacheKey.getColumnKey;
+import static ai.chat2db.server.domain.core.cache.CacheKey.getKeyColumnKey;
+import static ai.chat2db.server.domain.core.cache.CacheKey.getKeysetColumnKey;
 import static ai.chat2db.server.domain.core.cache.CacheKey.getTableKey;
 
 /**
@@ -73,10 +87,52 @@ public class TableServiceImpl implements TableService {
     @Autowired
     private TableVectorMappingMapper mappingMapper;
 
+    /**
+     * Whether a query arriving while the table cache is being refreshed gets the previous version instead of waiting
+     */
+    @Value("${chat2db.table-cache.stale-while-revalidate:true}")
+    private boolean staleWhileRevalidate;
+
+    /**
+     * Whether a refresh of a ready table cache only writes the tables that changed
+     */
+    @Value("${chat2db.table-cache.incremental:true}")
+    private boolean incrementalRefresh;
+
+    private final SingleFlight<String, TableCacheVersionDO> tableCacheFlight = new SingleFlight<>();
+
+    /**
+     * Whether table search is answered from an in-memory index of the table cache instead of a LIKE query
+     */
+    @Value("${chat2db.table-cache.search-index.enabled:true}")
+    private boolean searchIndexEnabled;
+
+    /**
+     * Whether table search also matches segment initials and subsequences of the table name
+     */
+    @Value("${chat2db.table-cache.search-index.fuzzy:true}")
+    private boolean fuzzySearch;
+
+    /**
+     * Schemas whose search index is kept in memory, the least recently searched one is dropped first
+     */
+    @Value("${chat2db.table-cache.search-index.max-size:32}")
+    private int searchIndexMaxSize;
+
+    private final Map<String, TableSearchIndex> tableSearchIndexMap = Collections.synchronizedMap(
+        new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, TableSearchIndex> eldest) {
+                return size() > searchIndexMaxSize;
+            }
+        });
+
+    private final SingleFlight<String, TableSearchIndex> tableSearchIndexFlight = new SingleFlight<>();
+
     @Override
     public DataResult<String> showCreateTable(ShowCreateTableParam param) {
         MetaData metaSchema = Chat2DBContext.getMetaData();
-        String ddl = metaSchema.tableDDL(Chat2DBContext.getConnection(), param.getDatabaseName(), param.getSchemaName(), param.getTableName());
+        String ddl = metaSchema.tableDDL(Chat2DBContext.getMetaConnection(), param.getDatabaseName(), param.getSchemaName(), param.getTableName());
         return DataResult.of(ddl);
     }
 
@@ -102,13 +158,13 @@ public class TableServiceImpl implements TableService {
     @Override
     public DataResult<Table> query(TableQueryParam param, TableSelector selector) {
         MetaData metaSchema = Chat2DBContext.getMetaData();
-        List<Table> tables = metaSchema.tables(Chat2DBContext.getConnection(), param.getDatabaseName(), param.getSchemaName(), param.getTableName());
+        List<Table> tables = metaSchema.tables(Chat2DBContext.getMetaConnection(), param.getDatabaseName(), param.getSchemaName(), param.getTableName());
         if (!CollectionUtils.isEmpty(tables)) {
             Table table = tables.get(0);
             table.setIndexList(
-                    metaSchema.indexes(Chat2DBContext.getConnection(), param.getDatabaseName(), param.getSchemaName(), param.getTableName()));
+                    metaSchema.indexes(Chat2DBContext.getMetaConnection(), param.getDatabaseName(), param.getSchemaName(), param.getTableName()));
             table.setColumnList(
-                    metaSchema.columns(Chat2DBContext.getConnection(), param.getDatabaseName(), param.getSchemaName(), param.getTableName()));
+                    metaSchema.columns(Chat2DBContext.getMetaConnection(), param.getDatabaseName(), param.getSchemaName(), param.getTableName()));
             return DataResult.of(table);
         }
         return DataResult.of(null);
@@ -142,44 +198,22 @@ public class TableServiceImpl implements TableService {
 
     @Override
     public PageResult<Table> pageQuery(TablePageQueryParam param, TableSelector selector) {
-        LambdaQueryWrapper<TableCacheVersionDO> queryWrapper = new LambdaQueryWrapper<>();
         String key = getTableKey(param.getDataSourceId(), param.getDatabaseName(), param.getSchemaName());
-        queryWrapper.eq(TableCacheVersionDO::getKey, key);
-        TableCacheVersionDO versionDO = tableCacheVersionMapper.selectOne(queryWrapper);
-        long total = 0;
-        long version = 0L;
+        TableCacheVersionDO versionDO = queryTableCacheVersion(key);
         if (param.isRefresh() || versionDO == null) {
-            version = getLock(param.getDataSourceId(), param.getDatabaseName(), param.getSchemaName(), versionDO);
-            if (version == -1) {
-                int n = 0;
-                while (n < 100) {
-                    try {
-                        Thread.sleep(200);
-                    } catch (InterruptedException e) {
-                    }
-                    versionDO = tableCacheVersionMapper.selectOne(queryWrapper);
-                    if (versionDO != null && "1".equals(versionDO.getStatus())) {
-                        version = versionDO.getVersion();
-                        total = versionDO.getTableCount();
-                        break;
-                    }
-                    n++;
-                }
-            } else {
-                total = addDBCache(param.getDataSourceId(), param.getDatabaseName(), param.getSchemaName(), version);
-                TableCacheVersionDO versionDO1 = new TableCacheVersionDO();
-                versionDO1.setStatus("1");
-                versionDO1.setTableCount(total);
-                tableCacheVersionMapper.update(versionDO1, queryWrapper);
-            }
-        } else {
-            if ("2".equals(versionDO.getStatus())) {
-                version = versionDO.getVersion() - 1;
-            } else {
-                version = versionDO.getVersion();
+            // 正在刷新时先返回上一个版本, 否则等待同一个刷新的结果
+            if (!staleWhileRevalidate || !tableCacheFlight.isRunning(key) || !hasReadyVersion(versionDO)) {
+                versionDO = tableCacheFlight.execute(key, () -> refreshTableCache(param, key));
             }
-            total = versionDO.getTableCount();
         }
+        if (versionDO == null) {
+            return PageResult.empty(param.getPageNo(), param.getPageSize());
+        }
+        long version = readVersion(versionDO);
+        if (searchIndexEnabled && StringUtils.isNotBlank(param.getSearchKey())) {
+            return searchTables(param, key, versionDO, version);
+        }
+        long total = versionDO.getTableCount();
 //        LambdaQueryWrapper<TableCacheDO> query = new LambdaQueryWrapper<>();
 //        query.eq(TableCacheDO::getVersion, version);
 //        query.eq(TableCacheDO::getDataSourceId, param.getDataSourceId());
@@ -194,7 +228,7 @@ public class TableServiceImpl implements TableService {
 //        }
         Page<TableCacheDO> page = new Page<>(param.getPageNo(), param.getPageSize());
         // page.setSearchCount(param.getEnableReturnCount());
-        IPage<TableCacheDO> iPage = tableCacheMapper.pageQuery(page, param.getDataSourceId(),param.getDatabaseName(),param.getSchemaName(),param.getSearchKey());
+        IPage<TableCacheDO> iPage = tableCacheMapper.pageQuery(page, param.getDataSourceId(),param.getDatabaseName(),param.getSchemaName(),param.getSearchKey(), version);
         List<Table> tables = new ArrayList<>();
         if (CollectionUtils.isNotEmpty(iPage.getRecords())) {
             for (TableCacheDO tableCacheDO : iPage.getRecords()) {
@@ -209,6 +243,54 @@ public class TableServiceImpl implements TableService {
         return PageResult.of(tables, total, param);
     }
 
+    private PageResult<Table> searchTables(TablePageQueryParam param, String key, TableCacheVersionDO versionDO,
+        long version) {
+        TableSearchIndex index = getSearchIndex(key, versionDO, version);
+        int offset = (param.getPageNo() - 1) * param.getPageSize();
+        TableSearchIndex.Result result = index.search(param.getSearchKey(), fuzzySearch, offset, param.getPageSize());
+        List<Table> tables = new ArrayList<>();
+        for (int id : result.getIds()) {
+            TableSearchIndex.Entry entry = index.getEntries().get(id);
+            Table t = new Table();
+            t.setName(entry.getName());
+            t.setComment(entry.getComment());
+            t.setSchemaName(param.getSchemaName());
+            t.setDatabaseName(param.getDatabaseName());
+            tables.add(t);
+        }
+        return PageResult.of(tables, (long)result.getTotal(), param);
+    }
+
+    /**
+     * Search index of the version of the table cache, built once per version and rebuilt when the version is
+     * refreshed in place. The rows of the previous version do not change while a new version is being built.
+     */
+    private TableSearchIndex getSearchIndex(String key, TableCacheVersionDO versionDO, long version) {
+        long modified = versionDO.getGmtModified() == null ? 0L : versionDO.getGmtModified().getTime();
+        boolean building = !"1".equals(versionDO.getStatus());
+        TableSearchIndex index = tableSearchIndexMap.get(key);
+        if (index != null && index.getVersion() == version && (building || index.getModified() == modified)) {
+            return index;
+        }
+        return tableSearchIndexFlight.execute(key, () -> {
+            long start = System.currentTimeMillis();
+            LambdaQueryWrapper<TableCacheDO> query = new LambdaQueryWrapper<>();
+            query.select(TableCacheDO::getTableName, TableCacheDO::getExtendInfo);
+            query.eq(TableCacheDO::getKey, key);
+            query.eq(TableCacheDO::getVersion, version);
+            query.orderByAsc(TableCacheDO::getId);
+            List<TableSearchIndex.Entry> entries = new ArrayList<>();
+            for (TableCacheDO tableCacheDO : tableCacheMapper.selectList(query)) {
+                entries.add(new TableSearchIndex.Entry(tableCacheDO.getTableName(), tableCacheDO.getExtendInfo()));
+            }
+            TableSearchIndex newIndex = new TableSearchIndex(entries, version, modified);
+            tableSearchIndexMap.put(key, newIndex);
+            log.info("build table search index:{}, tables:{}, cost:{}ms", key, entries.size(),
+                System.currentTimeMillis() - start);
+            return newIndex;
+        });
+    }
+
     @Override
     public ListResult<SimpleTable> queryTables(TablePageQueryParam param) {
         LambdaQueryWrapper<TableCacheVersionDO> queryWrapper = new LambdaQueryWrapper<>();
@@ -218,7 +300,7 @@ public class TableServiceImpl implements TableService {
         if(versionDO == null){
             return ListResult.of(Lists.newArrayList());
         }
-        long version = "2".equals(versionDO.getStatus()) ? versionDO.getVersion() - 1 : versionDO.getVersion();
+        long version = readVersion(versionDO);
 
         LambdaQueryWrapper<TableCacheDO> query = new LambdaQueryWrapper<>();
         query.eq(TableCacheDO::getVersion, version);
@@ -246,14 +328,22 @@ public class TableServiceImpl implements TableService {
         return ListResult.of(tables);
     }
 
-    private long addDBCache(Long dataSourceId, String databaseName, String schemaName, long version) {
+    /**
+     * Read the tables of the schema from the database, with the fingerprint of what the cache keeps of each table
+     */
+    private List<TableCacheDO> readDBTables(Long dataSourceId, String databaseName, String schemaName) {
         String key = getTableKey(dataSourceId, databaseName, schemaName);
 
-        Connection connection = Chat2DBContext.getConnection();
-        long n = 0;
+        Connection connection = Chat2DBContext.getMetaConnection();
+        Map<String, Long> ddlTimes = null;
+        try {
+            ddlTimes = Chat2DBContext.getMetaData().tableDdlTimes(connection, databaseName, schemaName);
+        } catch (Exception e) {
+            log.warn("query table ddl time error", e);
+        }
+        List<TableCacheDO> cacheDOS = new ArrayList<>();
         try (ResultSet resultSet = connection.getMetaData().getTables(databaseName, schemaName, null,
                 new String[]{"TABLE","SYSTEM TABLE"})) {
-            List<TableCacheDO> cacheDOS = new ArrayList<>();
             while (resultSet.next()) {
                 TableCacheDO tableCacheDO = new TableCacheDO();
                 tableCacheDO.setDatabaseName(databaseName);
@@ -261,35 +351,259 @@ public class TableServiceImpl implements TableService {
                 tableCacheDO.setTableName(resultSet.getString("TABLE_NAME"));
                 tableCacheDO.setExtendInfo(resultSet.getString("REMARKS"));
                 tableCacheDO.setDataSourceId(dataSourceId);
-                tableCacheDO.setVersion(version);
                 tableCacheDO.setKey(key);
+                Long ddlTime = ddlTimes == null ? null : ddlTimes.get(tableCacheDO.getTableName());
+                tableCacheDO.setFingerprint(fingerprint(tableCacheDO.getTableName(), tableCacheDO.getExtendInfo(),
+                    resultSet.getString("TABLE_TYPE"), ddlTime));
                 cacheDOS.add(tableCacheDO);
-                if (cacheDOS.size() >= 500) {
-                    tableCacheMapper.batchInsert(cacheDOS);
-                    cacheDOS = new ArrayList<>();
-                }
-                n++;
             }
-            if (!CollectionUtils.isEmpty(cacheDOS)) {
-                tableCacheMapper.batchInsert(cacheDOS);
+        } catch (SQLException e) {
+            throw new RuntimeException(e);
+        }
+        return cacheDOS;
+    }
+
+    private String fingerprint(String tableName, String comment, String tableType, Long ddlTime) {
+        String text = tableName + "\u0000" + comment + "\u0000" + tableType + "\u0000" + ddlTime;
+        return DigestUtils.md5DigestAsHex(text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private void addDBCache(List<TableCacheDO> tables, long version) {
+        for (List<TableCacheDO> cacheDOS : Lists.partition(tables, 500)) {
+            cacheDOS.forEach(tableCacheDO -> tableCacheDO.setVersion(version));
+            tableCacheMapper.batchInsert(cacheDOS);
+        }
+    }
+
+    /**
+     * Delete the versions before the given one, called after the given one is marked ready so that queries reading
+     * the previous version never see it disappear
+     */
+    private void deleteOldDBCache(Long dataSourceId, String databaseName, String schemaName, long version) {
+        LambdaQueryWrapper<TableCacheDO> q = new LambdaQueryWrapper();
+        q.eq(TableCacheDO::getDataSourceId, dataSourceId);
+        q.lt(TableCacheDO::getVersion, version);
+        if (StringUtils.isNotBlank(databaseName)) {
+            q.eq(TableCacheDO::getDatabaseName, databaseName);
+        }
+        if (StringUtils.isNotBlank(schemaName)) {
+            q.eq(TableCacheDO::getSchemaName, schemaName);
+        }
+        tableCacheMapper.delete(q);
+    }
+
+    private TableCacheVersionDO queryTableCacheVersion(String key) {
+        LambdaQueryWrapper<TableCacheVersionDO> queryWrapper = new LambdaQueryWrapper<>();
+        queryWrapper.eq(TableCacheVersionDO::getKey, key);
+        return tableCacheVersionMapper.selectOne(queryWrapper);
+    }
+
+    private boolean hasReadyVersion(TableCacheVersionDO versionDO) {
+        return versionDO != null && (!"2".equals(versionDO.getStatus()) || versionDO.getVersion() > 0);
+    }
+
+    /**
+     * Version of the rows to read. A full refresh writes the rows of the next version while the status is 2, so the
+     * previous version is read. An incremental refresh changes the rows of the current version in place while the
+     * status is 3, so the current version is read.
+     */
+    private static long readVersion(TableCacheVersionDO versionDO) {
+        return "2".equals(versionDO.getStatus()) ? versionDO.getVersion() - 1 : versionDO.getVersion();
+    }
+
+    /**
+     * Refresh the table cache, only one caller per key runs it at a time. When the cache is ready, only the added,
+     * changed and dropped tables are written, otherwise all tables are written under a new version.
+     */
+    private TableCacheVersionDO refreshTableCache(TablePageQueryParam param, String key) {
+        long start = System.currentTimeMillis();
+        List<TableCacheDO> tables = readDBTables(param.getDataSourceId(), param.getDatabaseName(),
+            param.getSchemaName());
+        TableCacheVersionDO previous = queryTableCacheVersion(key);
+        if (incrementalRefresh && previous != null && "1".equals(previous.getStatus())) {
+            TableCacheVersionDO versionDO = refreshTableCacheIncremental(key, previous, tables, start);
+            if (versionDO != null) {
+                return versionDO;
+            }
+        }
+        TableCacheVersionDO versionDO = getLock(param.getDataSourceId(), param.getDatabaseName(),
+            param.getSchemaName(), previous);
+        if (versionDO == null) {
+            // 其他进程正在刷新, 使用已有的版本
+            return queryTableCacheVersion(key);
+        }
+        try {
+            addDBCache(tables, versionDO.getVersion());
+            TableCacheVersionDO versionDO1 = new TableCacheVersionDO();
+            versionDO1.setStatus("1");
+            versionDO1.setTableCount((long)tables.size());
+            versionDO1.setRefreshMode(TableCacheRefreshModeEnum.FULL.getCode());
+            versionDO1.setGmtModified(new Date());
+            versionDO1.setAddedCount((long)tables.size());
+            versionDO1.setUpdatedCount(0L);
+            versionDO1.setDeletedCount(previous == null ? 0L : previous.getTableCount());
+            versionDO1.setRefreshCost(System.currentTimeMillis() - start);
+            LambdaQueryWrapper<TableCacheVersionDO> queryWrapper = new LambdaQueryWrapper<>();
+            queryWrapper.eq(TableCacheVersionDO::getKey, key);
+            tableCacheVersionMapper.update(versionDO1, queryWrapper);
+            versionDO.setStatus("1");
+            versionDO.setTableCount((long)tables.size());
+            versionDO.setGmtModified(versionDO1.getGmtModified());
+        } catch (RuntimeException e) {
+            rollbackTableCache(param, versionDO, previous);
+            throw e;
+        }
+        deleteOldDBCache(param.getDataSourceId(), param.getDatabaseName(), param.getSchemaName(),
+            versionDO.getVersion());
+        log.info("full refresh table cache:{}, tables:{}, cost:{}ms", key, tables.size(),
+            System.currentTimeMillis() - start);
+        return versionDO;
+    }
+
+    /**
+     * Write the differences between the database and the ready version of the cache in place. The version row is
+     * locked by setting its status to 3 for the time of the writes, so that two processes do not write the same
+     * tables. Readers keep reading the current version while it is locked.
+     *
+     * @return null if more than half of the tables changed, writing all of them under a new version is then cheaper
+     */
+    private TableCacheVersionDO refreshTableCacheIncremental(String key, TableCacheVersionDO versionDO,
+        List<TableCacheDO> tables, long start) {
+        if (!lockVersion(versionDO, "1", "3")) {
+            // 其他进程正在刷新, 使用已有的版本
+            return queryTableCacheVersion(key);
+        }
+        try {
+            TableCacheVersionDO refreshed = writeTableCacheChanges(key, versionDO, tables, start);
+            if (refreshed == null) {
+                lockVersion(versionDO, "3", "1");
             }
-            LambdaQueryWrapper<TableCacheDO> q = new LambdaQueryWrapper();
-            q.eq(TableCacheDO::getDataSourceId, dataSourceId);
-            q.lt(TableCacheDO::getVersion, version);
-            if (StringUtils.isNotBlank(databaseName)) {
-                q.eq(TableCacheDO::getDatabaseName, databaseName);
+            return refreshed;
+        } catch (RuntimeException e) {
+            lockVersion(versionDO, "3", "1");
+            throw e;
+        }
+    }
+
+    /**
+     * Change the status of the version row if it still has the version and status of the given row
+     *
+     * @return false if another refresh changed it first
+     */
+    private boolean lockVersion(TableCacheVersionDO versionDO, String fromStatus, String toStatus) {
+        LambdaQueryWrapper<TableCacheVersionDO> queryWrapper = new LambdaQueryWrapper<>();
+        queryWrapper.eq(TableCacheVersionDO::getId, versionDO.getId());
+        queryWrapper.eq(TableCacheVersionDO::getVersion, versionDO.getVersion());
+        queryWrapper.eq(TableCacheVersionDO::getStatus, fromStatus);
+        TableCacheVersionDO lock = new TableCacheVersionDO();
+        lock.setStatus(toStatus);
+        return tableCacheVersionMapper.update(lock, queryWrapper) == 1;
+    }
+
+    private TableCacheVersionDO writeTableCacheChanges(String key, TableCacheVersionDO versionDO,
+        List<TableCacheDO> tables, long start) {
+        LambdaQueryWrapper<TableCacheDO> query = new LambdaQueryWrapper<>();
+        query.select(TableCacheDO::getId, TableCacheDO::getTableName, TableCacheDO::getFingerprint);
+        query.eq(TableCacheDO::getKey, key);
+        query.eq(TableCacheDO::getVersion, versionDO.getVersion());
+        Map<String, TableCacheDO> cachedMap = new HashMap<>();
+        List<Long> deletedIds = new ArrayList<>();
+        for (TableCacheDO cached : tableCacheMapper.selectList(query)) {
+            if (cachedMap.putIfAbsent(cached.getTableName(), cached) != null) {
+                deletedIds.add(cached.getId());
             }
-            if (StringUtils.isNotBlank(schemaName)) {
-                q.eq(TableCacheDO::getSchemaName, schemaName);
+        }
+        List<TableCacheDO> added = new ArrayList<>();
+        List<TableCacheDO> updated = new ArrayList<>();
+        for (TableCacheDO table : tables) {
+            TableCacheDO cached = cachedMap.remove(table.getTableName());
+            if (cached == null) {
+                added.add(table);
+            } else if (!Objects.equals(cached.getFingerprint(), table.getFingerprint())) {
+                table.setId(cached.getId());
+                updated.add(table);
+            }
+        }
+        cachedMap.values().forEach(cached -> deletedIds.add(cached.getId()));
+        long changes = added.size() + updated.size() + deletedIds.size();
+        if (changes > tables.size() / 2) {
+            return null;
+        }
+
+        addDBCache(added, versionDO.getVersion());
+        for (TableCacheDO table : updated) {
+            LambdaUpdateWrapper<TableCacheDO> update = new LambdaUpdateWrapper<>();
+            update.eq(TableCacheDO::getId, table.getId());
+            update.set(TableCacheDO::getExtendInfo, table.getExtendInfo());
+            update.set(TableCacheDO::getFingerprint, table.getFingerprint());
+            tableCacheMapper.update(null, update);
+        }
+        for (List<Long> ids : Lists.partition(deletedIds, 500)) {
+            tableCacheMapper.deleteBatchIds(ids);
+        }
+
+        TableCacheVersionDO versionDO1 = new TableCacheVersionDO();
+        versionDO1.setStatus("1");
+        versionDO1.setTableCount((long)tables.size());
+        versionDO1.setRefreshMode(TableCacheRefreshModeEnum.INCREMENTAL.getCode());
+        versionDO1.setGmtModified(new Date());
+        versionDO1.setAddedCount((long)added.size());
+        versionDO1.setUpdatedCount((long)updated.size());
+        versionDO1.setDeletedCount((long)deletedIds.size());
+        versionDO1.setRefreshCost(System.currentTimeMillis() - start);
+        LambdaQueryWrapper<TableCacheVersionDO> queryWrapper = new LambdaQueryWrapper<>();
+        queryWrapper.eq(TableCacheVersionDO::getId, versionDO.getId());
+        queryWrapper.eq(TableCacheVersionDO::getVersion, versionDO.getVersion());
+        tableCacheVersionMapper.update(versionDO1, queryWrapper);
+        versionDO.setTableCount((long)tables.size());
+        versionDO.setGmtModified(versionDO1.getGmtModified());
+        log.info("incremental refresh table cache:{}, added:{}, updated:{}, deleted:{}, cost:{}ms", key,
+            added.size(), updated.size(), deletedIds.size(), System.currentTimeMillis() - start);
+        return versionDO;
+    }
+
+    /**
+     * Remove what a failed refresh wrote and restore the previous version, so that the next query reads the previous
+     * tables and a new refresh can start
+     */
+    private void rollbackTableCache(TablePageQueryParam param, TableCacheVersionDO versionDO,
+        TableCacheVersionDO previous) {
+        try {
+            LambdaQueryWrapper<TableCacheDO> q = new LambdaQueryWrapper<>();
+            q.eq(TableCacheDO::getDataSourceId, param.getDataSourceId());
+            q.eq(TableCacheDO::getVersion, versionDO.getVersion());
+            if (StringUtils.isNotBlank(param.getDatabaseName())) {
+                q.eq(TableCacheDO::getDatabaseName, param.getDatabaseName());
+            }
+            if (StringUtils.isNotBlank(param.getSchemaName())) {
+                q.eq(TableCacheDO::getSchemaName, param.getSchemaName());
             }
             tableCacheMapper.delete(q);
-        } catch (SQLException e) {
-            throw new RuntimeException(e);
+            if (previous == null) {
+                tableCacheVersionMapper.deleteById(versionDO.getId());
+                return;
+            }
+            LambdaQueryWrapper<TableCacheVersionDO> queryWrapper = new LambdaQueryWrapper<>();
+            queryWrapper.eq(TableCacheVersionDO::getId, versionDO.getId());
+            queryWrapper.eq(TableCacheVersionDO::getVersion, versionDO.getVersion());
+            TableCacheVersionDO versionDO1 = new TableCacheVersionDO();
+            versionDO1.setVersion(previous.getVersion());
+            // 增量刷新中的版本数据是完整的, 恢复为就绪
+            versionDO1.setStatus("2".equals(previous.getStatus()) ? "2" : "1");
+            versionDO1.setTableCount(previous.getTableCount());
+            tableCacheVersionMapper.update(versionDO1, queryWrapper);
+        } catch (Exception e) {
+            log.warn("rollback table cache error", e);
         }
-        return n;
     }
 
-    private Long getLock(Long dataSourceId, String databaseName, String schemaName, TableCacheVersionDO versionDO) {
+    /**
+     * Take the version row of the key for a new version, the status is 2 until the cache is built
+     *
+     * @return null if another refresh took it first
+     */
+    private TableCacheVersionDO getLock(Long dataSourceId, String databaseName, String schemaName,
+        TableCacheVersionDO versionDO) {
         String key = getTableKey(dataSourceId, databaseName, schemaName);
         if (versionDO == null) {
             versionDO = new TableCacheVersionDO();
@@ -302,22 +616,26 @@ public class TableServiceImpl implements TableService {
             versionDO.setTableCount(0L);
             try {
                 tableCacheVersionMapper.insert(versionDO);
-                return 0L;
+                return versionDO;
             } catch (Exception e) {
-                return -1L;
+                return null;
             }
         } else {
             long version = versionDO.getVersion() + 1;
             LambdaQueryWrapper<TableCacheVersionDO> queryWrapper = new LambdaQueryWrapper();
             queryWrapper.eq(TableCacheVersionDO::getId, versionDO.getId());
             queryWrapper.eq(TableCacheVersionDO::getVersion, versionDO.getVersion());
-            versionDO.setVersion(version);
-            versionDO.setStatus("2");
-            int n = tableCacheVersionMapper.update(versionDO, queryWrapper);
+            TableCacheVersionDO lock = new TableCacheVersionDO();
+            lock.setVersion(version);
+            lock.setStatus("2");
+            int n = tableCacheVersionMapper.update(lock, queryWrapper);
             if (n == 1) {
-                return version;
+                lock.setId(versionDO.getId());
+                lock.setKey(key);
+                lock.setTableCount(versionDO.getTableCount());
+                return lock;
             } else {
-                return -1L;
+                return null;
             }
         }
     }
@@ -366,22 +684,55 @@ public class TableServiceImpl implements TableService {
     public List<TableColumn> queryColumns(TableQueryParam param) {
         String tableColumnKey = getColumnKey(param.getDataSourceId(), param.getDatabaseName(), param.getSchemaName(), param.getTableName());
         MetaData metaSchema = Chat2DBContext.getMetaData();
+        if (param.isRefresh()) {
+            removeKeyColumns(param);
+        }
         return CacheManage.getList(tableColumnKey, TableColumn.class,
                 (key) -> param.isRefresh(), (key) ->
-                        metaSchema.columns(Chat2DBContext.getConnection(), param.getDatabaseName(), param.getSchemaName(), param.getTableName()));
+                        metaSchema.columns(Chat2DBContext.getMetaConnection(), param.getDatabaseName(), param.getSchemaName(), param.getTableName()));
     }
 
     @Override
     public List<TableIndex> queryIndexes(TableQueryParam param) {
         MetaData metaSchema = Chat2DBContext.getMetaData();
-        return metaSchema.indexes(Chat2DBContext.getConnection(), param.getDatabaseName(), param.getSchemaName(), param.getTableName());
+        removeKeyColumns(param);
+        return metaSchema.indexes(Chat2DBContext.getMetaConnection(), param.getDatabaseName(), param.getSchemaName(), param.getTableName());
+
+    }
 
+    /**
+     * The key columns used to edit and page the rows of the table may have changed with its indexes.
+     */
+    private void removeKeyColumns(TableQueryParam param) {
+        MemoryCacheManage.remove(getKeyColumnKey(param.getDataSourceId(), param.getDatabaseName(),
+            param.getSchemaName(), param.getTableName()));
+        MemoryCacheManage.remove(getKeysetColumnKey(param.getDataSourceId(), param.getDatabaseName(),
+            param.getSchemaName(), param.getTableName()));
+    }
+
+    @Override
+    public Map<String, List<TableColumn>> queryColumnsOfSchema(TableQueryParam param) {
+        MetaData metaSchema = Chat2DBContext.getMetaData();
+        Map<String, List<TableColumn>> columnMap = metaSchema.columnsOfSchema(Chat2DBContext.getMetaConnection(),
+            param.getDatabaseName(), param.getSchemaName());
+        // 同时刷新每个表的字段缓存
+        columnMap.forEach((tableName, columns) -> CacheManage.putList(
+            getColumnKey(param.getDataSourceId(), param.getDatabaseName(), param.getSchemaName(), tableName), columns,
+            TableColumn.class));
+        return columnMap;
+    }
+
+    @Override
+    public Map<String, List<TableIndex>> queryIndexesOfSchema(TableQueryParam param) {
+        MetaData metaSchema = Chat2DBContext.getMetaData();
+        return metaSchema.indexesOfSchema(Chat2DBContext.getMetaConnection(), param.getDatabaseName(),
+            param.getSchemaName());
     }
 
     @Override
     public List<Type> queryTypes(TypeQueryParam param) {
         MetaData metaSchema = Chat2DBContext.getMetaData();
-        return metaSchema.types(Chat2DBContext.getConnection());
+        return metaSchema.types(Chat2DBContext.getMetaConnection());
     }
 
     @Override
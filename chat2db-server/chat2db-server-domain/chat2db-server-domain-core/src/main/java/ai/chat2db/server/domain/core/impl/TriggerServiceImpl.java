@@ -11,11 +11,11 @@ import org.springframework.stereotype.Service;
 public class TriggerServiceImpl implements TriggerService {
     @Override
     public ListResult<Trigger> triggers(String databaseName, String schemaName) {
-        return ListResult.of(Chat2DBContext.getMetaData().triggers(Chat2DBContext.getConnection(),databaseName, schemaName));
+        return ListResult.of(Chat2DBContext.getMetaData().triggers(Chat2DBContext.getMetaConnection(),databaseName, schemaName));
     }
 
     @Override
     public DataResult<Trigger> detail(String databaseName, String schemaName, String triggerName) {
-        return DataResult.of(Chat2DBContext.getMetaData().trigger(Chat2DBContext.getConnection(), databaseName, schemaName, triggerName));
+        return DataResult.of(Chat2DBContext.getMetaData().trigger(Chat2DBContext.getMetaConnection(), databaseName, schemaName, triggerName));
     }
 }
@@ -13,13 +13,13 @@ public class ViewServiceImpl implements ViewService {
 
     @Override
     public ListResult<Table> views(String databaseName, String schemaName) {
-        return ListResult.of(Chat2DBContext.getMetaData().views(Chat2DBContext.getConnection(),databaseName, schemaName));
+        return ListResult.of(Chat2DBContext.getMetaData().views(Chat2DBContext.getMetaConnection(),databaseName, schemaName));
     }
 
     @Override
     public DataResult<Table> detail(String databaseName, String schemaName, String tableName) {
         MetaData metaSchema = Chat2DBContext.getMetaData();
-        Table table = metaSchema.view(Chat2DBContext.getConnection(), databaseName, schemaName, tableName);
+        Table table = metaSchema.view(Chat2DBContext.getMetaConnection(), databaseName, schemaName, tableName);
         return DataResult.of(table);
     }
 
@@ -80,4 +80,9 @@ public class TableCacheDO implements Serializable {
      * 自定义扩展字段json
      */
     private String extendInfo;
+
+    /**
+     * 表元数据指纹
+     */
+    private String fingerprint;
 }
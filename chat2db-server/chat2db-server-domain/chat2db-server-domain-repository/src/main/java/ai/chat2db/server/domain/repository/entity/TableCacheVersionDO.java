@@ -72,7 +72,32 @@ public class TableCacheVersionDO implements Serializable {
     private Long tableCount;
 
     /**
-     * 状态
+     * 状态, 1 就绪, 2 全量刷新中, 3 增量刷新中
      */
     private String status;
+
+    /**
+     * 最近一次刷新方式, FULL or INCREMENTAL
+     */
+    private String refreshMode;
+
+    /**
+     * 最近一次刷新新增的表数量
+     */
+    private Long addedCount;
+
+    /**
+     * 最近一次刷新修改的表数量
+     */
+    private Long updatedCount;
+
+    /**
+     * 最近一次刷新删除的表数量
+     */
+    private Long deletedCount;
+
+    /**
+     * 最近一次刷新耗时(毫秒)
+     */
+    private Long refreshCost;
 }
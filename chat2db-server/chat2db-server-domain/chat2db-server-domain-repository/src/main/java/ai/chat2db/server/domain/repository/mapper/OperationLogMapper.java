@@ -3,6 +3,8 @@ package ai.chat2db.server.domain.repository.mapper;
 import ai.chat2db.server.domain.repository.entity.OperationLogDO;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 
+import java.util.List;
+
 /**
  * <p>
  * 我的执行记录表 Mapper 接口
@@ -13,4 +15,5 @@ import com.baomidou.mybatisplus.core.mapper.BaseMapper;
  */
 public interface OperationLogMapper extends BaseMapper<OperationLogDO> {
 
+    void batchInsert(List<OperationLogDO> list);
 }
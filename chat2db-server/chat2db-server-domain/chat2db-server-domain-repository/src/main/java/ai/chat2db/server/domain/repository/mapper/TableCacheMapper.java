@@ -20,5 +20,5 @@ public interface TableCacheMapper extends BaseMapper<TableCacheDO> {
 
     void batchInsert(List<TableCacheDO> list);
 
-    IPage<TableCacheDO> pageQuery(IPage<TableCacheDO> page, @Param("dataSourceId") Long dataSourceId, @Param("databaseName") String databaseName, @Param("schemaName") String schemaName, @Param("searchKey") String searchKey);
+    IPage<TableCacheDO> pageQuery(IPage<TableCacheDO> page, @Param("dataSourceId") Long dataSourceId, @Param("databaseName") String databaseName, @Param("schemaName") String schemaName, @Param("searchKey") String searchKey, @Param("version") Long version);
 }
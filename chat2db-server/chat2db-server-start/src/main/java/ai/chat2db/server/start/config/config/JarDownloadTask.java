@@ -1,17 +1,15 @@
-
 package ai.chat2db.server.start.config.config;
 
-import java.util.ArrayList;
-import java.util.List;
-
-import ai.chat2db.spi.sql.Chat2DBContext;
-import ai.chat2db.spi.util.JdbcJarUtils;
+import ai.chat2db.server.domain.api.service.JdbcDriverService;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.stereotype.Component;
-import org.springframework.util.CollectionUtils;
 
 /**
+ * Download the drivers of the saved data sources in the background, so that the first connection does not wait for
+ * the download.
+ *
  * @author jipengfei
  * @version : JarDownloadTask.java
  */
@@ -19,17 +17,15 @@ import org.springframework.util.CollectionUtils;
 @Slf4j
 public class JarDownloadTask implements CommandLineRunner {
 
+    @Autowired
+    private JdbcDriverService jdbcDriverService;
+
     @Override
     public void run(String... args) throws Exception {
-        List<String> urls = new ArrayList<>();
-        Chat2DBContext.PLUGIN_MAP.forEach((k, v) -> {
-            v.getDBConfig().getDriverConfigList().forEach(driverConfig -> {
-                if (driverConfig != null && !CollectionUtils.isEmpty(driverConfig.getDownloadJdbcDriverUrls()) && (
-                    "MYSQL".equals(driverConfig.getDbType()))) {
-                    urls.addAll(driverConfig.getDownloadJdbcDriverUrls());
-                }
-            });
-        });
-        JdbcJarUtils.asyncDownload(urls);
+        try {
+            jdbcDriverService.prefetch();
+        } catch (Exception e) {
+            log.warn("prefetch jdbc driver error", e);
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,6 @@
+ALTER TABLE `table_cache` ADD COLUMN `fingerprint` varchar(64) NULL COMMENT '表元数据指纹';
+ALTER TABLE `table_cache_version` ADD COLUMN `refresh_mode` varchar(32) NULL COMMENT '最近一次刷新方式';
+ALTER TABLE `table_cache_version` ADD COLUMN `added_count` bigint(20) NULL COMMENT '最近一次刷新新增的表数量';
+ALTER TABLE `table_cache_version` ADD COLUMN `updated_count` bigint(20) NULL COMMENT '最近一次刷新修改的表数量';
+ALTER TABLE `table_cache_version` ADD COLUMN `deleted_count` bigint(20) NULL COMMENT '最近一次刷新删除的表数量';
+ALTER TABLE `table_cache_version` ADD COLUMN `refresh_cost` bigint(20) NULL COMMENT '最近一次刷新耗时(毫秒)';
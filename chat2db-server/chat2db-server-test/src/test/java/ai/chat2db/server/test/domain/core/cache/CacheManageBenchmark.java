@@ -0,0 +1,107 @@
+package ai.chat2db.server.test.domain.core.cache;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import ai.chat2db.server.domain.core.cache.JSONBSerializer;
+import ai.chat2db.spi.model.TableColumn;
+import com.alibaba.fastjson2.JSON;
+import org.ehcache.Cache;
+import org.ehcache.CacheManager;
+import org.ehcache.config.builders.CacheConfigurationBuilder;
+import org.ehcache.config.builders.CacheManagerBuilder;
+import org.ehcache.config.builders.ResourcePoolsBuilder;
+import org.ehcache.config.units.EntryUnit;
+import org.ehcache.config.units.MemoryUnit;
+
+/**
+ * 元数据缓存命中耗时对比，保存JSON字符串并在命中时解析，和保存JSONB并在命中时解码，缓存的值是表的字段列表。
+ * <p>
+ * 运行：java -cp &lt;test classpath&gt; ai.chat2db.server.test.domain.core.cache.CacheManageBenchmark [rounds]
+ */
+public class CacheManageBenchmark {
+
+    private static final int[] COLUMN_COUNTS = {20, 200, 2000};
+
+    private static final String KEY = "table_columns";
+
+    public static void main(String[] args) {
+        int rounds = args.length > 0 ? Integer.parseInt(args[0]) : 20_000;
+        try (CacheManager cacheManager = CacheManagerBuilder.newCacheManagerBuilder().build(true)) {
+            Cache<String, String> jsonCache = cacheManager.createCache("json",
+                CacheConfigurationBuilder.newCacheConfigurationBuilder(String.class, String.class,
+                    ResourcePoolsBuilder.newResourcePoolsBuilder().heap(1000, EntryUnit.ENTRIES)));
+            @SuppressWarnings("unchecked")
+            Class<List<TableColumn>> listType = (Class<List<TableColumn>>)(Class<?>)List.class;
+            Cache<String, List<TableColumn>> jsonbCache = cacheManager.createCache("jsonb",
+                CacheConfigurationBuilder.newCacheConfigurationBuilder(String.class, listType,
+                        ResourcePoolsBuilder.newResourcePoolsBuilder().heap(64, MemoryUnit.MB))
+                    .withValueSerializer(JSONBSerializer.ofList(TableColumn.class))
+                    .withValueSerializingCopier());
+
+            System.out.printf("rounds=%d%n", rounds);
+            for (int columnCount : COLUMN_COUNTS) {
+                List<TableColumn> columns = newColumns(columnCount);
+                jsonCache.put(KEY, JSON.toJSONString(columns));
+                jsonbCache.put(KEY, columns);
+                int scaled = Math.max(rounds * COLUMN_COUNTS[0] / columnCount, 100);
+                // 预热
+                hitJson(jsonCache, scaled);
+                hitJsonb(jsonbCache, scaled);
+                long json = hitJson(jsonCache, scaled);
+                long jsonb = hitJsonb(jsonbCache, scaled);
+                System.out.printf("%5d columns  json %10.2f us  jsonb %10.2f us%n", columnCount,
+                    json / 1e3 / scaled, jsonb / 1e3 / scaled);
+            }
+        }
+    }
+
+    /**
+     * 改为JSONB之前的方式，命中后解析缓存的JSON字符串
+     */
+    private static long hitJson(Cache<String, String> cache, int rounds) {
+        long size = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < rounds; i++) {
+            size += JSON.parseArray(cache.get(KEY), TableColumn.class).size();
+        }
+        return check(System.nanoTime() - start, size);
+    }
+
+    private static long hitJsonb(Cache<String, List<TableColumn>> cache, int rounds) {
+        long size = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < rounds; i++) {
+            size += cache.get(KEY).size();
+        }
+        return check(System.nanoTime() - start, size);
+    }
+
+    private static long check(long nanos, long size) {
+        if (size <= 0) {
+            throw new IllegalStateException();
+        }
+        return nanos;
+    }
+
+    private static List<TableColumn> newColumns(int columnCount) {
+        List<TableColumn> columns = new ArrayList<>(columnCount);
+        for (int i = 0; i < columnCount; i++) {
+            TableColumn column = new TableColumn();
+            column.setName("column_" + i);
+            column.setTableName("bench_table");
+            column.setDatabaseName("bench");
+            column.setColumnType(i % 2 == 0 ? "VARCHAR" : "BIGINT");
+            column.setDataType(i % 2 == 0 ? 12 : -5);
+            column.setTypeName(column.getColumnType());
+            column.setColumnSize(i % 2 == 0 ? 255 : 19);
+            column.setNullable(1);
+            column.setOrdinalPosition(i + 1);
+            column.setPrimaryKey(i == 0);
+            column.setAutoIncrement(i == 0);
+            column.setComment("comment of column " + i);
+            columns.add(column);
+        }
+        return columns;
+    }
+}
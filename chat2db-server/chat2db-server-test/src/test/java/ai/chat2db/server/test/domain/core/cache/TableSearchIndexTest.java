@@ -0,0 +1,102 @@
+package ai.chat2db.server.test.domain.core.cache;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import ai.chat2db.server.domain.core.cache.TableSearchIndex;
+import ai.chat2db.server.domain.core.cache.TableSearchIndex.Entry;
+import ai.chat2db.server.domain.core.cache.TableSearchIndex.Result;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * 表名搜索索引测试
+ */
+public class TableSearchIndexTest {
+
+    private static final TableSearchIndex INDEX = newIndex("order_user", "superuser", "user_order", "product",
+        "users", "super_user_log", "userOrder", "u_o", "audit_log", "fluoride", "user", "server_log", "access_log");
+
+    @Test
+    public void rankTiers() {
+        // 完全相同, 前缀, 分段开头, 子串
+        Assertions.assertEquals(
+            Arrays.asList("user", "users", "userOrder", "user_order", "order_user", "super_user_log", "superuser"),
+            search(INDEX, "user", true, 0, 20));
+        // 不区分大小写
+        Assertions.assertEquals(search(INDEX, "user", true, 0, 20), search(INDEX, " USER ", true, 0, 20));
+    }
+
+    @Test
+    public void initials() {
+        // 分段首字母排在子串之前, 有匹配时不做模糊匹配
+        Assertions.assertEquals(Arrays.asList("u_o", "userOrder", "user_order", "fluoride"),
+            search(INDEX, "uo", true, 0, 20));
+        Assertions.assertEquals(Arrays.asList("audit_log", "access_log"), search(INDEX, "al", true, 0, 20));
+    }
+
+    @Test
+    public void fuzzy() {
+        // 没有其他匹配时按字符顺序匹配
+        Assertions.assertEquals(Arrays.asList("super_user_log"), search(INDEX, "usrlg", true, 0, 20));
+        Assertions.assertEquals(0, INDEX.search("usrlg", false, 0, 20).getTotal());
+        Assertions.assertEquals(0, INDEX.search("xyz", true, 0, 20).getTotal());
+    }
+
+    @Test
+    public void ties() {
+        // 同一级别按名字长度, 再按名字排序
+        Assertions.assertEquals(Arrays.asList("audit_log", "access_log", "server_log", "super_user_log"),
+            search(INDEX, "log", true, 0, 20));
+        TableSearchIndex index = newIndex("b_item", "a_item", "item", "c_item");
+        Assertions.assertEquals(Arrays.asList("item", "a_item", "b_item", "c_item"),
+            search(index, "item", true, 0, 20));
+    }
+
+    @Test
+    public void singleCharacter() {
+        Assertions.assertEquals(Arrays.asList("product", "superuser", "super_user_log"),
+            search(INDEX, "p", true, 0, 20));
+    }
+
+    @Test
+    public void paging() {
+        Result result = INDEX.search("user", true, 2, 2);
+        Assertions.assertEquals(7, result.getTotal());
+        Assertions.assertEquals(Arrays.asList("userOrder", "user_order"), names(INDEX, result));
+        Assertions.assertEquals(Arrays.asList("superuser"), search(INDEX, "user", true, 6, 2));
+
+        result = INDEX.search("user", true, 10, 2);
+        Assertions.assertEquals(7, result.getTotal());
+        Assertions.assertEquals(0, result.getIds().length);
+    }
+
+    @Test
+    public void emptyKey() {
+        // 空的关键字按缓存中的顺序返回
+        for (String key : Arrays.asList(null, "", "  ")) {
+            Result result = INDEX.search(key, true, 1, 3);
+            Assertions.assertEquals(13, result.getTotal());
+            Assertions.assertEquals(Arrays.asList("superuser", "user_order", "product"), names(INDEX, result));
+        }
+        Result result = INDEX.search(null, true, 12, 3);
+        Assertions.assertEquals(Arrays.asList("access_log"), names(INDEX, result));
+        Assertions.assertEquals(0, newIndex().search("user", true, 0, 10).getTotal());
+    }
+
+    private static TableSearchIndex newIndex(String... names) {
+        List<Entry> entries = Arrays.stream(names).map(name -> new Entry(name, null)).collect(Collectors.toList());
+        return new TableSearchIndex(entries, 1L, 0L);
+    }
+
+    private static List<String> search(TableSearchIndex index, String key, boolean fuzzy, int offset, int limit) {
+        return names(index, index.search(key, fuzzy, offset, limit));
+    }
+
+    private static List<String> names(TableSearchIndex index, Result result) {
+        return Arrays.stream(result.getIds())
+            .mapToObj(id -> index.getEntries().get(id).getName())
+            .collect(Collectors.toList());
+    }
+}
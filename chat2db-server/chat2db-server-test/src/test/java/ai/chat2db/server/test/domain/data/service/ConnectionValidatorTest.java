@@ -0,0 +1,156 @@
+package ai.chat2db.server.test.domain.data.service;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import ai.chat2db.spi.config.ConnectionPoolConfig;
+import ai.chat2db.spi.model.ConnectionHealthStats;
+import ai.chat2db.spi.model.SSHInfo;
+import ai.chat2db.spi.sql.Chat2DBContext;
+import ai.chat2db.spi.sql.ConnectInfo;
+import ai.chat2db.spi.sql.ConnectionPool;
+import ai.chat2db.spi.sql.ConnectionValidator;
+import org.h2.tools.Server;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * 连接校验测试，重启H2 TCP服务后连接池中的连接全部失效
+ */
+public class ConnectionValidatorTest {
+
+    private static final String DB_TYPE = "H2";
+
+    private int port;
+
+    private Server server;
+
+    @BeforeEach
+    public void start() throws Exception {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        server = startServer();
+    }
+
+    @AfterEach
+    public void stop() {
+        server.stop();
+    }
+
+    @Test
+    public void replaceAfterRestart() throws Exception {
+        Long dataSourceId = 20L;
+        ConnectionPoolConfig config = newConfig();
+        config.setValidateAfterIdle(0);
+        ConnectionPool pool = new ConnectionPool("test_" + dataSourceId, dataSourceId, DB_TYPE, config);
+        Connection first = pool.borrow(newConnectInfo(dataSourceId));
+        Connection second = pool.borrow(newConnectInfo(dataSourceId));
+        pool.release(first);
+        pool.release(second);
+
+        restart();
+
+        // 两个空闲连接都已断开，校验失败后替换为新连接
+        Connection connection = pool.borrow(newConnectInfo(dataSourceId));
+        Assertions.assertNotSame(first, connection);
+        Assertions.assertNotSame(second, connection);
+        Assertions.assertEquals(1, selectOne(connection));
+        ConnectionHealthStats stats = stats(dataSourceId);
+        Assertions.assertEquals(2, stats.getValidations());
+        Assertions.assertEquals(2, stats.getReplaced());
+        Assertions.assertEquals(0, pool.getIdleCount());
+        pool.release(connection);
+        pool.close();
+    }
+
+    @Test
+    public void keepaliveAfterRestart() throws Exception {
+        Long dataSourceId = 21L;
+        ConnectionPoolConfig config = newConfig();
+        config.setKeepaliveInterval(1L);
+        config.setMinIdle(0);
+        ConnectionPool pool = new ConnectionPool("test_" + dataSourceId, dataSourceId, DB_TYPE, config);
+        Connection first = pool.borrow(newConnectInfo(dataSourceId));
+        pool.release(first);
+
+        restart();
+        Thread.sleep(10);
+
+        // 空闲连接的保活检查发现连接断开后关闭
+        pool.evict();
+        ConnectionHealthStats stats = stats(dataSourceId);
+        Assertions.assertEquals(1, stats.getKeepalives());
+        Assertions.assertEquals(1, stats.getKeepaliveFailures());
+        Assertions.assertEquals(0, pool.getIdleCount());
+        Assertions.assertTrue(first.isClosed());
+
+        Connection connection = pool.borrow(newConnectInfo(dataSourceId));
+        Assertions.assertNotSame(first, connection);
+        Assertions.assertEquals(1, selectOne(connection));
+        pool.release(connection);
+
+        // 存活的连接保活成功后放回连接池
+        Thread.sleep(10);
+        pool.evict();
+        stats = stats(dataSourceId);
+        Assertions.assertEquals(2, stats.getKeepalives());
+        Assertions.assertEquals(1, stats.getKeepaliveFailures());
+        Assertions.assertEquals(1, pool.getIdleCount());
+        pool.close();
+    }
+
+    private void restart() throws SQLException {
+        server.stop();
+        server = startServer();
+    }
+
+    private Server startServer() throws SQLException {
+        return Server.createTcpServer("-tcpPort", String.valueOf(port), "-ifNotExists").start();
+    }
+
+    private static int selectOne(Connection connection) throws SQLException {
+        try (Statement stmt = connection.createStatement(); ResultSet resultSet = stmt.executeQuery("select 1")) {
+            resultSet.next();
+            return resultSet.getInt(1);
+        }
+    }
+
+    private static ConnectionPoolConfig newConfig() {
+        ConnectionPoolConfig config = new ConnectionPoolConfig();
+        config.setEnabled(true);
+        config.setMaxSize(4);
+        config.setMinIdle(1);
+        config.setIdleTimeout(60 * 1000L);
+        config.setMaxLifetime(60 * 1000L);
+        config.setBorrowTimeout(1000L);
+        config.setValidateAfterIdle(60 * 1000L);
+        config.setValidationTimeout(3);
+        config.setKeepaliveInterval(0);
+        config.setEvictInterval(60 * 1000L);
+        return config;
+    }
+
+    private ConnectInfo newConnectInfo(Long dataSourceId) {
+        ConnectInfo connectInfo = new ConnectInfo();
+        connectInfo.setDataSourceId(dataSourceId);
+        connectInfo.setDbType(DB_TYPE);
+        connectInfo.setUrl("jdbc:h2:tcp://localhost:" + port + "/mem:validator_" + dataSourceId + ";DB_CLOSE_DELAY=-1");
+        connectInfo.setSsh(new SSHInfo());
+        connectInfo.setDriverConfig(Chat2DBContext.PLUGIN_MAP.get(DB_TYPE).getDBConfig().getDefaultDriverConfig());
+        return connectInfo;
+    }
+
+    private static ConnectionHealthStats stats(Long dataSourceId) {
+        return ConnectionValidator.stats().stream()
+            .filter(stats -> dataSourceId.equals(stats.getDataSourceId()))
+            .findFirst()
+            .orElseThrow();
+    }
+}
@@ -8,6 +8,10 @@ import ai.chat2db.server.test.domain.data.service.dialect.DialectProperties;
 import ai.chat2db.server.test.domain.data.utils.TestUtils;
 import ai.chat2db.server.tools.base.wrapper.result.ActionResult;
 import ai.chat2db.server.tools.base.wrapper.result.DataResult;
+import ai.chat2db.spi.model.SSHInfo;
+import ai.chat2db.spi.sql.Chat2DBContext;
+import ai.chat2db.spi.sql.ExecutionManager;
+import ai.chat2db.spi.sql.SQLExecutor;
 import com.alibaba.fastjson2.JSON;
 import jakarta.annotation.Resource;
 import lombok.extern.slf4j.Slf4j;
@@ -16,7 +20,13 @@ import org.junit.jupiter.api.Order;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 
+import java.sql.SQLException;
 import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 /**
  * 数据源测试
@@ -95,4 +105,46 @@ public class SQLExecutorOperationsTest extends BaseTest {
         }
     }
 
+    @Test
+    @Order(4)
+    public void cancel() throws Exception {
+        for (DialectProperties dialectProperties : dialectPropertiesList) {
+            if (!"H2".equals(dialectProperties.getDbType())) {
+                continue;
+            }
+            Long dataSourceId = TestUtils.nextLong();
+            Long consoleId = TestUtils.nextLong();
+            String executionId = UUID.randomUUID().toString();
+            ExecutorService executorService = Executors.newSingleThreadExecutor();
+            try {
+                Future<Exception> future = executorService.submit(() -> {
+                    TestUtils.buildContext(dialectProperties, dataSourceId, consoleId);
+                    Chat2DBContext.getConnectInfo().setSsh(new SSHInfo());
+                    Chat2DBContext.getConnectInfo().setExecutionId(executionId);
+                    try {
+                        SQLExecutor.getInstance().execute(
+                            "SELECT COUNT(*) FROM SYSTEM_RANGE(1, 100000) A, SYSTEM_RANGE(1, 100000) B WHERE A.X + B.X = 3",
+                            Chat2DBContext.getConnection(), true, null, null);
+                        return null;
+                    } catch (Exception e) {
+                        return e;
+                    } finally {
+                        TestUtils.remove();
+                    }
+                });
+                // 等待sql开始执行
+                int cancelled = 0;
+                for (int i = 0; i < 100 && cancelled == 0; i++) {
+                    Thread.sleep(100);
+                    cancelled = ExecutionManager.cancel(dataSourceId, consoleId, executionId, null);
+                }
+                Assertions.assertEquals(1, cancelled, "未找到执行中的sql");
+                Exception exception = future.get(10, TimeUnit.SECONDS);
+                log.info("取消执行返回:{}", exception == null ? null : exception.getMessage());
+                Assertions.assertInstanceOf(SQLException.class, exception, "取消执行失败");
+            } finally {
+                executorService.shutdownNow();
+            }
+        }
+    }
 }
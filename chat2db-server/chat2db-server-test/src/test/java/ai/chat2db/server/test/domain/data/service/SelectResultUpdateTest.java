@@ -0,0 +1,213 @@
+package ai.chat2db.server.test.domain.data.service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import ai.chat2db.server.domain.api.param.ConsoleConnectParam;
+import ai.chat2db.server.domain.api.param.DlExecuteParam;
+import ai.chat2db.server.domain.api.param.SelectResultOperation;
+import ai.chat2db.server.domain.api.param.UpdateSelectResultParam;
+import ai.chat2db.server.domain.api.param.datasource.DataSourcePreConnectParam;
+import ai.chat2db.server.domain.api.service.ConsoleService;
+import ai.chat2db.server.domain.api.service.DataSourceService;
+import ai.chat2db.server.domain.api.service.DlTemplateService;
+import ai.chat2db.server.test.common.BaseTest;
+import ai.chat2db.server.test.domain.data.service.dialect.DialectProperties;
+import ai.chat2db.server.test.domain.data.utils.TestUtils;
+import ai.chat2db.server.tools.base.wrapper.result.DataResult;
+import ai.chat2db.server.tools.base.wrapper.result.ListResult;
+import ai.chat2db.spi.model.ExecuteResult;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+/**
+ * 结果集编辑测试, the edited rows are located by their primary key or unique index
+ */
+@Slf4j
+public class SelectResultUpdateTest extends BaseTest {
+    /**
+     * 表名
+     */
+    public static final String TABLE_NAME = "SELECT_RESULT_UPDATE_TEST_" + System.currentTimeMillis();
+
+    /**
+     * 没有主键的表
+     */
+    public static final String UNIQUE_TABLE_NAME = "SELECT_RESULT_UNIQUE_TEST_" + System.currentTimeMillis();
+
+    @Resource
+    private DataSourceService dataSourceService;
+    @Resource
+    private ConsoleService consoleService;
+
+    @Autowired
+    private List<DialectProperties> dialectPropertiesList;
+
+    @Resource
+    private DlTemplateService dlTemplateService;
+
+    @Test
+    @Order(1)
+    public void updateByPrimaryKey() {
+        for (DialectProperties dialectProperties : dialectPropertiesList) {
+            if (!isSupported(dialectProperties)) {
+                continue;
+            }
+            Long dataSourceId = TestUtils.nextLong();
+            Long consoleId = TestUtils.nextLong();
+            connect(dialectProperties, dataSourceId, consoleId);
+
+            execute(dataSourceId, consoleId, "CREATE TABLE " + TABLE_NAME
+                + " (id integer primary key, name varchar(100), score double precision);");
+            execute(dataSourceId, consoleId, "INSERT INTO " + TABLE_NAME + " (id, name, score) VALUES (1, 'a', 0.1);");
+            execute(dataSourceId, consoleId, "INSERT INTO " + TABLE_NAME + " (id, name, score) VALUES (2, 'b', 0.2);");
+
+            ExecuteResult select = execute(dataSourceId, consoleId,
+                "select id, name, score from " + TABLE_NAME + " order by id");
+            List<List<String>> dataList = select.getDataList();
+            Assertions.assertEquals(2, dataList.size(), "查询数据失败");
+
+            List<String> newRow = new ArrayList<>(dataList.get(0));
+            newRow.set(2, "c");
+            UpdateSelectResultParam param = new UpdateSelectResultParam();
+            param.setConsoleId(consoleId);
+            param.setDataSourceId(dataSourceId);
+            param.setDatabaseName(dialectProperties.getDatabaseName());
+            param.setTableName(TABLE_NAME);
+            param.setHeaderList(select.getHeaderList());
+            param.setOperations(List.of(operation("UPDATE", newRow, dataList.get(0)),
+                operation("DELETE", null, dataList.get(1))));
+            DataResult<String> sql = dlTemplateService.updateSelectResult(param);
+            log.info("生成sql:{}", sql.getData());
+            Assertions.assertTrue(sql.getSuccess(), "生成sql失败");
+            Assertions.assertFalse(sql.getData().contains("0.1"), "只按主键更新");
+            Assertions.assertFalse(sql.getData().contains("0.2"), "只按主键删除");
+
+            DlExecuteParam updateParam = new DlExecuteParam();
+            updateParam.setConsoleId(consoleId);
+            updateParam.setDataSourceId(dataSourceId);
+            updateParam.setSql(sql.getData());
+            DataResult<ExecuteResult> updateResult = dlTemplateService.executeUpdate(updateParam);
+            Assertions.assertTrue(updateResult.getSuccess(), "更新数据失败");
+            Assertions.assertTrue(updateResult.getData().getSuccess(), "更新数据失败");
+
+            select = execute(dataSourceId, consoleId, "select id, name, score from " + TABLE_NAME + " order by id");
+            Assertions.assertEquals(1, select.getDataList().size(), "删除数据失败");
+            Assertions.assertEquals("c", select.getDataList().get(0).get(2), "更新数据失败");
+
+            removeConnect();
+        }
+    }
+
+    @Test
+    @Order(2)
+    public void updateByUniqueIndex() {
+        for (DialectProperties dialectProperties : dialectPropertiesList) {
+            if (!isSupported(dialectProperties)) {
+                continue;
+            }
+            Long dataSourceId = TestUtils.nextLong();
+            Long consoleId = TestUtils.nextLong();
+            connect(dialectProperties, dataSourceId, consoleId);
+
+            execute(dataSourceId, consoleId, "CREATE TABLE " + UNIQUE_TABLE_NAME
+                + " (code varchar(32) not null, name varchar(100), score double precision);");
+            execute(dataSourceId, consoleId, "CREATE UNIQUE INDEX " + UNIQUE_TABLE_NAME + "_UK_CODE ON "
+                + UNIQUE_TABLE_NAME + " (code);");
+            execute(dataSourceId, consoleId, "INSERT INTO " + UNIQUE_TABLE_NAME
+                + " (code, name, score) VALUES ('k1', 'a', 0.1);");
+
+            ExecuteResult select = execute(dataSourceId, consoleId, "select code, name, score from "
+                + UNIQUE_TABLE_NAME);
+            List<String> oldRow = select.getDataList().get(0);
+            List<String> newRow = new ArrayList<>(oldRow);
+            newRow.set(2, "c");
+            UpdateSelectResultParam param = new UpdateSelectResultParam();
+            param.setConsoleId(consoleId);
+            param.setDataSourceId(dataSourceId);
+            param.setDatabaseName(dialectProperties.getDatabaseName());
+            param.setTableName(UNIQUE_TABLE_NAME);
+            param.setHeaderList(select.getHeaderList());
+            param.setOperations(List.of(operation("UPDATE", newRow, oldRow)));
+            DataResult<String> sql = dlTemplateService.updateSelectResult(param);
+            log.info("生成sql:{}", sql.getData());
+            Assertions.assertTrue(sql.getData().contains("'k1'"), "按唯一索引更新");
+            Assertions.assertFalse(sql.getData().contains("0.1"), "按唯一索引更新");
+
+            // 查询结果没有唯一索引的列时按所有列更新
+            select = execute(dataSourceId, consoleId, "select name, score from " + UNIQUE_TABLE_NAME);
+            param.setHeaderList(select.getHeaderList());
+            param.setOperations(List.of(operation("DELETE", null, select.getDataList().get(0))));
+            sql = dlTemplateService.updateSelectResult(param);
+            log.info("生成sql:{}", sql.getData());
+            Assertions.assertTrue(sql.getData().contains("0.1"), "按所有列删除");
+
+            removeConnect();
+        }
+    }
+
+    @Test
+    @Order(Integer.MAX_VALUE)
+    public void dropTable() {
+        for (DialectProperties dialectProperties : dialectPropertiesList) {
+            if (!isSupported(dialectProperties)) {
+                continue;
+            }
+            try {
+                Long dataSourceId = TestUtils.nextLong();
+                Long consoleId = TestUtils.nextLong();
+                connect(dialectProperties, dataSourceId, consoleId);
+                execute(dataSourceId, consoleId, dialectProperties.getDropTableSql(TABLE_NAME));
+                execute(dataSourceId, consoleId, dialectProperties.getDropTableSql(UNIQUE_TABLE_NAME));
+                removeConnect();
+            } catch (Exception e) {
+                log.warn("删除表结构失败.", e);
+            }
+        }
+    }
+
+    private boolean isSupported(DialectProperties dialectProperties) {
+        return "H2".equals(dialectProperties.getDbType()) || "SQLITE".equals(dialectProperties.getDbType());
+    }
+
+    private void connect(DialectProperties dialectProperties, Long dataSourceId, Long consoleId) {
+        putConnect(dialectProperties.getUrl(), dialectProperties.getUsername(), dialectProperties.getPassword(),
+            dialectProperties.getDbType(), dialectProperties.getDatabaseName(), dataSourceId, consoleId);
+
+        DataSourcePreConnectParam dataSourceCreateParam = new DataSourcePreConnectParam();
+        dataSourceCreateParam.setType(dialectProperties.getDbType());
+        dataSourceCreateParam.setUrl(dialectProperties.getUrl());
+        dataSourceCreateParam.setUser(dialectProperties.getUsername());
+        dataSourceCreateParam.setPassword(dialectProperties.getPassword());
+        dataSourceService.preConnect(dataSourceCreateParam);
+
+        // 创建控制台
+        ConsoleConnectParam consoleCreateParam = new ConsoleConnectParam();
+        consoleCreateParam.setDataSourceId(dataSourceId);
+        consoleCreateParam.setConsoleId(consoleId);
+        consoleCreateParam.setDatabaseName(dialectProperties.getDatabaseName());
+        consoleService.createConsole(consoleCreateParam);
+    }
+
+    private ExecuteResult execute(Long dataSourceId, Long consoleId, String sql) {
+        DlExecuteParam templateQueryParam = new DlExecuteParam();
+        templateQueryParam.setConsoleId(consoleId);
+        templateQueryParam.setDataSourceId(dataSourceId);
+        templateQueryParam.setSql(sql);
+        ListResult<ExecuteResult> executeResult = dlTemplateService.execute(templateQueryParam);
+        Assertions.assertTrue(executeResult.getSuccess(), "执行sql失败:" + sql);
+        return executeResult.getData().get(0);
+    }
+
+    private SelectResultOperation operation(String type, List<String> dataList, List<String> oldDataList) {
+        SelectResultOperation operation = new SelectResultOperation();
+        operation.setType(type);
+        operation.setDataList(dataList);
+        operation.setOldDataList(oldDataList);
+        return operation;
+    }
+}
@@ -0,0 +1,112 @@
+package ai.chat2db.server.test.domain.data.service;
+
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import ai.chat2db.server.domain.api.param.TablePageQueryParam;
+import ai.chat2db.server.domain.api.param.TableSelector;
+import ai.chat2db.server.domain.api.service.TableService;
+import ai.chat2db.server.domain.core.cache.CacheKey;
+import ai.chat2db.server.domain.repository.entity.TableCacheVersionDO;
+import ai.chat2db.server.domain.repository.mapper.TableCacheVersionMapper;
+import ai.chat2db.server.test.common.BaseTest;
+import ai.chat2db.server.test.domain.data.utils.TestUtils;
+import ai.chat2db.server.tools.base.wrapper.result.PageResult;
+import ai.chat2db.spi.model.SimpleTable;
+import ai.chat2db.spi.model.Table;
+import ai.chat2db.spi.sql.Chat2DBContext;
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import jakarta.annotation.Resource;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * 表缓存刷新测试，增量刷新时表列表仍然读取当前版本
+ */
+public class TableCacheRefreshTest extends BaseTest {
+
+    private static final String DATABASE_NAME = "TABLE_CACHE_REFRESH";
+
+    private static final String SCHEMA_NAME = "PUBLIC";
+
+    @Resource
+    private TableService tableService;
+
+    @Resource
+    private TableCacheVersionMapper tableCacheVersionMapper;
+
+    @Test
+    public void readDuringIncrementalRefresh() throws SQLException {
+        Long dataSourceId = TestUtils.nextLong();
+        putConnect("jdbc:h2:mem:table_cache_refresh;DB_CLOSE_DELAY=-1;MODE=MYSQL", null, null, "H2",
+            DATABASE_NAME, dataSourceId, null);
+        try {
+            execute("create table refresh_a(id int)");
+            execute("create table refresh_b(id int)");
+            Assertions.assertEquals(List.of("REFRESH_A", "REFRESH_B"), pageQuery(dataSourceId, true, null));
+            TableCacheVersionDO versionDO = queryVersion(dataSourceId);
+            Assertions.assertEquals("1", versionDO.getStatus());
+
+            // 另一个进程正在增量刷新, 读取当前版本
+            updateStatus(versionDO, "3");
+            Assertions.assertEquals(List.of("REFRESH_A", "REFRESH_B"), pageQuery(dataSourceId, false, null));
+            Assertions.assertEquals(List.of("REFRESH_B"), pageQuery(dataSourceId, false, "refresh_b"));
+            List<String> tables = tableService.queryTables(newParam(dataSourceId, false, null)).getData().stream()
+                .map(SimpleTable::getName)
+                .sorted()
+                .collect(Collectors.toList());
+            Assertions.assertEquals(List.of("REFRESH_A", "REFRESH_B"), tables);
+            updateStatus(versionDO, "1");
+
+            // 增量刷新只写入新增的表, 版本不变
+            execute("create table refresh_c(id int)");
+            Assertions.assertEquals(List.of("REFRESH_A", "REFRESH_B", "REFRESH_C"),
+                pageQuery(dataSourceId, true, null));
+            TableCacheVersionDO refreshed = queryVersion(dataSourceId);
+            Assertions.assertEquals("1", refreshed.getStatus());
+            Assertions.assertEquals(versionDO.getVersion(), refreshed.getVersion());
+            Assertions.assertEquals(1L, refreshed.getAddedCount());
+        } finally {
+            removeConnect();
+        }
+    }
+
+    private List<String> pageQuery(Long dataSourceId, boolean refresh, String searchKey) {
+        PageResult<Table> result = tableService.pageQuery(newParam(dataSourceId, refresh, searchKey),
+            TableSelector.builder().build());
+        return result.getData().stream().map(Table::getName).sorted().collect(Collectors.toList());
+    }
+
+    private static TablePageQueryParam newParam(Long dataSourceId, boolean refresh, String searchKey) {
+        TablePageQueryParam param = new TablePageQueryParam();
+        param.setDataSourceId(dataSourceId);
+        param.setDatabaseName(DATABASE_NAME);
+        param.setSchemaName(SCHEMA_NAME);
+        param.setRefresh(refresh);
+        param.setSearchKey(searchKey);
+        param.setPageNo(1);
+        param.setPageSize(100);
+        return param;
+    }
+
+    private TableCacheVersionDO queryVersion(Long dataSourceId) {
+        LambdaQueryWrapper<TableCacheVersionDO> queryWrapper = new LambdaQueryWrapper<>();
+        queryWrapper.eq(TableCacheVersionDO::getKey, CacheKey.getTableKey(dataSourceId, DATABASE_NAME, SCHEMA_NAME));
+        return tableCacheVersionMapper.selectOne(queryWrapper);
+    }
+
+    private void updateStatus(TableCacheVersionDO versionDO, String status) {
+        TableCacheVersionDO update = new TableCacheVersionDO();
+        update.setId(versionDO.getId());
+        update.setStatus(status);
+        tableCacheVersionMapper.updateById(update);
+    }
+
+    private static void execute(String sql) throws SQLException {
+        try (Statement stmt = Chat2DBContext.getConnection().createStatement()) {
+            stmt.execute(sql);
+        }
+    }
+}
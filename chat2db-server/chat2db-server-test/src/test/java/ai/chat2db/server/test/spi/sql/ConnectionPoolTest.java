@@ -0,0 +1,147 @@
+package ai.chat2db.server.test.spi.sql;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import ai.chat2db.spi.config.ConnectionPoolConfig;
+import ai.chat2db.spi.model.ConnectionHealthStats;
+import ai.chat2db.spi.model.SSHInfo;
+import ai.chat2db.spi.sql.Chat2DBContext;
+import ai.chat2db.spi.sql.ConnectInfo;
+import ai.chat2db.spi.sql.ConnectionPool;
+import ai.chat2db.spi.sql.ConnectionPoolManager;
+import ai.chat2db.spi.sql.ConnectionValidator;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * 连接池测试，使用内存H2
+ */
+public class ConnectionPoolTest {
+
+    private static final String DB_TYPE = "H2";
+
+    @Test
+    public void lifo() {
+        ConnectionPool pool = newPool(1L, newConfig());
+        Connection first = pool.borrow(newConnectInfo(1L, "pool_lifo"));
+        Connection second = pool.borrow(newConnectInfo(1L, "pool_lifo"));
+        Assertions.assertNotSame(first, second);
+        pool.release(first);
+        pool.release(second);
+        Assertions.assertEquals(2, pool.getIdleCount());
+
+        // 最后归还的连接最先借出
+        Assertions.assertSame(second, pool.borrow(newConnectInfo(1L, "pool_lifo")));
+        Assertions.assertSame(first, pool.borrow(newConnectInfo(1L, "pool_lifo")));
+        Assertions.assertEquals(2, pool.getActiveCount());
+        pool.release(first);
+        pool.release(second);
+        pool.close();
+    }
+
+    @Test
+    public void rollbackOnRelease() throws SQLException {
+        ConnectionPool pool = newPool(2L, newConfig());
+        Connection connection = pool.borrow(newConnectInfo(2L, "pool_rollback"));
+        try (Statement stmt = connection.createStatement()) {
+            stmt.execute("create table if not exists pool_rollback(id int)");
+        }
+        connection.setAutoCommit(false);
+        try (Statement stmt = connection.createStatement()) {
+            stmt.execute("insert into pool_rollback values(1)");
+        }
+        Assertions.assertTrue(pool.release(connection));
+
+        Connection reused = pool.borrow(newConnectInfo(2L, "pool_rollback"));
+        Assertions.assertSame(connection, reused);
+        Assertions.assertTrue(reused.getAutoCommit(), "归还时需要恢复自动提交");
+        try (Statement stmt = reused.createStatement();
+             ResultSet resultSet = stmt.executeQuery("select count(*) from pool_rollback")) {
+            resultSet.next();
+            Assertions.assertEquals(0, resultSet.getInt(1), "归还时需要回滚未提交的数据");
+        }
+        pool.release(reused);
+        pool.close();
+    }
+
+    @Test
+    public void validateAfterIdle() throws SQLException {
+        ConnectionPoolConfig config = newConfig();
+        config.setValidateAfterIdle(0);
+        ConnectionPool pool = newPool(3L, config);
+        Connection connection = pool.borrow(newConnectInfo(3L, "pool_validate"));
+        pool.release(connection);
+
+        // 空闲超过validateAfterIdle的连接借出前校验
+        Assertions.assertSame(connection, pool.borrow(newConnectInfo(3L, "pool_validate")));
+        Assertions.assertEquals(1, stats(3L).getValidations());
+        pool.release(connection);
+
+        // 空闲时断开的连接被替换
+        connection.close();
+        Connection replaced = pool.borrow(newConnectInfo(3L, "pool_validate"));
+        Assertions.assertNotSame(connection, replaced);
+        Assertions.assertFalse(replaced.isClosed());
+        Assertions.assertEquals(1, stats(3L).getReplaced());
+        pool.release(replaced);
+        pool.close();
+    }
+
+    @Test
+    public void invalidate() throws SQLException {
+        ConnectInfo idleInfo = newConnectInfo(4L, "pool_invalidate");
+        Connection idle = ConnectionPoolManager.borrow(idleInfo);
+        ConnectInfo borrowedInfo = newConnectInfo(4L, "pool_invalidate");
+        Connection borrowed = ConnectionPoolManager.borrow(borrowedInfo);
+        Assertions.assertTrue(ConnectionPoolManager.release(idleInfo));
+
+        ConnectionPoolManager.invalidate(4L);
+        Assertions.assertTrue(idle.isClosed(), "失效时关闭空闲连接");
+        // 使用中的连接不再属于连接池，由调用方关闭
+        Assertions.assertFalse(ConnectionPoolManager.release(borrowedInfo));
+        borrowed.close();
+
+        Connection renewed = ConnectionPoolManager.borrow(newConnectInfo(4L, "pool_invalidate"));
+        Assertions.assertNotSame(idle, renewed);
+        renewed.close();
+    }
+
+    private static ConnectionPool newPool(Long dataSourceId, ConnectionPoolConfig config) {
+        return new ConnectionPool("test_" + dataSourceId, dataSourceId, DB_TYPE, config);
+    }
+
+    private static ConnectionPoolConfig newConfig() {
+        ConnectionPoolConfig config = new ConnectionPoolConfig();
+        config.setEnabled(true);
+        config.setMaxSize(4);
+        config.setMinIdle(1);
+        config.setIdleTimeout(60 * 1000L);
+        config.setMaxLifetime(60 * 1000L);
+        config.setBorrowTimeout(1000L);
+        config.setValidateAfterIdle(60 * 1000L);
+        config.setValidationTimeout(3);
+        config.setKeepaliveInterval(0);
+        config.setEvictInterval(60 * 1000L);
+        return config;
+    }
+
+    private static ConnectInfo newConnectInfo(Long dataSourceId, String database) {
+        ConnectInfo connectInfo = new ConnectInfo();
+        connectInfo.setDataSourceId(dataSourceId);
+        connectInfo.setDbType(DB_TYPE);
+        connectInfo.setUrl("jdbc:h2:mem:" + database + ";DB_CLOSE_DELAY=-1");
+        connectInfo.setSsh(new SSHInfo());
+        connectInfo.setDriverConfig(Chat2DBContext.PLUGIN_MAP.get(DB_TYPE).getDBConfig().getDefaultDriverConfig());
+        return connectInfo;
+    }
+
+    private static ConnectionHealthStats stats(Long dataSourceId) {
+        return ConnectionValidator.stats().stream()
+            .filter(stats -> dataSourceId.equals(stats.getDataSourceId()))
+            .findFirst()
+            .orElseThrow();
+    }
+}
@@ -0,0 +1,112 @@
+package ai.chat2db.server.test.spi.sql;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import ai.chat2db.spi.enums.WorkloadEnum;
+import ai.chat2db.spi.model.SSHInfo;
+import ai.chat2db.spi.sql.Chat2DBContext;
+import ai.chat2db.spi.sql.ConnectInfo;
+import ai.chat2db.spi.sql.ConsoleSessionManager;
+import ai.chat2db.spi.sql.CursorManager;
+import ai.chat2db.spi.sql.CursorSession;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * 控制台会话上的游标只借用连接，游标关闭后会话的连接和会话状态保持不变，使用内存H2
+ */
+public class ConsoleCursorTest {
+
+    private static final String DB_TYPE = "H2";
+
+    private static final String CURSOR_SQL = "select x from system_range(1, 100)";
+
+    @Test
+    public void giveBackOnClose() throws SQLException {
+        Connection connection = open(11L, 1L);
+        execute(connection, "set @console_var = 7");
+        CursorSession cursor = openCursor();
+        Assertions.assertEquals(10, cursor.fetch(0, 10, true).size());
+        CursorManager.register(cursor);
+        Chat2DBContext.removeContext();
+
+        // 游标读完后把连接还给控制台
+        CursorManager.close(cursor.getCursorId());
+        Assertions.assertSame(connection, open(11L, 1L));
+        Assertions.assertEquals(7, queryVariable(connection));
+        Chat2DBContext.removeContext();
+        Assertions.assertTrue(ConsoleSessionManager.kill(11L, 1L, null));
+    }
+
+    @Test
+    public void reclaimOnExecute() throws SQLException {
+        Connection connection = open(12L, 1L);
+        execute(connection, "create local temporary table console_temp(id int)");
+        execute(connection, "set @console_var = 8");
+        CursorSession cursor = openCursor();
+        cursor.fetch(0, 10, true);
+        CursorManager.register(cursor);
+        Chat2DBContext.removeContext();
+
+        // 控制台的下一次执行先关闭游标，再使用原来的连接
+        Assertions.assertSame(connection, open(12L, 1L));
+        Assertions.assertNull(CursorManager.get(cursor.getCursorId(), null));
+        Assertions.assertThrows(SQLException.class, () -> cursor.fetch(10, 10, true));
+        Assertions.assertEquals(8, queryVariable(connection));
+        execute(connection, "insert into console_temp values(1)");
+        Assertions.assertFalse(connection.isClosed());
+        Chat2DBContext.removeContext();
+        Assertions.assertTrue(ConsoleSessionManager.kill(12L, 1L, null));
+    }
+
+    @Test
+    public void closeWithSession() throws SQLException {
+        Connection connection = open(13L, 1L);
+        CursorSession cursor = openCursor();
+        cursor.fetch(0, 10, true);
+        CursorManager.register(cursor);
+        Chat2DBContext.removeContext();
+
+        // 关闭控制台会话时同时关闭借用连接的游标
+        Assertions.assertTrue(ConsoleSessionManager.kill(13L, 1L, null));
+        Assertions.assertNull(CursorManager.get(cursor.getCursorId(), null));
+        Assertions.assertTrue(connection.isClosed());
+    }
+
+    private static Connection open(Long dataSourceId, Long consoleId) {
+        ConnectInfo connectInfo = new ConnectInfo();
+        connectInfo.setDataSourceId(dataSourceId);
+        connectInfo.setConsoleId(consoleId);
+        connectInfo.setDbType(DB_TYPE);
+        connectInfo.setUrl("jdbc:h2:mem:console_cursor_" + dataSourceId + ";DB_CLOSE_DELAY=-1");
+        connectInfo.setSsh(new SSHInfo());
+        connectInfo.setWorkload(WorkloadEnum.QUERY);
+        Chat2DBContext.putContext(connectInfo);
+        Connection connection = Chat2DBContext.getConnection();
+        Assertions.assertNotNull(Chat2DBContext.getConnectInfo().getConsoleSession());
+        return connection;
+    }
+
+    private static CursorSession openCursor() throws SQLException {
+        CursorSession cursor = CursorManager.open(CURSOR_SQL, null, 10);
+        Assertions.assertNotNull(cursor);
+        return cursor;
+    }
+
+    private static int queryVariable(Connection connection) throws SQLException {
+        try (Statement stmt = connection.createStatement();
+             ResultSet resultSet = stmt.executeQuery("select @console_var")) {
+            resultSet.next();
+            return resultSet.getInt(1);
+        }
+    }
+
+    private static void execute(Connection connection, String sql) throws SQLException {
+        try (Statement stmt = connection.createStatement()) {
+            stmt.execute(sql);
+        }
+    }
+}
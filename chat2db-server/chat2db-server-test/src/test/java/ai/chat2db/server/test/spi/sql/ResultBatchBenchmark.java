@@ -0,0 +1,142 @@
+package ai.chat2db.server.test.spi.sql;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+import ai.chat2db.spi.ColumnReader;
+import ai.chat2db.spi.model.Header;
+import ai.chat2db.spi.model.ResultBatch;
+import ai.chat2db.spi.util.JdbcUtils;
+
+/**
+ * 结果集按行保存字符串和按列保存的耗时及内存对比，在内存H2上读取一张数值为主的表。
+ * <p>
+ * 运行：java -cp &lt;test classpath&gt; ai.chat2db.server.test.spi.sql.ResultBatchBenchmark [rows] [rounds]
+ */
+public class ResultBatchBenchmark {
+
+    private static final String SQL = "select id, price, ratio, amount, name, created from bench_result";
+
+    public static void main(String[] args) throws Exception {
+        int rows = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        try (Connection connection = DriverManager.getConnection("jdbc:h2:mem:bench_result;DB_CLOSE_DELAY=-1")) {
+            try (Statement stmt = connection.createStatement()) {
+                stmt.execute("create table bench_result(id bigint, price double precision, ratio real, "
+                    + "amount decimal(18, 2), name varchar(64), created timestamp)");
+                stmt.execute("insert into bench_result select x, x * 1.1, x / 7.0, x * 100.25, 'name_' || x, "
+                    + "timestamp '2024-01-01 00:00:00' + x * interval '1' second from system_range(1, " + rows + ")");
+            }
+            // 预热
+            for (int i = 0; i < 3; i++) {
+                consume(readRows(connection));
+                consume(readBatch(connection).asStringRows());
+            }
+            System.out.printf("rows=%d rounds=%d%n", rows, rounds);
+            report("row strings", connection, rounds, false);
+            report("result batch", connection, rounds, true);
+        }
+    }
+
+    private static void report(String name, Connection connection, int rounds, boolean batch) throws SQLException {
+        long readNanos = 0;
+        long renderNanos = 0;
+        long againNanos = 0;
+        long retained = 0;
+        for (int i = 0; i < rounds; i++) {
+            long before = usedMemory();
+            long start = System.nanoTime();
+            Object result;
+            List<List<String>> stringRows;
+            if (batch) {
+                ResultBatch resultBatch = readBatch(connection);
+                result = resultBatch;
+                stringRows = resultBatch.asStringRows();
+            } else {
+                stringRows = readRows(connection);
+                result = stringRows;
+            }
+            long read = System.nanoTime();
+            retained += usedMemory() - before;
+            long renderStart = System.nanoTime();
+            consume(stringRows);
+            renderNanos += System.nanoTime() - renderStart;
+            // 第二次访问时每一行都已经生成
+            long againStart = System.nanoTime();
+            consume(stringRows);
+            againNanos += System.nanoTime() - againStart;
+            readNanos += read - start;
+            if (result == null) {
+                throw new IllegalStateException();
+            }
+        }
+        System.out.printf("%-14s read %8.2f ms  render %8.2f ms  again %8.2f ms  retained %8.2f MB%n", name,
+            readNanos / 1e6 / rounds, renderNanos / 1e6 / rounds, againNanos / 1e6 / rounds,
+            retained / 1024.0 / 1024.0 / rounds);
+    }
+
+    /**
+     * 按列存储之前的方式，每个值读取为字符串
+     */
+    private static List<List<String>> readRows(Connection connection) throws SQLException {
+        List<List<String>> rows = new ArrayList<>();
+        try (Statement stmt = connection.createStatement(); ResultSet rs = stmt.executeQuery(SQL)) {
+            int columnCount = rs.getMetaData().getColumnCount();
+            while (rs.next()) {
+                List<String> row = new ArrayList<>(columnCount);
+                for (int i = 1; i <= columnCount; i++) {
+                    row.add(JdbcUtils.getResultSetValue(rs, i, true));
+                }
+                rows.add(row);
+            }
+        }
+        return rows;
+    }
+
+    private static ResultBatch readBatch(Connection connection) throws SQLException {
+        try (Statement stmt = connection.createStatement(); ResultSet rs = stmt.executeQuery(SQL)) {
+            ResultSetMetaData metaData = rs.getMetaData();
+            int columnCount = metaData.getColumnCount();
+            List<Header> headerList = new ArrayList<>();
+            int[] columnIndexes = new int[columnCount];
+            ColumnReader[] columnReaders = new ColumnReader[columnCount];
+            for (int i = 0; i < columnCount; i++) {
+                headerList.add(Header.builder().name(metaData.getColumnName(i + 1)).build());
+                columnIndexes[i] = i + 1;
+                columnReaders[i] = JdbcUtils.resolveColumnReader(metaData, i + 1);
+            }
+            ResultBatch resultBatch = new ResultBatch(headerList, columnIndexes, columnReaders, true);
+            while (rs.next()) {
+                resultBatch.append(rs);
+            }
+            return resultBatch;
+        }
+    }
+
+    /**
+     * 像序列化响应时一样访问每一个展示的字符串
+     */
+    private static long consume(List<List<String>> rows) {
+        long length = 0;
+        for (List<String> row : rows) {
+            for (String value : row) {
+                length += value == null ? 0 : value.length();
+            }
+        }
+        return length;
+    }
+
+    private static long usedMemory() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,259 @@
+package ai.chat2db.server.test.spi.sql;
+
+import java.lang.reflect.Field;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+import ai.chat2db.server.tools.common.util.I18nUtils;
+import ai.chat2db.spi.ColumnReader;
+import ai.chat2db.spi.jdbc.DefaultColumnReader;
+import ai.chat2db.spi.model.ExecuteResult;
+import ai.chat2db.spi.model.Header;
+import ai.chat2db.spi.model.ResultBatch;
+import ai.chat2db.spi.util.JdbcUtils;
+import com.alibaba.fastjson2.JSON;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.support.StaticMessageSource;
+
+/**
+ * 按列存储的结果集测试，使用内存H2
+ */
+public class ResultBatchTest {
+
+    private static final int LARGE_SIZE = 300 * 1024;
+
+    private static final int MAX_RESULT_SIZE = 256 * 1024;
+
+    private static Connection connection;
+
+    @BeforeAll
+    public static void prepare() throws Exception {
+        // 超长的值截断时需要国际化的提示
+        StaticMessageSource messageSource = new StaticMessageSource();
+        messageSource.addMessage("execute.exportCsv", Locale.getDefault(), "export csv");
+        I18nUtils i18nUtils = new I18nUtils();
+        Field field = I18nUtils.class.getDeclaredField("messageSource");
+        field.setAccessible(true);
+        field.set(i18nUtils, messageSource);
+        i18nUtils.afterPropertiesSet();
+
+        connection = DriverManager.getConnection("jdbc:h2:mem:result_batch;DB_CLOSE_DELAY=-1");
+        try (Statement stmt = connection.createStatement()) {
+            stmt.execute("create table result_batch(id bigint, f real, d double precision, n decimal(30, 4), "
+                + "s varchar(100), c clob, b blob)");
+            stmt.execute("insert into result_batch values(1, 1.5, 0.1, 12345678901234567890.1234, 'a', 'text', "
+                + "X'616263')");
+            stmt.execute("insert into result_batch values(null, null, null, null, null, null, null)");
+            stmt.execute("insert into result_batch values(-9223372036854775808, -0.25, 1e20, -0.0001, '', '', X'')");
+        }
+        try (PreparedStatement stmt = connection.prepareStatement(
+            "insert into result_batch(id, c, b) values(4, ?, ?)")) {
+            char[] chars = new char[LARGE_SIZE];
+            Arrays.fill(chars, 'x');
+            stmt.setString(1, new String(chars));
+            byte[] bytes = new byte[LARGE_SIZE];
+            Arrays.fill(bytes, (byte)'y');
+            stmt.setBytes(2, bytes);
+            stmt.executeUpdate();
+        }
+    }
+
+    @AfterAll
+    public static void close() throws SQLException {
+        connection.close();
+    }
+
+    @Test
+    public void columnStorage() throws SQLException {
+        String sql = "select id, f, d, n, s, c, b from result_batch order by id nulls first";
+        ResultBatch resultBatch = read(sql, true);
+        Assertions.assertEquals(4, resultBatch.getRowCount());
+        Assertions.assertEquals(7, resultBatch.getColumnCount());
+
+        // 第一行全部为空
+        for (int column = 0; column < resultBatch.getColumnCount(); column++) {
+            Assertions.assertTrue(resultBatch.isNull(0, column));
+            Assertions.assertNull(resultBatch.getValue(0, column));
+            Assertions.assertNull(resultBatch.getString(0, column));
+        }
+
+        // 数字按原始类型保存
+        Assertions.assertEquals(Long.MIN_VALUE, resultBatch.getValue(1, 0));
+        Assertions.assertEquals(-0.25d, resultBatch.getValue(1, 1));
+        Assertions.assertEquals(1e20d, resultBatch.getValue(1, 2));
+        Assertions.assertEquals(new BigDecimal("-0.0001"), resultBatch.getValue(1, 3));
+        Assertions.assertEquals(1L, resultBatch.getValue(2, 0));
+        Assertions.assertEquals(1.5d, resultBatch.getValue(2, 1));
+        Assertions.assertEquals(0.1d, resultBatch.getValue(2, 2));
+        Assertions.assertEquals(new BigDecimal("12345678901234567890.1234"), resultBatch.getValue(2, 3));
+        Assertions.assertEquals("a", resultBatch.getValue(2, 4));
+        Assertions.assertArrayEquals("abc".getBytes(), (byte[])resultBatch.getValue(2, 6));
+
+        // 空字符串和空的二进制不是null
+        Assertions.assertFalse(resultBatch.isNull(1, 4));
+        Assertions.assertEquals("", resultBatch.getString(1, 4));
+        Assertions.assertEquals("", resultBatch.getString(1, 5));
+        Assertions.assertEquals("", resultBatch.getString(1, 6));
+
+        // 展示的字符串和逐个值读取的一致
+        Assertions.assertEquals(readStrings(sql, true), resultBatch.asStringRows());
+        Assertions.assertEquals("100000000000000000000", resultBatch.getString(1, 2));
+        Assertions.assertEquals("0.1", resultBatch.getString(2, 2));
+    }
+
+    @Test
+    public void limitRowSize() throws SQLException {
+        String sql = "select c, b from result_batch where id = 4";
+        ResultBatch limited = read(sql, true);
+        String clob = limited.getString(0, 0);
+        Assertions.assertTrue(clob.startsWith("[ "), "截断的值带有提示");
+        Assertions.assertTrue(clob.endsWith("x".repeat(MAX_RESULT_SIZE)));
+        Assertions.assertFalse(clob.endsWith("x".repeat(MAX_RESULT_SIZE + 1)));
+        Assertions.assertEquals(MAX_RESULT_SIZE, ((byte[])limited.getValue(0, 1)).length);
+        Assertions.assertEquals(readStrings(sql, true), limited.asStringRows());
+
+        ResultBatch full = read(sql, false);
+        Assertions.assertEquals(LARGE_SIZE, full.getString(0, 0).length());
+        Assertions.assertEquals(LARGE_SIZE, ((byte[])full.getValue(0, 1)).length);
+        Assertions.assertEquals(readStrings(sql, false), full.asStringRows());
+    }
+
+    @Test
+    public void fallback() throws SQLException {
+        // 超出long范围的值读取失败时保存为字符串
+        try (Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery("select n from result_batch order by id nulls first")) {
+            ResultBatch resultBatch = new ResultBatch(headers(rs.getMetaData()), new int[] {1},
+                new ColumnReader[] {DefaultColumnReader.LONG}, true);
+            while (rs.next()) {
+                resultBatch.append(rs);
+            }
+            Assertions.assertTrue(resultBatch.isNull(0, 0));
+            Assertions.assertEquals(0L, resultBatch.getValue(1, 0));
+            Assertions.assertEquals("12345678901234567890.1234", resultBatch.getValue(2, 0));
+            Assertions.assertEquals("12345678901234567890.1234", resultBatch.getString(2, 0));
+            Assertions.assertTrue(resultBatch.isNull(3, 0));
+        }
+    }
+
+    @Test
+    public void rowNumber() throws SQLException {
+        ResultBatch resultBatch = read("select id, s from result_batch where id > 0 order by id", true);
+        resultBatch.setRowNumberStart(11);
+        List<List<String>> rows = resultBatch.asStringRows();
+        Assertions.assertEquals(2, rows.size());
+        Assertions.assertEquals(Arrays.asList("11", "1", "a"), rows.get(0));
+        Assertions.assertEquals(Arrays.asList("12", "4", null), rows.get(1));
+    }
+
+    @Test
+    public void stringRows() throws SQLException {
+        ResultBatch resultBatch = read("select id, s from result_batch where id > 0 order by id", true);
+        List<List<String>> rows = resultBatch.asStringRows();
+        Assertions.assertSame(rows, resultBatch.asStringRows());
+        // 每一行只生成一次
+        Assertions.assertSame(rows.get(0), rows.get(0));
+
+        // 读取过的行在设置行号后重新生成
+        resultBatch.setRowNumberStart(21);
+        Assertions.assertEquals(Arrays.asList("21", "1", "a"), rows.get(0));
+
+        // 行和列表都可以修改
+        rows.get(0).set(2, "b");
+        Assertions.assertEquals("b", rows.get(0).get(2));
+        rows.set(1, new ArrayList<>(Arrays.asList("22", "4", "c")));
+        Assertions.assertEquals(Arrays.asList("22", "4", "c"), rows.get(1));
+        rows.add(Arrays.asList("23", "5", "d"));
+        Assertions.assertEquals(3, rows.size());
+        Assertions.assertEquals(Arrays.asList("21", "1", "b"), rows.get(0));
+        Assertions.assertEquals(Arrays.asList("22", "4", "c"), rows.get(1));
+        rows.remove(0);
+        Assertions.assertEquals(Arrays.asList("22", "4", "c"), rows.get(0));
+    }
+
+    @Test
+    public void serialize() throws Exception {
+        ResultBatch resultBatch = read("select id, s from result_batch where id > 0 order by id", true);
+        ExecuteResult executeResult = ExecuteResult.builder()
+            .success(true)
+            .resultBatch(resultBatch)
+            .dataList(resultBatch.asStringRows())
+            .build();
+        // 结果只作为数据列表返回
+        String json = new ObjectMapper().writeValueAsString(executeResult);
+        Assertions.assertFalse(json.contains("resultBatch"), json);
+        Assertions.assertTrue(json.contains("[[\"1\",\"a\"],[\"4\",null]]"), json);
+        json = JSON.toJSONString(executeResult);
+        Assertions.assertFalse(json.contains("resultBatch"), json);
+        Assertions.assertTrue(json.contains("[[\"1\",\"a\"],[\"4\",null]]"), json);
+    }
+
+    @Test
+    public void grow() throws SQLException {
+        ResultBatch resultBatch = read("select x, cast(x as varchar) from system_range(1, 1000)", true);
+        Assertions.assertEquals(1000, resultBatch.getRowCount());
+        for (int row = 0; row < 1000; row++) {
+            Assertions.assertEquals((long)row + 1, resultBatch.getValue(row, 0));
+            Assertions.assertEquals(Integer.toString(row + 1), resultBatch.getString(row, 1));
+        }
+    }
+
+    private static ResultBatch read(String sql, boolean limitRowSize) throws SQLException {
+        try (Statement stmt = connection.createStatement(); ResultSet rs = stmt.executeQuery(sql)) {
+            ResultSetMetaData metaData = rs.getMetaData();
+            int columnCount = metaData.getColumnCount();
+            int[] columnIndexes = new int[columnCount];
+            ColumnReader[] columnReaders = new ColumnReader[columnCount];
+            for (int i = 0; i < columnCount; i++) {
+                columnIndexes[i] = i + 1;
+                columnReaders[i] = JdbcUtils.resolveColumnReader(metaData, i + 1);
+            }
+            ResultBatch resultBatch = new ResultBatch(headers(metaData), columnIndexes, columnReaders, limitRowSize);
+            while (rs.next()) {
+                resultBatch.append(rs);
+            }
+            return resultBatch;
+        }
+    }
+
+    /**
+     * 按行读取为字符串，结果集按列存储之前的方式
+     */
+    private static List<List<String>> readStrings(String sql, boolean limitRowSize) throws SQLException {
+        List<List<String>> rows = new ArrayList<>();
+        try (Statement stmt = connection.createStatement(); ResultSet rs = stmt.executeQuery(sql)) {
+            ResultSetMetaData metaData = rs.getMetaData();
+            int columnCount = metaData.getColumnCount();
+            while (rs.next()) {
+                List<String> row = new ArrayList<>(columnCount);
+                for (int i = 1; i <= columnCount; i++) {
+                    row.add(JdbcUtils.getResultSetValue(rs, i, limitRowSize));
+                }
+                rows.add(row);
+            }
+        }
+        return rows;
+    }
+
+    private static List<Header> headers(ResultSetMetaData metaData) throws SQLException {
+        List<Header> headerList = new ArrayList<>();
+        for (int i = 1; i <= metaData.getColumnCount(); i++) {
+            headerList.add(Header.builder().name(metaData.getColumnName(i)).build());
+        }
+        return headerList;
+    }
+}
@@ -0,0 +1,150 @@
+package ai.chat2db.server.test.spi.sql;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import ai.chat2db.spi.model.ExecuteResult;
+import ai.chat2db.spi.sql.SQLExecutor;
+import com.alibaba.druid.DbType;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * 批量执行更新语句，影响行数不符时回滚，使用内存H2
+ */
+public class SQLExecutorBatchTest {
+
+    @Test
+    public void rollbackOnMismatch() throws SQLException {
+        for (DbType dbType : Arrays.asList(DbType.h2, null)) {
+            try (Connection connection = newConnection("batch_mismatch_" + dbType)) {
+                List<ExecuteResult> results = SQLExecutor.getInstance().executeBatch(List.of(
+                    "update batch_test set name = 'a1' where id = 1",
+                    "update batch_test set name = 'a9' where id = 9",
+                    "update batch_test set name = 'a2' where id = 2"), connection, dbType, 1);
+                Assertions.assertEquals(2, results.size());
+                Assertions.assertTrue(results.get(0).getSuccess());
+                Assertions.assertFalse(results.get(1).getSuccess());
+                Assertions.assertEquals("update batch_test set name = 'a9' where id = 9", results.get(1).getSql());
+                connection.commit();
+                // 整个事务回滚，之后的语句不执行
+                Assertions.assertEquals(List.of("n1", "n2", "n3"), queryNames(connection));
+            }
+        }
+    }
+
+    @Test
+    public void preparedByShape() throws SQLException {
+        List<String> prepared = new ArrayList<>();
+        try (Connection connection = wrap(newConnection("batch_shape"), prepared, false)) {
+            List<ExecuteResult> results = SQLExecutor.getInstance().executeBatch(List.of(
+                "insert into batch_test (id, name) values (4, 'n4')",
+                "insert into batch_test (id, name) values (5, 'it''s')",
+                "insert into batch_test (id, name) values (6, null)",
+                "update batch_test set name = 'a1' where id = 1",
+                "update batch_test set name = 'a2' where id = 2",
+                "delete from batch_test where id = 3"), connection, DbType.h2, 1);
+            Assertions.assertEquals(6, results.size());
+            Assertions.assertTrue(results.stream().allMatch(ExecuteResult::getSuccess));
+            connection.commit();
+            // 相同形状的连续语句使用一个预编译语句
+            Assertions.assertEquals(3, prepared.size());
+            Assertions.assertTrue(prepared.stream().allMatch(sql -> sql.contains("?")));
+            Assertions.assertEquals(Arrays.asList("a1", "a2", "n4", "it's", null), queryNames(connection));
+        }
+    }
+
+    @Test
+    public void unknownAffectedRows() throws SQLException {
+        try (Connection connection = wrap(newConnection("batch_unknown"), new ArrayList<>(), true)) {
+            List<ExecuteResult> results = SQLExecutor.getInstance().executeBatch(List.of(
+                "insert into batch_test (id, name) values (4, 'n4')",
+                "update batch_test set name = concat(name, '+') where id = 1",
+                "update batch_test set name = concat(name, '+') where id = 2"), connection, DbType.h2, 1);
+            Assertions.assertEquals(3, results.size());
+            Assertions.assertTrue(results.stream().allMatch(ExecuteResult::getSuccess));
+            connection.commit();
+            // 只重新执行影响行数未知的批次，每条语句只生效一次
+            Assertions.assertEquals(List.of("n1+", "n2+", "n3", "n4"), queryNames(connection));
+
+            results = SQLExecutor.getInstance().executeBatch(List.of(
+                "insert into batch_test (id, name) values (5, 'n5')",
+                "update batch_test set name = 'a1' where id = 1",
+                "update batch_test set name = 'a9' where id = 9"), connection, DbType.h2, 1);
+            Assertions.assertEquals(3, results.size());
+            Assertions.assertFalse(results.get(2).getSuccess());
+            connection.commit();
+            Assertions.assertEquals(List.of("n1+", "n2+", "n3", "n4"), queryNames(connection));
+        }
+    }
+
+    private static Connection newConnection(String database) throws SQLException {
+        Connection connection = DriverManager.getConnection("jdbc:h2:mem:" + database + ";DB_CLOSE_DELAY=-1");
+        try (Statement stmt = connection.createStatement()) {
+            stmt.execute("create table batch_test(id int primary key, name varchar(32))");
+            stmt.execute("insert into batch_test values (1, 'n1'), (2, 'n2'), (3, 'n3')");
+        }
+        connection.setAutoCommit(false);
+        return connection;
+    }
+
+    private static List<String> queryNames(Connection connection) throws SQLException {
+        List<String> names = new ArrayList<>();
+        try (Statement stmt = connection.createStatement();
+             ResultSet resultSet = stmt.executeQuery("select name from batch_test order by id")) {
+            while (resultSet.next()) {
+                names.add(resultSet.getString(1));
+            }
+        }
+        return names;
+    }
+
+    /**
+     * 记录预编译的sql，noInfo时和不返回每条语句影响行数的驱动一样返回SUCCESS_NO_INFO
+     */
+    private static Connection wrap(Connection connection, List<String> prepared, boolean noInfo) {
+        return (Connection)Proxy.newProxyInstance(SQLExecutorBatchTest.class.getClassLoader(),
+            new Class<?>[] {Connection.class}, (proxy, method, args) -> {
+                Object result = invoke(connection, method, args);
+                if ("prepareStatement".equals(method.getName())) {
+                    prepared.add((String)args[0]);
+                    return wrap((Statement)result, PreparedStatement.class, noInfo);
+                }
+                if ("createStatement".equals(method.getName())) {
+                    return wrap((Statement)result, Statement.class, noInfo);
+                }
+                return result;
+            });
+    }
+
+    private static Statement wrap(Statement statement, Class<? extends Statement> type, boolean noInfo) {
+        return (Statement)Proxy.newProxyInstance(SQLExecutorBatchTest.class.getClassLoader(),
+            new Class<?>[] {type}, (proxy, method, args) -> {
+                Object result = invoke(statement, method, args);
+                if (noInfo && "executeBatch".equals(method.getName())) {
+                    int[] affectedRows = new int[((int[])result).length];
+                    Arrays.fill(affectedRows, Statement.SUCCESS_NO_INFO);
+                    return affectedRows;
+                }
+                return result;
+            });
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+}
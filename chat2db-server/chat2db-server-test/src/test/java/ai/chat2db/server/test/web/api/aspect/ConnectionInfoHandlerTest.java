@@ -0,0 +1,97 @@
+package ai.chat2db.server.test.web.api.aspect;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Proxy;
+import java.util.HashMap;
+import java.util.Map;
+
+import ai.chat2db.server.domain.api.model.DataSource;
+import ai.chat2db.server.domain.api.service.DataSourceAccessBusinessService;
+import ai.chat2db.server.domain.api.service.DataSourceService;
+import ai.chat2db.server.tools.base.wrapper.result.ActionResult;
+import ai.chat2db.server.tools.base.wrapper.result.DataResult;
+import ai.chat2db.server.web.api.aspect.ConnectionInfoHandler;
+import ai.chat2db.spi.config.DriverConfig;
+import ai.chat2db.spi.config.ExecutionProfile;
+import ai.chat2db.spi.sql.Chat2DBContext;
+import ai.chat2db.spi.sql.ConnectInfo;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * 数据源只设置了执行配置时使用插件默认驱动配置的副本
+ */
+public class ConnectionInfoHandlerTest {
+
+    private static final String DB_TYPE = "H2";
+
+    private final Map<Long, DataSource> dataSources = new HashMap<>();
+
+    private ConnectionInfoHandler handler;
+
+    @BeforeEach
+    public void prepare() throws Exception {
+        DataSourceService dataSourceService = (DataSourceService)Proxy.newProxyInstance(
+            getClass().getClassLoader(), new Class<?>[] {DataSourceService.class}, (proxy, method, args) -> {
+                if ("queryById".equals(method.getName())) {
+                    return DataResult.of(dataSources.get((Long)args[0]));
+                }
+                throw new UnsupportedOperationException(method.getName());
+            });
+        DataSourceAccessBusinessService accessService = (DataSourceAccessBusinessService)Proxy.newProxyInstance(
+            getClass().getClassLoader(), new Class<?>[] {DataSourceAccessBusinessService.class},
+            (proxy, method, args) -> ActionResult.isSuccess());
+        handler = new ConnectionInfoHandler();
+        setField("dataSourceService", dataSourceService);
+        setField("dataSourceAccessBusinessService", accessService);
+    }
+
+    @Test
+    public void profilePerDataSource() {
+        ExecutionProfile defaultProfile = Chat2DBContext.getDefaultDriverConfig(DB_TYPE).getExecutionProfile();
+        dataSources.put(1L, newDataSource(1L, 100, 10));
+        dataSources.put(2L, newDataSource(2L, 2000, 60));
+
+        ConnectInfo first = handler.toInfo(1L, null);
+        ConnectInfo second = handler.toInfo(2L, null);
+        Assertions.assertNotSame(first.getDriverConfig(), second.getDriverConfig());
+        Assertions.assertEquals(100, first.getDriverConfig().getExecutionProfile().getFetchSize());
+        Assertions.assertEquals(10, first.getDriverConfig().getExecutionProfile().getQueryTimeout());
+        Assertions.assertEquals(2000, second.getDriverConfig().getExecutionProfile().getFetchSize());
+        Assertions.assertEquals(60, second.getDriverConfig().getExecutionProfile().getQueryTimeout());
+
+        // 插件共享的默认配置不变
+        DriverConfig defaultDriverConfig = Chat2DBContext.getDefaultDriverConfig(DB_TYPE);
+        Assertions.assertSame(defaultProfile, defaultDriverConfig.getExecutionProfile());
+        Assertions.assertEquals(defaultDriverConfig.getJdbcDriver(), first.getDriverConfig().getJdbcDriver());
+        Assertions.assertEquals(defaultDriverConfig.getJdbcDriverClass(),
+            first.getDriverConfig().getJdbcDriverClass());
+
+        // 没有设置执行配置的数据源使用插件的默认配置
+        dataSources.put(3L, newDataSource(3L, null, null));
+        Assertions.assertNull(handler.toInfo(3L, null).getDriverConfig());
+    }
+
+    private void setField(String name, Object value) throws Exception {
+        Field field = ConnectionInfoHandler.class.getDeclaredField(name);
+        field.setAccessible(true);
+        field.set(handler, value);
+    }
+
+    private static DataSource newDataSource(Long id, Integer fetchSize, Integer queryTimeout) {
+        DataSource dataSource = new DataSource();
+        dataSource.setId(id);
+        dataSource.setType(DB_TYPE);
+        dataSource.setUrl("jdbc:h2:mem:profile_" + id);
+        DriverConfig driverConfig = new DriverConfig();
+        if (fetchSize != null || queryTimeout != null) {
+            ExecutionProfile profile = new ExecutionProfile();
+            profile.setFetchSize(fetchSize);
+            profile.setQueryTimeout(queryTimeout);
+            driverConfig.setExecutionProfile(profile);
+        }
+        dataSource.setDriverConfig(driverConfig);
+        return dataSource;
+    }
+}
@@ -7,6 +7,8 @@ import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
 import java.lang.annotation.Target;
 
+import ai.chat2db.spi.enums.WorkloadEnum;
+
 /**
  * @author jipengfei
  * @version : ConnectionInfoAspect.java
@@ -15,4 +17,9 @@ import java.lang.annotation.Target;
 @Target(ElementType.TYPE)
 @Documented
 public @interface ConnectionInfoAspect {
+
+    /**
+     * Kind of work of the requests, limited per datasource
+     */
+    WorkloadEnum workload() default WorkloadEnum.QUERY;
 }
\ No newline at end of file
@@ -18,6 +18,7 @@ import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.annotation.Around;
 import org.aspectj.lang.annotation.Aspect;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.annotation.AnnotationUtils;
 import org.springframework.stereotype.Component;
 
 /**
@@ -58,6 +59,12 @@ public class ConnectionInfoHandler {
                     }
                 }
             }
+            ConnectInfo connectInfo = Chat2DBContext.getConnectInfo();
+            if (connectInfo != null) {
+                ConnectionInfoAspect connectionInfoAspect = AnnotationUtils.findAnnotation(
+                    proceedingJoinPoint.getTarget().getClass(), ConnectionInfoAspect.class);
+                connectInfo.setWorkload(connectionInfoAspect != null ? connectionInfoAspect.workload() : null);
+            }
             return proceedingJoinPoint.proceed();
         } finally {
             Chat2DBContext.removeContext();
@@ -96,6 +103,12 @@ public class ConnectionInfoHandler {
         DriverConfig driverConfig = dataSource.getDriverConfig();
         if (driverConfig != null && driverConfig.notEmpty()) {
             connectInfo.setDriverConfig(driverConfig);
+        } else if (driverConfig != null && driverConfig.getExecutionProfile() != null) {
+            // 插件的默认配置被所有同类型的数据源共享，只修改副本
+            DriverConfig defaultDriverConfig = new DriverConfig(
+                Chat2DBContext.getDefaultDriverConfig(dataSource.getType()));
+            defaultDriverConfig.setExecutionProfile(driverConfig.getExecutionProfile());
+            connectInfo.setDriverConfig(defaultDriverConfig);
         }
         return connectInfo;
     }
@@ -13,6 +13,8 @@ import ai.chat2db.server.domain.api.param.datasource.DataSourceUpdateParam;
 import ai.chat2db.server.domain.api.service.ConsoleService;
 import ai.chat2db.server.domain.api.service.DataSourceService;
 import ai.chat2db.server.tools.common.exception.ConnectionException;
+import ai.chat2db.spi.enums.WorkloadEnum;
+import ai.chat2db.spi.model.ConsoleSessionInfo;
 import ai.chat2db.spi.model.Database;
 import ai.chat2db.spi.ssh.SSHManager;
 import ai.chat2db.server.tools.base.wrapper.result.ActionResult;
@@ -57,7 +59,7 @@ import org.springframework.web.bind.annotation.RestController;
  * @version ConnectionController.java, v 0.1 2022年09月16日 14:07 moji Exp $
  * @date 2022/09/16
  */
-@ConnectionInfoAspect
+@ConnectionInfoAspect(workload = WorkloadEnum.METADATA)
 @RequestMapping("/api/connection")
 @RestController
 @Slf4j
@@ -161,6 +163,28 @@ public class DataSourceController {
         return consoleService.closeConsole(closeParam);
     }
 
+    /**
+     * 查询我的Console会话
+     *
+     * @return
+     */
+    @GetMapping("/console/session/list")
+    public ListResult<ConsoleSessionInfo> consoleSessionList() {
+        return consoleService.querySessions();
+    }
+
+    /**
+     * 结束Console会话, its running statements are cancelled and its connection is closed
+     *
+     * @param request
+     * @return
+     */
+    @PostMapping("/console/session/kill")
+    public ActionResult killConsoleSession(@Valid @RequestBody ConsoleCloseRequest request) {
+        ConsoleCloseParam closeParam = dataSourceWebConverter.request2closeParam(request);
+        return consoleService.closeConsole(closeParam);
+    }
+
     /**
      * 查询我建立的数据库连接
      *
@@ -11,6 +11,9 @@ import ai.chat2db.server.tools.base.wrapper.result.DataResult;
 import ai.chat2db.server.tools.base.wrapper.result.ListResult;
 import ai.chat2db.server.web.api.controller.driver.request.JdbcDriverRequest;
 import ai.chat2db.spi.config.DBConfig;
+import ai.chat2db.spi.model.DriverJarStatus;
+import ai.chat2db.spi.model.DriverLoadStats;
+import ai.chat2db.spi.sql.IDriverManager;
 import ai.chat2db.spi.util.JdbcJarUtils;
 import org.apache.commons.io.FilenameUtils;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -48,7 +51,7 @@ public class JdbcDriverController {
     }
 
     /**
-     * 下载驱动
+     * 下载驱动, 后台下载后立即返回
      *
      * @param dbType
      * @return
@@ -59,6 +62,27 @@ public class JdbcDriverController {
         return jdbcDriverService.download(dbType);
     }
 
+    /**
+     * 驱动下载进度
+     *
+     * @param dbType
+     * @return
+     */
+    @GetMapping("/download/status")
+    public ListResult<DriverJarStatus> downloadStatus(@RequestParam String dbType) {
+        return jdbcDriverService.downloadStatus(dbType);
+    }
+
+    /**
+     * 已加载驱动的加载耗时
+     *
+     * @return
+     */
+    @GetMapping("/load/stats")
+    public ListResult<DriverLoadStats> loadStats() {
+        return ListResult.of(IDriverManager.stats());
+    }
+
     /**
      * 上传驱动
      *
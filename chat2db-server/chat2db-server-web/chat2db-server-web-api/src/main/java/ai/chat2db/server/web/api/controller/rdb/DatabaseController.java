@@ -15,6 +15,7 @@ import ai.chat2db.server.web.api.controller.rdb.converter.RdbWebConverter;
 import ai.chat2db.server.web.api.controller.rdb.request.DatabaseCreateRequest;
 import ai.chat2db.server.web.api.controller.rdb.request.UpdateDatabaseRequest;
 import ai.chat2db.server.web.api.controller.rdb.vo.MetaSchemaVO;
+import ai.chat2db.spi.enums.WorkloadEnum;
 import ai.chat2db.spi.model.Database;
 import ai.chat2db.spi.model.MetaSchema;
 import ai.chat2db.spi.model.Sql;
@@ -31,7 +32,7 @@ import org.springframework.web.bind.annotation.RestController;
 /**
  * database controller
  */
-@ConnectionInfoAspect
+@ConnectionInfoAspect(workload = WorkloadEnum.METADATA)
 @RequestMapping("/api/rdb/database")
 @RestController
 public class DatabaseController {
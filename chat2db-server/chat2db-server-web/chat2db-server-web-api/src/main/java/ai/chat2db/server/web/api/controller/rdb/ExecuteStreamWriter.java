@@ -0,0 +1,93 @@
+package ai.chat2db.server.web.api.controller.rdb;
+
+import java.io.PrintWriter;
+import java.util.List;
+
+import ai.chat2db.server.domain.api.service.DlExecuteListener;
+import ai.chat2db.server.web.api.controller.rdb.converter.RdbWebConverter;
+import ai.chat2db.server.web.api.controller.rdb.vo.ExecuteStreamVO;
+import ai.chat2db.spi.model.ExecuteResult;
+import cn.hutool.core.date.TimeInterval;
+import com.alibaba.fastjson2.JSON;
+import com.google.common.collect.Lists;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Writes the execute result as newline delimited json: a header line, row chunks and an end line per statement.
+ * The first row of each statement is flushed on its own so that it reaches the client as early as possible.
+ */
+@Slf4j
+public class ExecuteStreamWriter implements DlExecuteListener {
+
+    /**
+     * Rows per line
+     */
+    private static final int CHUNK_SIZE = 200;
+
+    private final PrintWriter writer;
+
+    private final RdbWebConverter rdbWebConverter;
+
+    private final TimeInterval timeInterval = new TimeInterval();
+
+    private List<List<String>> chunk = Lists.newArrayListWithExpectedSize(CHUNK_SIZE);
+
+    private boolean firstRow;
+
+    public ExecuteStreamWriter(PrintWriter writer, RdbWebConverter rdbWebConverter) {
+        this.writer = writer;
+        this.rdbWebConverter = rdbWebConverter;
+    }
+
+    @Override
+    public void onHeader(ExecuteResult executeResult) {
+        firstRow = true;
+        write(ExecuteStreamVO.builder()
+            .type(ExecuteStreamVO.TYPE_HEADER)
+            .result(rdbWebConverter.dto2vo(executeResult))
+            .build());
+    }
+
+    @Override
+    public void onRow(List<String> row) {
+        chunk.add(row);
+        if (firstRow) {
+            firstRow = false;
+            log.info("stream first row after {}ms", timeInterval.interval());
+            flushRows();
+        } else if (chunk.size() >= CHUNK_SIZE) {
+            flushRows();
+        }
+    }
+
+    @Override
+    public void onComplete(ExecuteResult executeResult) {
+        flushRows();
+        write(ExecuteStreamVO.builder()
+            .type(ExecuteStreamVO.TYPE_END)
+            .result(rdbWebConverter.dto2vo(executeResult))
+            .build());
+        timeInterval.restart();
+    }
+
+    private void flushRows() {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        write(ExecuteStreamVO.builder()
+            .type(ExecuteStreamVO.TYPE_ROWS)
+            .dataList(chunk)
+            .build());
+        chunk = Lists.newArrayListWithExpectedSize(CHUNK_SIZE);
+    }
+
+    private void write(ExecuteStreamVO executeStreamVO) {
+        writer.write(JSON.toJSONString(executeStreamVO));
+        writer.write('\n');
+        writer.flush();
+        // Stop reading the result set once the client is gone
+        if (writer.checkError()) {
+            throw new RuntimeException("execute stream closed by client");
+        }
+    }
+}
@@ -7,6 +7,7 @@ import ai.chat2db.server.tools.base.wrapper.result.web.WebPageResult;
 import ai.chat2db.server.web.api.aspect.ConnectionInfoAspect;
 import ai.chat2db.server.web.api.controller.rdb.request.ProcedureDetailRequest;
 import ai.chat2db.server.web.api.controller.rdb.request.ProcedurePageRequest;
+import ai.chat2db.spi.enums.WorkloadEnum;
 import ai.chat2db.spi.model.Procedure;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -14,7 +15,7 @@ import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
-@ConnectionInfoAspect
+@ConnectionInfoAspect(workload = WorkloadEnum.METADATA)
 @RequestMapping("/api/rdb/procedure")
 @RestController
 public class ProcedureController {
@@ -73,7 +73,7 @@ public class RdbDdlController extends EmbeddingController {
         PageResult<Table> tableDTOPageResult = tableService.pageQuery(queryParam, tableSelector);
         List<TableVO> tableVOS = rdbWebConverter.tableDto2vo(tableDTOPageResult.getData());
 
-        ConnectInfo connectInfo = Chat2DBContext.getConnectInfo();
+        ConnectInfo connectInfo = Chat2DBContext.getConnectInfo().copy();
         singleThreadExecutor.submit(() -> {
             try {
                 Chat2DBContext.putContext(connectInfo);
@@ -1,21 +1,25 @@
 package ai.chat2db.server.web.api.controller.rdb;
 
+import java.io.IOException;
 import java.sql.Connection;
 import java.util.List;
 
 import ai.chat2db.server.domain.api.param.DlExecuteParam;
 import ai.chat2db.server.domain.api.param.UpdateSelectResultParam;
 import ai.chat2db.server.domain.api.service.DlTemplateService;
+import ai.chat2db.server.tools.base.wrapper.result.ActionResult;
 import ai.chat2db.server.tools.base.wrapper.result.DataResult;
 import ai.chat2db.server.tools.base.wrapper.result.ListResult;
 import ai.chat2db.server.web.api.aspect.ConnectionInfoAspect;
 import ai.chat2db.server.web.api.controller.rdb.converter.RdbWebConverter;
 import ai.chat2db.server.web.api.controller.rdb.request.DdlCountRequest;
+import ai.chat2db.server.web.api.controller.rdb.request.DmlCancelRequest;
 import ai.chat2db.server.web.api.controller.rdb.request.DmlRequest;
 import ai.chat2db.server.web.api.controller.rdb.request.SelectResultUpdateRequest;
 import ai.chat2db.server.web.api.controller.rdb.vo.ExecuteResultVO;
 import ai.chat2db.spi.model.ExecuteResult;
 import ai.chat2db.spi.sql.Chat2DBContext;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.util.CollectionUtils;
 import org.springframework.web.bind.annotation.RequestBody;
@@ -55,6 +59,21 @@ public class RdbDmlController {
         return ListResult.of(resultVOS);
     }
 
+    /**
+     * 增删改查等数据运维, the result is written as newline delimited json while the rows are being read
+     *
+     * @param request
+     * @param response
+     * @throws IOException
+     */
+    @RequestMapping(value = "/execute_stream", method = {RequestMethod.POST, RequestMethod.PUT})
+    public void executeStream(@RequestBody DmlRequest request, HttpServletResponse response) throws IOException {
+        DlExecuteParam param = rdbWebConverter.request2param(request);
+        response.setCharacterEncoding("utf-8");
+        response.setContentType("application/x-ndjson");
+        dlTemplateService.executeStream(param, new ExecuteStreamWriter(response.getWriter(), rdbWebConverter));
+    }
+
 
     /**
      * update 查询结果
@@ -122,6 +141,17 @@ public class RdbDmlController {
         }
     }
 
+    /**
+     * 取消正在执行的sql
+     *
+     * @param request
+     * @return
+     */
+    @RequestMapping(value = "/cancel", method = {RequestMethod.POST, RequestMethod.PUT})
+    public ActionResult cancel(@RequestBody DmlCancelRequest request) {
+        return dlTemplateService.cancel(rdbWebConverter.request2param(request));
+    }
+
     /**
      * 统计行的数量
      *
@@ -133,4 +163,16 @@ public class RdbDmlController {
         return dlTemplateService.count(rdbWebConverter.request2param(request));
     }
 
+    /**
+     * 估算行的数量, returns at once from the statistics of the database. The data is null if the sql cannot be
+     * estimated, the exact count is then queried through /count, which can be stopped through /cancel.
+     *
+     * @param request
+     * @return
+     */
+    @RequestMapping(value = "/count/estimate", method = {RequestMethod.POST, RequestMethod.PUT})
+    public DataResult<Long> estimateCount(@RequestBody DdlCountRequest request) {
+        return dlTemplateService.estimateCount(rdbWebConverter.request2param(request));
+    }
+
 }
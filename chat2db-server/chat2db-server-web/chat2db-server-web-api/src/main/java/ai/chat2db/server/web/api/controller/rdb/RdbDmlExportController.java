@@ -32,6 +32,7 @@ import ai.chat2db.server.tools.common.util.EasyCollectionUtils;
 import ai.chat2db.server.tools.common.util.EasyEnumUtils;
 import ai.chat2db.server.web.api.aspect.ConnectionInfoAspect;
 import ai.chat2db.server.web.api.controller.rdb.request.DataExportRequest;
+import ai.chat2db.spi.enums.WorkloadEnum;
 import ai.chat2db.spi.sql.Chat2DBContext;
 import ai.chat2db.spi.sql.SQLExecutor;
 import ai.chat2db.spi.util.JdbcUtils;
@@ -56,7 +57,7 @@ import org.springframework.web.bind.annotation.RequestMapping;
  *
  * @author Jiaju Zhuang
  */
-@ConnectionInfoAspect
+@ConnectionInfoAspect(workload = WorkloadEnum.EXPORT)
 @RequestMapping("/api/rdb/dml")
 @Controller
 @Slf4j
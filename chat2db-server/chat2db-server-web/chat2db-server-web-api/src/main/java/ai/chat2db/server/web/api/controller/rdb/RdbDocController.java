@@ -14,7 +14,10 @@ import ai.chat2db.server.web.api.controller.rdb.doc.conf.ExportOptions;
 import ai.chat2db.server.web.api.controller.rdb.factory.ExportServiceFactory;
 import ai.chat2db.server.web.api.controller.rdb.request.DataExportRequest;
 import ai.chat2db.server.web.api.controller.rdb.vo.TableVO;
+import ai.chat2db.spi.enums.WorkloadEnum;
 import ai.chat2db.spi.model.Table;
+import ai.chat2db.spi.model.TableColumn;
+import ai.chat2db.spi.model.TableIndex;
 import cn.hutool.core.date.DatePattern;
 import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
@@ -29,14 +32,16 @@ import java.lang.reflect.Constructor;
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 /**
  * RdbDocController
  *
  * @author lzy
  **/
-@ConnectionInfoAspect
+@ConnectionInfoAspect(workload = WorkloadEnum.EXPORT)
 @RequestMapping("/api/rdb/doc")
 @Controller
 @Slf4j
@@ -70,10 +75,11 @@ public class RdbDocController {
         PageResult<Table> tableDTOPageResult = tableService.pageQuery(queryParam, tableSelector);
         List<TableVO> tableVOS = rdbWebConverter.tableDto2vo(tableDTOPageResult.getData());
         TableQueryParam param = rdbWebConverter.tableRequest2param(request);
+        Map<String, List<TableColumn>> columnMap = tableService.queryColumnsOfSchema(param);
+        Map<String, List<TableIndex>> indexMap = tableService.queryIndexesOfSchema(param);
         for (TableVO tableVO: tableVOS) {
-            param.setTableName(tableVO.getName());
-            tableVO.setColumnList(tableService.queryColumns(param));
-            tableVO.setIndexList(tableService.queryIndexes(param));
+            tableVO.setColumnList(columnMap.getOrDefault(tableVO.getName(), new ArrayList<>()));
+            tableVO.setIndexList(indexMap.getOrDefault(tableVO.getName(), new ArrayList<>()));
         }
         Class<?> targetClass = ExportServiceFactory.get(exportType.getCode());
         Constructor<?> constructor = targetClass.getDeclaredConstructor();
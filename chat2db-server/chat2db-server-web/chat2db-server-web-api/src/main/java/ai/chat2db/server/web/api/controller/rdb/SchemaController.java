@@ -16,6 +16,7 @@ import ai.chat2db.server.web.api.controller.rdb.converter.RdbWebConverter;
 import ai.chat2db.server.web.api.controller.rdb.request.SchemaCreateRequest;
 import ai.chat2db.server.web.api.controller.rdb.request.UpdateSchemaRequest;
 import ai.chat2db.server.web.api.controller.rdb.vo.SchemaVO;
+import ai.chat2db.spi.enums.WorkloadEnum;
 import ai.chat2db.spi.model.Schema;
 import ai.chat2db.spi.model.Sql;
 import jakarta.validation.Valid;
@@ -29,7 +30,7 @@ import org.springframework.web.bind.annotation.RestController;
 /**
  * shema controller
  */
-@ConnectionInfoAspect
+@ConnectionInfoAspect(workload = WorkloadEnum.METADATA)
 @RequestMapping("/api/rdb/schema")
 @RestController
 public class SchemaController {
@@ -58,6 +58,14 @@ public abstract class RdbWebConverter {
      */
     public abstract DlCountParam request2param(DdlCountRequest request);
 
+    /**
+     * 参数转换
+     *
+     * @param request
+     * @return
+     */
+    public abstract DlCancelParam request2param(DmlCancelRequest request);
+
     /**
      * 参数转换
      *
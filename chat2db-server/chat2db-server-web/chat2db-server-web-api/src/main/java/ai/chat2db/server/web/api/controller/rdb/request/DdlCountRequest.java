@@ -26,4 +26,9 @@ public class DdlCountRequest extends DataSourceBaseRequest implements DataSource
      */
     @NotNull
     private Long consoleId;
+
+    /**
+     * Id given by the client to this execution, used to cancel it
+     */
+    private String executionId;
 }
@@ -0,0 +1,29 @@
+package ai.chat2db.server.web.api.controller.rdb.request;
+
+import jakarta.validation.constraints.NotNull;
+
+import lombok.Data;
+
+/**
+ * 取消执行
+ */
+@Data
+public class DmlCancelRequest {
+
+    /**
+     * 数据源id
+     */
+    @NotNull
+    private Long dataSourceId;
+
+    /**
+     * 控制台id
+     */
+    @NotNull
+    private Long consoleId;
+
+    /**
+     * Id of the execution to cancel, all executions of the console are cancelled if empty
+     */
+    private String executionId;
+}
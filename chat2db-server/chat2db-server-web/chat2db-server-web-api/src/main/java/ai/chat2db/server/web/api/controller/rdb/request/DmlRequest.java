@@ -44,4 +44,32 @@ public class DmlRequest extends DataSourceBaseRequest implements DataSourceConso
      * 只有select语句才有
      */
     private Boolean pageSizeAll;
+
+    /**
+     * Keep the query open on the server and read the next pages from it
+     * 只有select语句才有
+     */
+    private Boolean useCursor;
+
+    /**
+     * Cursor returned by the previous page
+     */
+    private String cursorId;
+
+    /**
+     * The sql browses the rows of a table opened from the table list, its pages are read by the key of the table
+     * and the page token instead of by offset
+     * 只有select语句才有
+     */
+    private Boolean useKeyset;
+
+    /**
+     * Page token returned by the previous page
+     */
+    private String pageToken;
+
+    /**
+     * Id given by the client to this execution, used to cancel it
+     */
+    private String executionId;
 }
@@ -97,4 +97,14 @@ public class ExecuteResultVO {
      * 表名
      */
     private String tableName;
+
+    /**
+     * Cursor to read the next page from, only when the query was executed with a cursor and has more rows
+     */
+    private String cursorId;
+
+    /**
+     * Token to read the next page by the key of the table, only when the query was paged by key and has more rows
+     */
+    private String pageToken;
 }
@@ -0,0 +1,40 @@
+package ai.chat2db.server.web.api.controller.rdb.vo;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.experimental.SuperBuilder;
+
+/**
+ * One line of the streamed execute response
+ */
+@Data
+@SuperBuilder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ExecuteStreamVO {
+
+    public static final String TYPE_HEADER = "header";
+
+    public static final String TYPE_ROWS = "rows";
+
+    public static final String TYPE_END = "end";
+
+    /**
+     * header, rows or end
+     */
+    private String type;
+
+    /**
+     * Statement metadata, only header and end have
+     */
+    private ExecuteResultVO result;
+
+    /**
+     * 数据的列表
+     * Only rows have
+     */
+    private List<List<String>> dataList;
+}
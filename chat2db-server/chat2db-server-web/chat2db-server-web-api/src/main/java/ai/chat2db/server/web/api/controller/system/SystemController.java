@@ -10,6 +10,7 @@ import ai.chat2db.server.domain.api.service.ConfigService;
 import ai.chat2db.server.domain.core.cache.CacheManage;
 import ai.chat2db.server.tools.base.wrapper.result.ActionResult;
 import ai.chat2db.server.tools.base.wrapper.result.DataResult;
+import ai.chat2db.server.tools.base.wrapper.result.ListResult;
 import ai.chat2db.server.tools.common.config.Chat2dbProperties;
 import ai.chat2db.server.tools.common.enums.ModeEnum;
 import ai.chat2db.server.tools.common.model.ConfigJson;
@@ -20,6 +21,14 @@ import ai.chat2db.server.web.api.controller.system.util.SystemUtils;
 import ai.chat2db.server.web.api.controller.system.vo.AppVersionVO;
 import ai.chat2db.server.web.api.controller.system.vo.SystemVO;
 import ai.chat2db.server.web.api.util.ApplicationContextUtil;
+import ai.chat2db.spi.model.BulkheadStats;
+import ai.chat2db.spi.model.ConnectionHealthStats;
+import ai.chat2db.spi.sql.BulkheadManager;
+import ai.chat2db.spi.sql.ConnectionPoolManager;
+import ai.chat2db.spi.sql.ConnectionValidator;
+import ai.chat2db.spi.sql.ConsoleSessionManager;
+import ai.chat2db.spi.sql.CursorManager;
+import ai.chat2db.spi.sql.DriverJarManager;
 import ai.chat2db.spi.ssh.SSHManager;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
@@ -124,6 +133,26 @@ public class SystemController {
         return DataResult.of(chat2dbProperties.getVersion());
     }
 
+    /**
+     * Running, waiting and rejected requests of each datasource and kind of work
+     *
+     * @return
+     */
+    @GetMapping("/bulkhead")
+    public ListResult<BulkheadStats> bulkhead() {
+        return ListResult.of(BulkheadManager.stats());
+    }
+
+    /**
+     * Validations, keepalive pings and evictions of the long lived connections of each datasource
+     *
+     * @return
+     */
+    @GetMapping("/connection/health")
+    public ListResult<ConnectionHealthStats> connectionHealth() {
+        return ListResult.of(ConnectionValidator.stats());
+    }
+
     /**
      * 退出服务
      */
@@ -138,6 +167,10 @@ public class SystemController {
                 throw new RuntimeException(e);
             }
             log.info("开始退出Spring应用");
+            CursorManager.close();
+            ConsoleSessionManager.close();
+            DriverJarManager.close();
+            ConnectionPoolManager.close();
             SSHManager.close();
             try {
                 SpringApplication.exit(applicationContext);
@@ -4,6 +4,8 @@ package ai.chat2db.server.web.api.controller.system.util;
 import ai.chat2db.server.tools.base.wrapper.result.DataResult;
 import ai.chat2db.server.tools.common.util.ConfigUtils;
 import ai.chat2db.server.web.api.controller.system.vo.AppVersionVO;
+import ai.chat2db.spi.sql.ConnectionPoolManager;
+import ai.chat2db.spi.sql.CursorManager;
 import ai.chat2db.spi.ssh.SSHManager;
 import cn.hutool.core.io.FileUtil;
 import cn.hutool.core.util.ZipUtil;
@@ -39,6 +41,8 @@ public class SystemUtils {
             }
             // 直接系统退出
             log.info("开始退出系统应用");
+            CursorManager.close();
+            ConnectionPoolManager.close();
             SSHManager.close();
             try {
                 System.exit(0);
@@ -0,0 +1,22 @@
+package ai.chat2db.spi;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Reads one column of the current row of a result set. A reader is resolved once per column from the result set
+ * metadata, see {@link MetaData#getColumnReader(String, int)} for dialect specific types.
+ */
+public interface ColumnReader {
+
+    /**
+     * Read the display string of the column.
+     *
+     * @param rs
+     * @param index
+     * @param limitSize whether large values are cut off
+     * @return null if the value is null
+     * @throws SQLException
+     */
+    String read(ResultSet rs, int index, boolean limitSize) throws SQLException;
+}
@@ -108,4 +108,33 @@ public interface DBManage {
      */
     void dropProcedure(Connection connection, @NotEmpty String databaseName, String schemaName,
         @NotEmpty String triggerName);
-}
\ No newline at end of file
+
+    /**
+     * 获取连接在数据库端的会话ID，用于从另一个连接取消正在执行的sql
+     *
+     * @param connection
+     * @return 数据库没有会话ID时返回null
+     */
+    default String getSessionId(Connection connection) {
+        return null;
+    }
+
+    /**
+     * 取消正在执行的sql，在{@link java.sql.Statement#cancel()}无法停止时调用
+     *
+     * @param connection 同一个数据库的另一个连接
+     * @param sessionId  正在执行的sql的会话ID，可能为null
+     * @param sql        正在执行的sql
+     */
+    default void killQuery(Connection connection, String sessionId, String sql) {
+    }
+
+    /**
+     * 校验连接是否可用的sql，借出长连接前和保活时使用
+     *
+     * @return 返回null时使用{@link Connection#isValid(int)}
+     */
+    default String getValidationQuery() {
+        return null;
+    }
+}
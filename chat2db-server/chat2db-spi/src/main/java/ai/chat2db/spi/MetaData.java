@@ -2,6 +2,7 @@ package ai.chat2db.spi;
 
 import java.sql.Connection;
 import java.util.List;
+import java.util.Map;
 
 import ai.chat2db.spi.model.*;
 import jakarta.validation.constraints.NotEmpty;
@@ -206,4 +207,58 @@ public interface MetaData {
      */
     String getMetaDataName(String ...names);
 
-}
\ No newline at end of file
+    /**
+     * Get the reader of a result set column of a dialect specific type.
+     *
+     * @param columnTypeName
+     * @param columnType     {@link java.sql.Types} or a vendor type code
+     * @return null to use the reader of the jdbc type
+     */
+    ColumnReader getColumnReader(String columnTypeName, int columnType);
+
+    /**
+     * Estimate the row count of a table from the statistics of the database, without scanning the table.
+     *
+     * @param connection
+     * @param databaseName
+     * @param schemaName
+     * @param tableName
+     * @return null if the database keeps no statistics of the table
+     */
+    Long estimateCount(Connection connection, String databaseName, String schemaName, @NotEmpty String tableName);
+
+    /**
+     * Get the last DDL time of each table of a schema, used to find the tables changed since the last refresh of the
+     * table cache.
+     *
+     * @param connection
+     * @param databaseName
+     * @param schemaName
+     * @return table name to last DDL time in milliseconds, null if the database does not keep it
+     */
+    Map<String, Long> tableDdlTimes(Connection connection, String databaseName, String schemaName);
+
+    /**
+     * Querying all columns of all tables under a schema, with one query instead of one per table.
+     *
+     * @param connection
+     * @param databaseName
+     * @param schemaName
+     * @return table name to the columns of the table, in the order of the columns
+     */
+    Map<String, List<TableColumn>> columnsOfSchema(Connection connection, @NotEmpty String databaseName,
+                                                   String schemaName);
+
+    /**
+     * Querying all indexes of all tables under a schema, with one query instead of one per table where the database
+     * allows it.
+     *
+     * @param connection
+     * @param databaseName
+     * @param schemaName
+     * @return table name to the indexes of the table, tables without indexes may be missing
+     */
+    Map<String, List<TableIndex>> indexesOfSchema(Connection connection, @NotEmpty String databaseName,
+                                                  String schemaName);
+
+}
@@ -0,0 +1,76 @@
+package ai.chat2db.spi.config;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+import ai.chat2db.spi.enums.WorkloadEnum;
+import lombok.Data;
+
+/**
+ * Concurrency limits of the work run against one datasource, can be overridden by system properties such as
+ * {@code -Dchat2db.bulkhead.query.maxConcurrent=16}.
+ */
+@Data
+public class BulkheadConfig {
+
+    private static final String PREFIX = "chat2db.bulkhead.";
+
+    private static final BulkheadConfig INSTANCE = load();
+
+    /**
+     * Whether to limit the work per datasource
+     */
+    private boolean enabled;
+
+    /**
+     * Maximum time to wait for a running request of the same kind to finish, in milliseconds
+     */
+    private long waitTimeout;
+
+    /**
+     * Limits of each kind of work
+     */
+    private Map<WorkloadEnum, Limit> limits;
+
+    public static BulkheadConfig getInstance() {
+        return INSTANCE;
+    }
+
+    public Limit getLimit(WorkloadEnum workload) {
+        return limits.get(workload);
+    }
+
+    private static BulkheadConfig load() {
+        BulkheadConfig config = new BulkheadConfig();
+        config.setEnabled(Boolean.parseBoolean(System.getProperty(PREFIX + "enabled", "true")));
+        config.setWaitTimeout(Long.getLong(PREFIX + "waitTimeout", 5 * 1000L));
+        Map<WorkloadEnum, Limit> limits = new EnumMap<>(WorkloadEnum.class);
+        limits.put(WorkloadEnum.QUERY, loadLimit(WorkloadEnum.QUERY, 8, 16));
+        limits.put(WorkloadEnum.METADATA, loadLimit(WorkloadEnum.METADATA, 4, 16));
+        limits.put(WorkloadEnum.EXPORT, loadLimit(WorkloadEnum.EXPORT, 2, 2));
+        config.setLimits(limits);
+        return config;
+    }
+
+    private static Limit loadLimit(WorkloadEnum workload, int maxConcurrent, int maxWaiting) {
+        String prefix = PREFIX + workload.getCode().toLowerCase() + ".";
+        Limit limit = new Limit();
+        limit.setMaxConcurrent(Integer.getInteger(prefix + "maxConcurrent", maxConcurrent));
+        limit.setMaxWaiting(Integer.getInteger(prefix + "maxWaiting", maxWaiting));
+        return limit;
+    }
+
+    @Data
+    public static class Limit {
+
+        /**
+         * Requests of this kind running at the same time on one datasource
+         */
+        private int maxConcurrent;
+
+        /**
+         * Requests of this kind waiting for a running one to finish, more are rejected at once
+         */
+        private int maxWaiting;
+    }
+}
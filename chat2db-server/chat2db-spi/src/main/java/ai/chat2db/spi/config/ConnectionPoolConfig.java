@@ -0,0 +1,100 @@
+package ai.chat2db.spi.config;
+
+import lombok.Data;
+
+/**
+ * Connection pool configuration, can be overridden by system properties such as
+ * {@code -Dchat2db.pool.maxSize=16}. The pools of the metadata lane are configured by the same properties with the
+ * {@code chat2db.pool.metadata.} prefix.
+ */
+@Data
+public class ConnectionPoolConfig {
+
+    private static final String PREFIX = "chat2db.pool.";
+
+    private static final String METADATA_PREFIX = PREFIX + "metadata.";
+
+    private static final ConnectionPoolConfig INSTANCE = load(PREFIX, 8, 30 * 1000L, 3);
+
+    private static final ConnectionPoolConfig METADATA_INSTANCE = load(METADATA_PREFIX, 2, 5 * 1000L, 2);
+
+    /**
+     * Whether to use the pool, false means a physical connection per request
+     */
+    private boolean enabled;
+
+    /**
+     * Maximum number of physical connections of one pool key
+     */
+    private int maxSize;
+
+    /**
+     * Idle connections kept by the evictor
+     */
+    private int minIdle;
+
+    /**
+     * Idle connections older than this are closed, in milliseconds
+     */
+    private long idleTimeout;
+
+    /**
+     * Connections older than this are closed when returned, in milliseconds
+     */
+    private long maxLifetime;
+
+    /**
+     * Maximum time to wait for a free connection, in milliseconds
+     */
+    private long borrowTimeout;
+
+    /**
+     * Idle connections older than this are validated before being lent, in milliseconds
+     */
+    private long validateAfterIdle;
+
+    /**
+     * Timeout of the validation query or {@link java.sql.Connection#isValid(int)}, in seconds
+     */
+    private int validationTimeout;
+
+    /**
+     * Idle connections not validated for this long are pinged by the evictor so that firewalls and server idle
+     * timeouts do not drop them silently, 0 disables it, in milliseconds
+     */
+    private long keepaliveInterval;
+
+    /**
+     * Interval of the idle evictor, in milliseconds
+     */
+    private long evictInterval;
+
+    public static ConnectionPoolConfig getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Configuration of the small pools that metadata is read from, with short timeouts so that browsing fails fast
+     * instead of hanging.
+     *
+     * @return
+     */
+    public static ConnectionPoolConfig getMetadataInstance() {
+        return METADATA_INSTANCE;
+    }
+
+    private static ConnectionPoolConfig load(String prefix, int maxSize, long borrowTimeout, int validationTimeout) {
+        ConnectionPoolConfig config = new ConnectionPoolConfig();
+        config.setEnabled(Boolean.parseBoolean(System.getProperty(prefix + "enabled", "true")));
+        config.setMaxSize(Integer.getInteger(prefix + "maxSize", maxSize));
+        config.setMinIdle(Integer.getInteger(prefix + "minIdle", 1));
+        config.setIdleTimeout(Long.getLong(prefix + "idleTimeout", 10 * 60 * 1000L));
+        config.setMaxLifetime(Long.getLong(prefix + "maxLifetime", 30 * 60 * 1000L));
+        config.setBorrowTimeout(Long.getLong(prefix + "borrowTimeout", borrowTimeout));
+        config.setValidateAfterIdle(Long.getLong(prefix + "validateAfterIdle", 30 * 1000L));
+        config.setValidationTimeout(Integer.getInteger(prefix + "validationTimeout", validationTimeout));
+        config.setKeepaliveInterval(Long.getLong(prefix + "keepaliveInterval", 2 * 60 * 1000L));
+        config.setEvictInterval(Long.getLong(prefix + "evictInterval", 30 * 1000L));
+        return config;
+    }
+}
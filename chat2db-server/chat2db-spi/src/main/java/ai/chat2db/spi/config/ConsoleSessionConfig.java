@@ -0,0 +1,67 @@
+package ai.chat2db.spi.config;
+
+import lombok.Data;
+
+/**
+ * Console session configuration, can be overridden by system properties such as
+ * {@code -Dchat2db.console.idleTimeout=600000}.
+ */
+@Data
+public class ConsoleSessionConfig {
+
+    private static final String PREFIX = "chat2db.console.";
+
+    private static final ConsoleSessionConfig INSTANCE = load();
+
+    /**
+     * Whether a console keeps its connection between executions, false means a pooled connection per request
+     */
+    private boolean enabled;
+
+    /**
+     * Sessions not used for this long are closed, in milliseconds
+     */
+    private long idleTimeout;
+
+    /**
+     * Open sessions per user, the least recently used idle one is closed when exceeded
+     */
+    private int maxPerUser;
+
+    /**
+     * Sessions idle for longer than this are validated before being used, in milliseconds
+     */
+    private long validateAfterIdle;
+
+    /**
+     * Timeout of the validation query or {@link java.sql.Connection#isValid(int)}, in seconds
+     */
+    private int validationTimeout;
+
+    /**
+     * Idle connections not validated for this long are pinged by the evictor so that firewalls and server idle
+     * timeouts do not drop them silently, 0 disables it, in milliseconds
+     */
+    private long keepaliveInterval;
+
+    /**
+     * Interval of the idle evictor, in milliseconds
+     */
+    private long evictInterval;
+
+    public static ConsoleSessionConfig getInstance() {
+        return INSTANCE;
+    }
+
+    private static ConsoleSessionConfig load() {
+        ConsoleSessionConfig config = new ConsoleSessionConfig();
+        config.setEnabled(Boolean.parseBoolean(System.getProperty(PREFIX + "enabled", "true")));
+        config.setIdleTimeout(Long.getLong(PREFIX + "idleTimeout", 30 * 60 * 1000L));
+        config.setMaxPerUser(Integer.getInteger(PREFIX + "maxPerUser", 10));
+        config.setValidateAfterIdle(Long.getLong(PREFIX + "validateAfterIdle", 30 * 1000L));
+        config.setValidationTimeout(Integer.getInteger(PREFIX + "validationTimeout", 3));
+        config.setKeepaliveInterval(Long.getLong(PREFIX + "keepaliveInterval", 2 * 60 * 1000L));
+        config.setEvictInterval(Long.getLong(PREFIX + "evictInterval", 60 * 1000L));
+        return config;
+    }
+}
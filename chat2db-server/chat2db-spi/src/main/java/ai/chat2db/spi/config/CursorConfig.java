@@ -0,0 +1,49 @@
+package ai.chat2db.spi.config;
+
+import lombok.Data;
+
+/**
+ * Server side cursor configuration, can be overridden by system properties such as
+ * {@code -Dchat2db.cursor.maxPerUser=10}.
+ */
+@Data
+public class CursorConfig {
+
+    private static final String PREFIX = "chat2db.cursor.";
+
+    private static final CursorConfig INSTANCE = load();
+
+    /**
+     * Cursors not fetched for this long are closed, in milliseconds
+     */
+    private long idleTimeout;
+
+    /**
+     * Open cursors per user, the least recently used one is closed when exceeded
+     */
+    private int maxPerUser;
+
+    /**
+     * Open cursors per datasource, the least recently used one is closed when exceeded. Each cursor holds a
+     * connection and a query permit of the datasource, so this is kept below the pool size and the query bulkhead
+     */
+    private int maxPerDataSource;
+
+    /**
+     * Interval of the idle evictor, in milliseconds
+     */
+    private long evictInterval;
+
+    public static CursorConfig getInstance() {
+        return INSTANCE;
+    }
+
+    private static CursorConfig load() {
+        CursorConfig config = new CursorConfig();
+        config.setIdleTimeout(Long.getLong(PREFIX + "idleTimeout", 5 * 60 * 1000L));
+        config.setMaxPerUser(Integer.getInteger(PREFIX + "maxPerUser", 5));
+        config.setMaxPerDataSource(Integer.getInteger(PREFIX + "maxPerDataSource", 4));
+        config.setEvictInterval(Long.getLong(PREFIX + "evictInterval", 30 * 1000L));
+        return config;
+    }
+}
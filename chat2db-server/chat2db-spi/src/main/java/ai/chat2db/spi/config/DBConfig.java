@@ -42,4 +42,9 @@ public class DBConfig {
      * 修改表结构
      */
     private String simpleAlterTable;
+
+    /**
+     * Default execution profile of the driver family
+     */
+    private ExecutionProfile executionProfile;
 }
\ No newline at end of file
@@ -1,9 +1,11 @@
 
 package ai.chat2db.spi.config;
 
+import java.util.ArrayList;
 import java.util.List;
 
 import lombok.Data;
+import lombok.NoArgsConstructor;
 import org.apache.commons.lang3.StringUtils;
 
 /**
@@ -11,6 +13,7 @@ import org.apache.commons.lang3.StringUtils;
  * @version : DriverConfig.java
  */
 @Data
+@NoArgsConstructor
 public class DriverConfig {
     /**
      * jdbcDriver
@@ -40,6 +43,25 @@ public class DriverConfig {
      */
     private boolean custom;
 
+    /**
+     * Execution profile of the datasource, the fields left empty fall back to the default of the plugin
+     */
+    private ExecutionProfile executionProfile;
+
+    /**
+     * 复制驱动配置，插件的默认配置是共享的，修改前需要复制
+     *
+     * @param driverConfig
+     */
+    public DriverConfig(DriverConfig driverConfig) {
+        this.jdbcDriver = driverConfig.getJdbcDriver();
+        this.jdbcDriverClass = driverConfig.getJdbcDriverClass();
+        this.downloadJdbcDriverUrls = driverConfig.getDownloadJdbcDriverUrls() == null ? null
+            : new ArrayList<>(driverConfig.getDownloadJdbcDriverUrls());
+        this.dbType = driverConfig.getDbType();
+        this.custom = driverConfig.isCustom();
+        this.executionProfile = driverConfig.getExecutionProfile();
+    }
 
     public boolean notEmpty() {
        return StringUtils.isNotBlank(getJdbcDriver()) && StringUtils.isNotBlank(
@@ -0,0 +1,81 @@
+package ai.chat2db.spi.config;
+
+import ai.chat2db.spi.util.JdbcJarUtils;
+import lombok.Data;
+
+/**
+ * JDBC driver jar download configuration, can be overridden by system properties such as
+ * {@code -Dchat2db.driver.mirror=/opt/chat2db/jdbc-lib}.
+ */
+@Data
+public class DriverJarConfig {
+
+    private static final String PREFIX = "chat2db.driver.";
+
+    private static final DriverJarConfig INSTANCE = load();
+
+    /**
+     * Local directory or offline bundle holding driver jars, jars found here are copied instead of downloaded
+     */
+    private String mirror;
+
+    /**
+     * Never download, only the mirror directory is used
+     */
+    private boolean offline;
+
+    /**
+     * Base url the driver jars are downloaded from
+     */
+    private String downloadUrl;
+
+    /**
+     * Jars downloaded at the same time
+     */
+    private int threads;
+
+    /**
+     * How long a request waits for a jar being downloaded before it is told the driver is not ready, in
+     * milliseconds
+     */
+    private long waitTimeout;
+
+    /**
+     * Reject jars whose sha256 checksum can not be found, otherwise the checksum is only verified when present
+     */
+    private boolean requireChecksum;
+
+    /**
+     * File in the {@code sha256sum} format with the known digests of the driver jars. A jar listed there must match
+     * its digest, whatever checksum is published next to the jar
+     */
+    private String checksums;
+
+    /**
+     * Jars loaded once by a parent class loader shared by all drivers, separated by commas
+     */
+    private String sharedJars;
+
+    /**
+     * Load the drivers of the saved data sources in the background after the start
+     */
+    private boolean warmUp;
+
+    public static DriverJarConfig getInstance() {
+        return INSTANCE;
+    }
+
+    private static DriverJarConfig load() {
+        DriverJarConfig config = new DriverJarConfig();
+        config.setMirror(System.getProperty(PREFIX + "mirror"));
+        config.setOffline(Boolean.getBoolean(PREFIX + "offline"));
+        config.setDownloadUrl(System.getProperty(PREFIX + "downloadUrl", JdbcJarUtils.DOWNLOAD_URL_HOST));
+        config.setThreads(Integer.getInteger(PREFIX + "threads", 4));
+        config.setWaitTimeout(Long.getLong(PREFIX + "waitTimeout", 3 * 1000L));
+        config.setRequireChecksum(Boolean.getBoolean(PREFIX + "requireChecksum"));
+        config.setChecksums(System.getProperty(PREFIX + "checksums"));
+        config.setSharedJars(System.getProperty(PREFIX + "sharedJars"));
+        config.setWarmUp(Boolean.parseBoolean(System.getProperty(PREFIX + "warmUp", "true")));
+        return config;
+    }
+}
@@ -0,0 +1,92 @@
+package ai.chat2db.spi.config;
+
+import ai.chat2db.server.tools.base.constant.EasyToolsConstant;
+import ai.chat2db.spi.enums.StreamingModeEnum;
+import lombok.Data;
+
+/**
+ * How statements are executed on a datasource. Plugins provide the default of their driver family in
+ * {@link DBConfig}, a datasource can override single fields in its {@link DriverConfig}.
+ */
+@Data
+public class ExecutionProfile {
+
+    /**
+     * Rows fetched per round trip
+     */
+    private Integer fetchSize;
+
+    /**
+     * How large result sets are streamed
+     *
+     * @see StreamingModeEnum
+     */
+    private String streamingMode;
+
+    /**
+     * Query timeout in seconds, 0 means no timeout
+     */
+    private Integer queryTimeout;
+
+    /**
+     * Timeout of exports in seconds, they read whole tables and are not bound by the query timeout. 0 means no
+     * timeout
+     */
+    private Integer exportTimeout;
+
+    /**
+     * Upper bound of the rows read by one statement, 0 means unlimited
+     */
+    private Integer maxRows;
+
+    public static ExecutionProfile defaultProfile() {
+        ExecutionProfile profile = new ExecutionProfile();
+        profile.setFetchSize(EasyToolsConstant.MAX_PAGE_SIZE);
+        profile.setStreamingMode(StreamingModeEnum.FETCH_SIZE.getCode());
+        profile.setQueryTimeout(30);
+        profile.setExportTimeout(0);
+        profile.setMaxRows(0);
+        return profile;
+    }
+
+    public static ExecutionProfile of(StreamingModeEnum streamingMode) {
+        ExecutionProfile profile = defaultProfile();
+        profile.setStreamingMode(streamingMode.getCode());
+        return profile;
+    }
+
+    /**
+     * The fields set in the override replace those of the base, neither of them is modified.
+     *
+     * @param base
+     * @param override
+     * @return
+     */
+    public static ExecutionProfile merge(ExecutionProfile base, ExecutionProfile override) {
+        ExecutionProfile profile = defaultProfile();
+        apply(profile, base);
+        apply(profile, override);
+        return profile;
+    }
+
+    private static void apply(ExecutionProfile target, ExecutionProfile source) {
+        if (source == null) {
+            return;
+        }
+        if (source.getFetchSize() != null) {
+            target.setFetchSize(source.getFetchSize());
+        }
+        if (source.getStreamingMode() != null) {
+            target.setStreamingMode(source.getStreamingMode());
+        }
+        if (source.getQueryTimeout() != null) {
+            target.setQueryTimeout(source.getQueryTimeout());
+        }
+        if (source.getExportTimeout() != null) {
+            target.setExportTimeout(source.getExportTimeout());
+        }
+        if (source.getMaxRows() != null) {
+            target.setMaxRows(source.getMaxRows());
+        }
+    }
+}
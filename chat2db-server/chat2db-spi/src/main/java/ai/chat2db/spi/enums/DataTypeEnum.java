@@ -1,6 +1,7 @@
 package ai.chat2db.spi.enums;
 
 import ai.chat2db.server.tools.base.enums.BaseEnum;
+import ai.chat2db.server.tools.common.util.EasyEnumUtils;
 import lombok.Getter;
 
 /**
@@ -98,12 +99,11 @@ public enum DataTypeEnum implements BaseEnum<String> {
     }
 
     public static DataTypeEnum getByCode(String code) {
-        for (DataTypeEnum value : DataTypeEnum.values()) {
-            if (value.getCode().equals(code)) {
-                return value;
-            }
+        if (code == null) {
+            return DataTypeEnum.UNKNOWN;
         }
-        return DataTypeEnum.UNKNOWN;
+        DataTypeEnum dataTypeEnum = EasyEnumUtils.getEnum(DataTypeEnum.class, code);
+        return dataTypeEnum == null ? DataTypeEnum.UNKNOWN : dataTypeEnum;
     }
 
     public String getSqlValue(String value) {
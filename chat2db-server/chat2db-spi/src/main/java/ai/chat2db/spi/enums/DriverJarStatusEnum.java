@@ -0,0 +1,43 @@
+package ai.chat2db.spi.enums;
+
+import ai.chat2db.server.tools.base.enums.BaseEnum;
+import lombok.Getter;
+
+/**
+ * Download state of a JDBC driver jar
+ */
+@Getter
+public enum DriverJarStatusEnum implements BaseEnum<String> {
+    /**
+     * Not in the driver directory and no download started
+     */
+    MISSING("未下载"),
+
+    /**
+     * Being downloaded or copied from the mirror
+     */
+    DOWNLOADING("下载中"),
+
+    /**
+     * Verified and moved into the driver directory
+     */
+    READY("已就绪"),
+
+    /**
+     * The last download failed, the next request starts a new one
+     */
+    FAILED("下载失败"),
+
+    ;
+
+    final String description;
+
+    DriverJarStatusEnum(String description) {
+        this.description = description;
+    }
+
+    @Override
+    public String getCode() {
+        return this.name();
+    }
+}
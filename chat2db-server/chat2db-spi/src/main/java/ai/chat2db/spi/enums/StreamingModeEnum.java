@@ -0,0 +1,38 @@
+package ai.chat2db.spi.enums;
+
+import ai.chat2db.server.tools.base.enums.BaseEnum;
+import lombok.Getter;
+
+/**
+ * How a driver is made to read a large result set without buffering all of it
+ */
+@Getter
+public enum StreamingModeEnum implements BaseEnum<String> {
+    /**
+     * The driver honours the fetch size as it is
+     */
+    FETCH_SIZE("按fetchSize分批读取"),
+
+    /**
+     * MySQL Connector/J only streams with a fetch size of Integer.MIN_VALUE
+     */
+    ROW_STREAMING("逐行流式读取"),
+
+    /**
+     * PostgreSQL compatible drivers only use a cursor when auto commit is off
+     */
+    CURSOR_IN_TRANSACTION("关闭自动提交后使用游标读取"),
+
+    ;
+
+    final String description;
+
+    StreamingModeEnum(String description) {
+        this.description = description;
+    }
+
+    @Override
+    public String getCode() {
+        return this.name();
+    }
+}
@@ -0,0 +1,38 @@
+package ai.chat2db.spi.enums;
+
+import ai.chat2db.server.tools.base.enums.BaseEnum;
+import lombok.Getter;
+
+/**
+ * Kinds of work run against a datasource, each kind has its own concurrency limit per datasource
+ */
+@Getter
+public enum WorkloadEnum implements BaseEnum<String> {
+    /**
+     * Statements run from a console or a result grid
+     */
+    QUERY("交互查询"),
+
+    /**
+     * Reading databases, schemas, tables and other objects
+     */
+    METADATA("元数据"),
+
+    /**
+     * Exporting results and documents
+     */
+    EXPORT("导出"),
+
+    ;
+
+    final String description;
+
+    WorkloadEnum(String description) {
+        this.description = description;
+    }
+
+    @Override
+    public String getCode() {
+        return this.name();
+    }
+}
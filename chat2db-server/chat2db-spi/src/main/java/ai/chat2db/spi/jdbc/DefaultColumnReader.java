@@ -0,0 +1,118 @@
+package ai.chat2db.spi.jdbc;
+
+import java.math.BigDecimal;
+import java.sql.Blob;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeFormatterBuilder;
+import java.time.temporal.ChronoField;
+
+import ai.chat2db.spi.ColumnReader;
+import ai.chat2db.spi.util.JdbcUtils;
+
+/**
+ * Readers of the standard jdbc types, each using the getter that fits the column directly.
+ */
+public enum DefaultColumnReader implements ColumnReader {
+
+    /**
+     * TINYINT SMALLINT INTEGER BIGINT that fit in a long
+     */
+    LONG {
+        @Override
+        public String read(ResultSet rs, int index, boolean limitSize) throws SQLException {
+            long value = rs.getLong(index);
+            return rs.wasNull() ? null : Long.toString(value);
+        }
+    },
+
+    /**
+     * REAL and FLOAT returned as java.lang.Float
+     */
+    FLOAT {
+        @Override
+        public String read(ResultSet rs, int index, boolean limitSize) throws SQLException {
+            float value = rs.getFloat(index);
+            return rs.wasNull() ? null : BigDecimal.valueOf(value).toPlainString();
+        }
+    },
+
+    /**
+     * FLOAT and DOUBLE returned as java.lang.Double
+     */
+    DOUBLE {
+        @Override
+        public String read(ResultSet rs, int index, boolean limitSize) throws SQLException {
+            double value = rs.getDouble(index);
+            return rs.wasNull() ? null : BigDecimal.valueOf(value).toPlainString();
+        }
+    },
+
+    DECIMAL {
+        @Override
+        public String read(ResultSet rs, int index, boolean limitSize) throws SQLException {
+            BigDecimal value = rs.getBigDecimal(index);
+            return value == null ? null : value.toPlainString();
+        }
+    },
+
+    /**
+     * Character and date time types
+     */
+    STRING {
+        @Override
+        public String read(ResultSet rs, int index, boolean limitSize) throws SQLException {
+            return rs.getString(index);
+        }
+    },
+
+    /**
+     * CLOB and binary types, read as string and cut off at 256KB if limitSize
+     */
+    LARGE_STRING {
+        @Override
+        public String read(ResultSet rs, int index, boolean limitSize) throws SQLException {
+            return JdbcUtils.largeString(rs, index, limitSize);
+        }
+    },
+
+    BLOB {
+        @Override
+        public String read(ResultSet rs, int index, boolean limitSize) throws SQLException {
+            Blob blob = rs.getBlob(index);
+            return blob == null ? null : JdbcUtils.blobString(JdbcUtils.readBlob(blob, limitSize));
+        }
+    },
+
+    /**
+     * Timestamps with a time zone offset whose driver object has no readable string, such as Oracle TIMESTAMPTZ
+     * and SQL Server datetimeoffset
+     */
+    OFFSET_DATE_TIME {
+        @Override
+        public String read(ResultSet rs, int index, boolean limitSize) throws SQLException {
+            OffsetDateTime value = rs.getObject(index, OffsetDateTime.class);
+            return value == null ? null : OFFSET_DATE_TIME_FORMATTER.format(value);
+        }
+    },
+
+    /**
+     * Any other type, the value is converted according to the class of {@link ResultSet#getObject(int)}
+     */
+    GENERIC {
+        @Override
+        public String read(ResultSet rs, int index, boolean limitSize) throws SQLException {
+            return JdbcUtils.getResultSetValue(rs, index, limitSize);
+        }
+    },
+
+    ;
+
+    private static final DateTimeFormatter OFFSET_DATE_TIME_FORMATTER = new DateTimeFormatterBuilder()
+        .appendPattern("yyyy-MM-dd HH:mm:ss")
+        .appendFraction(ChronoField.NANO_OF_SECOND, 0, 9, true)
+        .appendPattern(" xxx")
+        .toFormatter();
+}
@@ -2,6 +2,7 @@ package ai.chat2db.spi.jdbc;
 
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.util.Map;
 
 import ai.chat2db.server.tools.base.excption.BusinessException;
 import ai.chat2db.server.tools.common.exception.ConnectionException;
@@ -11,7 +12,6 @@ import ai.chat2db.spi.sql.ConnectInfo;
 import ai.chat2db.spi.sql.IDriverManager;
 import ai.chat2db.spi.sql.SQLExecutor;
 import ai.chat2db.spi.ssh.SSHManager;
-import com.jcraft.jsch.JSchException;
 import com.jcraft.jsch.Session;
 import org.apache.commons.lang3.StringUtils;
 
@@ -46,7 +46,7 @@ public class DefaultDBManage implements DBManage {
         }
         try {
             connection = IDriverManager.getConnection(url, connectInfo.getUser(), connectInfo.getPassword(),
-                connectInfo.getDriverConfig(), connectInfo.getExtendMap());
+                connectInfo.getDriverConfig(), getDriverProperties(connectInfo));
 
         } catch (Exception e1) {
             if (connection != null) {
@@ -56,14 +56,7 @@ public class DefaultDBManage implements DBManage {
                 }
             }
             if (session != null) {
-                try {
-                    session.delPortForwardingL(Integer.parseInt(ssh.getLocalPort()));
-                } catch (JSchException e) {
-                }
-                try {
-                    session.disconnect();
-                } catch (Exception e) {
-                }
+                SSHManager.release(ssh);
             }
             throw new BusinessException("connection.error", null, e1);
         }
@@ -75,10 +68,20 @@ public class DefaultDBManage implements DBManage {
         return connection;
     }
 
+    /**
+     * Properties handed to the driver when a connection is opened, the extend info of the datasource by default.
+     *
+     * @param connectInfo
+     * @return
+     */
+    protected Map<String, Object> getDriverProperties(ConnectInfo connectInfo) {
+        return connectInfo.getExtendMap();
+    }
+
     private Session getSession(SSHInfo ssh) {
         Session session = null;
         if (ssh != null && ssh.isUse()) {
-            session = SSHManager.getSSHSession(ssh);
+            session = SSHManager.acquire(ssh);
         }
         return session;
     }
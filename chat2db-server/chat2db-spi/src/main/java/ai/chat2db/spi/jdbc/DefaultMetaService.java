@@ -2,10 +2,12 @@ package ai.chat2db.spi.jdbc;
 
 import java.sql.Connection;
 import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
 
+import ai.chat2db.spi.ColumnReader;
 import ai.chat2db.spi.MetaData;
 import ai.chat2db.spi.SqlBuilder;
 import ai.chat2db.spi.model.*;
@@ -113,6 +115,40 @@ public class DefaultMetaService implements MetaData {
         return Arrays.stream(names).filter(name -> StringUtils.isNotBlank(name)).collect(Collectors.joining("."));
     }
 
+    @Override
+    public ColumnReader getColumnReader(String columnTypeName, int columnType) {
+        return null;
+    }
+
+    @Override
+    public Long estimateCount(Connection connection, String databaseName, String schemaName, String tableName) {
+        return null;
+    }
+
+    @Override
+    public Map<String, Long> tableDdlTimes(Connection connection, String databaseName, String schemaName) {
+        return null;
+    }
+
+    @Override
+    public Map<String, List<TableColumn>> columnsOfSchema(Connection connection, String databaseName,
+                                                          String schemaName) {
+        return SQLExecutor.getInstance().columnsOfSchema(connection, StringUtils.isEmpty(databaseName) ? null : databaseName, StringUtils.isEmpty(schemaName) ? null : schemaName);
+    }
+
+    /**
+     * {@link java.sql.DatabaseMetaData#getIndexInfo} needs a table name, so this queries the indexes table by table.
+     */
+    @Override
+    public Map<String, List<TableIndex>> indexesOfSchema(Connection connection, String databaseName,
+                                                         String schemaName) {
+        Map<String, List<TableIndex>> map = new LinkedHashMap<>();
+        for (Table table : tables(connection, databaseName, schemaName, null)) {
+            map.put(table.getName(), indexes(connection, databaseName, schemaName, table.getName()));
+        }
+        return map;
+    }
+
 
 
 }
\ No newline at end of file
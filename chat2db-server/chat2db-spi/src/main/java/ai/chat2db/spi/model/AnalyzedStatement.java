@@ -0,0 +1,46 @@
+package ai.chat2db.spi.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * The result of parsing one sql statement, produced once and shared by the execution pipeline.
+ * Instances are cached and shared between requests, so they are immutable.
+ */
+@Getter
+@Builder
+@ToString
+@EqualsAndHashCode
+@AllArgsConstructor
+public class AnalyzedStatement {
+
+    /**
+     * The sql to execute
+     */
+    private final String sql;
+
+    /**
+     * sql 类型
+     *
+     * @see ai.chat2db.spi.enums.SqlTypeEnum
+     */
+    private final String sqlType;
+
+    /**
+     * Whether the sql already contains LIMIT/OFFSET/TOP/FETCH or ROWNUM
+     */
+    private final boolean pageLimit;
+
+    /**
+     * Whether the result can be edited, only single-table queries without alias or aggregation can
+     */
+    private final boolean canEdit;
+
+    /**
+     * Table name with catalog and schema, only editable queries have
+     */
+    private final String tableName;
+}
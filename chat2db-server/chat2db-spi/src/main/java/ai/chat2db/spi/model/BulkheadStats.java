@@ -0,0 +1,58 @@
+package ai.chat2db.spi.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.experimental.SuperBuilder;
+
+/**
+ * Counters of the work of one kind on one datasource
+ */
+@Data
+@SuperBuilder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkheadStats {
+
+    /**
+     * 数据连接ID
+     */
+    private Long dataSourceId;
+
+    /**
+     * Kind of work
+     *
+     * @see ai.chat2db.spi.enums.WorkloadEnum
+     */
+    private String workload;
+
+    /**
+     * Requests allowed to run at the same time
+     */
+    private Integer maxConcurrent;
+
+    /**
+     * Requests running now
+     */
+    private Integer active;
+
+    /**
+     * Requests waiting now
+     */
+    private Integer waiting;
+
+    /**
+     * Requests let through since the start
+     */
+    private Long accepted;
+
+    /**
+     * Requests rejected because too many were waiting
+     */
+    private Long rejected;
+
+    /**
+     * Requests rejected because they waited too long
+     */
+    private Long timedOut;
+}
@@ -0,0 +1,51 @@
+package ai.chat2db.spi.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.experimental.SuperBuilder;
+
+/**
+ * Validation and eviction counters of the long lived connections of one datasource
+ */
+@Data
+@SuperBuilder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ConnectionHealthStats {
+
+    /**
+     * 数据连接ID
+     */
+    private Long dataSourceId;
+
+    /**
+     * Connections validated before being lent
+     */
+    private Long validations;
+
+    /**
+     * Connections found dead before being lent and replaced by a new one
+     */
+    private Long replaced;
+
+    /**
+     * Keepalive pings of idle connections
+     */
+    private Long keepalives;
+
+    /**
+     * Idle connections found dead by a keepalive ping and closed
+     */
+    private Long keepaliveFailures;
+
+    /**
+     * Connections closed because they were idle for too long
+     */
+    private Long idleEvicted;
+
+    /**
+     * Connections closed because they reached their maximum lifetime
+     */
+    private Long expired;
+}
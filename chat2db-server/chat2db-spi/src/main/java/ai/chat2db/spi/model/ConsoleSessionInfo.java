@@ -0,0 +1,51 @@
+package ai.chat2db.spi.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.experimental.SuperBuilder;
+
+/**
+ * A connection kept open for a console
+ */
+@Data
+@SuperBuilder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ConsoleSessionInfo {
+
+    /**
+     * 数据连接ID
+     */
+    private Long dataSourceId;
+
+    /**
+     * 控制台id
+     */
+    private Long consoleId;
+
+    /**
+     * Database the connection is using
+     */
+    private String databaseName;
+
+    /**
+     * Schema the connection is using
+     */
+    private String schemaName;
+
+    /**
+     * Whether a request is using the connection now
+     */
+    private Boolean busy;
+
+    /**
+     * Time the session was opened, in milliseconds
+     */
+    private Long createTime;
+
+    /**
+     * Time the session was last used, in milliseconds
+     */
+    private Long lastUsedTime;
+}
@@ -23,4 +23,19 @@ public class DriverEntry {
 
     private Driver driver;
 
+    /**
+     * Time spent creating the class loader and the driver, in milliseconds
+     */
+    private Long loadTime;
+
+    /**
+     * When the driver was loaded, in milliseconds since the epoch
+     */
+    private Long loadedAt;
+
+    /**
+     * Loaded in the background after the start instead of by a request
+     */
+    private Boolean warmUp;
+
 }
\ No newline at end of file
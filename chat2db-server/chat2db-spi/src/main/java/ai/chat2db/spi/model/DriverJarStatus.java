@@ -0,0 +1,41 @@
+package ai.chat2db.spi.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.experimental.SuperBuilder;
+
+/**
+ * Progress of a JDBC driver jar download
+ */
+@Data
+@SuperBuilder
+@NoArgsConstructor
+@AllArgsConstructor
+public class DriverJarStatus {
+
+    /**
+     * Jar file name
+     */
+    private String jarName;
+
+    /**
+     * @see ai.chat2db.spi.enums.DriverJarStatusEnum
+     */
+    private String status;
+
+    /**
+     * Bytes written so far
+     */
+    private Long downloadedBytes;
+
+    /**
+     * Size of the jar, -1 when the server does not tell
+     */
+    private Long totalBytes;
+
+    /**
+     * Cause of the failure
+     */
+    private String message;
+}
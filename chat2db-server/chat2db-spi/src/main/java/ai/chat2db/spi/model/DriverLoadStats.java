@@ -0,0 +1,46 @@
+package ai.chat2db.spi.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.experimental.SuperBuilder;
+
+/**
+ * Load time of a JDBC driver
+ */
+@Data
+@SuperBuilder
+@NoArgsConstructor
+@AllArgsConstructor
+public class DriverLoadStats {
+
+    /**
+     * 数据库类型
+     */
+    private String dbType;
+
+    /**
+     * Driver jars, separated by commas
+     */
+    private String jdbcDriver;
+
+    /**
+     * Driver class
+     */
+    private String jdbcDriverClass;
+
+    /**
+     * Time spent creating the class loader and the driver, in milliseconds
+     */
+    private Long loadTime;
+
+    /**
+     * When the driver was loaded, in milliseconds since the epoch
+     */
+    private Long loadedAt;
+
+    /**
+     * Loaded in the background after the start instead of by a request
+     */
+    private Boolean warmUp;
+}
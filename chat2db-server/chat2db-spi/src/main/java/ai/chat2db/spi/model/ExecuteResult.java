@@ -2,6 +2,8 @@ package ai.chat2db.spi.model;
 
 import java.util.List;
 
+import com.alibaba.fastjson2.annotation.JSONField;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -59,6 +61,14 @@ public class ExecuteResult {
      */
     private List<List<String>> dataList;
 
+    /**
+     * The typed rows the data list is built from, only when the rows were read into memory. Not serialized, the
+     * rows are sent as the data list
+     */
+    @JsonIgnore
+    @JSONField(serialize = false, deserialize = false)
+    private transient ResultBatch resultBatch;
+
     /**
      * sql 类型
      *
@@ -105,4 +115,14 @@ public class ExecuteResult {
      * 表名
      */
     private String tableName;
+
+    /**
+     * Cursor to read the next page from, only when the query was executed with a cursor and has more rows
+     */
+    private String cursorId;
+
+    /**
+     * Token to read the next page by the key of the table, only when the query was paged by key and has more rows
+     */
+    private String pageToken;
 }
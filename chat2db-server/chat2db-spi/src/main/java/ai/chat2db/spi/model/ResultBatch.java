@@ -0,0 +1,455 @@
+package ai.chat2db.spi.model;
+
+import java.math.BigDecimal;
+import java.sql.Blob;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.RandomAccess;
+
+import ai.chat2db.spi.ColumnReader;
+import ai.chat2db.spi.jdbc.DefaultColumnReader;
+import ai.chat2db.spi.util.JdbcUtils;
+
+/**
+ * Rows of a query result stored column by column. The storage of each column is chosen once from its
+ * {@link ColumnReader}, numbers are kept as primitives or decimals instead of strings. The display string of a row is
+ * only built when the row is first read through {@link #asStringRows()}, usually while the response is serialized.
+ */
+public class ResultBatch {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final List<Header> headerList;
+
+    /**
+     * Jdbc index of each column
+     */
+    private final int[] columnIndexes;
+
+    private final ColumnVector[] columns;
+
+    private final boolean limitRowSize;
+
+    private int rowCount;
+
+    /**
+     * Row number of the first row, a row number column is put in front of each row if greater than 0
+     */
+    private int rowNumberStart;
+
+    private StringRows stringRows;
+
+    /**
+     * @param headerList    header of the columns that are read
+     * @param columnIndexes jdbc index of the columns that are read, in the order of the header
+     * @param columnReaders reader of the columns that are read, the storage of each column follows its reader
+     * @param limitRowSize  whether large values are cut off
+     */
+    public ResultBatch(List<Header> headerList, int[] columnIndexes, ColumnReader[] columnReaders,
+        boolean limitRowSize) {
+        this.headerList = headerList;
+        this.columnIndexes = columnIndexes;
+        this.limitRowSize = limitRowSize;
+        this.columns = new ColumnVector[columnIndexes.length];
+        for (int i = 0; i < columnIndexes.length; i++) {
+            columns[i] = ColumnVector.of(columnReaders[i]);
+        }
+    }
+
+    /**
+     * Append the current row of the result set.
+     *
+     * @param rs
+     * @throws SQLException
+     */
+    public void append(ResultSet rs) throws SQLException {
+        for (int i = 0; i < columns.length; i++) {
+            columns[i].add(rs, columnIndexes[i], limitRowSize);
+        }
+        rowCount++;
+    }
+
+    public List<Header> getHeaderList() {
+        return headerList;
+    }
+
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    public int getColumnCount() {
+        return columns.length;
+    }
+
+    /**
+     * Set before the rows are modified, the rows already built are dropped and built again with the row number.
+     *
+     * @param rowNumberStart
+     */
+    public void setRowNumberStart(int rowNumberStart) {
+        this.rowNumberStart = rowNumberStart;
+        if (stringRows != null && stringRows.rows != null) {
+            Arrays.fill(stringRows.rows, null);
+        }
+    }
+
+    public boolean isNull(int row, int column) {
+        return columns[column].isNull(row);
+    }
+
+    /**
+     * The typed value, Long, Double, BigDecimal, byte[] or String depending on the column.
+     *
+     * @param row
+     * @param column
+     * @return
+     */
+    public Object getValue(int row, int column) {
+        return columns[column].getValue(row);
+    }
+
+    public String getString(int row, int column) {
+        return columns[column].getString(row);
+    }
+
+    /**
+     * The rows as display strings. Each row is built on its first access and kept, the rows and the list can be
+     * modified like an {@link java.util.ArrayList}.
+     *
+     * @return
+     */
+    public List<List<String>> asStringRows() {
+        if (stringRows == null) {
+            stringRows = new StringRows();
+        }
+        return stringRows;
+    }
+
+    private List<String> buildRow(int row) {
+        int rowNumber = rowNumberStart > 0 ? rowNumberStart + row : 0;
+        List<String> values = new ArrayList<>(rowNumber > 0 ? columns.length + 1 : columns.length);
+        if (rowNumber > 0) {
+            values.add(Integer.toString(rowNumber));
+        }
+        for (int column = 0; column < columns.length; column++) {
+            values.add(getString(row, column));
+        }
+        return values;
+    }
+
+    /**
+     * Rows built on their first access. A row that is set replaces the built one, adding or removing rows builds the
+     * remaining rows into a plain list first.
+     */
+    private class StringRows extends AbstractList<List<String>> implements RandomAccess {
+
+        private List<String>[] rows;
+
+        private List<List<String>> materialized;
+
+        @SuppressWarnings("unchecked")
+        private StringRows() {
+            this.rows = new List[rowCount];
+        }
+
+        @Override
+        public List<String> get(int index) {
+            if (materialized != null) {
+                return materialized.get(index);
+            }
+            Objects.checkIndex(index, rows.length);
+            List<String> row = rows[index];
+            if (row == null) {
+                row = buildRow(index);
+                rows[index] = row;
+            }
+            return row;
+        }
+
+        @Override
+        public List<String> set(int index, List<String> element) {
+            if (materialized != null) {
+                return materialized.set(index, element);
+            }
+            List<String> previous = get(index);
+            rows[index] = element;
+            return previous;
+        }
+
+        @Override
+        public void add(int index, List<String> element) {
+            materialize().add(index, element);
+        }
+
+        @Override
+        public List<String> remove(int index) {
+            return materialize().remove(index);
+        }
+
+        @Override
+        public int size() {
+            return materialized != null ? materialized.size() : rows.length;
+        }
+
+        private List<List<String>> materialize() {
+            if (materialized == null) {
+                List<List<String>> list = new ArrayList<>(rows.length + 1);
+                for (int i = 0; i < rows.length; i++) {
+                    list.add(get(i));
+                }
+                materialized = list;
+                rows = null;
+            }
+            modCount++;
+            return materialized;
+        }
+    }
+
+    /**
+     * The values of one column. Values the typed getter of the column fails on, such as an unsigned value out of the
+     * range of long, are kept as display strings.
+     */
+    private abstract static class ColumnVector {
+
+        private final BitSet nulls = new BitSet();
+
+        private String[] fallback;
+
+        private int capacity = INITIAL_CAPACITY;
+
+        private int size;
+
+        static ColumnVector of(ColumnReader columnReader) {
+            if (columnReader == DefaultColumnReader.LONG) {
+                return new LongVector();
+            } else if (columnReader == DefaultColumnReader.FLOAT) {
+                return new DoubleVector(true);
+            } else if (columnReader == DefaultColumnReader.DOUBLE) {
+                return new DoubleVector(false);
+            } else if (columnReader == DefaultColumnReader.DECIMAL) {
+                return new DecimalVector();
+            } else if (columnReader == DefaultColumnReader.BLOB) {
+                return new BytesVector();
+            }
+            return new StringVector(columnReader);
+        }
+
+        void add(ResultSet rs, int index, boolean limitRowSize) throws SQLException {
+            if (size == capacity) {
+                capacity = capacity + (capacity >> 1);
+                grow(capacity);
+                if (fallback != null) {
+                    fallback = Arrays.copyOf(fallback, capacity);
+                }
+            }
+            try {
+                if (!read(size, rs, index, limitRowSize)) {
+                    nulls.set(size);
+                }
+            } catch (SQLException e) {
+                String value = JdbcUtils.getResultSetValue(rs, index, limitRowSize);
+                if (value == null) {
+                    nulls.set(size);
+                } else {
+                    if (fallback == null) {
+                        fallback = new String[capacity];
+                    }
+                    fallback[size] = value;
+                }
+            }
+            size++;
+        }
+
+        boolean isNull(int row) {
+            return nulls.get(row);
+        }
+
+        Object getValue(int row) {
+            if (nulls.get(row)) {
+                return null;
+            }
+            if (fallback != null && fallback[row] != null) {
+                return fallback[row];
+            }
+            return get(row);
+        }
+
+        String getString(int row) {
+            if (nulls.get(row)) {
+                return null;
+            }
+            if (fallback != null && fallback[row] != null) {
+                return fallback[row];
+            }
+            return format(row);
+        }
+
+        /**
+         * Read the value of the current row into the given row of this column.
+         *
+         * @return false if the value is null
+         */
+        abstract boolean read(int row, ResultSet rs, int index, boolean limitRowSize) throws SQLException;
+
+        abstract Object get(int row);
+
+        abstract String format(int row);
+
+        abstract void grow(int capacity);
+    }
+
+    private static class LongVector extends ColumnVector {
+
+        private long[] values = new long[INITIAL_CAPACITY];
+
+        @Override
+        boolean read(int row, ResultSet rs, int index, boolean limitRowSize) throws SQLException {
+            values[row] = rs.getLong(index);
+            return !rs.wasNull();
+        }
+
+        @Override
+        Object get(int row) {
+            return values[row];
+        }
+
+        @Override
+        String format(int row) {
+            return Long.toString(values[row]);
+        }
+
+        @Override
+        void grow(int capacity) {
+            values = Arrays.copyOf(values, capacity);
+        }
+    }
+
+    private static class DoubleVector extends ColumnVector {
+
+        /**
+         * Read with getFloat, the float is widened so that it is shown as before
+         */
+        private final boolean single;
+
+        private double[] values = new double[INITIAL_CAPACITY];
+
+        private DoubleVector(boolean single) {
+            this.single = single;
+        }
+
+        @Override
+        boolean read(int row, ResultSet rs, int index, boolean limitRowSize) throws SQLException {
+            values[row] = single ? rs.getFloat(index) : rs.getDouble(index);
+            return !rs.wasNull();
+        }
+
+        @Override
+        Object get(int row) {
+            return values[row];
+        }
+
+        @Override
+        String format(int row) {
+            return BigDecimal.valueOf(values[row]).toPlainString();
+        }
+
+        @Override
+        void grow(int capacity) {
+            values = Arrays.copyOf(values, capacity);
+        }
+    }
+
+    private static class DecimalVector extends ColumnVector {
+
+        private BigDecimal[] values = new BigDecimal[INITIAL_CAPACITY];
+
+        @Override
+        boolean read(int row, ResultSet rs, int index, boolean limitRowSize) throws SQLException {
+            values[row] = rs.getBigDecimal(index);
+            return values[row] != null;
+        }
+
+        @Override
+        Object get(int row) {
+            return values[row];
+        }
+
+        @Override
+        String format(int row) {
+            return values[row].toPlainString();
+        }
+
+        @Override
+        void grow(int capacity) {
+            values = Arrays.copyOf(values, capacity);
+        }
+    }
+
+    private static class BytesVector extends ColumnVector {
+
+        private byte[][] values = new byte[INITIAL_CAPACITY][];
+
+        @Override
+        boolean read(int row, ResultSet rs, int index, boolean limitRowSize) throws SQLException {
+            Blob blob = rs.getBlob(index);
+            if (blob == null) {
+                return false;
+            }
+            values[row] = JdbcUtils.readBlob(blob, limitRowSize);
+            return true;
+        }
+
+        @Override
+        Object get(int row) {
+            return values[row];
+        }
+
+        @Override
+        String format(int row) {
+            return JdbcUtils.blobString(values[row]);
+        }
+
+        @Override
+        void grow(int capacity) {
+            values = Arrays.copyOf(values, capacity);
+        }
+    }
+
+    private static class StringVector extends ColumnVector {
+
+        private final ColumnReader columnReader;
+
+        private String[] values = new String[INITIAL_CAPACITY];
+
+        private StringVector(ColumnReader columnReader) {
+            this.columnReader = columnReader;
+        }
+
+        @Override
+        boolean read(int row, ResultSet rs, int index, boolean limitRowSize) throws SQLException {
+            values[row] = columnReader.read(rs, index, limitRowSize);
+            return values[row] != null;
+        }
+
+        @Override
+        Object get(int row) {
+            return values[row];
+        }
+
+        @Override
+        String format(int row) {
+            return values[row];
+        }
+
+        @Override
+        void grow(int capacity) {
+            values = Arrays.copyOf(values, capacity);
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package ai.chat2db.spi.sql;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import ai.chat2db.server.tools.common.exception.ConnectionException;
+import ai.chat2db.spi.config.BulkheadConfig;
+import ai.chat2db.spi.enums.WorkloadEnum;
+import ai.chat2db.spi.model.BulkheadStats;
+import lombok.Getter;
+
+/**
+ * Limits the requests of one kind running on one datasource, so that a slow datasource cannot take all request
+ * threads. Requests over the limit wait in a bounded queue and fail fast when it is full or they wait too long.
+ */
+public class Bulkhead {
+
+    @Getter
+    private final Long dataSourceId;
+
+    @Getter
+    private final WorkloadEnum workload;
+
+    private final int maxConcurrent;
+
+    private final int maxWaiting;
+
+    private final long waitTimeout;
+
+    private final Semaphore permits;
+
+    private final AtomicInteger waiting = new AtomicInteger();
+
+    private final LongAdder accepted = new LongAdder();
+
+    private final LongAdder rejected = new LongAdder();
+
+    private final LongAdder timedOut = new LongAdder();
+
+    public Bulkhead(Long dataSourceId, WorkloadEnum workload, BulkheadConfig config) {
+        BulkheadConfig.Limit limit = config.getLimit(workload);
+        this.dataSourceId = dataSourceId;
+        this.workload = workload;
+        this.maxConcurrent = Math.max(limit.getMaxConcurrent(), 1);
+        this.maxWaiting = Math.max(limit.getMaxWaiting(), 0);
+        this.waitTimeout = config.getWaitTimeout();
+        this.permits = new Semaphore(maxConcurrent, true);
+    }
+
+    public void acquire() {
+        if (permits.tryAcquire()) {
+            accepted.increment();
+            return;
+        }
+        if (waiting.incrementAndGet() > maxWaiting) {
+            waiting.decrementAndGet();
+            rejected.increment();
+            throw new ConnectionException("connection.bulkhead.full");
+        }
+        try {
+            if (!permits.tryAcquire(waitTimeout, TimeUnit.MILLISECONDS)) {
+                timedOut.increment();
+                throw new ConnectionException("connection.bulkhead.full");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ConnectionException("connection.bulkhead.full", null, e);
+        } finally {
+            waiting.decrementAndGet();
+        }
+        accepted.increment();
+    }
+
+    public void release() {
+        permits.release();
+    }
+
+    public BulkheadStats stats() {
+        return BulkheadStats.builder()
+            .dataSourceId(dataSourceId)
+            .workload(workload.getCode())
+            .maxConcurrent(maxConcurrent)
+            .active(maxConcurrent - permits.availablePermits())
+            .waiting(waiting.get())
+            .accepted(accepted.sum())
+            .rejected(rejected.sum())
+            .timedOut(timedOut.sum())
+            .build();
+    }
+}
@@ -0,0 +1,51 @@
+package ai.chat2db.spi.sql;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import ai.chat2db.spi.config.BulkheadConfig;
+import ai.chat2db.spi.model.BulkheadStats;
+
+/**
+ * Bulkheads of each datasource and kind of work. A request takes a permit when it first needs a connection and
+ * gives it back when its context is removed.
+ */
+public class BulkheadManager {
+
+    private static final Map<String, Bulkhead> BULKHEAD_MAP = new ConcurrentHashMap<>();
+
+    /**
+     * Take a permit for the connectInfo, nothing is done if it already holds one or its work is not limited.
+     *
+     * @param connectInfo
+     */
+    public static void acquire(ConnectInfo connectInfo) {
+        BulkheadConfig config = BulkheadConfig.getInstance();
+        if (!config.isEnabled() || connectInfo.getDataSourceId() == null || connectInfo.getWorkload() == null
+            || connectInfo.getBulkhead() != null) {
+            return;
+        }
+        Bulkhead bulkhead = BULKHEAD_MAP.computeIfAbsent(
+            connectInfo.getDataSourceId() + "_" + connectInfo.getWorkload().getCode(),
+            key -> new Bulkhead(connectInfo.getDataSourceId(), connectInfo.getWorkload(), config));
+        bulkhead.acquire();
+        connectInfo.setBulkhead(bulkhead);
+    }
+
+    public static void release(ConnectInfo connectInfo) {
+        Bulkhead bulkhead = connectInfo.getBulkhead();
+        if (bulkhead != null) {
+            connectInfo.setBulkhead(null);
+            bulkhead.release();
+        }
+    }
+
+    public static List<BulkheadStats> stats() {
+        return BULKHEAD_MAP.values().stream()
+            .map(Bulkhead::stats)
+            .sorted(Comparator.comparing(BulkheadStats::getDataSourceId).thenComparing(BulkheadStats::getWorkload))
+            .toList();
+    }
+}
@@ -14,8 +14,8 @@ import ai.chat2db.spi.Plugin;
 import ai.chat2db.spi.SqlBuilder;
 import ai.chat2db.spi.config.DBConfig;
 import ai.chat2db.spi.config.DriverConfig;
-import com.jcraft.jsch.JSchException;
-import com.jcraft.jsch.Session;
+import ai.chat2db.spi.config.ExecutionProfile;
+import ai.chat2db.spi.ssh.SSHManager;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
 
@@ -71,6 +71,21 @@ public class Chat2DBContext {
         return PLUGIN_MAP.get(getConnectInfo().getDbType()).getDBConfig();
     }
 
+    /**
+     * The execution profile of the current datasource, the default profile if there is no context.
+     *
+     * @return
+     */
+    public static ExecutionProfile getExecutionProfile() {
+        ConnectInfo connectInfo = getConnectInfo();
+        if (connectInfo == null) {
+            return ExecutionProfile.defaultProfile();
+        }
+        DriverConfig driverConfig = connectInfo.getDriverConfig();
+        return ExecutionProfile.merge(getDBConfig().getExecutionProfile(),
+            driverConfig == null ? null : driverConfig.getExecutionProfile());
+    }
+
     public static DBManage getDBManage() {
         return PLUGIN_MAP.get(getConnectInfo().getDbType()).getDBManage();
     }
@@ -83,6 +98,12 @@ public class Chat2DBContext {
                 connection = connectInfo.getConnection();
                 if (connection != null) {
                     return connection;
+                }
+                BulkheadManager.acquire(connectInfo);
+                if (ConsoleSessionManager.attach(connectInfo)) {
+                    connection = connectInfo.getConnection();
+                } else if (ConnectionPoolManager.support(connectInfo)) {
+                    connection = ConnectionPoolManager.borrow(connectInfo);
                 } else {
                     connection = getDBManage().getConnection(connectInfo);
                 }
@@ -91,6 +112,33 @@ public class Chat2DBContext {
         return connection;
     }
 
+    /**
+     * A read only, auto commit connection to read metadata from. It comes from a small pool of the datasource that
+     * is separate from the connections running the queries of the users, so that browsing objects does not wait
+     * behind a long query or an open transaction.
+     *
+     * @return the connection of the request if the metadata lane is not supported
+     */
+    public static Connection getMetaConnection() {
+        ConnectInfo connectInfo = getConnectInfo();
+        if (!ConnectionPoolManager.supportMetadata(connectInfo)) {
+            return getConnection();
+        }
+        synchronized (connectInfo) {
+            ConnectInfo metadataConnectInfo = connectInfo.getMetadataConnectInfo();
+            if (metadataConnectInfo == null) {
+                metadataConnectInfo = connectInfo.copy();
+                connectInfo.setMetadataConnectInfo(metadataConnectInfo);
+            }
+            Connection connection = metadataConnectInfo.getConnection();
+            if (connection == null) {
+                BulkheadManager.acquire(connectInfo);
+                connection = ConnectionPoolManager.borrowMetadata(metadataConnectInfo);
+            }
+            return connection;
+        }
+    }
+
     public static String getDbVersion() {
         ConnectInfo connectInfo = getConnectInfo();
         String dbVersion = connectInfo.getDbVersion();
@@ -131,25 +179,47 @@ public class Chat2DBContext {
     public static void removeContext() {
         ConnectInfo connectInfo = CONNECT_INFO_THREAD_LOCAL.get();
         if (connectInfo != null) {
-            Connection connection = connectInfo.getConnection();
+            CONNECT_INFO_THREAD_LOCAL.remove();
             try {
-                if (connection != null && !connection.isClosed()) {
-                    connection.close();
-                }
-            } catch (SQLException e) {
-                log.error("close connection error", e);
+                close(connectInfo);
+            } finally {
+                BulkheadManager.release(connectInfo);
             }
+        }
+    }
 
-            CONNECT_INFO_THREAD_LOCAL.remove();
+    /**
+     * Give the connection of the connectInfo back to its pool, or close it if it is not pooled.
+     *
+     * @param connectInfo
+     */
+    public static void close(ConnectInfo connectInfo) {
+        ConnectInfo metadataConnectInfo = connectInfo.getMetadataConnectInfo();
+        if (metadataConnectInfo != null) {
+            connectInfo.setMetadataConnectInfo(null);
+            if (!ConnectionPoolManager.releaseMetadata(metadataConnectInfo)) {
+                closeConnection(metadataConnectInfo);
+            }
+        }
+        // Console sessions and pooled connections keep their connection and ssh tunnel open
+        if (ConsoleSessionManager.release(connectInfo) || ConnectionPoolManager.release(connectInfo)) {
+            return;
+        }
+        closeConnection(connectInfo);
+    }
 
-            Session session = connectInfo.getSession();
-            if (session != null && session.isConnected() && connectInfo.getSsh() != null
-                    && connectInfo.getSsh().isUse()) {
-                try {
-                    session.delPortForwardingL(Integer.parseInt(connectInfo.getSsh().getLocalPort()));
-                } catch (JSchException e) {
-                }
+    private static void closeConnection(ConnectInfo connectInfo) {
+        Connection connection = connectInfo.getConnection();
+        try {
+            if (connection != null && !connection.isClosed()) {
+                connection.close();
             }
+        } catch (SQLException e) {
+            log.error("close connection error", e);
+        }
+
+        if (connectInfo.getSession() != null) {
+            SSHManager.release(connectInfo.getSsh());
         }
     }
 
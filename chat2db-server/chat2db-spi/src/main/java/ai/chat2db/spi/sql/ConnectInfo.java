@@ -8,6 +8,7 @@ import java.util.List;
 import java.util.Objects;
 
 import ai.chat2db.spi.config.DriverConfig;
+import ai.chat2db.spi.enums.WorkloadEnum;
 import ai.chat2db.spi.model.KeyValue;
 import ai.chat2db.spi.model.SSHInfo;
 import ai.chat2db.spi.model.SSLInfo;
@@ -55,6 +56,11 @@ public class ConnectInfo {
      */
     private Long consoleId;
 
+    /**
+     * Id given by the client to the sql it executes, used to cancel it
+     */
+    private String executionId;
+
     /**
      * 数据库URL
      */
@@ -137,6 +143,57 @@ public class ConnectInfo {
     
     private DriverConfig driverConfig;
 
+    /**
+     * Kind of work of the request, limited by the bulkhead of the datasource, null if not limited
+     */
+    private WorkloadEnum workload;
+
+    /**
+     * Bulkhead a permit is held from, given back when the context is removed
+     */
+    private Bulkhead bulkhead;
+
+    /**
+     * Holds the connection of the metadata lane used by the request, given back when the context is removed
+     */
+    private ConnectInfo metadataConnectInfo;
+
+    /**
+     * Console session the connection is lent from, given back when the context is removed
+     */
+    private ConsoleSession consoleSession;
+
+    public ConsoleSession getConsoleSession() {
+        return consoleSession;
+    }
+
+    public void setConsoleSession(ConsoleSession consoleSession) {
+        this.consoleSession = consoleSession;
+    }
+
+    public ConnectInfo getMetadataConnectInfo() {
+        return metadataConnectInfo;
+    }
+
+    public void setMetadataConnectInfo(ConnectInfo metadataConnectInfo) {
+        this.metadataConnectInfo = metadataConnectInfo;
+    }
+
+    public WorkloadEnum getWorkload() {
+        return workload;
+    }
+
+    public void setWorkload(WorkloadEnum workload) {
+        this.workload = workload;
+    }
+
+    public Bulkhead getBulkhead() {
+        return bulkhead;
+    }
+
+    public void setBulkhead(Bulkhead bulkhead) {
+        this.bulkhead = bulkhead;
+    }
 
     public String getDbVersion() {
         return dbVersion;
@@ -182,6 +239,41 @@ public class ConnectInfo {
         this.databaseName = database;
     }
 
+    /**
+     * Copy the connection information without the connections, ssh session, console session and bulkhead permit,
+     * used when the information is handed over to another thread.
+     *
+     * @return
+     */
+    public ConnectInfo copy() {
+        ConnectInfo connectInfo = new ConnectInfo();
+        connectInfo.setAlias(alias);
+        connectInfo.setDataSourceId(dataSourceId);
+        connectInfo.setGmtCreate(gmtCreate);
+        connectInfo.setGmtModified(gmtModified);
+        connectInfo.setDatabaseName(databaseName);
+        connectInfo.setSchemaName(schemaName);
+        connectInfo.setConsoleId(consoleId);
+        connectInfo.setUrl(url);
+        connectInfo.setUser(user);
+        connectInfo.setPassword(password);
+        connectInfo.setConsoleOwn(consoleOwn);
+        connectInfo.setDbType(dbType);
+        connectInfo.setPort(port);
+        connectInfo.setUrlWithOutDatabase(urlWithOutDatabase);
+        connectInfo.setHost(host);
+        connectInfo.setSsh(ssh);
+        connectInfo.setSsl(ssl);
+        connectInfo.setSid(sid);
+        connectInfo.setDriver(driver);
+        connectInfo.setJdbc(jdbc);
+        connectInfo.setExtendInfo(extendInfo);
+        connectInfo.setDbVersion(dbVersion);
+        connectInfo.setDriverConfig(driverConfig);
+        connectInfo.setWorkload(workload);
+        return connectInfo;
+    }
+
     public String key() {
         return this.dataSourceId + "_" + this.databaseName;
     }
@@ -229,6 +321,14 @@ public class ConnectInfo {
         this.consoleId = consoleId;
     }
 
+    public String getExecutionId() {
+        return executionId;
+    }
+
+    public void setExecutionId(String executionId) {
+        this.executionId = executionId;
+    }
+
     public String getUrl() {
         return url;
     }
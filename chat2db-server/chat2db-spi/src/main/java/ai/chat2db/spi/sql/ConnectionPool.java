@@ -0,0 +1,253 @@
+package ai.chat2db.spi.sql;
+
+import java.sql.Connection;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import ai.chat2db.server.tools.common.exception.ConnectionException;
+import ai.chat2db.spi.DBManage;
+import ai.chat2db.spi.config.ConnectionPoolConfig;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * Connections of one datasource + database + schema + user.
+ * Idle connections are lent in LIFO order so that the warmest connection is reused first.
+ */
+@Slf4j
+public class ConnectionPool {
+
+    private final String key;
+
+    private final Long dataSourceId;
+
+    private final String dbType;
+
+    private final ConnectionPoolConfig config;
+
+    private final LinkedBlockingDeque<PooledConnection> idleQueue = new LinkedBlockingDeque<>();
+
+    private final Map<Connection, PooledConnection> borrowedMap = new ConcurrentHashMap<>();
+
+    private final Semaphore permits;
+
+    private volatile boolean closed;
+
+    private volatile long lastAccessTime = System.currentTimeMillis();
+
+    /**
+     * Idle connections last active before this are validated before being lent whatever their idle time, set when a
+     * dead connection is found since the others were usually dropped at the same time
+     */
+    private volatile long staleBefore;
+
+    public ConnectionPool(String key, Long dataSourceId, String dbType, ConnectionPoolConfig config) {
+        this.key = key;
+        this.dataSourceId = dataSourceId;
+        this.dbType = dbType;
+        this.config = config;
+        this.permits = new Semaphore(config.getMaxSize(), true);
+    }
+
+    /**
+     * Lend a connection to the current request, the connection and ssh session are set into the connectInfo.
+     *
+     * @param connectInfo
+     * @return
+     */
+    public Connection borrow(ConnectInfo connectInfo) {
+        lastAccessTime = System.currentTimeMillis();
+        try {
+            if (!permits.tryAcquire(config.getBorrowTimeout(), TimeUnit.MILLISECONDS)) {
+                throw new ConnectionException("connection.pool.exhausted");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ConnectionException("connection.pool.exhausted", null, e);
+        }
+        try {
+            DBManage dbManage = Chat2DBContext.PLUGIN_MAP.get(connectInfo.getDbType()).getDBManage();
+            PooledConnection pooledConnection;
+            while ((pooledConnection = idleQueue.pollFirst()) != null) {
+                if (validate(pooledConnection)) {
+                    break;
+                }
+                pooledConnection.close();
+            }
+            if (pooledConnection == null) {
+                Connection connection = dbManage.getConnection(connectInfo);
+                pooledConnection = new PooledConnection(connection, connectInfo.getSession(), connectInfo.getSsh());
+            } else {
+                connectInfo.setConnection(pooledConnection.getConnection());
+                connectInfo.setSession(pooledConnection.getSession());
+                if (StringUtils.isNotBlank(connectInfo.getDatabaseName()) || StringUtils.isNotBlank(
+                    connectInfo.getSchemaName())) {
+                    dbManage.connectDatabase(pooledConnection.getConnection(), connectInfo.getDatabaseName());
+                }
+            }
+            pooledConnection.touch();
+            borrowedMap.put(pooledConnection.getConnection(), pooledConnection);
+            return pooledConnection.getConnection();
+        } catch (RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Give a borrowed connection back.
+     *
+     * @param connection
+     * @return false if the connection was not lent by this pool
+     */
+    public boolean release(Connection connection) {
+        PooledConnection pooledConnection = borrowedMap.remove(connection);
+        if (pooledConnection == null) {
+            return false;
+        }
+        lastAccessTime = System.currentTimeMillis();
+        try {
+            long now = System.currentTimeMillis();
+            boolean expired = now - pooledConnection.getCreateTime() > config.getMaxLifetime();
+            if (closed || expired || !reset(pooledConnection)) {
+                if (expired) {
+                    ConnectionValidator.recordExpired(dataSourceId);
+                }
+                pooledConnection.close();
+            } else {
+                pooledConnection.touch();
+                idleQueue.offerFirst(pooledConnection);
+            }
+        } finally {
+            permits.release();
+        }
+        return true;
+    }
+
+    /**
+     * Close the idle connections that exceed the idle timeout, keeping at least minIdle of them, then ping the idle
+     * connections that have not been active for the keepalive interval.
+     */
+    public void evict() {
+        long now = System.currentTimeMillis();
+        Iterator<PooledConnection> iterator = idleQueue.descendingIterator();
+        while (iterator.hasNext() && idleQueue.size() > config.getMinIdle()) {
+            PooledConnection pooledConnection = iterator.next();
+            if (now - pooledConnection.getLastUsedTime() > config.getIdleTimeout() && idleQueue.remove(
+                pooledConnection)) {
+                log.info("evict idle connection of {}", key);
+                ConnectionValidator.recordIdleEvicted(dataSourceId);
+                pooledConnection.close();
+            }
+        }
+        keepalive();
+    }
+
+    private void keepalive() {
+        long interval = config.getKeepaliveInterval();
+        if (interval <= 0 || closed) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        for (PooledConnection pooledConnection : idleQueue.toArray(new PooledConnection[0])) {
+            // A connection lent meanwhile is left to the borrower
+            if (now - pooledConnection.getLastActiveTime() <= interval || !idleQueue.remove(pooledConnection)) {
+                continue;
+            }
+            if (ConnectionValidator.keepalive(pooledConnection.getConnection(), dbType, dataSourceId,
+                config.getValidationTimeout())) {
+                pooledConnection.validated();
+                if (closed) {
+                    pooledConnection.close();
+                } else {
+                    idleQueue.offerLast(pooledConnection);
+                }
+            } else {
+                log.info("close dead idle connection of {}", key);
+                staleBefore = System.currentTimeMillis();
+                pooledConnection.close();
+            }
+        }
+    }
+
+    /**
+     * Whether nothing is lent and the pool has not been used for the idle timeout.
+     *
+     * @return
+     */
+    public boolean isAbandoned() {
+        return borrowedMap.isEmpty() && System.currentTimeMillis() - lastAccessTime > config.getIdleTimeout();
+    }
+
+    /**
+     * Close all idle connections, borrowed connections are closed when they are given back.
+     */
+    public void close() {
+        closed = true;
+        PooledConnection pooledConnection;
+        while ((pooledConnection = idleQueue.pollFirst()) != null) {
+            pooledConnection.close();
+        }
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public Long getDataSourceId() {
+        return dataSourceId;
+    }
+
+    public int getIdleCount() {
+        return idleQueue.size();
+    }
+
+    public int getActiveCount() {
+        return borrowedMap.size();
+    }
+
+    private boolean validate(PooledConnection pooledConnection) {
+        long lastActiveTime = pooledConnection.getLastActiveTime();
+        if (System.currentTimeMillis() - lastActiveTime < config.getValidateAfterIdle()
+            && lastActiveTime > staleBefore) {
+            try {
+                return !pooledConnection.getConnection().isClosed();
+            } catch (Exception e) {
+                log.warn("validate connection of {} error", key, e);
+                return false;
+            }
+        }
+        if (ConnectionValidator.validate(pooledConnection.getConnection(), dbType, dataSourceId,
+            config.getValidationTimeout())) {
+            pooledConnection.validated();
+            return true;
+        }
+        log.info("replace dead connection of {}", key);
+        staleBefore = System.currentTimeMillis();
+        return false;
+    }
+
+    /**
+     * Roll back what the request left open so that the next borrower gets a clean connection.
+     */
+    private boolean reset(PooledConnection pooledConnection) {
+        Connection connection = pooledConnection.getConnection();
+        try {
+            if (connection.isClosed()) {
+                return false;
+            }
+            if (!connection.getAutoCommit()) {
+                connection.rollback();
+                connection.setAutoCommit(true);
+            }
+            return true;
+        } catch (Exception e) {
+            log.warn("reset connection of {} error", key, e);
+            return false;
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package ai.chat2db.spi.sql;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import ai.chat2db.spi.config.ConnectionPoolConfig;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Pools of physical connections, keyed by datasource id + database + schema + user.
+ */
+@Slf4j
+public class ConnectionPoolManager {
+
+    private static final Map<String, ConnectionPool> POOL_MAP = new ConcurrentHashMap<>();
+
+    private static final ScheduledExecutorService EVICTOR = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "chat2db-pool-evictor");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    static {
+        long interval = ConnectionPoolConfig.getInstance().getEvictInterval();
+        EVICTOR.scheduleWithFixedDelay(ConnectionPoolManager::evict, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Whether the connection of this connectInfo can be pooled
+     *
+     * @param connectInfo
+     * @return
+     */
+    public static boolean support(ConnectInfo connectInfo) {
+        return ConnectionPoolConfig.getInstance().isEnabled() && connectInfo.getDataSourceId() != null;
+    }
+
+    /**
+     * Whether metadata of this connectInfo is read from a connection of the metadata lane
+     *
+     * @param connectInfo
+     * @return
+     */
+    public static boolean supportMetadata(ConnectInfo connectInfo) {
+        return support(connectInfo) && ConnectionPoolConfig.getMetadataInstance().isEnabled();
+    }
+
+    public static Connection borrow(ConnectInfo connectInfo) {
+        ConnectionPool pool = POOL_MAP.computeIfAbsent(key(connectInfo),
+            key -> new ConnectionPool(key, connectInfo.getDataSourceId(), connectInfo.getDbType(),
+                ConnectionPoolConfig.getInstance()));
+        return pool.borrow(connectInfo);
+    }
+
+    /**
+     * Lend a read only, auto commit connection of the metadata lane, which is separate from the connections that
+     * run the queries of the users.
+     *
+     * @param connectInfo
+     * @return
+     */
+    public static Connection borrowMetadata(ConnectInfo connectInfo) {
+        ConnectionPool pool = POOL_MAP.computeIfAbsent(metadataKey(connectInfo),
+            key -> new ConnectionPool(key, connectInfo.getDataSourceId(), connectInfo.getDbType(),
+                ConnectionPoolConfig.getMetadataInstance()));
+        Connection connection = pool.borrow(connectInfo);
+        try {
+            if (!connection.isReadOnly()) {
+                connection.setReadOnly(true);
+            }
+        } catch (SQLException e) {
+            // Some drivers can only open a connection read only
+            log.debug("set read only of {} error", pool.getKey(), e);
+        }
+        return connection;
+    }
+
+    /**
+     * Give the connection of the metadata lane of the connectInfo back to its pool.
+     *
+     * @param connectInfo
+     * @return false if the connection does not belong to a pool
+     */
+    public static boolean releaseMetadata(ConnectInfo connectInfo) {
+        Connection connection = connectInfo.getConnection();
+        if (connection == null) {
+            return false;
+        }
+        ConnectionPool pool = POOL_MAP.get(metadataKey(connectInfo));
+        return pool != null && pool.release(connection);
+    }
+
+    /**
+     * Give the connection of the connectInfo back to its pool.
+     *
+     * @param connectInfo
+     * @return false if the connection does not belong to a pool
+     */
+    public static boolean release(ConnectInfo connectInfo) {
+        Connection connection = connectInfo.getConnection();
+        if (connection == null) {
+            return false;
+        }
+        // The pool may have been invalidated while the connection was in use, then the caller closes it
+        ConnectionPool pool = POOL_MAP.get(key(connectInfo));
+        return pool != null && pool.release(connection);
+    }
+
+    /**
+     * Close all connections of a datasource, called when the datasource is modified or deleted.
+     *
+     * @param dataSourceId
+     */
+    public static void invalidate(Long dataSourceId) {
+        if (dataSourceId == null) {
+            return;
+        }
+        POOL_MAP.values().removeIf(pool -> {
+            if (dataSourceId.equals(pool.getDataSourceId())) {
+                log.info("invalidate connection pool {}", pool.getKey());
+                pool.close();
+                return true;
+            }
+            return false;
+        });
+        ConnectionValidator.invalidate(dataSourceId);
+    }
+
+    public static void close() {
+        POOL_MAP.values().forEach(ConnectionPool::close);
+        POOL_MAP.clear();
+    }
+
+    private static void evict() {
+        try {
+            POOL_MAP.values().removeIf(pool -> {
+                pool.evict();
+                if (pool.isAbandoned()) {
+                    pool.close();
+                    return true;
+                }
+                return false;
+            });
+        } catch (Throwable t) {
+            log.error("evict connection pool error", t);
+        }
+    }
+
+    private static String key(ConnectInfo connectInfo) {
+        return connectInfo.getDataSourceId() + "_" + connectInfo.getDatabaseName() + "_"
+            + connectInfo.getSchemaName() + "_" + connectInfo.getUser();
+    }
+
+    private static String metadataKey(ConnectInfo connectInfo) {
+        return key(connectInfo) + "_metadata";
+    }
+}
@@ -0,0 +1,139 @@
+package ai.chat2db.spi.sql;
+
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import ai.chat2db.spi.Plugin;
+import ai.chat2db.spi.model.ConnectionHealthStats;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * Checks that a long lived connection is still alive, with the validation query of the dialect or
+ * {@link Connection#isValid(int)}, and counts what the checks found per datasource.
+ */
+@Slf4j
+public class ConnectionValidator {
+
+    private static final Map<Long, Counters> COUNTERS_MAP = new ConcurrentHashMap<>();
+
+    /**
+     * Validate a connection before it is lent to a request.
+     *
+     * @param connection
+     * @param dbType
+     * @param dataSourceId
+     * @param timeout      in seconds
+     * @return false if the connection is dead and must be replaced
+     */
+    public static boolean validate(Connection connection, String dbType, Long dataSourceId, int timeout) {
+        Counters counters = counters(dataSourceId);
+        counters.validations.increment();
+        boolean valid = isValid(connection, dbType, timeout);
+        if (!valid) {
+            counters.replaced.increment();
+        }
+        return valid;
+    }
+
+    /**
+     * Ping an idle connection so that the network and the database do not drop it.
+     *
+     * @param connection
+     * @param dbType
+     * @param dataSourceId
+     * @param timeout      in seconds
+     * @return false if the connection is dead and must be closed
+     */
+    public static boolean keepalive(Connection connection, String dbType, Long dataSourceId, int timeout) {
+        Counters counters = counters(dataSourceId);
+        counters.keepalives.increment();
+        boolean valid = isValid(connection, dbType, timeout);
+        if (!valid) {
+            counters.keepaliveFailures.increment();
+        }
+        return valid;
+    }
+
+    public static void recordIdleEvicted(Long dataSourceId) {
+        counters(dataSourceId).idleEvicted.increment();
+    }
+
+    public static void recordExpired(Long dataSourceId) {
+        counters(dataSourceId).expired.increment();
+    }
+
+    public static List<ConnectionHealthStats> stats() {
+        List<ConnectionHealthStats> list = new ArrayList<>();
+        COUNTERS_MAP.forEach((dataSourceId, counters) -> list.add(ConnectionHealthStats.builder()
+            .dataSourceId(dataSourceId)
+            .validations(counters.validations.sum())
+            .replaced(counters.replaced.sum())
+            .keepalives(counters.keepalives.sum())
+            .keepaliveFailures(counters.keepaliveFailures.sum())
+            .idleEvicted(counters.idleEvicted.sum())
+            .expired(counters.expired.sum())
+            .build()));
+        return list;
+    }
+
+    /**
+     * Forget the counters of a datasource, called when the datasource is modified or deleted.
+     *
+     * @param dataSourceId
+     */
+    public static void invalidate(Long dataSourceId) {
+        if (dataSourceId != null) {
+            COUNTERS_MAP.remove(dataSourceId);
+        }
+    }
+
+    private static boolean isValid(Connection connection, String dbType, int timeout) {
+        try {
+            if (connection == null || connection.isClosed()) {
+                return false;
+            }
+            String validationQuery = getValidationQuery(dbType);
+            if (StringUtils.isBlank(validationQuery)) {
+                return connection.isValid(timeout);
+            }
+            try (Statement stmt = connection.createStatement()) {
+                stmt.setQueryTimeout(timeout);
+                stmt.execute(validationQuery);
+            }
+            return true;
+        } catch (Exception e) {
+            log.warn("validate connection error", e);
+            return false;
+        }
+    }
+
+    private static String getValidationQuery(String dbType) {
+        Plugin plugin = dbType == null ? null : Chat2DBContext.PLUGIN_MAP.get(dbType);
+        return plugin == null ? null : plugin.getDBManage().getValidationQuery();
+    }
+
+    private static Counters counters(Long dataSourceId) {
+        return COUNTERS_MAP.computeIfAbsent(dataSourceId == null ? -1L : dataSourceId, k -> new Counters());
+    }
+
+    private static class Counters {
+
+        private final LongAdder validations = new LongAdder();
+
+        private final LongAdder replaced = new LongAdder();
+
+        private final LongAdder keepalives = new LongAdder();
+
+        private final LongAdder keepaliveFailures = new LongAdder();
+
+        private final LongAdder idleEvicted = new LongAdder();
+
+        private final LongAdder expired = new LongAdder();
+    }
+}
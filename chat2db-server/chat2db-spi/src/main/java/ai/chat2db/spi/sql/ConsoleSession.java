@@ -0,0 +1,253 @@
+package ai.chat2db.spi.sql;
+
+import java.sql.Connection;
+import java.util.Objects;
+import java.util.concurrent.locks.ReentrantLock;
+
+import ai.chat2db.spi.DBManage;
+import ai.chat2db.spi.config.ConsoleSessionConfig;
+import ai.chat2db.spi.model.ConsoleSessionInfo;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * A connection pinned to a console, so that temporary tables, session variables and open transactions survive
+ * between executions. The session is used by one request at a time.
+ */
+@Slf4j
+public class ConsoleSession {
+
+    @Getter
+    private final String key;
+
+    @Getter
+    private final Long userId;
+
+    @Getter
+    private final Long dataSourceId;
+
+    @Getter
+    private final Long consoleId;
+
+    private final long createTime = System.currentTimeMillis();
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    /**
+     * Holds the connection and ssh session between requests, null until the first request connects
+     */
+    private ConnectInfo holder;
+
+    /**
+     * The cursor the connection is lent to, the connection stays with the session and is taken back when the cursor
+     * is closed
+     */
+    private volatile CursorSession cursor;
+
+    private String databaseName;
+
+    private String schemaName;
+
+    @Getter
+    private volatile long lastUsedTime = System.currentTimeMillis();
+
+    private volatile long lastValidatedTime = lastUsedTime;
+
+    private volatile boolean closed;
+
+    ConsoleSession(String key, Long userId, ConnectInfo connectInfo) {
+        this.key = key;
+        this.userId = userId;
+        this.dataSourceId = connectInfo.getDataSourceId();
+        this.consoleId = connectInfo.getConsoleId();
+    }
+
+    /**
+     * Lend the connection of the session to the request, connecting on first use and switching to the database of
+     * the request if it changed. A cursor still reading on the connection is closed first.
+     *
+     * @param connectInfo
+     * @return false if another request of the console is using the session, or it has been closed
+     */
+    boolean acquire(ConnectInfo connectInfo) {
+        if (!lock.tryLock()) {
+            return false;
+        }
+        try {
+            if (closed) {
+                lock.unlock();
+                return false;
+            }
+            reclaim();
+            if (holder != null && !validate()) {
+                log.info("reconnect console session {}", key);
+                closeConnection();
+            }
+            lastUsedTime = System.currentTimeMillis();
+            DBManage dbManage = Chat2DBContext.PLUGIN_MAP.get(connectInfo.getDbType()).getDBManage();
+            if (holder == null) {
+                dbManage.getConnection(connectInfo);
+                holder = connectInfo.copy();
+                holder.setConnection(connectInfo.getConnection());
+                holder.setSession(connectInfo.getSession());
+            } else {
+                connectInfo.setConnection(holder.getConnection());
+                connectInfo.setSession(holder.getSession());
+                if (!Objects.equals(databaseName, connectInfo.getDatabaseName()) || !Objects.equals(schemaName,
+                    connectInfo.getSchemaName())) {
+                    if (StringUtils.isNotBlank(connectInfo.getDatabaseName()) || StringUtils.isNotBlank(
+                        connectInfo.getSchemaName())) {
+                        dbManage.connectDatabase(holder.getConnection(), connectInfo.getDatabaseName());
+                    }
+                }
+            }
+            databaseName = connectInfo.getDatabaseName();
+            schemaName = connectInfo.getSchemaName();
+            connectInfo.setConsoleOwn(true);
+            connectInfo.setConsoleSession(this);
+            return true;
+        } catch (RuntimeException e) {
+            connectInfo.setConnection(null);
+            connectInfo.setSession(null);
+            lock.unlock();
+            throw e;
+        }
+    }
+
+    /**
+     * Take the connection back from the request, and close it if the session was closed while the request was
+     * running.
+     *
+     * @param connectInfo
+     */
+    void release(ConnectInfo connectInfo) {
+        try {
+            connectInfo.setConnection(null);
+            connectInfo.setSession(null);
+            connectInfo.setConsoleSession(null);
+            lastUsedTime = System.currentTimeMillis();
+            if (closed) {
+                closeConnection();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Lend the connection to a cursor opened by the request holding the session, the next request of the console
+     * closes the cursor before using the connection.
+     *
+     * @param cursorSession
+     */
+    void lend(CursorSession cursorSession) {
+        cursor = cursorSession;
+    }
+
+    /**
+     * Called when a cursor the connection was lent to is closed.
+     *
+     * @param cursorSession
+     */
+    void giveBack(CursorSession cursorSession) {
+        if (cursor == cursorSession) {
+            cursor = null;
+            lastUsedTime = System.currentTimeMillis();
+        }
+    }
+
+    /**
+     * Close the connection now if it is idle, otherwise when the running request gives it back.
+     */
+    void close() {
+        closed = true;
+        if (lock.tryLock()) {
+            try {
+                closeConnection();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Ping the connection of an idle session that has not been active for the keepalive interval, closing it if it
+     * is dead so that the next request reconnects.
+     */
+    void keepalive() {
+        ConsoleSessionConfig config = ConsoleSessionConfig.getInstance();
+        if (config.getKeepaliveInterval() <= 0 || !lock.tryLock()) {
+            return;
+        }
+        try {
+            if (closed || holder == null || cursor != null
+                || System.currentTimeMillis() - Math.max(lastUsedTime, lastValidatedTime)
+                <= config.getKeepaliveInterval()) {
+                return;
+            }
+            if (ConnectionValidator.keepalive(holder.getConnection(), holder.getDbType(), dataSourceId,
+                config.getValidationTimeout())) {
+                lastValidatedTime = System.currentTimeMillis();
+            } else {
+                log.info("close dead connection of console session {}", key);
+                closeConnection();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    boolean isBusy() {
+        return lock.isLocked() || cursor != null;
+    }
+
+    ConsoleSessionInfo info() {
+        return ConsoleSessionInfo.builder()
+            .dataSourceId(dataSourceId)
+            .consoleId(consoleId)
+            .databaseName(databaseName)
+            .schemaName(schemaName)
+            .busy(isBusy())
+            .createTime(createTime)
+            .lastUsedTime(lastUsedTime)
+            .build();
+    }
+
+    private boolean validate() {
+        Connection connection = holder.getConnection();
+        ConsoleSessionConfig config = ConsoleSessionConfig.getInstance();
+        if (System.currentTimeMillis() - Math.max(lastUsedTime, lastValidatedTime) < config.getValidateAfterIdle()) {
+            try {
+                return connection != null && !connection.isClosed();
+            } catch (Exception e) {
+                log.warn("validate console session {} error", key, e);
+                return false;
+            }
+        }
+        if (ConnectionValidator.validate(connection, holder.getDbType(), dataSourceId,
+            config.getValidationTimeout())) {
+            lastValidatedTime = System.currentTimeMillis();
+            return true;
+        }
+        return false;
+    }
+
+    private void reclaim() {
+        CursorSession cursorSession = cursor;
+        if (cursorSession != null) {
+            log.info("close cursor {} of console session {}", cursorSession.getCursorId(), key);
+            CursorManager.close(cursorSession.getCursorId());
+            cursorSession.close();
+            cursor = null;
+        }
+    }
+
+    private void closeConnection() {
+        reclaim();
+        if (holder != null) {
+            Chat2DBContext.close(holder);
+            holder = null;
+        }
+    }
+}
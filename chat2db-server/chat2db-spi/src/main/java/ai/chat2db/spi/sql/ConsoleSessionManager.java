@@ -0,0 +1,163 @@
+package ai.chat2db.spi.sql;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import ai.chat2db.server.tools.common.model.LoginUser;
+import ai.chat2db.server.tools.common.util.ContextUtils;
+import ai.chat2db.spi.config.ConsoleSessionConfig;
+import ai.chat2db.spi.enums.WorkloadEnum;
+import ai.chat2db.spi.model.ConsoleSessionInfo;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Connections kept open per user and console, so that executions of a console run in the same database session.
+ * A request of a console whose session is busy falls back to a pooled connection.
+ */
+@Slf4j
+public class ConsoleSessionManager {
+
+    private static final Map<String, ConsoleSession> SESSION_MAP = new ConcurrentHashMap<>();
+
+    private static final ScheduledExecutorService EVICTOR = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "chat2db-console-evictor");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    static {
+        long interval = ConsoleSessionConfig.getInstance().getEvictInterval();
+        EVICTOR.scheduleWithFixedDelay(ConsoleSessionManager::evict, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Lend the connection of the console of the connectInfo, only queries run from a console are bound to it.
+     *
+     * @param connectInfo
+     * @return false if the request is not bound to a session or the session is busy
+     */
+    public static boolean attach(ConnectInfo connectInfo) {
+        if (!ConsoleSessionConfig.getInstance().isEnabled() || connectInfo.getDataSourceId() == null
+            || connectInfo.getConsoleId() == null || connectInfo.getWorkload() != WorkloadEnum.QUERY) {
+            return false;
+        }
+        Long userId = getUserId();
+        String key = connectInfo.getDataSourceId() + "_" + connectInfo.getConsoleId() + "_" + userId;
+        ConsoleSession consoleSession = SESSION_MAP.computeIfAbsent(key,
+            k -> new ConsoleSession(k, userId, connectInfo));
+        if (!consoleSession.acquire(connectInfo)) {
+            return false;
+        }
+        int maxPerUser = ConsoleSessionConfig.getInstance().getMaxPerUser();
+        if (SESSION_MAP.values().stream().filter(session -> Objects.equals(session.getUserId(), userId)).count()
+            > maxPerUser) {
+            SESSION_MAP.values().stream()
+                .filter(session -> session != consoleSession && Objects.equals(session.getUserId(), userId)
+                    && !session.isBusy())
+                .min(Comparator.comparingLong(ConsoleSession::getLastUsedTime))
+                .ifPresent(session -> close(session.getKey()));
+        }
+        return true;
+    }
+
+    /**
+     * Take the connection of the console back from the request.
+     *
+     * @param connectInfo
+     * @return false if the connection does not belong to a console session
+     */
+    public static boolean release(ConnectInfo connectInfo) {
+        ConsoleSession consoleSession = connectInfo.getConsoleSession();
+        if (consoleSession == null) {
+            return false;
+        }
+        consoleSession.release(connectInfo);
+        return true;
+    }
+
+    /**
+     * Open sessions of the user
+     *
+     * @param userId
+     * @return
+     */
+    public static List<ConsoleSessionInfo> list(Long userId) {
+        return SESSION_MAP.values().stream()
+            .filter(session -> Objects.equals(session.getUserId(), userId))
+            .sorted(Comparator.comparingLong(ConsoleSession::getLastUsedTime).reversed())
+            .map(ConsoleSession::info)
+            .toList();
+    }
+
+    /**
+     * Close the session of a console of the user, the running statements of the console are cancelled first.
+     *
+     * @param dataSourceId
+     * @param consoleId
+     * @param userId
+     * @return false if the console has no session
+     */
+    public static boolean kill(Long dataSourceId, Long consoleId, Long userId) {
+        ExecutionManager.cancel(dataSourceId, consoleId, null, userId);
+        return close(dataSourceId + "_" + consoleId + "_" + userId);
+    }
+
+    /**
+     * Close all sessions of a datasource, called when the datasource is modified or deleted.
+     *
+     * @param dataSourceId
+     */
+    public static void invalidate(Long dataSourceId) {
+        if (dataSourceId == null) {
+            return;
+        }
+        SESSION_MAP.values().stream()
+            .filter(session -> dataSourceId.equals(session.getDataSourceId()))
+            .map(ConsoleSession::getKey)
+            .toList()
+            .forEach(ConsoleSessionManager::close);
+    }
+
+    public static void close() {
+        SESSION_MAP.keySet().stream().toList().forEach(ConsoleSessionManager::close);
+    }
+
+    private static boolean close(String key) {
+        ConsoleSession consoleSession = SESSION_MAP.remove(key);
+        if (consoleSession == null) {
+            return false;
+        }
+        log.info("close console session {}", key);
+        consoleSession.close();
+        return true;
+    }
+
+    private static Long getUserId() {
+        LoginUser loginUser = ContextUtils.queryLoginUser();
+        return loginUser != null ? loginUser.getId() : null;
+    }
+
+    private static void evict() {
+        try {
+            long idleTimeout = ConsoleSessionConfig.getInstance().getIdleTimeout();
+            long now = System.currentTimeMillis();
+            SESSION_MAP.values().stream()
+                .filter(session -> !session.isBusy() && now - session.getLastUsedTime() > idleTimeout)
+                .toList()
+                .forEach(session -> {
+                    log.info("evict idle console session {}", session.getKey());
+                    ConnectionValidator.recordIdleEvicted(session.getDataSourceId());
+                    close(session.getKey());
+                });
+            SESSION_MAP.values().forEach(ConsoleSession::keepalive);
+        } catch (Throwable t) {
+            log.error("evict console session error", t);
+        }
+    }
+}
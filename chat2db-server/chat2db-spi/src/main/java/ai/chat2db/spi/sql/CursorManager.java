@@ -0,0 +1,174 @@
+package ai.chat2db.spi.sql;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+import ai.chat2db.spi.config.CursorConfig;
+import ai.chat2db.spi.config.ExecutionProfile;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.support.JdbcUtils;
+
+/**
+ * Server side cursors, so that the next page of a query is read from the open result set instead of executing the
+ * query again.
+ */
+@Slf4j
+public class CursorManager {
+
+    private static final Map<String, CursorSession> CURSOR_MAP = new ConcurrentHashMap<>();
+
+    private static final ScheduledExecutorService EVICTOR = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "chat2db-cursor-evictor");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    static {
+        long interval = CursorConfig.getInstance().getEvictInterval();
+        EVICTOR.scheduleWithFixedDelay(CursorManager::evict, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Execute the query on the connection of the current context. The session is not registered yet, call
+     * {@link #register(CursorSession)} to keep it open after the request.
+     *
+     * @param sql
+     * @param userId
+     * @param fetchSize
+     * @return null if the sql does not return a result set
+     * @throws SQLException
+     */
+    public static CursorSession open(String sql, Long userId, int fetchSize) throws SQLException {
+        log.info("execute cursor:{}", sql);
+        Connection connection = Chat2DBContext.getConnection();
+        Statement stmt = connection.createStatement();
+        boolean autoCommitChanged = false;
+        try {
+            ExecutionProfile profile = Chat2DBContext.getExecutionProfile();
+            if (fetchSize > 0) {
+                profile.setFetchSize(fetchSize);
+            }
+            autoCommitChanged = SQLExecutor.getInstance().prepare(stmt, profile, true);
+            ExecutionManager.Execution execution = ExecutionManager.register(stmt, sql);
+            boolean query;
+            try {
+                query = stmt.execute(sql);
+            } finally {
+                ExecutionManager.unregister(execution);
+            }
+            if (!query) {
+                JdbcUtils.closeStatement(stmt);
+                SQLExecutor.getInstance().restore(connection, autoCommitChanged);
+                return null;
+            }
+            ResultSet rs = stmt.getResultSet();
+            return new CursorSession(UUID.randomUUID().toString(), userId, Chat2DBContext.getConnectInfo(), sql,
+                stmt, rs, autoCommitChanged);
+        } catch (SQLException | RuntimeException e) {
+            JdbcUtils.closeStatement(stmt);
+            SQLExecutor.getInstance().restore(connection, autoCommitChanged);
+            throw e;
+        }
+    }
+
+    /**
+     * Keep the session open, it takes over the connection and bulkhead permit of the current context. The least
+     * recently used cursor of the user, or of the datasource, is closed if there are too many.
+     *
+     * @param cursorSession
+     */
+    public static void register(CursorSession cursorSession) {
+        cursorSession.attach(Chat2DBContext.getConnectInfo());
+        CURSOR_MAP.put(cursorSession.getCursorId(), cursorSession);
+        CursorConfig config = CursorConfig.getInstance();
+        closeLeastRecentlyUsed(cursor -> Objects.equals(cursor.getUserId(), cursorSession.getUserId()),
+            config.getMaxPerUser());
+        closeLeastRecentlyUsed(cursor -> Objects.equals(cursor.getDataSourceId(), cursorSession.getDataSourceId()),
+            config.getMaxPerDataSource());
+    }
+
+    private static void closeLeastRecentlyUsed(Predicate<CursorSession> filter, int max) {
+        while (CURSOR_MAP.values().stream().filter(filter).count() > max) {
+            CURSOR_MAP.values().stream()
+                .filter(filter)
+                .min(Comparator.comparingLong(CursorSession::getLastUsedTime))
+                .ifPresent(cursor -> close(cursor.getCursorId()));
+        }
+    }
+
+    /**
+     * Get an open cursor of the user, on the datasource and console of the current context.
+     *
+     * @param cursorId
+     * @param userId
+     * @return null if the cursor does not exist or has expired
+     */
+    public static CursorSession get(String cursorId, Long userId) {
+        if (cursorId == null) {
+            return null;
+        }
+        CursorSession cursorSession = CURSOR_MAP.get(cursorId);
+        ConnectInfo connectInfo = Chat2DBContext.getConnectInfo();
+        if (cursorSession == null || !Objects.equals(cursorSession.getUserId(), userId)
+            || !Objects.equals(cursorSession.getDataSourceId(), connectInfo.getDataSourceId())
+            || !Objects.equals(cursorSession.getConsoleId(), connectInfo.getConsoleId())) {
+            return null;
+        }
+        return cursorSession;
+    }
+
+    public static void close(String cursorId) {
+        CursorSession cursorSession = CURSOR_MAP.remove(cursorId);
+        if (cursorSession != null) {
+            cursorSession.close();
+        }
+    }
+
+    /**
+     * Close all cursors of a datasource, called when the datasource is modified or deleted.
+     *
+     * @param dataSourceId
+     */
+    public static void invalidate(Long dataSourceId) {
+        if (dataSourceId == null) {
+            return;
+        }
+        CURSOR_MAP.values().stream()
+            .filter(cursor -> dataSourceId.equals(cursor.getDataSourceId()))
+            .map(CursorSession::getCursorId)
+            .toList()
+            .forEach(CursorManager::close);
+    }
+
+    public static void close() {
+        CURSOR_MAP.keySet().stream().toList().forEach(CursorManager::close);
+    }
+
+    private static void evict() {
+        try {
+            long idleTimeout = CursorConfig.getInstance().getIdleTimeout();
+            long now = System.currentTimeMillis();
+            CURSOR_MAP.values().stream()
+                .filter(cursor -> now - cursor.getLastUsedTime() > idleTimeout)
+                .map(CursorSession::getCursorId)
+                .toList()
+                .forEach(cursorId -> {
+                    log.info("evict idle cursor {}", cursorId);
+                    close(cursorId);
+                });
+        } catch (Throwable t) {
+            log.error("evict cursor error", t);
+        }
+    }
+}
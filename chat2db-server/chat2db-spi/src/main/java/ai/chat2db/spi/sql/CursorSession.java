@@ -0,0 +1,230 @@
+package ai.chat2db.spi.sql;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+
+import ai.chat2db.spi.ColumnReader;
+import ai.chat2db.spi.model.Header;
+import ai.chat2db.spi.util.JdbcUtils;
+import ai.chat2db.spi.util.ResultSetUtils;
+import com.google.common.collect.Lists;
+
+/**
+ * An open query whose result set is read page by page across requests.
+ * Once registered in the {@link CursorManager} the session owns its connection and bulkhead permit until it is closed.
+ * The connection of a console session is only lent to the cursor and stays with the console.
+ */
+public class CursorSession {
+
+    private final String cursorId;
+
+    private final Long userId;
+
+    private final Long dataSourceId;
+
+    private final Long consoleId;
+
+    private final String sql;
+
+    private final Statement statement;
+
+    private final ResultSet resultSet;
+
+    private final List<Header> headerList;
+
+    private final int columnCount;
+
+    private final int chat2dbAutoRowIdIndex;
+
+    private final ColumnReader[] columnReaders;
+
+    /**
+     * Whether auto commit was turned off to read the result set with a cursor
+     */
+    private final boolean autoCommitChanged;
+
+    /**
+     * The connection taken over from the request, set when the session is registered
+     */
+    private ConnectInfo owner;
+
+    /**
+     * The console session the connection was lent by, null if the session owns the connection
+     */
+    private ConsoleSession console;
+
+    /**
+     * Rows read so far
+     */
+    private int position;
+
+    private boolean exhausted;
+
+    private boolean closed;
+
+    private volatile long lastUsedTime = System.currentTimeMillis();
+
+    CursorSession(String cursorId, Long userId, ConnectInfo connectInfo, String sql, Statement statement,
+        ResultSet resultSet, boolean autoCommitChanged) throws SQLException {
+        this.cursorId = cursorId;
+        this.userId = userId;
+        this.dataSourceId = connectInfo.getDataSourceId();
+        this.consoleId = connectInfo.getConsoleId();
+        this.sql = sql;
+        this.statement = statement;
+        this.resultSet = resultSet;
+        this.autoCommitChanged = autoCommitChanged;
+
+        ResultSetMetaData resultSetMetaData = resultSet.getMetaData();
+        this.columnCount = resultSetMetaData.getColumnCount();
+        this.headerList = Lists.newArrayListWithExpectedSize(columnCount);
+        this.columnReaders = new ColumnReader[columnCount];
+        int autoRowIdIndex = -1;// chat2db自动生成的行分页ID
+        for (int i = 1; i <= columnCount; i++) {
+            columnReaders[i - 1] = JdbcUtils.resolveColumnReader(resultSetMetaData, i);
+            String name = ResultSetUtils.getColumnName(resultSetMetaData, i);
+            if ("CAHT2DB_AUTO_ROW_ID".equals(name)) {
+                autoRowIdIndex = i;
+                continue;
+            }
+            headerList.add(Header.builder()
+                .dataType(JdbcUtils.resolveDataType(resultSetMetaData.getColumnTypeName(i),
+                    resultSetMetaData.getColumnType(i)).getCode())
+                .name(name)
+                .build());
+        }
+        this.chat2dbAutoRowIdIndex = autoRowIdIndex;
+    }
+
+    /**
+     * Read count rows starting at offset, rows before the offset that have not been read yet are skipped.
+     *
+     * @param offset must not be smaller than {@link #getPosition()}
+     * @param count
+     * @param limitRowSize
+     * @return
+     * @throws SQLException
+     */
+    public synchronized List<List<String>> fetch(int offset, int count, boolean limitRowSize) throws SQLException {
+        lastUsedTime = System.currentTimeMillis();
+        List<List<String>> dataList = Lists.newArrayListWithExpectedSize(count);
+        while (!exhausted && position < offset) {
+            if (resultSet.next()) {
+                position++;
+            } else {
+                exhausted = true;
+            }
+        }
+        while (!exhausted && dataList.size() < count) {
+            if (!resultSet.next()) {
+                exhausted = true;
+                break;
+            }
+            position++;
+            List<String> row = Lists.newArrayListWithExpectedSize(columnCount);
+            for (int i = 1; i <= columnCount; i++) {
+                if (chat2dbAutoRowIdIndex == i) {
+                    continue;
+                }
+                row.add(SQLExecutor.getInstance().read(columnReaders[i - 1], resultSet, i, limitRowSize));
+            }
+            dataList.add(row);
+        }
+        return dataList;
+    }
+
+    /**
+     * Take over the connection of the request so that it stays open after the request ends, together with the
+     * bulkhead permit of the request so that open cursors count against the limit of the datasource.
+     *
+     * @param connectInfo
+     */
+    synchronized void attach(ConnectInfo connectInfo) {
+        owner = connectInfo.copy();
+        owner.setConnection(connectInfo.getConnection());
+        owner.setSession(connectInfo.getSession());
+        owner.setBulkhead(connectInfo.getBulkhead());
+        console = connectInfo.getConsoleSession();
+        if (console != null) {
+            console.lend(this);
+        }
+        connectInfo.setConnection(null);
+        connectInfo.setSession(null);
+        connectInfo.setBulkhead(null);
+    }
+
+    /**
+     * Close the result set and statement, and close the connection if the session owns it. Otherwise auto commit is
+     * turned back on if it was turned off for the cursor, and a connection lent by a console is given back.
+     */
+    public synchronized void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        Connection connection = null;
+        try {
+            connection = statement.getConnection();
+        } catch (SQLException e) {
+        }
+        org.springframework.jdbc.support.JdbcUtils.closeResultSet(resultSet);
+        org.springframework.jdbc.support.JdbcUtils.closeStatement(statement);
+        if (owner != null) {
+            try {
+                if (console == null) {
+                    Chat2DBContext.close(owner);
+                } else {
+                    if (connection != null) {
+                        SQLExecutor.getInstance().restore(connection, autoCommitChanged);
+                    }
+                    console.giveBack(this);
+                }
+            } finally {
+                BulkheadManager.release(owner);
+            }
+        } else if (connection != null) {
+            // the connection still belongs to the request
+            SQLExecutor.getInstance().restore(connection, autoCommitChanged);
+        }
+    }
+
+    public String getCursorId() {
+        return cursorId;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public Long getDataSourceId() {
+        return dataSourceId;
+    }
+
+    public Long getConsoleId() {
+        return consoleId;
+    }
+
+    public String getSql() {
+        return sql;
+    }
+
+    public List<Header> getHeaderList() {
+        return headerList;
+    }
+
+    public synchronized int getPosition() {
+        return position;
+    }
+
+    public synchronized boolean isExhausted() {
+        return exhausted;
+    }
+
+    public long getLastUsedTime() {
+        return lastUsedTime;
+    }
+}
@@ -0,0 +1,180 @@
+package ai.chat2db.spi.sql;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import ai.chat2db.spi.util.JdbcJarUtils;
+import com.alibaba.fastjson2.JSON;
+import com.alibaba.fastjson2.TypeReference;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * Index of the packages and JDBC drivers in each driver jar, kept in the driver directory so that a jar is scanned
+ * only once instead of on every start. An entry is rebuilt when the size or the modified time of the jar changes.
+ */
+@Slf4j
+public class DriverJarIndex {
+
+    private static final String INDEX_FILE = JdbcJarUtils.PATH + "driver-index.json";
+
+    private static final String DRIVER_SERVICE = "META-INF/services/java.sql.Driver";
+
+    private static final Map<String, JarIndex> INDEX_MAP = load();
+
+    /**
+     * @param jarName
+     * @return index of the jar, null if the jar is missing or is not a valid jar
+     */
+    public static JarIndex get(String jarName) {
+        File file = new File(JdbcJarUtils.PATH + jarName);
+        if (!file.isFile()) {
+            return null;
+        }
+        JarIndex index = INDEX_MAP.get(jarName);
+        if (index != null && index.getSize() == file.length() && index.getLastModified() == file.lastModified()) {
+            return index;
+        }
+        index = scan(jarName, file);
+        if (index == null) {
+            INDEX_MAP.remove(jarName);
+        } else {
+            INDEX_MAP.put(jarName, index);
+        }
+        save();
+        return index;
+    }
+
+    /**
+     * @param jarNames
+     * @param className
+     * @return name of the jar containing the package of the class, null if none
+     */
+    public static String findJar(String[] jarNames, String className) {
+        if (StringUtils.isBlank(className) || className.lastIndexOf('.') < 0) {
+            return null;
+        }
+        String packageName = className.substring(0, className.lastIndexOf('.'));
+        for (String jarName : jarNames) {
+            JarIndex index = get(jarName);
+            if (index != null && index.getPackages().contains(packageName)) {
+                return jarName;
+            }
+        }
+        return null;
+    }
+
+    private static JarIndex scan(String jarName, File file) {
+        long start = System.currentTimeMillis();
+        JarIndex index = new JarIndex();
+        index.setSize(file.length());
+        index.setLastModified(file.lastModified());
+        Set<String> packages = new TreeSet<>();
+        List<String> drivers = new ArrayList<>();
+        try (ZipFile zipFile = new ZipFile(file)) {
+            Enumeration<? extends ZipEntry> entries = zipFile.entries();
+            while (entries.hasMoreElements()) {
+                String name = entries.nextElement().getName();
+                if (name.endsWith(".class") && !name.startsWith("META-INF/") && name.lastIndexOf('/') > 0) {
+                    packages.add(name.substring(0, name.lastIndexOf('/')).replace('/', '.'));
+                }
+            }
+            ZipEntry service = zipFile.getEntry(DRIVER_SERVICE);
+            if (service != null) {
+                try (BufferedReader reader = new BufferedReader(
+                    new InputStreamReader(zipFile.getInputStream(service), StandardCharsets.UTF_8))) {
+                    String line;
+                    while ((line = reader.readLine()) != null) {
+                        line = StringUtils.substringBefore(line, "#").trim();
+                        if (!line.isEmpty()) {
+                            drivers.add(line);
+                        }
+                    }
+                }
+            }
+        } catch (IOException e) {
+            log.warn("scan driver jar error:{}", file, e);
+            return null;
+        }
+        index.setPackages(packages);
+        index.setDrivers(drivers);
+        log.info("scan driver jar:{}, packages:{}, cost:{}ms", jarName, packages.size(),
+            System.currentTimeMillis() - start);
+        return index;
+    }
+
+    private static Map<String, JarIndex> load() {
+        Map<String, JarIndex> map = new ConcurrentHashMap<>();
+        File file = new File(INDEX_FILE);
+        if (!file.isFile()) {
+            return map;
+        }
+        try {
+            Map<String, JarIndex> saved = JSON.parseObject(Files.readString(file.toPath()),
+                new TypeReference<Map<String, JarIndex>>() {});
+            if (saved != null) {
+                map.putAll(saved);
+            }
+        } catch (Exception e) {
+            log.warn("load driver jar index error:{}", file, e);
+        }
+        return map;
+    }
+
+    private static synchronized void save() {
+        Path target = Paths.get(INDEX_FILE);
+        Path temp = Paths.get(INDEX_FILE + ".tmp");
+        try {
+            Files.writeString(temp, JSON.toJSONString(INDEX_MAP));
+            try {
+                Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            log.warn("save driver jar index error:{}", target, e);
+        }
+    }
+
+    @Data
+    public static class JarIndex {
+
+        /**
+         * Size of the jar when it was scanned
+         */
+        private long size;
+
+        /**
+         * Modified time of the jar when it was scanned
+         */
+        private long lastModified;
+
+        /**
+         * Packages containing classes
+         */
+        private Set<String> packages;
+
+        /**
+         * Drivers registered in {@code META-INF/services/java.sql.Driver}
+         */
+        private List<String> drivers;
+    }
+}
@@ -0,0 +1,404 @@
+package ai.chat2db.spi.sql;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import ai.chat2db.server.tools.common.exception.ConnectionException;
+import ai.chat2db.spi.config.DriverJarConfig;
+import ai.chat2db.spi.enums.DriverJarStatusEnum;
+import ai.chat2db.spi.model.DriverJarStatus;
+import ai.chat2db.spi.util.JdbcJarUtils;
+import lombok.extern.slf4j.Slf4j;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * Downloads JDBC driver jars in the background. Concurrent requests for the same jar share one download, the jar is
+ * written to a temporary file, verified against its sha256 checksum and then renamed into the driver directory, so a
+ * half written jar is never loaded.
+ */
+@Slf4j
+public class DriverJarManager {
+
+    private static final Map<String, DownloadTask> TASK_MAP = new ConcurrentHashMap<>();
+
+    private static final AtomicInteger THREAD_COUNT = new AtomicInteger();
+
+    private static final ExecutorService EXECUTOR = Executors.newFixedThreadPool(
+        Math.max(1, DriverJarConfig.getInstance().getThreads()), r -> {
+            Thread thread = new Thread(r, "chat2db-driver-download-" + THREAD_COUNT.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+    private static final OkHttpClient CLIENT = new OkHttpClient();
+
+    private static final String CHECKSUM_SUFFIX = ".sha256";
+
+    /**
+     * Digests of the jars listed in the configured checksums file
+     */
+    private static final Map<String, String> KNOWN_CHECKSUMS = loadChecksums(
+        DriverJarConfig.getInstance().getChecksums());
+
+    /**
+     * Make sure the jar is in the driver directory, downloading it from the mirror or the download url if missing.
+     *
+     * @param jarName
+     * @return completed with the jar file
+     */
+    public static CompletableFuture<File> provision(String jarName) {
+        return provision(jarName, null);
+    }
+
+    /**
+     * Make sure the jar is in the driver directory, joining the running download of the same jar if there is one.
+     *
+     * @param jarName
+     * @param url     null to use the configured download url
+     * @return completed with the jar file
+     */
+    public static CompletableFuture<File> provision(String jarName, String url) {
+        File file = getFile(jarName);
+        DownloadTask current = TASK_MAP.get(jarName);
+        if (file.exists() && (current == null || current.future.isDone())) {
+            return CompletableFuture.completedFuture(file);
+        }
+        DownloadTask[] created = new DownloadTask[1];
+        DownloadTask task = TASK_MAP.compute(jarName, (k, old) -> {
+            if (old != null && !old.future.isDone()) {
+                return old;
+            }
+            created[0] = new DownloadTask(k, StringUtils.isBlank(url) ? getDownloadUrl(k) : url);
+            return created[0];
+        });
+        if (created[0] != null) {
+            EXECUTOR.execute(created[0]);
+        }
+        return task.future;
+    }
+
+    /**
+     * Delete the jar and download it again, used when the jar on disk can not be loaded.
+     *
+     * @param jarName
+     * @return completed with the jar file
+     */
+    public static CompletableFuture<File> reprovision(String jarName) {
+        DownloadTask current = TASK_MAP.get(jarName);
+        if (current == null || current.future.isDone()) {
+            File file = getFile(jarName);
+            if (file.exists() && !file.delete()) {
+                log.warn("delete driver jar error:{}", file);
+            }
+        }
+        return provision(jarName);
+    }
+
+    /**
+     * Download the jars in parallel without waiting for them.
+     *
+     * @param jarNames
+     */
+    public static void prefetch(Collection<String> jarNames) {
+        for (String jarName : new LinkedHashSet<>(jarNames)) {
+            if (StringUtils.isNotBlank(jarName)) {
+                provision(jarName.trim()).exceptionally(e -> {
+                    log.warn("prefetch driver jar error:{}", jarName, e);
+                    return null;
+                });
+            }
+        }
+    }
+
+    /**
+     * Get the jar for the current request. Waits a short while for a running download, the request is rejected
+     * with a not ready error instead of waiting for the whole download.
+     *
+     * @param jarName
+     * @return the jar file
+     */
+    public static File getReady(String jarName) {
+        File file = getFile(jarName);
+        DownloadTask current = TASK_MAP.get(jarName);
+        if (file.exists() && (current == null || current.future.isDone())) {
+            return file;
+        }
+        return await(jarName, provision(jarName));
+    }
+
+    /**
+     * Same as {@link #getReady(String)} after deleting the jar on disk.
+     *
+     * @param jarName
+     * @return the jar file
+     */
+    public static File getReadyAgain(String jarName) {
+        return await(jarName, reprovision(jarName));
+    }
+
+    /**
+     * @param jarName
+     * @return progress of the jar
+     */
+    public static DriverJarStatus status(String jarName) {
+        DownloadTask task = TASK_MAP.get(jarName);
+        if (task != null) {
+            return task.toStatus();
+        }
+        DriverJarStatusEnum status = getFile(jarName).exists() ? DriverJarStatusEnum.READY
+            : DriverJarStatusEnum.MISSING;
+        return DriverJarStatus.builder().jarName(jarName).status(status.getCode()).build();
+    }
+
+    /**
+     * @return progress of the jars downloaded since the start
+     */
+    public static List<DriverJarStatus> status() {
+        List<DriverJarStatus> list = new ArrayList<>();
+        TASK_MAP.values().forEach(task -> list.add(task.toStatus()));
+        return list;
+    }
+
+    public static void close() {
+        EXECUTOR.shutdownNow();
+    }
+
+    private static File await(String jarName, CompletableFuture<File> future) {
+        try {
+            return future.get(DriverJarConfig.getInstance().getWaitTimeout(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            throw new ConnectionException("connection.driver.notReady", new Object[] {jarName});
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ConnectionException("connection.driver.notReady", new Object[] {jarName});
+        } catch (ExecutionException e) {
+            throw new ConnectionException("connection.driver.download.error", new Object[] {jarName}, e.getCause());
+        }
+    }
+
+    private static File getFile(String jarName) {
+        return new File(JdbcJarUtils.PATH + jarName);
+    }
+
+    private static String getDownloadUrl(String jarName) {
+        String downloadUrl = DriverJarConfig.getInstance().getDownloadUrl();
+        return downloadUrl.endsWith("/") ? downloadUrl + jarName : downloadUrl + "/" + jarName;
+    }
+
+    private static File download(DownloadTask task) throws IOException {
+        DriverJarConfig config = DriverJarConfig.getInstance();
+        Path target = getFile(task.jarName).toPath();
+        Path temp = Files.createTempFile(Paths.get(JdbcJarUtils.PATH), task.jarName + ".", ".part");
+        try {
+            String digest;
+            String expected;
+            File mirrorFile = StringUtils.isBlank(config.getMirror()) ? null : new File(config.getMirror(),
+                task.jarName);
+            if (mirrorFile != null && mirrorFile.isFile()) {
+                task.totalBytes = mirrorFile.length();
+                try (InputStream is = new FileInputStream(mirrorFile)) {
+                    digest = copy(is, temp, task);
+                }
+                File checksumFile = new File(config.getMirror(), task.jarName + CHECKSUM_SUFFIX);
+                expected = checksumFile.isFile() ? parseChecksum(
+                    new String(Files.readAllBytes(checksumFile.toPath()), StandardCharsets.UTF_8)) : null;
+            } else if (config.isOffline()) {
+                throw new IOException("Driver jar not found in the mirror directory: " + task.jarName);
+            } else {
+                try {
+                    digest = fetch(task, temp);
+                } catch (IOException e) {
+                    log.warn("download driver jar error, retry:{}", task.url, e);
+                    digest = fetch(task, temp);
+                }
+                expected = fetchChecksum(task.url + CHECKSUM_SUFFIX);
+            }
+            String known = KNOWN_CHECKSUMS.get(task.jarName);
+            if (known != null) {
+                expected = known;
+            }
+            if (expected == null) {
+                if (config.isRequireChecksum()) {
+                    throw new IOException("Checksum not found: " + task.jarName);
+                }
+                log.warn("driver jar {} has no sha256 checksum, it is used without verification", task.jarName);
+            } else if (!expected.equalsIgnoreCase(digest)) {
+                throw new IOException("Checksum mismatch: " + task.jarName + ", expected " + expected
+                    + " but was " + digest);
+            }
+            try {
+                Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+            log.info("driver jar ready:{}", target);
+            return target.toFile();
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private static String fetch(DownloadTask task, Path temp) throws IOException {
+        task.downloadedBytes = 0;
+        Request request = new Request.Builder().url(task.url).build();
+        try (Response response = CLIENT.newCall(request).execute()) {
+            ResponseBody body = response.body();
+            if (!response.isSuccessful() || body == null) {
+                throw new IOException("Unexpected code " + response);
+            }
+            task.totalBytes = body.contentLength();
+            try (InputStream is = body.byteStream()) {
+                return copy(is, temp, task);
+            }
+        }
+    }
+
+    private static String fetchChecksum(String url) {
+        Request request = new Request.Builder().url(url).build();
+        try (Response response = CLIENT.newCall(request).execute()) {
+            ResponseBody body = response.body();
+            if (!response.isSuccessful() || body == null) {
+                return null;
+            }
+            return parseChecksum(body.string());
+        } catch (IOException e) {
+            log.info("fetch driver checksum error:{}", url, e);
+            return null;
+        }
+    }
+
+    private static Map<String, String> loadChecksums(String checksums) {
+        Map<String, String> map = new ConcurrentHashMap<>();
+        if (StringUtils.isBlank(checksums)) {
+            return map;
+        }
+        try {
+            for (String line : Files.readAllLines(Paths.get(checksums), StandardCharsets.UTF_8)) {
+                String[] parts = StringUtils.split(StringUtils.trimToEmpty(line));
+                String digest = parseChecksum(line);
+                if (digest != null && parts.length > 1) {
+                    // sha256sum marks binary files with a leading *
+                    map.put(Paths.get(StringUtils.removeStart(parts[1], "*")).getFileName().toString(), digest);
+                }
+            }
+            log.info("driver jar checksums loaded:{}", map.size());
+        } catch (IOException e) {
+            log.error("load driver jar checksums error:{}", checksums, e);
+        }
+        return map;
+    }
+
+    /**
+     * Accepts both a bare hex digest and the {@code sha256sum} output format
+     */
+    private static String parseChecksum(String content) {
+        String[] parts = StringUtils.split(StringUtils.trimToEmpty(content));
+        if (parts == null || parts.length == 0 || !parts[0].matches("[0-9a-fA-F]{64}")) {
+            return null;
+        }
+        return parts[0].toLowerCase();
+    }
+
+    private static String copy(InputStream is, Path temp, DownloadTask task) throws IOException {
+        MessageDigest messageDigest;
+        try {
+            messageDigest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IOException(e);
+        }
+        try (OutputStream os = Files.newOutputStream(temp)) {
+            byte[] buffer = new byte[8192];
+            int length;
+            while ((length = is.read(buffer)) != -1) {
+                os.write(buffer, 0, length);
+                messageDigest.update(buffer, 0, length);
+                task.downloadedBytes += length;
+            }
+        }
+        StringBuilder hex = new StringBuilder();
+        for (byte b : messageDigest.digest()) {
+            hex.append(String.format("%02x", b));
+        }
+        return hex.toString();
+    }
+
+    private static class DownloadTask implements Runnable {
+
+        private final String jarName;
+
+        private final String url;
+
+        private final CompletableFuture<File> future = new CompletableFuture<>();
+
+        private volatile long downloadedBytes;
+
+        private volatile long totalBytes = -1;
+
+        private DownloadTask(String jarName, String url) {
+            this.jarName = jarName;
+            this.url = url;
+        }
+
+        @Override
+        public void run() {
+            try {
+                future.complete(download(this));
+            } catch (Throwable e) {
+                log.error("download driver jar error:{}", url, e);
+                future.completeExceptionally(e);
+            }
+        }
+
+        private DriverJarStatus toStatus() {
+            DriverJarStatusEnum status;
+            String message = null;
+            if (!future.isDone()) {
+                status = DriverJarStatusEnum.DOWNLOADING;
+            } else if (future.isCompletedExceptionally()) {
+                status = DriverJarStatusEnum.FAILED;
+                try {
+                    future.join();
+                } catch (Exception e) {
+                    message = e.getCause() == null ? e.getMessage() : e.getCause().getMessage();
+                }
+            } else {
+                status = DriverJarStatusEnum.READY;
+            }
+            return DriverJarStatus.builder()
+                .jarName(jarName)
+                .status(status.getCode())
+                .downloadedBytes(downloadedBytes)
+                .totalBytes(totalBytes)
+                .message(message)
+                .build();
+        }
+    }
+}
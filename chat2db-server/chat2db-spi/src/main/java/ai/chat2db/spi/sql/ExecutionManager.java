@@ -0,0 +1,166 @@
+package ai.chat2db.spi.sql;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import ai.chat2db.server.tools.common.model.LoginUser;
+import ai.chat2db.server.tools.common.util.ContextUtils;
+import ai.chat2db.spi.DBManage;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * Statements that are being executed, so that they can be cancelled from another request.
+ */
+@Slf4j
+public class ExecutionManager {
+
+    /**
+     * Time to wait for {@link Statement#cancel()} before killing the query from another connection, in milliseconds
+     */
+    private static final long KILL_DELAY = Long.getLong("chat2db.cancel.killDelay", 3 * 1000L);
+
+    private static final Set<Execution> EXECUTIONS = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Session id of each connection on the server, empty if the database has none
+     */
+    private static final Cache<Connection, String> SESSION_ID_CACHE = CacheBuilder.newBuilder().weakKeys().build();
+
+    private static final ScheduledExecutorService KILLER = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "chat2db-query-killer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * Record a statement of the current context before it is executed.
+     *
+     * @param statement
+     * @param sql
+     * @return null if there is no context
+     */
+    public static Execution register(Statement statement, String sql) {
+        ConnectInfo connectInfo = Chat2DBContext.getConnectInfo();
+        if (connectInfo == null) {
+            return null;
+        }
+        LoginUser loginUser = ContextUtils.queryLoginUser();
+        Execution execution = new Execution(connectInfo.getExecutionId(), loginUser != null ? loginUser.getId() : null,
+            connectInfo.copy(), statement, sql);
+        try {
+            execution.sessionId = getSessionId(statement.getConnection(), connectInfo.getDbType());
+        } catch (SQLException e) {
+            log.warn("get connection of statement error", e);
+        }
+        EXECUTIONS.add(execution);
+        return execution;
+    }
+
+    public static void unregister(Execution execution) {
+        if (execution != null) {
+            EXECUTIONS.remove(execution);
+        }
+    }
+
+    /**
+     * Cancel the running statements of the user on a console.
+     *
+     * @param dataSourceId
+     * @param consoleId
+     * @param executionId  null means all statements of the console
+     * @param userId
+     * @return the number of statements cancelled
+     */
+    public static int cancel(Long dataSourceId, Long consoleId, String executionId, Long userId) {
+        List<Execution> executions = EXECUTIONS.stream()
+            .filter(execution -> Objects.equals(execution.connectInfo.getDataSourceId(), dataSourceId)
+                && Objects.equals(execution.connectInfo.getConsoleId(), consoleId)
+                && Objects.equals(execution.userId, userId)
+                && (executionId == null || executionId.equals(execution.executionId)))
+            .toList();
+        executions.forEach(ExecutionManager::cancel);
+        return executions.size();
+    }
+
+    private static void cancel(Execution execution) {
+        log.info("cancel execution {} of console {}", execution.executionId, execution.connectInfo.getConsoleId());
+        try {
+            execution.statement.cancel();
+        } catch (Exception e) {
+            log.warn("cancel statement error", e);
+        }
+        KILLER.schedule(() -> {
+            if (EXECUTIONS.contains(execution)) {
+                kill(execution);
+            }
+        }, KILL_DELAY, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * The driver could not cancel the statement, ask the database to stop it from another connection.
+     */
+    private static void kill(Execution execution) {
+        ConnectInfo connectInfo = execution.connectInfo.copy();
+        // Killing a query must not wait behind the queries of the datasource
+        connectInfo.setWorkload(null);
+        log.info("kill session {} of datasource {}", execution.sessionId, connectInfo.getDataSourceId());
+        try {
+            Chat2DBContext.putContext(connectInfo);
+            DBManage dbManage = Chat2DBContext.getDBManage();
+            dbManage.killQuery(Chat2DBContext.getConnection(), execution.sessionId, execution.sql);
+        } catch (Exception e) {
+            log.warn("kill query error", e);
+        } finally {
+            Chat2DBContext.removeContext();
+        }
+    }
+
+    private static String getSessionId(Connection connection, String dbType) {
+        String sessionId = SESSION_ID_CACHE.getIfPresent(connection);
+        if (sessionId == null) {
+            try {
+                sessionId = StringUtils.defaultString(
+                    Chat2DBContext.PLUGIN_MAP.get(dbType).getDBManage().getSessionId(connection));
+            } catch (Exception e) {
+                log.warn("get session id error", e);
+                sessionId = "";
+            }
+            SESSION_ID_CACHE.put(connection, sessionId);
+        }
+        return StringUtils.defaultIfEmpty(sessionId, null);
+    }
+
+    public static class Execution {
+
+        private final String executionId;
+
+        private final Long userId;
+
+        private final ConnectInfo connectInfo;
+
+        private final Statement statement;
+
+        private final String sql;
+
+        private String sessionId;
+
+        private Execution(String executionId, Long userId, ConnectInfo connectInfo, Statement statement, String sql) {
+            this.executionId = executionId;
+            this.userId = userId;
+            this.connectInfo = connectInfo;
+            this.statement = statement;
+            this.sql = sql;
+        }
+    }
+}
@@ -8,15 +8,25 @@ import java.net.URLClassLoader;
 import java.sql.Connection;
 import java.sql.Driver;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import com.alibaba.fastjson2.JSON;
 
 import ai.chat2db.server.tools.common.exception.ConnectionException;
 import ai.chat2db.spi.config.DriverConfig;
+import ai.chat2db.spi.config.DriverJarConfig;
 import ai.chat2db.spi.model.DriverEntry;
+import ai.chat2db.spi.model.DriverLoadStats;
 import ai.chat2db.spi.util.JdbcJarUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
@@ -32,6 +42,13 @@ public class IDriverManager {
     private static final Logger log = LoggerFactory.getLogger(IDriverManager.class);
     private static final Map<String, ClassLoader> CLASS_LOADER_MAP = new ConcurrentHashMap();
     private static final Map<String, DriverEntry> DRIVER_ENTRY_MAP = new ConcurrentHashMap();
+    private static final Map<String, Object> CLASS_LOADER_LOCK_MAP = new ConcurrentHashMap<>();
+    private static final ExecutorService WARM_UP_EXECUTOR = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "chat2db-driver-warmup");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private static volatile ClassLoader sharedClassLoader;
 
     public static Connection getConnection(String url, DriverConfig driver) throws SQLException {
         Properties info = new Properties();
@@ -111,17 +128,29 @@ public class IDriverManager {
     }
 
     private static DriverEntry getJDBCDriver(DriverConfig driver)
+        throws SQLException {
+        return getJDBCDriver(driver, false);
+    }
+
+    private static DriverEntry getJDBCDriver(DriverConfig driver, boolean warmUp)
         throws SQLException {
         synchronized (driver) {
             try {
                 if (DRIVER_ENTRY_MAP.containsKey(driver.getJdbcDriver())) {
                     return DRIVER_ENTRY_MAP.get(driver.getJdbcDriver());
                 }
+                long start = System.currentTimeMillis();
                 ClassLoader cl = getClassLoader(driver);
-                Driver d = (Driver)cl.loadClass(driver.getJdbcDriverClass()).newInstance();
-                DriverEntry driverEntry = DriverEntry.builder().driverConfig(driver).driver(d).build();
+                Driver d = (Driver)Class.forName(driver.getJdbcDriverClass(), true, cl).getDeclaredConstructor()
+                    .newInstance();
+                long loadTime = System.currentTimeMillis() - start;
+                log.info("load driver:{}, warmUp:{}, cost:{}ms", driver.getJdbcDriverClass(), warmUp, loadTime);
+                DriverEntry driverEntry = DriverEntry.builder().driverConfig(driver).driver(d).loadTime(loadTime)
+                    .loadedAt(System.currentTimeMillis()).warmUp(warmUp).build();
                 DRIVER_ENTRY_MAP.put(driver.getJdbcDriver(), driverEntry);
                 return driverEntry;
+            } catch (ConnectionException e) {
+                throw e;
             } catch (Exception e) {
                 throw new ConnectionException("connection.driver.load.error", null, e);
             }
@@ -129,12 +158,65 @@ public class IDriverManager {
 
     }
 
+    /**
+     * Download and load the drivers in the background, so that the first connection of each data source does not
+     * pay for it. The drivers are loaded one by one to keep the start light.
+     *
+     * @param driverConfigs
+     */
+    public static void warmUp(Collection<DriverConfig> driverConfigs) {
+        Map<String, DriverConfig> configMap = new LinkedHashMap<>();
+        for (DriverConfig driverConfig : driverConfigs) {
+            if (driverConfig != null && StringUtils.isNotBlank(driverConfig.getJdbcDriver())
+                && StringUtils.isNotBlank(driverConfig.getJdbcDriverClass())) {
+                configMap.putIfAbsent(driverConfig.getJdbcDriver(), driverConfig);
+            }
+        }
+        for (DriverConfig driverConfig : configMap.values()) {
+            if (DRIVER_ENTRY_MAP.containsKey(driverConfig.getJdbcDriver())) {
+                continue;
+            }
+            CompletableFuture<?>[] jars = Arrays.stream(driverConfig.getJdbcDriver().split(","))
+                .map(jarName -> DriverJarManager.provision(jarName.trim()))
+                .toArray(CompletableFuture[]::new);
+            CompletableFuture.allOf(jars).thenRunAsync(() -> {
+                try {
+                    getJDBCDriver(driverConfig, true);
+                } catch (Exception e) {
+                    log.warn("warm up driver error:{}", driverConfig.getJdbcDriver(), e);
+                }
+            }, WARM_UP_EXECUTOR).exceptionally(e -> {
+                log.warn("warm up driver error:{}", driverConfig.getJdbcDriver(), e);
+                return null;
+            });
+        }
+    }
+
+    /**
+     * @return load time of the drivers loaded since the start
+     */
+    public static List<DriverLoadStats> stats() {
+        List<DriverLoadStats> list = new ArrayList<>();
+        for (DriverEntry driverEntry : DRIVER_ENTRY_MAP.values()) {
+            DriverConfig driverConfig = driverEntry.getDriverConfig();
+            list.add(DriverLoadStats.builder()
+                .dbType(driverConfig.getDbType())
+                .jdbcDriver(driverConfig.getJdbcDriver())
+                .jdbcDriverClass(driverConfig.getJdbcDriverClass())
+                .loadTime(driverEntry.getLoadTime())
+                .loadedAt(driverEntry.getLoadedAt())
+                .warmUp(driverEntry.getWarmUp())
+                .build());
+        }
+        return list;
+    }
+
     public static ClassLoader getClassLoader(DriverConfig driverConfig) throws MalformedURLException {
         String jarPath = driverConfig.getJdbcDriver();
         if (CLASS_LOADER_MAP.containsKey(jarPath)) {
             return CLASS_LOADER_MAP.get(jarPath);
         } else {
-            synchronized (jarPath) {
+            synchronized (CLASS_LOADER_LOCK_MAP.computeIfAbsent(jarPath, k -> new Object())) {
                 if (CLASS_LOADER_MAP.containsKey(jarPath)) {
                     return CLASS_LOADER_MAP.get(jarPath);
                 }
@@ -142,30 +224,49 @@ public class IDriverManager {
                 URL[] urls = new URL[jarPaths.length];
                 for (int i = 0; i < jarPaths.length; i++) {
                     File driverFile = new File(getFullPath(jarPaths[i]));
+                    // 不是有效的jar包时删除重新下载, 下载未完成时抛出驱动未就绪
+                    if (DriverJarIndex.get(jarPaths[i]) == null && !driverConfig.isCustom()) {
+                        driverFile = new File(JdbcJarUtils.getNewFullPath(jarPaths[i]));
+                    }
                     urls[i] = driverFile.toURI().toURL();
                 }
-                //urls[jarPaths.length] = new File(JdbcJarUtils.getFullPath("HikariCP-4.0.3.jar")).toURI().toURL();
+                if (DriverJarIndex.findJar(jarPaths, driverConfig.getJdbcDriverClass()) == null) {
+                    log.warn("driver class:{} not found in:{}", driverConfig.getJdbcDriverClass(), jarPath);
+                }
 
-                URLClassLoader cl = new URLClassLoader(urls, ClassLoader.getSystemClassLoader());
+                URLClassLoader cl = new URLClassLoader(urls, getSharedClassLoader());
                 log.info("ClassLoader class:{}", cl.hashCode());
                 log.info("ClassLoader URLs:{}", JSON.toJSONString(cl.getURLs()));
-
-                try {
-                    cl.loadClass(driverConfig.getJdbcDriverClass());
-                } catch (Exception e) {
-                    //如果报错删除目录重试一次
-                    for (int i = 0; i < jarPaths.length; i++) {
-                        File driverFile = new File(JdbcJarUtils.getNewFullPath(jarPaths[i]));
-                        urls[i] = driverFile.toURI().toURL();
-                    }
-                    //urls[jarPaths.length] = new File(JdbcJarUtils.getFullPath("HikariCP-4.0.3.jar")).toURI().toURL();
-                    cl = new URLClassLoader(urls, ClassLoader.getSystemClassLoader());
-
-                }
                 CLASS_LOADER_MAP.put(jarPath, cl);
                 return cl;
             }
         }
     }
 
-}
\ No newline at end of file
+    /**
+     * Parent of the driver class loaders, holding the jars configured by {@code chat2db.driver.sharedJars}
+     */
+    private static ClassLoader getSharedClassLoader() throws MalformedURLException {
+        String sharedJars = DriverJarConfig.getInstance().getSharedJars();
+        if (StringUtils.isBlank(sharedJars)) {
+            return ClassLoader.getSystemClassLoader();
+        }
+        ClassLoader cl = sharedClassLoader;
+        if (cl != null) {
+            return cl;
+        }
+        synchronized (IDriverManager.class) {
+            if (sharedClassLoader == null) {
+                String[] jarPaths = StringUtils.split(sharedJars, ",");
+                URL[] urls = new URL[jarPaths.length];
+                for (int i = 0; i < jarPaths.length; i++) {
+                    urls[i] = new File(getFullPath(jarPaths[i].trim())).toURI().toURL();
+                }
+                sharedClassLoader = new URLClassLoader(urls, ClassLoader.getSystemClassLoader());
+                log.info("Shared ClassLoader URLs:{}", JSON.toJSONString(urls));
+            }
+            return sharedClassLoader;
+        }
+    }
+
+}
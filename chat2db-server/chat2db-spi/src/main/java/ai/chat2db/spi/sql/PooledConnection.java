@@ -0,0 +1,83 @@
+package ai.chat2db.spi.sql;
+
+import java.sql.Connection;
+
+import ai.chat2db.spi.model.SSHInfo;
+import ai.chat2db.spi.ssh.SSHManager;
+import com.jcraft.jsch.Session;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * A physical connection owned by a {@link ConnectionPool}, together with the ssh tunnel it was opened through.
+ */
+@Slf4j
+public class PooledConnection {
+
+    private final Connection connection;
+
+    private final Session session;
+
+    private final SSHInfo ssh;
+
+    private final long createTime;
+
+    private volatile long lastUsedTime;
+
+    private volatile long lastValidatedTime;
+
+    public PooledConnection(Connection connection, Session session, SSHInfo ssh) {
+        this.connection = connection;
+        this.session = session;
+        this.ssh = ssh;
+        this.createTime = System.currentTimeMillis();
+        this.lastUsedTime = this.createTime;
+        this.lastValidatedTime = this.createTime;
+    }
+
+    public Connection getConnection() {
+        return connection;
+    }
+
+    public Session getSession() {
+        return session;
+    }
+
+    public long getCreateTime() {
+        return createTime;
+    }
+
+    public long getLastUsedTime() {
+        return lastUsedTime;
+    }
+
+    /**
+     * Last time the connection was used or found alive
+     */
+    public long getLastActiveTime() {
+        return Math.max(lastUsedTime, lastValidatedTime);
+    }
+
+    public void touch() {
+        this.lastUsedTime = System.currentTimeMillis();
+    }
+
+    public void validated() {
+        this.lastValidatedTime = System.currentTimeMillis();
+    }
+
+    /**
+     * Close the physical connection and give back the port forwarding it used.
+     */
+    public void close() {
+        try {
+            if (!connection.isClosed()) {
+                connection.close();
+            }
+        } catch (Exception e) {
+            log.warn("close pooled connection error", e);
+        }
+        if (session != null) {
+            SSHManager.release(ssh);
+        }
+    }
+}
@@ -4,17 +4,26 @@ import java.sql.Connection;
 import java.sql.ResultSet;
 import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
+import java.sql.Savepoint;
 import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
-import ai.chat2db.server.tools.base.constant.EasyToolsConstant;
+import ai.chat2db.server.tools.common.util.EasyEnumUtils;
 import ai.chat2db.server.tools.common.util.I18nUtils;
+import ai.chat2db.spi.ColumnReader;
+import ai.chat2db.spi.config.ExecutionProfile;
+import ai.chat2db.spi.enums.StreamingModeEnum;
 import ai.chat2db.spi.model.*;
 import ai.chat2db.spi.util.ResultSetUtils;
 import cn.hutool.core.date.TimeInterval;
+import com.alibaba.druid.DbType;
 import com.google.common.collect.Lists;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.collections4.CollectionUtils;
@@ -34,6 +43,11 @@ public class SQLExecutor {
      */
     private static final SQLExecutor INSTANCE = new SQLExecutor();
 
+    /**
+     * Statements sent to the database in one batch
+     */
+    private static final int BATCH_SIZE = 500;
+
     private SQLExecutor() {
     }
 
@@ -100,7 +114,14 @@ public class SQLExecutor {
                            Consumer<List<String>> rowConsumer, boolean limitSize) {
         Assert.notNull(sql, "SQL must not be null");
         log.info("execute:{}", sql);
+        ExecutionManager.Execution execution = null;
+        boolean autoCommitChanged = false;
         try (Statement stmt = connection.createStatement();) {
+            ExecutionProfile profile = Chat2DBContext.getExecutionProfile();
+            autoCommitChanged = prepare(stmt, profile, true);
+            // 导出会读取整张表，不受普通查询超时的限制
+            stmt.setQueryTimeout(profile.getExportTimeout());
+            execution = ExecutionManager.register(stmt, sql);
             boolean query = stmt.execute(sql);
             // 代表是查询
             if (query) {
@@ -113,19 +134,21 @@ public class SQLExecutor {
 
                     // 获取header信息
                     List<Header> headerList = Lists.newArrayListWithExpectedSize(col);
+                    ColumnReader[] columnReaders = new ColumnReader[col];
                     for (int i = 1; i <= col; i++) {
                         headerList.add(Header.builder()
                                 .dataType(ai.chat2db.spi.util.JdbcUtils.resolveDataType(
                                         resultSetMetaData.getColumnTypeName(i), resultSetMetaData.getColumnType(i)).getCode())
                                 .name(ResultSetUtils.getColumnName(resultSetMetaData, i))
                                 .build());
+                        columnReaders[i - 1] = ai.chat2db.spi.util.JdbcUtils.resolveColumnReader(resultSetMetaData, i);
                     }
                     headerConsumer.accept(headerList);
 
                     while (rs.next()) {
                         List<String> row = Lists.newArrayListWithExpectedSize(col);
                         for (int i = 1; i <= col; i++) {
-                            row.add(ai.chat2db.spi.util.JdbcUtils.getResultSetValue(rs, i, limitSize));
+                            row.add(read(columnReaders[i - 1], rs, i, limitSize));
                         }
                         rowConsumer.accept(row);
                     }
@@ -135,6 +158,9 @@ public class SQLExecutor {
             }
         } catch (SQLException e) {
             throw new RuntimeException(e);
+        } finally {
+            ExecutionManager.unregister(execution);
+            restore(connection, autoCommitChanged);
         }
     }
 
@@ -158,8 +184,7 @@ public class SQLExecutor {
         try (Statement stmt = connection.createStatement()) {
             int affectedRows = stmt.executeUpdate(sql);
             if (affectedRows != n) {
-                executeResult.setSuccess(false);
-                executeResult.setMessage("Update error " + sql + " update affectedRows = " + affectedRows + ", Each SQL statement should update no more than one record. Please use a unique key for updates.");
+                executeResult = updateError(sql, affectedRows);
                 connection.rollback();
             }
         }
@@ -167,7 +192,96 @@ public class SQLExecutor {
     }
 
     /**
-     * 执行sql
+     * Execute the update statements as jdbc batches of at most {@link #BATCH_SIZE} consecutive statements, each
+     * statement must affect n rows. Statements that only differ in their literals are sent as one prepared batch
+     * on the dialects of {@link UpdateBatch}. When a statement does not affect n rows, the transaction is rolled back
+     * and the statements after it are not executed.
+     * <p>
+     * The rows affected are checked for each statement the driver reports them for. A batch with statements it does
+     * not report them for, other than inserts of a single row, is rolled back to a savepoint taken before it and its
+     * statements are executed again one by one. Drivers without batch support execute all statements one by one,
+     * and so do drivers without savepoints once a batch does not report its affected rows.
+     *
+     * @param sqlList
+     * @param connection
+     * @param dbType
+     * @param n
+     * @return the results of the executed statements, the last one is the failed one if any
+     * @throws SQLException
+     */
+    public List<ExecuteResult> executeBatch(List<String> sqlList, Connection connection, DbType dbType, int n)
+            throws SQLException {
+        if (!connection.getMetaData().supportsBatchUpdates()) {
+            return executeOneByOne(sqlList, connection, n);
+        }
+        boolean savepoints = !connection.getAutoCommit() && connection.getMetaData().supportsSavepoints();
+        List<ExecuteResult> executeResults = Lists.newArrayListWithExpectedSize(sqlList.size());
+        for (UpdateBatch batch : UpdateBatch.split(sqlList, dbType, BATCH_SIZE)) {
+            log.info("execute batch of {} statements:{}", batch.size(), batch.getSqlList().get(0));
+            Savepoint savepoint = savepoints ? connection.setSavepoint() : null;
+            int[] affectedRows = batch.execute(connection);
+            List<ExecuteResult> batchResults = Lists.newArrayListWithExpectedSize(batch.size());
+            boolean unknown = false;
+            for (int i = 0; i < batch.size(); i++) {
+                String sql = batch.getSqlList().get(i);
+                int affected = i < affectedRows.length ? affectedRows[i] : Statement.SUCCESS_NO_INFO;
+                if (affected == Statement.SUCCESS_NO_INFO) {
+                    affected = batch.inferAffectedRows(i);
+                }
+                if (affected == Statement.SUCCESS_NO_INFO) {
+                    unknown = true;
+                } else if (affected != n) {
+                    batchResults.add(updateError(sql, affected));
+                    executeResults.addAll(batchResults);
+                    connection.rollback();
+                    return executeResults;
+                }
+                batchResults.add(ExecuteResult.builder().sql(sql).success(Boolean.TRUE).build());
+            }
+            if (!unknown) {
+                executeResults.addAll(batchResults);
+                continue;
+            }
+            if (savepoint == null) {
+                log.info("batch affected rows unknown, execute all statements one by one");
+                connection.rollback();
+                return executeOneByOne(sqlList, connection, n);
+            }
+            // only this batch is executed again, to learn the rows affected by each statement
+            log.info("batch affected rows unknown, execute its statements one by one");
+            connection.rollback(savepoint);
+            batchResults = executeOneByOne(batch.getSqlList(), connection, n);
+            executeResults.addAll(batchResults);
+            if (!batchResults.get(batchResults.size() - 1).getSuccess()) {
+                return executeResults;
+            }
+        }
+        return executeResults;
+    }
+
+    private List<ExecuteResult> executeOneByOne(List<String> sqlList, Connection connection, int n)
+            throws SQLException {
+        List<ExecuteResult> executeResults = Lists.newArrayListWithExpectedSize(sqlList.size());
+        for (String sql : sqlList) {
+            ExecuteResult executeResult = executeUpdate(sql, connection, n);
+            executeResults.add(executeResult);
+            if (!executeResult.getSuccess()) {
+                break;
+            }
+        }
+        return executeResults;
+    }
+
+    private ExecuteResult updateError(String sql, int affectedRows) {
+        return ExecuteResult.builder()
+            .sql(sql)
+            .success(Boolean.FALSE)
+            .message("Update error " + sql + " update affectedRows = " + affectedRows + ", Each SQL statement should update no more than one record. Please use a unique key for updates.")
+            .build();
+    }
+
+    /**
+     * 执行sql，结果按列保存在{@link ResultBatch}中，数据列表的每一行在第一次读取时生成
      *
      * @param sql
      * @param connection
@@ -180,18 +294,84 @@ public class SQLExecutor {
     public ExecuteResult execute(final String sql, Connection connection, boolean limitRowSize, Integer offset,
                                  Integer count)
             throws SQLException {
+        ResultBatch[] resultBatch = new ResultBatch[1];
+        ExecuteResult executeResult = execute(sql, connection, offset, count, new RowReader() {
+            @Override
+            public void start(List<Header> headerList, int[] columnIndexes, ColumnReader[] columnReaders) {
+                resultBatch[0] = new ResultBatch(headerList, columnIndexes, columnReaders, limitRowSize);
+            }
+
+            @Override
+            public void read(ResultSet rs) throws SQLException {
+                resultBatch[0].append(rs);
+            }
+        });
+        if (resultBatch[0] != null) {
+            executeResult.setResultBatch(resultBatch[0]);
+            executeResult.setDataList(resultBatch[0].asStringRows());
+        }
+        return executeResult;
+    }
+
+    /**
+     * Execute the sql and hand the header and each row to the consumers as soon as they are read from the
+     * result set, the returned result carries the header, duration and update count but no data.
+     *
+     * @param sql
+     * @param connection
+     * @param limitRowSize
+     * @param offset
+     * @param count
+     * @param headerConsumer
+     * @param rowConsumer
+     * @return
+     * @throws SQLException
+     */
+    public ExecuteResult execute(final String sql, Connection connection, boolean limitRowSize, Integer offset,
+                                 Integer count, Consumer<List<Header>> headerConsumer,
+                                 Consumer<List<String>> rowConsumer)
+            throws SQLException {
+        return execute(sql, connection, offset, count, new RowReader() {
+            private int[] columnIndexes;
+
+            private ColumnReader[] columnReaders;
+
+            @Override
+            public void start(List<Header> headerList, int[] columnIndexes, ColumnReader[] columnReaders) {
+                this.columnIndexes = columnIndexes;
+                this.columnReaders = columnReaders;
+                headerConsumer.accept(headerList);
+            }
+
+            @Override
+            public void read(ResultSet rs) throws SQLException {
+                List<String> row = Lists.newArrayListWithExpectedSize(columnIndexes.length);
+                for (int i = 0; i < columnIndexes.length; i++) {
+                    row.add(SQLExecutor.this.read(columnReaders[i], rs, columnIndexes[i], limitRowSize));
+                }
+                rowConsumer.accept(row);
+            }
+        });
+    }
+
+    private ExecuteResult execute(final String sql, Connection connection, Integer offset, Integer count,
+                                  RowReader rowReader)
+            throws SQLException {
         Assert.notNull(sql, "SQL must not be null");
         log.info("execute:{}", sql);
 
         ExecuteResult executeResult = ExecuteResult.builder().sql(sql).success(Boolean.TRUE).build();
+        ExecutionManager.Execution execution = null;
         try (Statement stmt = connection.createStatement()) {
-            stmt.setFetchSize(EasyToolsConstant.MAX_PAGE_SIZE);
-            stmt.setQueryTimeout(30);
+            ExecutionProfile profile = Chat2DBContext.getExecutionProfile();
+            prepare(stmt, profile, false);
             if (offset != null && count != null) {
-                stmt.setMaxRows(offset + count);
+                int maxRows = offset + count;
+                stmt.setMaxRows(profile.getMaxRows() > 0 ? Math.min(maxRows, profile.getMaxRows()) : maxRows);
             }
 
             TimeInterval timeInterval = new TimeInterval();
+            execution = ExecutionManager.register(stmt, sql);
             boolean query = stmt.execute(sql);
             executeResult.setDescription(I18nUtils.getMessage("sqlResult.success"));
             // 代表是查询
@@ -206,12 +386,13 @@ public class SQLExecutor {
                     // 获取header信息
                     List<Header> headerList = Lists.newArrayListWithExpectedSize(col);
                     executeResult.setHeaderList(headerList);
-                    int chat2dbAutoRowIdIndex = -1;// chat2db自动生成的行分页ID
-
+                    // chat2db自动生成的行分页ID不返回
+                    int[] columnIndexes = new int[col];
+                    ColumnReader[] columnReaders = new ColumnReader[col];
+                    int columnCount = 0;
                     for (int i = 1; i <= col; i++) {
                         String name = ResultSetUtils.getColumnName(resultSetMetaData, i);
                         if ("CAHT2DB_AUTO_ROW_ID".equals(name)) {
-                            chat2dbAutoRowIdIndex = i;
                             continue;
                         }
                         String dataType = ai.chat2db.spi.util.JdbcUtils.resolveDataType(
@@ -220,12 +401,14 @@ public class SQLExecutor {
                                 .dataType(dataType)
                                 .name(name)
                                 .build());
+                        columnIndexes[columnCount] = i;
+                        columnReaders[columnCount++] = ai.chat2db.spi.util.JdbcUtils.resolveColumnReader(
+                                resultSetMetaData, i);
                     }
+                    rowReader.start(headerList, Arrays.copyOf(columnIndexes, columnCount),
+                            Arrays.copyOf(columnReaders, columnCount));
 
                     // 获取数据信息
-                    List<List<String>> dataList = Lists.newArrayList();
-                    executeResult.setDataList(dataList);
-
                     if (offset == null || offset < 0) {
                         offset = 0;
                     }
@@ -235,14 +418,7 @@ public class SQLExecutor {
                         if (rowNumber++ < offset) {
                             continue;
                         }
-                        List<String> row = Lists.newArrayListWithExpectedSize(col);
-                        dataList.add(row);
-                        for (int i = 1; i <= col; i++) {
-                            if (chat2dbAutoRowIdIndex == i) {
-                                continue;
-                            }
-                            row.add(ai.chat2db.spi.util.JdbcUtils.getResultSetValue(rs, i, limitRowSize));
-                        }
+                        rowReader.read(rs);
                         if (count != null && count > 0 && rowCount++ >= count) {
                             break;
                         }
@@ -256,6 +432,8 @@ public class SQLExecutor {
                 // 修改或者其他
                 executeResult.setUpdateCount(stmt.getUpdateCount());
             }
+        } finally {
+            ExecutionManager.unregister(execution);
         }
         return executeResult;
     }
@@ -272,6 +450,56 @@ public class SQLExecutor {
         return execute(sql, connection, true, null, null);
     }
 
+    /**
+     * Apply the execution profile to the statement.
+     *
+     * @param stmt
+     * @param profile
+     * @param stream true if the statement is a query whose whole result set is read, the result set is then
+     *               streamed the way the driver family needs
+     * @return true if auto commit has been turned off, see {@link #restore(Connection, boolean)}
+     * @throws SQLException
+     */
+    boolean prepare(Statement stmt, ExecutionProfile profile, boolean stream) throws SQLException {
+        stmt.setQueryTimeout(profile.getQueryTimeout());
+        if (profile.getMaxRows() > 0) {
+            stmt.setMaxRows(profile.getMaxRows());
+        }
+        StreamingModeEnum streamingMode = EasyEnumUtils.getEnum(StreamingModeEnum.class,
+            profile.getStreamingMode());
+        if (stream && streamingMode == StreamingModeEnum.ROW_STREAMING) {
+            stmt.setFetchSize(Integer.MIN_VALUE);
+            return false;
+        }
+        stmt.setFetchSize(profile.getFetchSize());
+        if (stream && streamingMode == StreamingModeEnum.CURSOR_IN_TRANSACTION) {
+            Connection connection = stmt.getConnection();
+            if (connection.getAutoCommit()) {
+                connection.setAutoCommit(false);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Turn auto commit back on after {@link #prepare(Statement, ExecutionProfile, boolean)} turned it off.
+     *
+     * @param connection
+     * @param autoCommitChanged
+     */
+    void restore(Connection connection, boolean autoCommitChanged) {
+        if (!autoCommitChanged) {
+            return;
+        }
+        try {
+            connection.rollback();
+            connection.setAutoCommit(true);
+        } catch (SQLException e) {
+            log.warn("restore auto commit error", e);
+        }
+    }
+
     /**
      * 获取所有的数据库
      *
@@ -365,6 +593,54 @@ public class SQLExecutor {
         }
     }
 
+    /**
+     * Columns of all tables of a schema, with one getColumns call
+     *
+     * @param connection
+     * @param databaseName
+     * @param schemaName
+     * @return table name to the columns of the table
+     */
+    public Map<String, List<TableColumn>> columnsOfSchema(Connection connection, String databaseName,
+                                                          String schemaName) {
+        Map<String, List<TableColumn>> map = new LinkedHashMap<>();
+        for (TableColumn column : columns(connection, databaseName, schemaName, null, null)) {
+            map.computeIfAbsent(column.getTableName(), k -> new ArrayList<>()).add(column);
+        }
+        return map;
+    }
+
+    /**
+     * Group index columns of any number of tables into the indexes of each table, as {@link #indexes} does for one
+     * table
+     *
+     * @param tableIndexColumns index columns, with the table, index and schema of each
+     * @return table name to the indexes of the table
+     */
+    public static Map<String, List<TableIndex>> groupIndexes(List<TableIndexColumn> tableIndexColumns) {
+        Map<String, Map<String, TableIndex>> map = new LinkedHashMap<>();
+        for (TableIndexColumn column : tableIndexColumns) {
+            if (column.getIndexName() == null) {
+                continue;
+            }
+            TableIndex tableIndex = map.computeIfAbsent(column.getTableName(), k -> new LinkedHashMap<>())
+                .computeIfAbsent(column.getIndexName(), k -> {
+                    TableIndex index = new TableIndex();
+                    index.setName(column.getIndexName());
+                    index.setTableName(column.getTableName());
+                    index.setSchemaName(column.getSchemaName());
+                    index.setDatabaseName(column.getDatabaseName());
+                    index.setUnique(!Boolean.TRUE.equals(column.getNonUnique()));
+                    index.setColumnList(new ArrayList<>());
+                    return index;
+                });
+            tableIndex.getColumnList().add(column);
+        }
+        Map<String, List<TableIndex>> result = new LinkedHashMap<>();
+        map.forEach((tableName, indexes) -> result.put(tableName, new ArrayList<>(indexes.values())));
+        return result;
+    }
+
     /**
      * get all table index info
      *
@@ -460,4 +736,44 @@ public class SQLExecutor {
         return "";
     }
 
+    /**
+     * Read a column with the reader resolved for it, falling back to the conversion by the class of the value if
+     * the driver refuses the getter, e.g. an unsigned value out of the range of long.
+     *
+     * @param columnReader
+     * @param rs
+     * @param index
+     * @param limitSize
+     * @return
+     * @throws SQLException
+     */
+    public String read(ColumnReader columnReader, ResultSet rs, int index, boolean limitSize) throws SQLException {
+        try {
+            return columnReader.read(rs, index, limitSize);
+        } catch (SQLException e) {
+            log.warn("read column {} with {} error", index, columnReader, e);
+            return ai.chat2db.spi.util.JdbcUtils.getResultSetValue(rs, index, limitSize);
+        }
+    }
+
+    /**
+     * Receives the rows of a result set while it is read
+     */
+    private interface RowReader {
+
+        /**
+         * @param headerList
+         * @param columnIndexes jdbc index of the columns in the header
+         * @param columnReaders reader of the columns in the header
+         */
+        void start(List<Header> headerList, int[] columnIndexes, ColumnReader[] columnReaders);
+
+        /**
+         * Read the current row
+         *
+         * @param rs
+         * @throws SQLException
+         */
+        void read(ResultSet rs) throws SQLException;
+    }
 }
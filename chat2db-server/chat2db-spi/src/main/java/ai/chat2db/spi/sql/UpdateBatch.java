@@ -0,0 +1,197 @@
+package ai.chat2db.spi.sql;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+
+import com.alibaba.druid.DbType;
+import com.alibaba.druid.sql.SQLUtils;
+import com.alibaba.druid.sql.ast.SQLStatement;
+import com.alibaba.druid.sql.ast.statement.SQLInsertStatement;
+import com.alibaba.druid.sql.dialect.mysql.ast.statement.MySqlInsertStatement;
+import com.alibaba.druid.sql.dialect.postgresql.ast.stmt.PGInsertStatement;
+import com.alibaba.druid.sql.visitor.ParameterizedOutputVisitorUtils;
+import com.alibaba.druid.sql.visitor.VisitorFeature;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.collections4.CollectionUtils;
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * Consecutive update statements sent to the database in one jdbc batch. Statements of the same shape, that only
+ * differ in their literals, are sent as one prepared statement with a set of parameters each, so that the driver
+ * can rewrite them, e.g. into a multi-row insert. Other statements are sent as they are.
+ */
+@Slf4j
+class UpdateBatch {
+
+    /**
+     * Dialects whose drivers bind a parameter the way the literal it replaces is read
+     */
+    private static final Set<DbType> PARAMETERIZED_DB_TYPES = Set.of(DbType.mysql, DbType.mariadb,
+        DbType.postgresql, DbType.h2);
+
+    /**
+     * Keep every literal as its own parameter, and table names as they are
+     */
+    private static final VisitorFeature[] PARAMETERIZE_FEATURES = {
+        VisitorFeature.OutputParameterizedQuesUnMergeInList,
+        VisitorFeature.OutputParameterizedQuesUnMergeOr,
+        VisitorFeature.OutputParameterizedQuesUnMergeAnd,
+        VisitorFeature.OutputParameterizedQuesUnMergeValuesList,
+        VisitorFeature.OutputParameterizedUnMergeShardingTable};
+
+    private final DbType dbType;
+
+    /**
+     * The parameterized sql of the statements, null if they are sent as they are
+     */
+    private final String shape;
+
+    private final List<String> sqlList = new ArrayList<>();
+
+    private final List<List<Object>> parametersList = new ArrayList<>();
+
+    private UpdateBatch(DbType dbType, String shape) {
+        this.dbType = dbType;
+        this.shape = shape;
+    }
+
+    /**
+     * Split the statements into batches of consecutive statements, the order of the statements is kept.
+     *
+     * @param sqlList
+     * @param dbType
+     * @param maxSize
+     * @return
+     */
+    static List<UpdateBatch> split(List<String> sqlList, DbType dbType, int maxSize) {
+        List<UpdateBatch> batches = new ArrayList<>();
+        UpdateBatch batch = null;
+        for (String sql : sqlList) {
+            List<Object> parameters = new ArrayList<>();
+            String shape = parameterize(sql, dbType, parameters);
+            if (batch == null || !Objects.equals(batch.shape, shape) || batch.size() >= maxSize) {
+                batch = new UpdateBatch(dbType, shape);
+                batches.add(batch);
+            }
+            batch.sqlList.add(sql);
+            batch.parametersList.add(parameters);
+        }
+        return batches;
+    }
+
+    /**
+     * Execute the statements of the batch.
+     *
+     * @param connection
+     * @return the rows affected by each statement as reported by the driver
+     * @throws SQLException
+     */
+    int[] execute(Connection connection) throws SQLException {
+        ExecutionManager.Execution execution = null;
+        if (shape == null) {
+            try (Statement stmt = connection.createStatement()) {
+                for (String sql : sqlList) {
+                    stmt.addBatch(sql);
+                }
+                execution = ExecutionManager.register(stmt, sqlList.get(0));
+                return stmt.executeBatch();
+            } finally {
+                ExecutionManager.unregister(execution);
+            }
+        }
+        try (PreparedStatement stmt = connection.prepareStatement(shape)) {
+            for (List<Object> parameters : parametersList) {
+                for (int i = 0; i < parameters.size(); i++) {
+                    setParameter(stmt, i + 1, parameters.get(i));
+                }
+                stmt.addBatch();
+            }
+            execution = ExecutionManager.register(stmt, sqlList.get(0));
+            return stmt.executeBatch();
+        } finally {
+            ExecutionManager.unregister(execution);
+        }
+    }
+
+    /**
+     * Rows affected by a statement the driver reported as {@link Statement#SUCCESS_NO_INFO}, known without asking
+     * the database only for an insert of a single row.
+     *
+     * @param index
+     * @return {@link Statement#SUCCESS_NO_INFO} if it is not known
+     */
+    int inferAffectedRows(int index) {
+        if (dbType == null) {
+            return Statement.SUCCESS_NO_INFO;
+        }
+        SQLStatement statement;
+        try {
+            statement = SQLUtils.parseSingleStatement(sqlList.get(index), dbType);
+        } catch (Exception e) {
+            return Statement.SUCCESS_NO_INFO;
+        }
+        if (!(statement instanceof SQLInsertStatement insertStatement) || insertStatement.getQuery() != null
+            || insertStatement.getValuesList().size() != 1) {
+            return Statement.SUCCESS_NO_INFO;
+        }
+        if (statement instanceof MySqlInsertStatement mySqlInsertStatement && (mySqlInsertStatement.isIgnore()
+            || CollectionUtils.isNotEmpty(mySqlInsertStatement.getDuplicateKeyUpdate()))) {
+            return Statement.SUCCESS_NO_INFO;
+        }
+        if (statement instanceof PGInsertStatement pgInsertStatement && (pgInsertStatement.isOnConflictDoNothing()
+            || CollectionUtils.isNotEmpty(pgInsertStatement.getOnConflictUpdateSetItems()))) {
+            return Statement.SUCCESS_NO_INFO;
+        }
+        return 1;
+    }
+
+    List<String> getSqlList() {
+        return sqlList;
+    }
+
+    int size() {
+        return sqlList.size();
+    }
+
+    private void setParameter(PreparedStatement stmt, int index, Object value) throws SQLException {
+        if (value == null) {
+            stmt.setNull(index, Types.NULL);
+        } else if (value instanceof String && dbType == DbType.postgresql) {
+            // left untyped, so that the server reads it by the type of the column like a literal, e.g. a timestamp
+            stmt.setObject(index, value, Types.OTHER);
+        } else {
+            stmt.setObject(index, value);
+        }
+    }
+
+    /**
+     * @return null if the statement is sent as it is, then the parameters are left empty
+     */
+    private static String parameterize(String sql, DbType dbType, List<Object> parameters) {
+        if (dbType == null || !PARAMETERIZED_DB_TYPES.contains(dbType) || sql.indexOf('?') >= 0) {
+            return null;
+        }
+        String shape;
+        try {
+            shape = ParameterizedOutputVisitorUtils.parameterize(sql, dbType, parameters, PARAMETERIZE_FEATURES);
+        } catch (Exception e) {
+            log.debug("parameterize error:{}", sql, e);
+            parameters.clear();
+            return null;
+        }
+        // literals whose value is not extracted are replaced too, e.g. booleans
+        if (StringUtils.countMatches(shape, '?') != parameters.size() || parameters.stream().anyMatch(
+            value -> value != null && !(value instanceof String) && !(value instanceof Number))) {
+            parameters.clear();
+            return null;
+        }
+        return shape;
+    }
+}
@@ -2,6 +2,11 @@
 package ai.chat2db.spi.ssh;
 
 import java.security.Security;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 import ai.chat2db.server.tools.common.exception.ConnectionException;
 import ai.chat2db.spi.model.SSHInfo;
@@ -20,6 +25,29 @@ import org.bouncycastle.jce.provider.BouncyCastleProvider;
 @Slf4j
 public class SSHManager {
 
+    /**
+     * Shared ssh sessions keyed by jump server and credentials
+     */
+    private static final Map<String, SSHTunnel> TUNNEL_MAP = new ConcurrentHashMap<>();
+
+    /**
+     * Unused port forwardings are closed after this time, in milliseconds
+     */
+    private static final long IDLE_TIMEOUT = Long.getLong("chat2db.ssh.idleTimeout", 10 * 60 * 1000L);
+
+    /**
+     * Interval of the ssh keepalive messages, in milliseconds
+     */
+    private static final int KEEP_ALIVE_INTERVAL = Integer.getInteger("chat2db.ssh.keepAliveInterval", 30 * 1000);
+
+    private static final int CONNECT_TIMEOUT = 30 * 1000;
+
+    private static final ScheduledExecutorService EVICTOR = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "chat2db-ssh-evictor");
+        thread.setDaemon(true);
+        return thread;
+    });
+
     static {
         try {
             Security.insertProviderAt(new BouncyCastleProvider(), 1);
@@ -28,6 +56,76 @@ public class SSHManager {
         }catch (Exception e){
             log.error("SSHManager init error",e);
         }
+        EVICTOR.scheduleWithFixedDelay(SSHManager::evict, 60, 60, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Forward a local port to ssh.rHost:ssh.rPort through a shared session, the session is authenticated once and
+     * kept alive. The local port is set into ssh.localPort, every call must be paired with {@link #release(SSHInfo)}.
+     *
+     * @param ssh
+     * @return
+     */
+    public static Session acquire(SSHInfo ssh) {
+        while (true) {
+            SSHTunnel tunnel = TUNNEL_MAP.computeIfAbsent(tunnelKey(ssh), key -> new SSHTunnel(ssh));
+            Session session = tunnel.acquire(ssh);
+            if (session != null) {
+                return session;
+            }
+            // Closed by the evictor in the meantime
+            TUNNEL_MAP.remove(tunnelKey(ssh), tunnel);
+        }
+    }
+
+    /**
+     * Give back a port forwarding, it is closed once it has been unused for the idle timeout.
+     *
+     * @param ssh
+     */
+    public static void release(SSHInfo ssh) {
+        if (ssh == null || !ssh.isUse()) {
+            return;
+        }
+        SSHTunnel tunnel = TUNNEL_MAP.get(tunnelKey(ssh));
+        if (tunnel != null) {
+            tunnel.release(ssh);
+        }
+    }
+
+    static Session openSession(SSHInfo ssh) {
+        Session session;
+        try {
+            if (StringUtils.isNotBlank(ssh.getKeyFile())) {
+                byte[] passphrase = StringUtils.isNotBlank(ssh.getPassphrase()) ? StringUtils.getBytes(
+                    ssh.getPassphrase(),
+                    "UTF-8") : null;
+                session = JschUtil.createSession(ssh.getHostName(), Integer.parseInt(ssh.getPort()),
+                    ssh.getUserName(), ssh.getKeyFile(), passphrase);
+            } else {
+                session = JschUtil.createSession(ssh.getHostName(), Integer.parseInt(ssh.getPort()),
+                    ssh.getUserName(), ssh.getPassword());
+            }
+            session.setServerAliveInterval(KEEP_ALIVE_INTERVAL);
+            session.setServerAliveCountMax(3);
+            session.connect(CONNECT_TIMEOUT);
+            return session;
+        } catch (Exception e) {
+            throw new ConnectionException("connection.ssh.error", null, e);
+        }
+    }
+
+    private static void evict() {
+        try {
+            TUNNEL_MAP.values().removeIf(tunnel -> tunnel.evict(IDLE_TIMEOUT));
+        } catch (Throwable t) {
+            log.error("evict ssh tunnel error", t);
+        }
+    }
+
+    private static String tunnelKey(SSHInfo ssh) {
+        return ssh.getUserName() + "@" + ssh.getHostName() + ":" + ssh.getPort() + "|" + ssh.getKeyFile() + "|"
+            + ssh.getPassphrase() + "|" + ssh.getPassword();
     }
 
     public static Session getSSHSession(SSHInfo ssh) {
@@ -65,6 +163,8 @@ public class SSHManager {
     }
 
     public static void close() {
+        TUNNEL_MAP.values().forEach(SSHTunnel::close);
+        TUNNEL_MAP.clear();
         JschUtil.closeAll();
     }
 }
\ No newline at end of file
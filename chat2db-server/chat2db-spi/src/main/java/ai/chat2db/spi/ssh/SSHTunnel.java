@@ -0,0 +1,169 @@
+package ai.chat2db.spi.ssh;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+import ai.chat2db.server.tools.common.exception.ConnectionException;
+import ai.chat2db.spi.model.SSHInfo;
+import cn.hutool.core.net.NetUtil;
+import cn.hutool.extra.ssh.JschUtil;
+import com.jcraft.jsch.Session;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * One authenticated ssh session shared by all the port forwardings that go through the same jump server.
+ * Each forwarding is reference counted and removed after it has been unused for a while.
+ */
+@Slf4j
+public class SSHTunnel {
+
+    private final String name;
+
+    private final SSHInfo ssh;
+
+    private final Map<String, Forward> forwardMap = new HashMap<>();
+
+    private Session session;
+
+    private boolean closed;
+
+    public SSHTunnel(SSHInfo ssh) {
+        this.ssh = ssh;
+        this.name = ssh.getUserName() + "@" + ssh.getHostName() + ":" + ssh.getPort();
+    }
+
+    /**
+     * Forward a local port to rHost:rPort of the given ssh info, the local port is set back into the ssh info.
+     *
+     * @param target
+     * @return null if the tunnel has been closed in the meantime
+     */
+    public synchronized Session acquire(SSHInfo target) {
+        if (closed) {
+            return null;
+        }
+        ensureConnected();
+        String forwardKey = forwardKey(target);
+        Forward forward = forwardMap.get(forwardKey);
+        if (forward == null) {
+            int localPort = StringUtils.isNotBlank(target.getLocalPort()) ? Integer.parseInt(target.getLocalPort())
+                : NetUtil.getUsableLocalPort();
+            bind(localPort, target.getRHost(), Integer.parseInt(target.getRPort()));
+            forward = new Forward(localPort, target.getRHost(), Integer.parseInt(target.getRPort()));
+            forwardMap.put(forwardKey, forward);
+        }
+        forward.refCount++;
+        forward.lastUsedTime = System.currentTimeMillis();
+        target.setLocalPort(String.valueOf(forward.localPort));
+        return session;
+    }
+
+    public synchronized void release(SSHInfo target) {
+        Forward forward = forwardMap.get(forwardKey(target));
+        if (forward != null && forward.refCount > 0) {
+            forward.refCount--;
+            forward.lastUsedTime = System.currentTimeMillis();
+        }
+    }
+
+    /**
+     * Remove the forwardings that have not been used for idleTimeout.
+     *
+     * @param idleTimeout
+     * @return true if nothing is forwarded any more and the session has been closed
+     */
+    public synchronized boolean evict(long idleTimeout) {
+        long now = System.currentTimeMillis();
+        Iterator<Forward> iterator = forwardMap.values().iterator();
+        while (iterator.hasNext()) {
+            Forward forward = iterator.next();
+            if (forward.refCount <= 0 && now - forward.lastUsedTime > idleTimeout) {
+                unbind(forward.localPort);
+                iterator.remove();
+            }
+        }
+        if (forwardMap.isEmpty()) {
+            close();
+            return true;
+        }
+        return false;
+    }
+
+    public synchronized void close() {
+        closed = true;
+        if (session != null) {
+            log.info("close ssh tunnel {}", name);
+            JschUtil.close(session);
+            session = null;
+        }
+        forwardMap.clear();
+    }
+
+    /**
+     * Reconnect if the session is lost and bind the existing forwardings again on their old local ports, so that
+     * the urls of the pooled connections stay valid.
+     */
+    private void ensureConnected() {
+        if (session != null && session.isConnected()) {
+            return;
+        }
+        if (session != null) {
+            log.warn("ssh tunnel {} is disconnected, reconnecting", name);
+            JschUtil.close(session);
+        }
+        session = SSHManager.openSession(ssh);
+        Iterator<Forward> iterator = forwardMap.values().iterator();
+        while (iterator.hasNext()) {
+            Forward forward = iterator.next();
+            try {
+                bind(forward.localPort, forward.rHost, forward.rPort);
+            } catch (ConnectionException e) {
+                log.warn("rebind local port {} of ssh tunnel {} error", forward.localPort, name, e);
+                iterator.remove();
+            }
+        }
+    }
+
+    private void bind(int localPort, String rHost, int rPort) {
+        try {
+            session.setPortForwardingL(localPort, rHost, rPort);
+        } catch (Exception e) {
+            throw new ConnectionException("connection.ssh.error", null, e);
+        }
+    }
+
+    private void unbind(int localPort) {
+        if (session == null || !session.isConnected()) {
+            return;
+        }
+        try {
+            session.delPortForwardingL(localPort);
+        } catch (Exception e) {
+        }
+    }
+
+    private static String forwardKey(SSHInfo target) {
+        return target.getRHost() + ":" + target.getRPort();
+    }
+
+    private static class Forward {
+
+        private final int localPort;
+
+        private final String rHost;
+
+        private final int rPort;
+
+        private int refCount;
+
+        private long lastUsedTime;
+
+        private Forward(int localPort, String rHost, int rPort) {
+            this.localPort = localPort;
+            this.rHost = rHost;
+            this.rPort = rPort;
+        }
+    }
+}
@@ -5,6 +5,7 @@ import java.sql.Blob;
 import java.sql.Clob;
 import java.sql.Connection;
 import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
 import java.sql.Types;
 import java.util.Map;
@@ -12,10 +13,13 @@ import java.util.Map;
 import com.alibaba.druid.DbType;
 
 import ai.chat2db.server.tools.common.util.I18nUtils;
+import ai.chat2db.spi.ColumnReader;
 import ai.chat2db.spi.config.DriverConfig;
 import ai.chat2db.spi.enums.DataTypeEnum;
+import ai.chat2db.spi.jdbc.DefaultColumnReader;
 import ai.chat2db.spi.model.DataSourceConnect;
 import ai.chat2db.spi.model.SSHInfo;
+import ai.chat2db.spi.sql.Chat2DBContext;
 import ai.chat2db.spi.sql.IDriverManager;
 import ai.chat2db.spi.ssh.SSHManager;
 import cn.hutool.core.io.unit.DataSizeUtil;
@@ -113,6 +117,77 @@ public class JdbcUtils {
         }
     }
 
+    /**
+     * Resolve the reader of a result set column, the plugin of the current context is asked first.
+     *
+     * @param resultSetMetaData
+     * @param index
+     * @return
+     * @throws SQLException
+     */
+    public static ColumnReader resolveColumnReader(ResultSetMetaData resultSetMetaData, int index)
+        throws SQLException {
+        String typeName = resultSetMetaData.getColumnTypeName(index);
+        int type = resultSetMetaData.getColumnType(index);
+        if (Chat2DBContext.getConnectInfo() != null) {
+            ColumnReader columnReader = Chat2DBContext.getMetaData().getColumnReader(typeName, type);
+            if (columnReader != null) {
+                return columnReader;
+            }
+        }
+        String className = resultSetMetaData.getColumnClassName(index);
+        if ("[B".equals(className)) {
+            return DefaultColumnReader.LARGE_STRING;
+        }
+        switch (getTypeByTypeName(typeName, type)) {
+            case Types.TINYINT:
+            case Types.SMALLINT:
+            case Types.INTEGER:
+            case Types.BIGINT:
+                if (Long.class.getName().equals(className) || Integer.class.getName().equals(className)
+                    || Short.class.getName().equals(className) || Byte.class.getName().equals(className)) {
+                    return DefaultColumnReader.LONG;
+                }
+                return DefaultColumnReader.GENERIC;
+            case Types.REAL:
+            case Types.FLOAT:
+            case Types.DOUBLE:
+                if (Float.class.getName().equals(className)) {
+                    return DefaultColumnReader.FLOAT;
+                } else if (Double.class.getName().equals(className)) {
+                    return DefaultColumnReader.DOUBLE;
+                }
+                return DefaultColumnReader.GENERIC;
+            case Types.NUMERIC:
+            case Types.DECIMAL:
+                if (BigDecimal.class.getName().equals(className)) {
+                    return DefaultColumnReader.DECIMAL;
+                }
+                return DefaultColumnReader.GENERIC;
+            case Types.CHAR:
+            case Types.VARCHAR:
+            case Types.NCHAR:
+            case Types.NVARCHAR:
+            case Types.LONGVARCHAR:
+            case Types.LONGNVARCHAR:
+            case Types.BOOLEAN:
+            case Types.DATE:
+            case Types.TIME:
+            case Types.TIMESTAMP:
+                return DefaultColumnReader.STRING;
+            case Types.CLOB:
+            case Types.NCLOB:
+            case Types.BINARY:
+            case Types.VARBINARY:
+            case Types.LONGVARBINARY:
+                return DefaultColumnReader.LARGE_STRING;
+            case Types.BLOB:
+                return DefaultColumnReader.BLOB;
+            default:
+                return DefaultColumnReader.GENERIC;
+        }
+    }
+
     private static int getTypeByTypeName(String typeName, int type) {
         // [JDBC: SQLite driver uses VARCHAR value type for all LOBs]
         if (type == Types.OTHER || type == Types.VARCHAR) {
@@ -145,6 +220,19 @@ public class JdbcUtils {
         if (obj == null) {
             return null;
         }
+        return getResultSetValue(rs, index, obj, limitSize);
+    }
+
+    /**
+     * Convert the value that has already been read from the current row to its display string.
+     *
+     * @param rs
+     * @param index
+     * @param obj   the non null value of {@link ResultSet#getObject(int)}
+     * @param limitSize
+     * @return
+     */
+    public static String getResultSetValue(ResultSet rs, int index, Object obj, boolean limitSize) {
         try {
             if (obj instanceof BigDecimal bigDecimal) {
                 return bigDecimal.toPlainString();
@@ -170,11 +258,33 @@ public class JdbcUtils {
         if (blob == null) {
             return null;
         }
+        return blobString(readBlob(blob, limitSize));
+    }
+
+    /**
+     * Read the content of the blob, at most 256KB if limitSize
+     *
+     * @param blob
+     * @param limitSize
+     * @return
+     * @throws SQLException
+     */
+    public static byte[] readBlob(Blob blob, boolean limitSize) throws SQLException {
         int length = Math.toIntExact(blob.length());
         if (limitSize && length > MAX_RESULT_SIZE) {
             length = Math.toIntExact(MAX_RESULT_SIZE);
         }
-        byte[] data = blob.getBytes(1, length);
+        return blob.getBytes(1, length);
+    }
+
+    /**
+     * The display string of the blob content read by {@link #readBlob(Blob, boolean)}
+     *
+     * @param data
+     * @return
+     */
+    public static String blobString(byte[] data) {
+        int length = data.length;
         String result = new String(data);
 
         if (length > MAX_RESULT_SIZE) {
@@ -185,7 +295,16 @@ public class JdbcUtils {
         return result;
     }
 
-    private static String largeString(ResultSet rs, int index, boolean limitSize) throws SQLException {
+    /**
+     * Read the value as string, cut off at 256KB if limitSize
+     *
+     * @param rs
+     * @param index
+     * @param limitSize
+     * @return
+     * @throws SQLException
+     */
+    public static String largeString(ResultSet rs, int index, boolean limitSize) throws SQLException {
         String result = rs.getString(index);
         if (result == null) {
             return null;
@@ -3,78 +3,290 @@ package ai.chat2db.spi.util;
 
 import ai.chat2db.server.tools.base.excption.BusinessException;
 import ai.chat2db.spi.enums.DataTypeEnum;
+import ai.chat2db.spi.enums.SqlTypeEnum;
+import ai.chat2db.spi.model.AnalyzedStatement;
 import ai.chat2db.spi.model.ExecuteResult;
 import com.alibaba.druid.DbType;
 import com.alibaba.druid.sql.SQLUtils;
 import com.alibaba.druid.sql.ast.SQLStatement;
 import com.alibaba.druid.sql.ast.statement.SQLExprTableSource;
 import com.alibaba.druid.sql.ast.statement.SQLJoinTableSource;
+import com.alibaba.druid.sql.ast.statement.SQLSelectQueryBlock;
 import com.alibaba.druid.sql.ast.statement.SQLSelectStatement;
 import com.alibaba.druid.sql.ast.statement.SQLTableSource;
 import com.alibaba.druid.sql.parser.SQLParserUtils;
-import net.sf.jsqlparser.expression.BinaryExpression;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hashing;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.extern.slf4j.Slf4j;
+import net.sf.jsqlparser.expression.Expression;
 import net.sf.jsqlparser.expression.Function;
+import net.sf.jsqlparser.expression.LongValue;
+import net.sf.jsqlparser.expression.Parenthesis;
+import net.sf.jsqlparser.expression.StringValue;
+import net.sf.jsqlparser.expression.operators.conditional.AndExpression;
+import net.sf.jsqlparser.expression.operators.conditional.OrExpression;
+import net.sf.jsqlparser.expression.operators.relational.EqualsTo;
+import net.sf.jsqlparser.expression.operators.relational.GreaterThan;
 import net.sf.jsqlparser.parser.CCJSqlParserUtil;
+import net.sf.jsqlparser.schema.Column;
+import net.sf.jsqlparser.schema.Table;
 import net.sf.jsqlparser.statement.Statement;
 import net.sf.jsqlparser.statement.Statements;
 import net.sf.jsqlparser.statement.select.*;
 import org.apache.commons.lang3.StringUtils;
 
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 /**
  * @author jipengfei
  * @version : SqlUtils.java
  */
+@Slf4j
 public class SqlUtils {
 
     public static final String DEFAULT_TABLE_NAME = "table1";
 
-    public static void buildCanEditResult(String sql, DbType dbType, ExecuteResult executeResult) {
+    /**
+     * Bytes of an object header and its references, added to the weight of each cached object
+     */
+    private static final int OBJECT_WEIGHT = 64;
+
+    /**
+     * Parsed scripts, keyed by db type and the hash of the sql, weighed by the estimated bytes of the key and the
+     * statements
+     */
+    private static final Cache<AnalyzeKey, List<AnalyzedStatement>> ANALYZE_CACHE = CacheBuilder.newBuilder()
+        .maximumWeight(32 * 1024 * 1024)
+        .weigher((AnalyzeKey key, List<AnalyzedStatement> value) -> weigh(value))
+        .expireAfterAccess(30, TimeUnit.MINUTES)
+        .build();
+
+    /**
+     * Split the sql into statements and analyze each of them once, re-running the same sql hits the cache.
+     *
+     * @param sql
+     * @param dbType
+     * @return
+     */
+    public static List<AnalyzedStatement> analyze(String sql, DbType dbType) {
+        AnalyzeKey key = new AnalyzeKey(dbType, sql.length(),
+            Hashing.sha256().hashString(sql, StandardCharsets.UTF_8));
+        List<AnalyzedStatement> list = ANALYZE_CACHE.getIfPresent(key);
+        if (list == null) {
+            list = Collections.unmodifiableList(doAnalyze(sql, dbType));
+            ANALYZE_CACHE.put(key, list);
+        }
+        return list;
+    }
+
+    private static int weigh(List<AnalyzedStatement> list) {
+        long weight = OBJECT_WEIGHT * 2L;
+        for (AnalyzedStatement statement : list) {
+            weight += OBJECT_WEIGHT + 2L * StringUtils.length(statement.getSql())
+                + 2L * StringUtils.length(statement.getTableName());
+        }
+        return (int)Math.min(weight, Integer.MAX_VALUE);
+    }
+
+    private static List<AnalyzedStatement> doAnalyze(String sql, DbType dbType) {
+        List<AnalyzedStatement> list = new ArrayList<>();
+        try {
+            Statements statements = CCJSqlParserUtil.parseStatements(sql);
+            // 遍历每个语句
+            for (Statement stmt : statements.getStatements()) {
+                String statementSql = stmt.toString();
+                list.add(analyze(stmt, statementSql, dbType));
+            }
+        } catch (Exception e) {
+            for (String statementSql : SQLParserUtils.splitAndRemoveComment(sql, dbType)) {
+                list.add(analyzeSingle(statementSql, dbType));
+            }
+        }
+        return list;
+    }
+
+    private static AnalyzedStatement analyzeSingle(String sql, DbType dbType) {
+        Statement statement;
+        try {
+            statement = CCJSqlParserUtil.parse(sql);
+        } catch (Exception e) {
+            return analyzeByDruid(sql, dbType);
+        }
+        return analyze(statement, sql, dbType);
+    }
+
+    private static AnalyzedStatement analyze(Statement statement, String sql, DbType dbType) {
+        AnalyzedStatement.AnalyzedStatementBuilder builder = AnalyzedStatement.builder()
+            .sql(sql)
+            .sqlType(SqlTypeEnum.UNKNOWN.getCode());
+        if (!(statement instanceof Select select)) {
+            return builder.build();
+        }
+        builder.sqlType(SqlTypeEnum.SELECT.getCode());
+        if (select.getSelectBody() instanceof PlainSelect plainSelect) {
+            builder.pageLimit(hasPageLimit(plainSelect, sql, dbType));
+            fillCanEdit(plainSelect, builder);
+        }
+        return builder.build();
+    }
+
+    private static AnalyzedStatement analyzeByDruid(String sql, DbType dbType) {
+        AnalyzedStatement.AnalyzedStatementBuilder builder = AnalyzedStatement.builder()
+            .sql(sql)
+            .sqlType(SqlTypeEnum.UNKNOWN.getCode());
         try {
-            Statement statement = CCJSqlParserUtil.parse(sql);
-            if (statement instanceof Select) {
-                Select select = (Select) statement;
-                PlainSelect plainSelect = (PlainSelect) select.getSelectBody();
-                if (plainSelect.getJoins() == null && plainSelect.getFromItem() != null) {
-                    for (SelectItem item : plainSelect.getSelectItems()) {
-                        if (item instanceof SelectExpressionItem) {
-                            SelectExpressionItem expressionItem = (SelectExpressionItem) item;
-                            if (expressionItem.getAlias() != null) {
-                                //canEdit = false; // 找到了一个别名
-                                executeResult.setCanEdit(false);
-                                return;
-                            }
-                            if (item instanceof SelectExpressionItem) {
-                                SelectExpressionItem selectExpressionItem = (SelectExpressionItem) item;
-                                // 如果表达式是一个函数
-                                if (selectExpressionItem.getExpression() instanceof Function) {
-                                    Function function = (Function) selectExpressionItem.getExpression();
-                                    // 检查函数是否为 "COUNT"
-                                    if ("COUNT".equalsIgnoreCase(function.getName())) {
-                                        executeResult.setCanEdit(false);
-                                        return;                                    }
-                                }
-                            }
-                        }
-                    }
-                    executeResult.setCanEdit(true);
-                    SQLStatement sqlStatement = SQLUtils.parseSingleStatement(sql, dbType);
-                    if ((sqlStatement instanceof SQLSelectStatement sqlSelectStatement)) {
-                        SQLExprTableSource sqlExprTableSource = (SQLExprTableSource) getSQLExprTableSource(
-                                sqlSelectStatement.getSelect().getFirstQueryBlock().getFrom());
-                        executeResult.setTableName(getMetaDataTableName(sqlExprTableSource.getCatalog(), sqlExprTableSource.getSchema(), sqlExprTableSource.getTableName()));
-                    }
-                }else {
-                    executeResult.setCanEdit(false);
+            SQLStatement sqlStatement = SQLUtils.parseSingleStatement(sql, dbType);
+            if (sqlStatement instanceof SQLSelectStatement sqlSelectStatement) {
+                builder.sqlType(SqlTypeEnum.SELECT.getCode());
+                SQLSelectQueryBlock queryBlock = sqlSelectStatement.getSelect().getQueryBlock();
+                builder.pageLimit(queryBlock != null && queryBlock.getLimit() != null
+                    || DbType.oracle.equals(dbType) && StringUtils.containsIgnoreCase(sql, "ROWNUM"));
+            }
+        } catch (Exception e) {
+            log.warn("解析sql失败:{}", sql, e);
+        }
+        return builder.build();
+    }
+
+    private static void fillCanEdit(PlainSelect plainSelect, AnalyzedStatement.AnalyzedStatementBuilder builder) {
+        if (plainSelect.getJoins() != null || !(plainSelect.getFromItem() instanceof Table table)) {
+            return;
+        }
+        for (SelectItem item : plainSelect.getSelectItems()) {
+            if (item instanceof SelectExpressionItem expressionItem) {
+                // 找到了一个别名
+                if (expressionItem.getAlias() != null) {
+                    return;
                 }
+                // 如果表达式是一个COUNT函数
+                if (expressionItem.getExpression() instanceof Function function && "COUNT".equalsIgnoreCase(
+                    function.getName())) {
+                    return;
+                }
+            }
+        }
+        String databaseName = table.getDatabase() != null ? table.getDatabase().getDatabaseName() : null;
+        builder.canEdit(true);
+        builder.tableName(getMetaDataTableName(databaseName, table.getSchemaName(), table.getName()));
+    }
+
+    public static void buildCanEditResult(String sql, DbType dbType, ExecuteResult executeResult) {
+        AnalyzedStatement analyzedStatement = analyzeSingle(sql, dbType);
+        executeResult.setCanEdit(analyzedStatement.isCanEdit());
+        if (analyzedStatement.isCanEdit()) {
+            executeResult.setTableName(analyzedStatement.getTableName());
+        }
+    }
+
+    /**
+     * The table of a query that returns every row of one table, whose count is the row count of the table.
+     *
+     * @param sql
+     * @return null if the query filters, groups, joins or limits the rows, or cannot be parsed
+     */
+    public static ai.chat2db.spi.model.Table getCountTable(String sql) {
+        PlainSelect plainSelect = parseSingleTableSelect(sql);
+        if (plainSelect == null || plainSelect.getWhere() != null) {
+            return null;
+        }
+        return toTable((Table) plainSelect.getFromItem());
+    }
+
+    /**
+     * The table of a query that reads the rows of one table as they are, filtered or not, which can be paged by the
+     * key of the table.
+     *
+     * @param sql
+     * @return null if the query groups, joins, sorts or limits the rows, or cannot be parsed
+     */
+    public static ai.chat2db.spi.model.Table getBrowseTable(String sql) {
+        PlainSelect plainSelect = parseSingleTableSelect(sql);
+        if (plainSelect == null || plainSelect.getOrderByElements() != null) {
+            return null;
+        }
+        return toTable((Table) plainSelect.getFromItem());
+    }
+
+    /**
+     * Sort a query found by {@link #getBrowseTable} by the key of the table, and read only the rows after the given
+     * key. The rows after (a, b) are read by a &gt; ? OR (a = ? AND b &gt; ?), which every database supports.
+     *
+     * @param sql
+     * @param keyColumns quoted names of the key columns
+     * @param lastKey    key of the last row read, each value a Number or String, null to read from the first row
+     * @return
+     */
+    public static String orderByKey(String sql, List<String> keyColumns, List<Object> lastKey) {
+        PlainSelect plainSelect = parseSingleTableSelect(sql);
+        if (plainSelect == null) {
+            throw new BusinessException("dataSource.sqlAnalysisError");
+        }
+        List<OrderByElement> orderByElements = new ArrayList<>(keyColumns.size());
+        for (String keyColumn : keyColumns) {
+            OrderByElement orderByElement = new OrderByElement();
+            orderByElement.setExpression(new Column(keyColumn));
+            orderByElements.add(orderByElement);
+        }
+        plainSelect.setOrderByElements(orderByElements);
+        if (lastKey != null) {
+            Expression after = null;
+            for (int i = keyColumns.size() - 1; i >= 0; i--) {
+                Column column = new Column(keyColumns.get(i));
+                Expression value = lastKey.get(i) instanceof Number number ? new LongValue(number.toString())
+                    : new StringValue("'" + StringUtils.replace(String.valueOf(lastKey.get(i)), "'", "''") + "'");
+                GreaterThan greater = new GreaterThan();
+                greater.setLeftExpression(column);
+                greater.setRightExpression(value);
+                after = after == null ? greater : new Parenthesis(
+                    new OrExpression(greater, new AndExpression(new EqualsTo(column, value), after)));
             }
+            plainSelect.setWhere(plainSelect.getWhere() == null ? after
+                : new AndExpression(new Parenthesis(plainSelect.getWhere()), after));
+        }
+        return plainSelect.toString();
+    }
+
+    private static PlainSelect parseSingleTableSelect(String sql) {
+        Statement statement;
+        try {
+            statement = CCJSqlParserUtil.parse(sql);
         } catch (Exception e) {
-            executeResult.setCanEdit(false);
+            return null;
+        }
+        if (!(statement instanceof Select select) || select.getWithItemsList() != null
+            || !(select.getSelectBody() instanceof PlainSelect plainSelect)) {
+            return null;
+        }
+        if (!(plainSelect.getFromItem() instanceof Table) || plainSelect.getJoins() != null
+            || plainSelect.getGroupBy() != null || plainSelect.getHaving() != null
+            || plainSelect.getDistinct() != null || hasPageLimit(plainSelect, sql, null)) {
+            return null;
+        }
+        for (SelectItem item : plainSelect.getSelectItems()) {
+            if (item instanceof SelectExpressionItem expressionItem && !(expressionItem.getExpression()
+                instanceof Column)) {
+                return null;
+            }
         }
+        return plainSelect;
+    }
+
+    private static ai.chat2db.spi.model.Table toTable(Table table) {
+        return ai.chat2db.spi.model.Table.builder()
+            .databaseName(table.getDatabase() != null ? table.getDatabase().getDatabaseName() : null)
+            .schemaName(table.getSchemaName())
+            .name(table.getName())
+            .build();
     }
 
     private static String getMetaDataTableName(String... names) {
@@ -108,17 +320,7 @@ public class SqlUtils {
     }
 
     public static List<String> parse(String sql, DbType dbType) {
-        List<String> list = new ArrayList<>();
-        try {
-            Statements statements = CCJSqlParserUtil.parseStatements(sql);
-            // 遍历每个语句
-            for (Statement stmt : statements.getStatements()) {
-                list.add(stmt.toString());
-            }
-        } catch (Exception e) {
-            list = SQLParserUtils.splitAndRemoveComment(sql, dbType);
-        }
-        return list;
+        return analyze(sql, dbType).stream().map(AnalyzedStatement::getSql).collect(Collectors.toList());
     }
 
     public static String getSqlValue(String value, String dataType) {
@@ -130,27 +332,32 @@ public class SqlUtils {
     }
 
     public static boolean hasPageLimit(String sql, DbType dbType) {
-        try {
-            Statement statement = CCJSqlParserUtil.parse(sql);
-            if (statement instanceof Select) {
-                Select selectStatement = (Select) statement;
-                SelectBody selectBody = selectStatement.getSelectBody();
-                // 检查常见的分页方法
-                if (selectBody instanceof PlainSelect) {
-                    PlainSelect plainSelect = (PlainSelect) selectBody;
-                    // 检查 LIMIT
-                    if (plainSelect.getLimit() != null || plainSelect.getOffset() != null || plainSelect.getTop() != null || plainSelect.getFetch() != null) {
-                        return true;
-                    }
-                    if (DbType.oracle.equals(dbType)) {
-                        return sql.contains("ROWNUM") || sql.contains("rownum");
-                    }
-                }
-            }
-        } catch (Exception e) {
-            return false;
+        return analyzeSingle(sql, dbType).isPageLimit();
+    }
+
+    private static boolean hasPageLimit(PlainSelect plainSelect, String sql, DbType dbType) {
+        // 检查 LIMIT
+        if (plainSelect.getLimit() != null || plainSelect.getOffset() != null || plainSelect.getTop() != null
+            || plainSelect.getFetch() != null) {
+            return true;
+        }
+        if (DbType.oracle.equals(dbType)) {
+            return sql.contains("ROWNUM") || sql.contains("rownum");
         }
         return false;
     }
 
+    /**
+     * Key of a parsed script. The sql itself is not kept, the length is compared as well as the hash.
+     */
+    @EqualsAndHashCode
+    @AllArgsConstructor
+    private static class AnalyzeKey {
+
+        private final DbType dbType;
+
+        private final int length;
+
+        private final HashCode hash;
+    }
 }
\ No newline at end of file